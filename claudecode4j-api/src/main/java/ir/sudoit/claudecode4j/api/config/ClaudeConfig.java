@@ -47,6 +47,11 @@ public interface ClaudeConfig {
         return false;
     }
 
+    /** History kept by sessions created without explicit retention settings. */
+    default HistoryRetention historyRetention() {
+        return HistoryRetention.unbounded();
+    }
+
     static ClaudeConfig defaults() {
         return new ClaudeConfig() {
             @Override
@@ -65,6 +70,7 @@ public interface ClaudeConfig {
         private int concurrencyLimit = DEFAULT_CONCURRENCY_LIMIT;
         private Duration defaultTimeout = DEFAULT_TIMEOUT;
         private boolean dangerouslySkipPermissions = false;
+        private HistoryRetention historyRetention = HistoryRetention.unbounded();
 
         private Builder() {}
 
@@ -88,11 +94,17 @@ public interface ClaudeConfig {
             return this;
         }
 
+        public Builder historyRetention(HistoryRetention historyRetention) {
+            this.historyRetention = historyRetention;
+            return this;
+        }
+
         public ClaudeConfig build() {
             final var bp = this.binaryPath;
             final var cl = this.concurrencyLimit;
             final var dt = this.defaultTimeout;
             final var dsp = this.dangerouslySkipPermissions;
+            final var hr = this.historyRetention;
 
             return new ClaudeConfig() {
                 @Override
@@ -114,6 +126,11 @@ public interface ClaudeConfig {
                 public boolean dangerouslySkipPermissions() {
                     return dsp;
                 }
+
+                @Override
+                public HistoryRetention historyRetention() {
+                    return hr;
+                }
             };
         }
     }
@@ -0,0 +1,76 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.config;
+
+import ir.sudoit.claudecode4j.api.session.SessionStore;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * How much conversation history a session keeps in memory.
+ *
+ * <p>A session keeps at most {@code maxTurns} responses, dropping the oldest first. With {@code summarize}, streamed
+ * responses are kept without their raw events; content, token usage, timing and the CLI session ID remain. Turns
+ * dropped from memory are appended to the {@code spillStore}, if any, under the session's ID. Sessions append them in
+ * batches in the background and the remainder on close, so the store may briefly lag behind the session.
+ *
+ * <p>Spilling is best effort: if the store fails, the turns of that batch are lost and only a {@code WARNING} is
+ * logged; the session itself carries on.
+ *
+ * @param maxTurns the number of responses kept in memory, at least {@code 1}
+ * @param summarize whether to drop the raw stream events of kept responses
+ * @param spillStore where dropped turns are appended, or {@code null} to discard them
+ */
+public record HistoryRetention(int maxTurns, boolean summarize, @Nullable SessionStore spillStore) {
+
+    public HistoryRetention {
+        if (maxTurns < 1) {
+            throw new IllegalArgumentException("maxTurns must be positive");
+        }
+    }
+
+    /** Keeps every response in full, the behaviour of sessions without retention settings. */
+    public static HistoryRetention unbounded() {
+        return new HistoryRetention(Integer.MAX_VALUE, false, null);
+    }
+
+    /** Keeps summaries of the last {@code maxTurns} responses. */
+    public static HistoryRetention lastTurns(int maxTurns) {
+        return new HistoryRetention(maxTurns, true, null);
+    }
+
+    /** Returns a copy that also appends dropped turns to {@code spillStore}. */
+    public HistoryRetention spillTo(SessionStore spillStore) {
+        return new HistoryRetention(maxTurns, summarize, spillStore);
+    }
+
+    /** Returns a copy that keeps or drops raw stream events. */
+    public HistoryRetention withSummaries(boolean summarize) {
+        return new HistoryRetention(maxTurns, summarize, spillStore);
+    }
+
+    /** Returns {@code true} if no response is ever dropped or summarised. */
+    public boolean isUnbounded() {
+        return maxTurns == Integer.MAX_VALUE && !summarize;
+    }
+}
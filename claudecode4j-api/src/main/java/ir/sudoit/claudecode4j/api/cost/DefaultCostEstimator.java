@@ -95,7 +95,13 @@ public final class DefaultCostEstimator implements CostEstimator {
         long inputTokens = 0;
         long outputTokens = 0;
 
-        if (response instanceof TextResponse textResponse) {
+        if (response instanceof TextResponse textResponse && textResponse.outputTokens() != null) {
+            // The CLI reported its usage; tokensUsed is the total of input and output
+            outputTokens = textResponse.outputTokens();
+            inputTokens = textResponse.tokensUsed() != null
+                    ? Math.max(0, textResponse.tokensUsed() - outputTokens)
+                    : outputTokens / 2;
+        } else if (response instanceof TextResponse textResponse) {
             // Use actual token count if available
             if (textResponse.tokensUsed() != null) {
                 outputTokens = textResponse.tokensUsed();
@@ -28,24 +28,50 @@ import java.util.List;
 import java.util.Objects;
 import org.jspecify.annotations.Nullable;
 
+/**
+ * A prompt for the Claude CLI.
+ *
+ * <p>The prompt text is either {@link #text()} or, for large inputs, a {@link #source()} that is streamed to the CLI's
+ * stdin. When a source is set the CLI reads only the source; {@code text} is then informational and empty unless set.
+ */
 public record Prompt(
         String text,
         @Nullable String systemPrompt,
         List<Path> contextFiles,
         @Nullable Path workingDirectory,
-        @Nullable String agentName) {
+        @Nullable String agentName,
+        @Nullable PromptSource source) {
     public Prompt {
         Objects.requireNonNull(text, "text");
-        if (text.isBlank()) {
+        if (source == null && text.isBlank()) {
             throw new IllegalArgumentException("text must not be blank");
         }
         contextFiles = contextFiles == null ? List.of() : List.copyOf(contextFiles);
     }
 
+    public Prompt(
+            String text,
+            @Nullable String systemPrompt,
+            List<Path> contextFiles,
+            @Nullable Path workingDirectory,
+            @Nullable String agentName) {
+        this(text, systemPrompt, contextFiles, workingDirectory, agentName, null);
+    }
+
     public static Prompt of(String text) {
         return new Prompt(text, null, List.of(), null, null);
     }
 
+    /** Creates a prompt whose text is streamed from {@code source}. */
+    public static Prompt of(PromptSource source) {
+        return new Prompt("", null, List.of(), null, null, source);
+    }
+
+    /** Returns {@code true} if the text is streamed from {@link #source()} rather than held in {@link #text()}. */
+    public boolean isStreamed() {
+        return source != null;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -56,6 +82,7 @@ public record Prompt(
         private List<Path> contextFiles = List.of();
         private @Nullable Path workingDirectory;
         private @Nullable String agentName;
+        private @Nullable PromptSource source;
 
         private Builder() {}
 
@@ -84,11 +111,21 @@ public record Prompt(
             return this;
         }
 
+        /** Streams the prompt text from {@code source} instead of {@link #text(String)}. */
+        public Builder source(@Nullable PromptSource source) {
+            this.source = source;
+            return this;
+        }
+
         public Prompt build() {
+            if (source != null) {
+                return new Prompt(
+                        text != null ? text : "", systemPrompt, contextFiles, workingDirectory, agentName, source);
+            }
             if (text == null) {
                 throw new IllegalStateException("text is required");
             }
-            return new Prompt(text, systemPrompt, contextFiles, workingDirectory, agentName);
+            return new Prompt(text, systemPrompt, contextFiles, workingDirectory, agentName, null);
         }
     }
 }
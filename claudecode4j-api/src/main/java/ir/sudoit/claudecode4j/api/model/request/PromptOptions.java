@@ -37,7 +37,8 @@ public record PromptOptions(
         boolean printMode,
         @Nullable Integer maxTurns,
         List<String> allowedTools,
-        List<String> disallowedTools) {
+        List<String> disallowedTools,
+        @Nullable String resumeSessionId) {
     public static final Duration DEFAULT_TIMEOUT = Duration.ofMinutes(5);
 
     public PromptOptions {
@@ -46,6 +47,29 @@ public record PromptOptions(
         disallowedTools = disallowedTools != null ? List.copyOf(disallowedTools) : List.of();
     }
 
+    public PromptOptions(
+            @Nullable Duration timeout,
+            OutputFormat outputFormat,
+            @Nullable String model,
+            boolean dangerouslySkipPermissions,
+            @Nullable PermissionMode permissionMode,
+            boolean printMode,
+            @Nullable Integer maxTurns,
+            List<String> allowedTools,
+            List<String> disallowedTools) {
+        this(
+                timeout,
+                outputFormat,
+                model,
+                dangerouslySkipPermissions,
+                permissionMode,
+                printMode,
+                maxTurns,
+                allowedTools,
+                disallowedTools,
+                null);
+    }
+
     public static PromptOptions defaults() {
         return new PromptOptions(
                 DEFAULT_TIMEOUT, OutputFormat.STREAM_JSON, null, false, null, false, null, List.of(), List.of());
@@ -65,6 +89,7 @@ public record PromptOptions(
         private @Nullable Integer maxTurns;
         private List<String> allowedTools = List.of();
         private List<String> disallowedTools = List.of();
+        private @Nullable String resumeSessionId;
 
         private Builder() {}
 
@@ -123,6 +148,12 @@ public record PromptOptions(
             return this;
         }
 
+        /** Continues the CLI session with this ID (the {@code session_id} of an earlier result) instead of starting one. */
+        public Builder resumeSessionId(@Nullable String resumeSessionId) {
+            this.resumeSessionId = resumeSessionId;
+            return this;
+        }
+
         public PromptOptions build() {
             return new PromptOptions(
                     timeout,
@@ -133,7 +164,8 @@ public record PromptOptions(
                     printMode,
                     maxTurns,
                     allowedTools,
-                    disallowedTools);
+                    disallowedTools,
+                    resumeSessionId);
         }
     }
 }
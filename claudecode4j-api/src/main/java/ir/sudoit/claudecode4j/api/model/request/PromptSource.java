@@ -0,0 +1,149 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.model.request;
+
+import ir.sudoit.claudecode4j.api.template.CompiledTemplate;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Prompt text written straight to the CLI's stdin instead of being held as one {@link String}.
+ *
+ * <p>Files are copied with {@link FileChannel#transferTo}, streams with {@link InputStream#transferTo}, and templates
+ * are rendered into the pipe segment by segment, so a multi-megabyte prompt is never materialized on the heap. The
+ * bytes written must be UTF-8.
+ *
+ * @see Prompt#of(PromptSource)
+ */
+@FunctionalInterface
+public interface PromptSource {
+
+    /**
+     * Writes the prompt text to {@code out}. Does not close {@code out}.
+     *
+     * @param out the destination, usually the process's stdin
+     * @throws IOException if reading the source or writing fails
+     */
+    void transferTo(OutputStream out) throws IOException;
+
+    /** Returns the length in bytes if known up front, otherwise {@code -1}. */
+    default long length() {
+        return -1;
+    }
+
+    /**
+     * Returns a source that encodes {@code text} while writing, without an intermediate byte array.
+     *
+     * @param text the prompt text
+     * @return the source
+     */
+    static PromptSource of(String text) {
+        return out -> {
+            var writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            writer.write(text);
+            writer.flush();
+        };
+    }
+
+    /**
+     * Returns a source that copies a UTF-8 file. The file is read each time the source is written.
+     *
+     * @param file the file holding the prompt text
+     * @return the source
+     */
+    static PromptSource of(Path file) {
+        return new PromptSource() {
+            @Override
+            public void transferTo(OutputStream out) throws IOException {
+                try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    var target = Channels.newChannel(out);
+                    var size = channel.size();
+                    var position = 0L;
+                    while (position < size) {
+                        var transferred = channel.transferTo(position, size - position, target);
+                        if (transferred <= 0) {
+                            break;
+                        }
+                        position += transferred;
+                    }
+                }
+            }
+
+            @Override
+            public long length() {
+                try {
+                    return Files.size(file);
+                } catch (IOException e) {
+                    return -1;
+                }
+            }
+
+            @Override
+            public String toString() {
+                return "PromptSource[" + file + "]";
+            }
+        };
+    }
+
+    /**
+     * Returns a source that drains {@code in}. The stream is consumed by the first write and closed afterwards, so the
+     * source can be used only once; writing it again fails rather than sending an empty prompt.
+     *
+     * @param in a stream of UTF-8 prompt text
+     * @return the source
+     */
+    static PromptSource of(InputStream in) {
+        var consumed = new AtomicBoolean();
+        return out -> {
+            if (consumed.getAndSet(true)) {
+                throw new IOException("A PromptSource over an InputStream can be written only once");
+            }
+            try (in) {
+                in.transferTo(out);
+            }
+        };
+    }
+
+    /**
+     * Returns a source that renders {@code template} into the destination, writing literal segments from their
+     * pre-encoded bytes.
+     *
+     * @param template the compiled template
+     * @param values variable values
+     * @return the source
+     */
+    static PromptSource of(CompiledTemplate template, Map<String, ?> values) {
+        return out -> template.writeTo(out, values);
+    }
+}
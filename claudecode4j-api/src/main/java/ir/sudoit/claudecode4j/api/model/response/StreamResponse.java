@@ -28,19 +28,48 @@ import java.time.Instant;
 import java.util.List;
 import org.jspecify.annotations.Nullable;
 
+/**
+ * A response assembled from stream events.
+ *
+ * @param tokensUsed total input and output tokens of the execution, if the CLI reported them
+ * @param outputTokens the output tokens alone, if the CLI reported them
+ */
 public record StreamResponse(
         String content,
         Instant timestamp,
         Duration duration,
         List<StreamEvent> events,
         @Nullable String model,
-        @Nullable Integer tokensUsed)
+        @Nullable Integer tokensUsed,
+        @Nullable String sessionId,
+        @Nullable Integer outputTokens)
         implements ClaudeResponse {
 
     public StreamResponse {
         events = events == null ? List.of() : List.copyOf(events);
     }
 
+    public StreamResponse(
+            String content,
+            Instant timestamp,
+            Duration duration,
+            List<StreamEvent> events,
+            @Nullable String model,
+            @Nullable Integer tokensUsed,
+            @Nullable String sessionId) {
+        this(content, timestamp, duration, events, model, tokensUsed, sessionId, null);
+    }
+
+    public StreamResponse(
+            String content,
+            Instant timestamp,
+            Duration duration,
+            List<StreamEvent> events,
+            @Nullable String model,
+            @Nullable Integer tokensUsed) {
+        this(content, timestamp, duration, events, model, tokensUsed, null);
+    }
+
     @Override
     public boolean isSuccess() {
         return true;
@@ -27,15 +27,32 @@ import java.time.Duration;
 import java.time.Instant;
 import org.jspecify.annotations.Nullable;
 
+/**
+ * A plain-text response.
+ *
+ * @param tokensUsed total input and output tokens of the execution, if the CLI reported them
+ * @param outputTokens the output tokens alone, if the CLI reported them
+ */
 public record TextResponse(
         String content,
         Instant timestamp,
         Duration duration,
         @Nullable String model,
         @Nullable Integer tokensUsed,
-        @Nullable String sessionId)
+        @Nullable String sessionId,
+        @Nullable Integer outputTokens)
         implements ClaudeResponse {
 
+    public TextResponse(
+            String content,
+            Instant timestamp,
+            Duration duration,
+            @Nullable String model,
+            @Nullable Integer tokensUsed,
+            @Nullable String sessionId) {
+        this(content, timestamp, duration, model, tokensUsed, sessionId, null);
+    }
+
     @Override
     public boolean isSuccess() {
         return true;
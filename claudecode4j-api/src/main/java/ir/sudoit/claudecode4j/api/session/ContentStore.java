@@ -0,0 +1,457 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.session;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed store for large strings shared between sessions, such as templated system prompts or attached
+ * file dumps.
+ *
+ * <p>Each distinct string is written once, as {@code <directory>/<first two hex digits>/<SHA-256 hex>}, and sessions
+ * encoded by {@link SessionCodec} with a content store hold only the 32-byte key. Per key, the store keeps the number
+ * of sessions referencing it and when that number last changed. {@link #gc(Duration)} deletes content nobody has
+ * referenced for the given time; the grace period covers content staged by a save that has not yet
+ * {@linkplain #retain retained} it.
+ *
+ * <p>The reference counts are held in memory and written to {@code content.idx} on {@link #close()}; the file is
+ * removed while the store is open. A store opened after a crash, or without its count file, therefore
+ * {@linkplain #needsRecount() needs a recount}: it knows the stored strings but not who references them, and
+ * {@link #gc} refuses to run until {@link #recount} has rebuilt the counts from the session files.
+ *
+ * <p>Only {@link FileSessionStore} stores strings by reference; {@link LogStructuredSessionStore}, the JDBC store and
+ * the in-memory stores keep them inline. A content store does not collect garbage by itself:
+ * {@link FileSessionStore#deleteOlderThan} runs {@link #gc()} after deleting expired sessions, and an application that
+ * never calls it should call {@link #gc(Duration)} periodically.
+ *
+ * <p>Recently loaded strings are cached, so loading many sessions that share a prompt reads its file once. Thread-safe.
+ */
+public final class ContentStore implements Flushable, AutoCloseable {
+
+    /** Shortest string, in characters, stored by reference when no threshold is given. */
+    public static final int DEFAULT_THRESHOLD = 1024;
+
+    /** Grace period used by {@link #gc()} when none is given. */
+    public static final Duration DEFAULT_GC_GRACE = Duration.ofMinutes(5);
+
+    /** Length of a content key in bytes. */
+    static final int KEY_BYTES = 32;
+
+    private static final String INDEX_FILE = "content.idx";
+    private static final int INDEX_MAGIC = 0x434C4349; // "CLCI"
+    private static final int INDEX_VERSION = 1;
+    private static final int CACHE_ENTRIES = 64;
+    private static final HexFormat HEX = HexFormat.of();
+
+    /**
+     * A stored string's reference count.
+     *
+     * @param size the string's length in UTF-8 bytes
+     * @param references the number of sessions referencing it
+     * @param changedAt when it was last staged or its count last changed
+     */
+    private record Content(long size, int references, Instant changedAt) {
+
+        Content withReferences(int references) {
+            return new Content(size, references, Instant.now());
+        }
+    }
+
+    private final Path directory;
+    private final int threshold;
+    private final Duration gcGrace;
+    // Guarded by this
+    private final Map<String, Content> contents;
+    private boolean needsRecount;
+    // Written or removed since the last flush
+    private final Set<Path> unsyncedFiles = ConcurrentHashMap.newKeySet();
+    private final Set<Path> unsyncedDirectories = ConcurrentHashMap.newKeySet();
+    private final Map<String, String> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > CACHE_ENTRIES;
+        }
+    };
+
+    private ContentStore(
+            Path directory, int threshold, Duration gcGrace, Map<String, Content> contents, boolean needsRecount) {
+        this.directory = directory;
+        this.threshold = threshold;
+        this.gcGrace = gcGrace;
+        this.contents = contents;
+        this.needsRecount = needsRecount;
+    }
+
+    /** Opens the store in {@code directory} with the {@linkplain #DEFAULT_THRESHOLD default threshold}. */
+    public static ContentStore open(Path directory) throws IOException {
+        return open(directory, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Opens the store in {@code directory}, creating it if needed.
+     *
+     * @param directory the directory holding the content files and reference counts
+     * @param threshold the shortest string, in characters, worth storing by reference
+     * @return the open store
+     * @throws IOException if the directory or count file cannot be read
+     */
+    public static ContentStore open(Path directory, int threshold) throws IOException {
+        return open(directory, threshold, DEFAULT_GC_GRACE);
+    }
+
+    /**
+     * Opens the store in {@code directory}, creating it if needed.
+     *
+     * @param directory the directory holding the content files and reference counts
+     * @param threshold the shortest string, in characters, worth storing by reference
+     * @param gcGrace how long content must have been unreferenced before {@link #gc()} deletes it
+     * @return the open store
+     * @throws IOException if the directory or count file cannot be read
+     */
+    public static ContentStore open(Path directory, int threshold, Duration gcGrace) throws IOException {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("threshold must be positive");
+        }
+        if (gcGrace.isNegative()) {
+            throw new IllegalArgumentException("gcGrace must not be negative");
+        }
+        Files.createDirectories(directory);
+        var indexFile = directory.resolve(INDEX_FILE);
+        var contents = readIndex(indexFile);
+        // Removed until close() writes it again, so a crash leaves no stale counts behind
+        Files.deleteIfExists(indexFile);
+        if (contents != null) {
+            return new ContentStore(directory, threshold, gcGrace, contents, false);
+        }
+        contents = new HashMap<>();
+        for (var stored : storedFiles(directory).entrySet()) {
+            contents.put(stored.getKey(), new Content(stored.getValue(), 0, Instant.now()));
+        }
+        return new ContentStore(directory, threshold, gcGrace, contents, !contents.isEmpty());
+    }
+
+    /** Returns {@code true} if {@code value} is long enough to be stored by reference. */
+    public boolean shouldStore(String value) {
+        return value.length() >= threshold;
+    }
+
+    /**
+     * Writes {@code value} unless it is already stored, without referencing it.
+     *
+     * @param value the string
+     * @return its key, the hex SHA-256 of its UTF-8 bytes
+     * @throws IOException if the content file cannot be written
+     */
+    public String stage(String value) throws IOException {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        var key = HEX.formatHex(sha256(bytes));
+        synchronized (this) {
+            var existing = contents.get(key);
+            var path = path(key);
+            if (existing == null || !Files.exists(path)) {
+                Files.createDirectories(path.getParent());
+                var temp = path.resolveSibling(key + ".tmp");
+                Files.write(temp, bytes);
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                unsyncedFiles.add(path);
+                unsyncedDirectories.add(path.getParent());
+                // The shard may be new
+                unsyncedDirectories.add(directory);
+            }
+            // Restarts the grace period so a collection cannot remove it before it is retained
+            contents.put(key, new Content(bytes.length, existing != null ? existing.references() : 0, Instant.now()));
+        }
+        return key;
+    }
+
+    /**
+     * Returns the string stored under {@code key}.
+     *
+     * @throws IOException if no content is stored under the key
+     */
+    public String load(String key) throws IOException {
+        synchronized (cache) {
+            var cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        var path = path(key);
+        if (!Files.exists(path)) {
+            throw new IOException("Missing session content " + key);
+        }
+        var value = Files.readString(path, StandardCharsets.UTF_8);
+        synchronized (cache) {
+            cache.put(key, value);
+        }
+        return value;
+    }
+
+    /** Adds one reference to each staged key. */
+    public synchronized void retain(Collection<String> keys) throws IOException {
+        for (var key : keys) {
+            var content = contents.get(key);
+            if (content == null) {
+                throw new IOException("Session content " + key + " was not staged");
+            }
+            contents.put(key, content.withReferences(content.references() + 1));
+        }
+    }
+
+    /** Removes one reference from each key; unreferenced content is deleted by the next {@link #gc}. */
+    public synchronized void release(Collection<String> keys) {
+        for (var key : keys) {
+            var content = contents.get(key);
+            if (content != null) {
+                contents.put(key, content.withReferences(Math.max(0, content.references() - 1)));
+            }
+        }
+    }
+
+    /** Returns the number of sessions referencing {@code key}. */
+    public synchronized int referenceCount(String key) {
+        var content = contents.get(key);
+        return content != null ? content.references() : 0;
+    }
+
+    /** Returns the number of stored strings, referenced or not. */
+    public synchronized int size() {
+        return contents.size();
+    }
+
+    /**
+     * Returns {@code true} if the reference counts were lost, because the store was not closed or its count file is
+     * missing, and must be rebuilt with {@link #recount} before content can be collected.
+     */
+    public synchronized boolean needsRecount() {
+        return needsRecount;
+    }
+
+    /**
+     * Rebuilds every reference count from the sessions that reference this store, reading only the start of each
+     * session file with {@link SessionCodec#readReferences}. Content files missing from the counts are added, and
+     * counts whose content file is gone are dropped; sessions referencing such content fail to load.
+     *
+     * @param sessionFiles every encoded session file that references this store; content referenced only elsewhere
+     *     becomes collectable
+     * @return the number of keys whose count changed
+     * @throws IOException if a session file or the content directory cannot be read
+     */
+    public synchronized int recount(Collection<Path> sessionFiles) throws IOException {
+        var counts = new HashMap<String, Integer>();
+        for (var file : sessionFiles) {
+            try (var channel = Files.newByteChannel(file)) {
+                for (var key : SessionCodec.readReferences(Channels.newInputStream(channel), channel.size())) {
+                    counts.merge(key, 1, Integer::sum);
+                }
+            } catch (NoSuchFileException e) {
+                // Deleted since it was listed
+            }
+        }
+        var stored = storedFiles(directory);
+        contents.keySet().retainAll(stored.keySet());
+        var changed = 0;
+        for (var entry : stored.entrySet()) {
+            var key = entry.getKey();
+            var references = counts.getOrDefault(key, 0);
+            var content = contents.get(key);
+            if (content == null) {
+                contents.put(key, new Content(entry.getValue(), references, Instant.now()));
+                changed++;
+            } else if (content.references() != references) {
+                contents.put(key, content.withReferences(references));
+                changed++;
+            }
+        }
+        needsRecount = false;
+        return changed;
+    }
+
+    /** Deletes content unreferenced for at least the grace period the store was opened with. */
+    public int gc() throws IOException {
+        return gc(gcGrace);
+    }
+
+    /**
+     * Deletes content that has had no references for at least {@code grace}.
+     *
+     * @param grace how long content must have been unreferenced
+     * @return the number of strings deleted
+     * @throws IOException if a content file cannot be deleted
+     * @throws IllegalStateException if the store {@linkplain #needsRecount() needs a recount}
+     */
+    public synchronized int gc(Duration grace) throws IOException {
+        if (needsRecount) {
+            throw new IllegalStateException("Reference counts were lost; recount them before collecting content");
+        }
+        var cutoff = Instant.now().minus(grace);
+        var count = 0;
+        var iterator = contents.entrySet().iterator();
+        while (iterator.hasNext()) {
+            var entry = iterator.next();
+            var content = entry.getValue();
+            if (content.references() == 0 && !content.changedAt().isAfter(cutoff)) {
+                Files.deleteIfExists(path(entry.getKey()));
+                unsyncedDirectories.add(path(entry.getKey()).getParent());
+                iterator.remove();
+                synchronized (cache) {
+                    cache.remove(entry.getKey());
+                }
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Forces the content files written, and the directory entries of those written or collected, since the last flush
+     * to stable storage. The reference counts are not part of it: they are only written by {@link #close()}.
+     *
+     * @throws IOException if a file or directory cannot be forced
+     */
+    @Override
+    public void flush() throws IOException {
+        FileSync.forceFiles(unsyncedFiles);
+        FileSync.forceDirectories(unsyncedDirectories);
+    }
+
+    /**
+     * Writes the reference counts to disk. Nothing is written while the store {@linkplain #needsRecount() needs a
+     * recount}, so the next open needs one too.
+     *
+     * @throws IOException if the count file cannot be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (needsRecount) {
+            return;
+        }
+        var file = directory.resolve(INDEX_FILE);
+        var temp = file.resolveSibling(INDEX_FILE + ".tmp");
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(INDEX_VERSION);
+            out.writeInt(contents.size());
+            for (var entry : contents.entrySet()) {
+                var content = entry.getValue();
+                out.write(toBytes(entry.getKey()));
+                out.writeLong(content.size());
+                out.writeInt(content.references());
+                out.writeLong(content.changedAt().toEpochMilli());
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Converts a key to its {@link #KEY_BYTES}-byte binary form. */
+    static byte[] toBytes(String key) {
+        return HEX.parseHex(key);
+    }
+
+    /** Converts a {@link #KEY_BYTES}-byte binary key to its hex form. */
+    static String toKey(byte[] bytes) {
+        return HEX.formatHex(bytes);
+    }
+
+    private Path path(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    /** Reads the counts written by {@link #close()}, or returns {@code null} if the file is missing or invalid. */
+    private static Map<String, Content> readIndex(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION) {
+                return null;
+            }
+            var size = in.readInt();
+            var contents = new HashMap<String, Content>();
+            var key = new byte[KEY_BYTES];
+            for (var i = 0; i < size; i++) {
+                in.readFully(key);
+                var content = new Content(in.readLong(), in.readInt(), Instant.ofEpochMilli(in.readLong()));
+                contents.put(toKey(key), content);
+            }
+            return contents;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    /** Returns the size of every content file in {@code directory} by key. */
+    private static Map<String, Long> storedFiles(Path directory) throws IOException {
+        var stored = new HashMap<String, Long>();
+        List<Path> shards;
+        try (Stream<Path> paths = Files.list(directory)) {
+            shards = paths.filter(path -> path.getFileName().toString().length() == 2 && Files.isDirectory(path))
+                    .toList();
+        }
+        for (var shard : shards) {
+            try (Stream<Path> paths = Files.list(shard)) {
+                for (var path : (Iterable<Path>) paths::iterator) {
+                    var name = path.getFileName().toString();
+                    if (name.length() == 2 * KEY_BYTES && name.chars().allMatch(HexFormat::isHexDigit)) {
+                        stored.put(name, Files.size(path));
+                    }
+                }
+            }
+        }
+        return stored;
+    }
+
+    private static byte[] sha256(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
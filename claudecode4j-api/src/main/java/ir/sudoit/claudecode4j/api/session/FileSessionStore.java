@@ -23,39 +23,126 @@
  */
 package ir.sudoit.claudecode4j.api.session;
 
+import java.io.ByteArrayInputStream;
+import java.io.Flushable;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
+import org.jspecify.annotations.Nullable;
 
 /**
- * File-based session store using simple text format.
+ * File-based session store.
  *
- * <p>Each session is stored in a separate file with .session extension. Uses a simple key=value format for portability
- * (no JSON dependency in API module).
+ * <p>Each session is stored in a separate file with .session extension, in the binary {@link SessionCodec} format (no
+ * JSON dependency in API module). Loading decodes the history only when it is accessed.
+ *
+ * <p>Files in the earlier key=value text format are still read, and are rewritten in the binary format on their next
+ * save; {@link #migrate()} converts them all at once.
+ *
+ * <p>A {@link MappedSessionIndex} in {@code sessions.idx} records each session's last activity and file size, so
+ * {@link #exists}, {@link #listIds} and {@link #deleteOlderThan} never open a session file. The index is rebuilt from
+ * the session files when it is missing, when it was not closed cleanly (a crash may have come between writing a file
+ * and updating the index), when any session file was modified after it was closed, or when its entry count disagrees
+ * with the directory. Checking costs one directory listing with file attributes; no session file is read.
+ *
+ * <p>{@link #query} uses in-memory secondary indexes on {@code lastActiveAt} and metadata. They are built from the
+ * session headers on the first query and maintained by every save and delete afterwards, so only the sessions of the
+ * requested page are loaded.
+ *
+ * <p>With a {@link ContentStore}, long system prompts, prompts and responses are written there once and session files
+ * hold only their keys. Each save retains the keys the new file references before replacing it and releases the keys
+ * only the old file referenced afterwards, so shared content is never collected while a session still needs it.
+ * {@link #deleteOlderThan} then {@linkplain ContentStore#gc() collects} content no session has referenced for the grace
+ * period. The content store is not closed with this store, and should back no other session store: its reference
+ * counts are rebuilt from this store's files when it {@linkplain ContentStore#needsRecount() lost them}, and by
+ * {@link #recountContent()}.
  */
-public final class FileSessionStore implements SessionStore {
+public final class FileSessionStore implements SessionStore, Flushable, AutoCloseable {
 
     private static final String SESSION_EXTENSION = ".session";
+    private static final String INDEX_FILE = "sessions.idx";
 
     private final Path storageDirectory;
+    private final MappedSessionIndex index;
+    private final @Nullable ContentStore content;
+    private final Object[] locks = new Object[64];
+    private volatile @Nullable SessionQueryIndex queryIndex;
+    private volatile boolean queryIndexBuilt;
+    // Written since the last flush
+    private final Set<Path> unsyncedFiles = ConcurrentHashMap.newKeySet();
+    private final Set<Path> unsyncedDirectories = ConcurrentHashMap.newKeySet();
 
     public FileSessionStore(Path storageDirectory) throws IOException {
+        this(storageDirectory, null);
+    }
+
+    /**
+     * Creates a store in {@code storageDirectory}.
+     *
+     * @param storageDirectory the directory holding the session files and index
+     * @param content where long strings are deduplicated, or {@code null} to inline them
+     * @throws IOException if the directory or index cannot be created
+     */
+    public FileSessionStore(Path storageDirectory, @Nullable ContentStore content) throws IOException {
         this.storageDirectory = storageDirectory;
+        this.content = content;
+        for (var i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
         Files.createDirectories(storageDirectory);
+        this.index = MappedSessionIndex.open(storageDirectory.resolve(INDEX_FILE));
+        if (!indexIsCurrent()) {
+            rebuildIndex();
+        }
+        if (content != null && content.needsRecount()) {
+            content.recount(sessionFiles());
+        }
     }
 
     @Override
     public void save(SessionData data) throws IOException {
         var path = getSessionPath(data.sessionId());
-        var content = serialize(data);
-        Files.writeString(path, content);
+        // A concurrent save or delete of the same session would leave the file and the indexes disagreeing
+        synchronized (lockFor(data.sessionId())) {
+            if (content == null) {
+                var encoded = SessionCodec.encode(data);
+                Files.write(path, encoded);
+                written(path);
+                index.put(data.sessionId(), data.lastActiveAt(), encoded.length, 0);
+            } else {
+                var encoded = SessionCodec.encode(data, content);
+                var added = new LinkedHashSet<>(
+                        SessionCodec.readReferences(new ByteArrayInputStream(encoded), encoded.length));
+                var removed = new LinkedHashSet<>(references(path));
+                var unchanged = new HashSet<>(added);
+                unchanged.retainAll(removed);
+                added.removeAll(unchanged);
+                removed.removeAll(unchanged);
+                content.retain(added);
+                Files.write(path, encoded);
+                written(path);
+                content.release(removed);
+                index.put(data.sessionId(), data.lastActiveAt(), encoded.length, 0);
+            }
+            var secondary = queryIndex;
+            if (secondary != null) {
+                secondary.put(data);
+            }
+        }
     }
 
     @Override
@@ -64,29 +151,39 @@ public final class FileSessionStore implements SessionStore {
         if (!Files.exists(path)) {
             return Optional.empty();
         }
-        var content = Files.readString(path);
-        return Optional.of(deserialize(sessionId, content));
+        return Optional.of(read(sessionId, Files.readAllBytes(path)));
     }
 
     @Override
     public boolean delete(String sessionId) throws IOException {
         var path = getSessionPath(sessionId);
-        return Files.deleteIfExists(path);
+        synchronized (lockFor(sessionId)) {
+            index.remove(sessionId);
+            var secondary = queryIndex;
+            if (secondary != null) {
+                secondary.remove(sessionId);
+            }
+            unsyncedDirectories.add(storageDirectory);
+            if (content == null) {
+                return Files.deleteIfExists(path);
+            }
+            var released = references(path);
+            var deleted = Files.deleteIfExists(path);
+            if (deleted) {
+                content.release(released);
+            }
+            return deleted;
+        }
     }
 
     @Override
-    public List<String> listIds() throws IOException {
-        if (!Files.exists(storageDirectory)) {
-            return List.of();
-        }
-        try (Stream<Path> paths = Files.list(storageDirectory)) {
-            return paths.filter(p -> p.toString().endsWith(SESSION_EXTENSION))
-                    .map(p -> {
-                        var name = p.getFileName().toString();
-                        return name.substring(0, name.length() - SESSION_EXTENSION.length());
-                    })
-                    .toList();
-        }
+    public List<String> listIds() {
+        return index.ids();
+    }
+
+    @Override
+    public boolean exists(String sessionId) {
+        return index.contains(sessionId);
     }
 
     @Override
@@ -94,13 +191,14 @@ public final class FileSessionStore implements SessionStore {
         var cutoff = Instant.now().minus(maxAge);
         var count = 0;
 
-        for (var sessionId : listIds()) {
-            var data = load(sessionId);
-            if (data.isPresent() && data.get().lastActiveAt().isBefore(cutoff)) {
-                delete(sessionId);
+        for (var sessionId : index.idsInactiveSince(cutoff)) {
+            if (delete(sessionId)) {
                 count++;
             }
         }
+        if (content != null) {
+            content.gc();
+        }
 
         return count;
     }
@@ -110,6 +208,80 @@ public final class FileSessionStore implements SessionStore {
         for (var sessionId : listIds()) {
             delete(sessionId);
         }
+        index.clear();
+        var secondary = queryIndex;
+        if (secondary != null) {
+            secondary.clear();
+        }
+    }
+
+    @Override
+    public SessionPage query(SessionQuery query) throws IOException {
+        var secondary = queryIndex();
+        var matches = new ArrayList<SessionData>();
+        for (var sessionId : secondary.query(query)) {
+            var data = load(sessionId);
+            if (data.isPresent()) {
+                matches.add(data.get());
+            } else {
+                // Deleted while the index was being built
+                secondary.remove(sessionId);
+            }
+        }
+        return SessionPage.of(matches, query.limit());
+    }
+
+    /**
+     * Rewrites every session file still in the text format in the binary format.
+     *
+     * @return the number of files converted
+     * @throws IOException if a file cannot be read or written
+     */
+    public int migrate() throws IOException {
+        var count = 0;
+        for (var sessionId : listIds()) {
+            var path = getSessionPath(sessionId);
+            var content = Files.readAllBytes(path);
+            if (!SessionCodec.isEncoded(content)) {
+                save(read(sessionId, content));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Rebuilds the content store's reference counts from the session files, repairing counts that drifted because a
+     * session file was copied, restored or removed outside this store.
+     *
+     * @return the number of content keys whose count changed, or 0 without a content store
+     * @throws IOException if a session file cannot be read
+     */
+    public int recountContent() throws IOException {
+        return content != null ? content.recount(sessionFiles()) : 0;
+    }
+
+    /**
+     * Forces the content files, session files and index entries written since the last flush, and the directory
+     * entries of files created or deleted since, to stable storage. Until then a crash may lose recent saves and
+     * deletes; the index is rebuilt to match whichever files survive.
+     *
+     * @throws IOException if a file or directory cannot be forced
+     */
+    @Override
+    public void flush() throws IOException {
+        if (content != null) {
+            content.flush();
+        }
+        FileSync.forceFiles(unsyncedFiles);
+        index.force();
+        FileSync.forceDirectories(unsyncedDirectories);
+    }
+
+    /** Flushes the index to disk. */
+    @Override
+    public void close() {
+        index.close();
     }
 
     @Override
@@ -123,62 +295,100 @@ public final class FileSessionStore implements SessionStore {
         return storageDirectory.resolve(safeName + SESSION_EXTENSION);
     }
 
-    private String serialize(SessionData data) {
-        var sb = new StringBuilder();
-        sb.append("sessionId=").append(data.sessionId()).append("\n");
-        if (data.systemPrompt() != null) {
-            sb.append("systemPrompt=").append(escape(data.systemPrompt())).append("\n");
-        }
-        sb.append("createdAt=").append(data.createdAt()).append("\n");
-        sb.append("lastActiveAt=").append(data.lastActiveAt()).append("\n");
-
-        // Metadata
-        for (var entry : data.metadata().entrySet()) {
-            sb.append("meta.")
-                    .append(entry.getKey())
-                    .append("=")
-                    .append(escape(entry.getValue()))
-                    .append("\n");
-        }
-
-        // History
-        var i = 0;
-        for (var entry : data.history()) {
-            sb.append("history.")
-                    .append(i)
-                    .append(".prompt=")
-                    .append(escape(entry.prompt()))
-                    .append("\n");
-            sb.append("history.")
-                    .append(i)
-                    .append(".response=")
-                    .append(escape(entry.response()))
-                    .append("\n");
-            sb.append("history.")
-                    .append(i)
-                    .append(".timestamp=")
-                    .append(entry.timestamp())
-                    .append("\n");
-            if (entry.model() != null) {
-                sb.append("history.")
-                        .append(i)
-                        .append(".model=")
-                        .append(entry.model())
-                        .append("\n");
-            }
-            if (entry.tokensUsed() != null) {
-                sb.append("history.")
-                        .append(i)
-                        .append(".tokensUsed=")
-                        .append(entry.tokensUsed())
-                        .append("\n");
-            }
-            i++;
-        }
-
-        return sb.toString();
+    private void written(Path path) {
+        unsyncedFiles.add(path);
+        // The file may be new
+        unsyncedDirectories.add(storageDirectory);
+    }
+
+    private Object lockFor(String sessionId) {
+        return locks[Math.floorMod(sessionId.hashCode(), locks.length)];
+    }
+
+    /** Returns the content keys the session file at {@code path} references, reading only its start. */
+    private static List<String> references(Path path) throws IOException {
+        try (var channel = Files.newByteChannel(path)) {
+            return SessionCodec.readReferences(Channels.newInputStream(channel), channel.size());
+        } catch (NoSuchFileException e) {
+            return List.of();
+        }
+    }
+
+    private SessionQueryIndex queryIndex() throws IOException {
+        if (queryIndexBuilt) {
+            return queryIndex;
+        }
+        synchronized (this) {
+            if (queryIndexBuilt) {
+                return queryIndex;
+            }
+            var secondary = new SessionQueryIndex();
+            // Published first so that saves during the build are indexed; the build never overwrites them
+            queryIndex = secondary;
+            for (var sessionId : index.ids()) {
+                var path = getSessionPath(sessionId);
+                if (Files.exists(path)) {
+                    // Binary sessions decode their history lazily, so only the headers are parsed
+                    secondary.putIfAbsent(read(sessionId, Files.readAllBytes(path)));
+                }
+            }
+            queryIndexBuilt = true;
+            return secondary;
+        }
+    }
+
+    /** Returns {@code true} if the index was closed cleanly and no session file was added, removed or changed since. */
+    private boolean indexIsCurrent() throws IOException {
+        var closedAt = index.cleanlyClosedAt();
+        if (closedAt.isEmpty()) {
+            return false;
+        }
+        var closedAtMillis = closedAt.get().toEpochMilli();
+        var count = 0;
+        try (Stream<Path> paths = Files.list(storageDirectory)) {
+            for (var path : (Iterable<Path>) paths.filter(p -> p.toString().endsWith(SESSION_EXTENSION))::iterator) {
+                if (Files.getLastModifiedTime(path).toMillis() > closedAtMillis) {
+                    return false;
+                }
+                count++;
+            }
+        }
+        return count == index.size();
     }
 
+    private List<Path> sessionFiles() throws IOException {
+        try (Stream<Path> paths = Files.list(storageDirectory)) {
+            return paths.filter(p -> p.toString().endsWith(SESSION_EXTENSION)).toList();
+        }
+    }
+
+    /** Re-reads every session file; only needed when the index is missing or out of step. */
+    private void rebuildIndex() throws IOException {
+        index.clear();
+        try (Stream<Path> paths = Files.list(storageDirectory)) {
+            for (var path : (Iterable<Path>) paths.filter(p -> p.toString().endsWith(SESSION_EXTENSION))::iterator) {
+                var name = path.getFileName().toString();
+                var content = Files.readAllBytes(path);
+                var data = read(name.substring(0, name.length() - SESSION_EXTENSION.length()), content);
+                index.put(data.sessionId(), data.lastActiveAt(), content.length, 0);
+            }
+        }
+    }
+
+    private SessionData read(String sessionId, byte[] content) throws IOException {
+        if (SessionCodec.isEncoded(content)) {
+            return SessionCodec.decode(content, this.content);
+        }
+        var text = new String(content, StandardCharsets.UTF_8);
+        // Text files written before the binary format start with their session ID
+        if (text.startsWith("sessionId=")) {
+            var end = text.indexOf('\n');
+            sessionId = text.substring("sessionId=".length(), end < 0 ? text.length() : end);
+        }
+        return deserialize(sessionId, text);
+    }
+
+    /** Parses the key=value text format used before {@link SessionCodec}. */
     private SessionData deserialize(String sessionId, String content) {
         var props = new HashMap<String, String>();
         for (var line : content.split("\n")) {
@@ -224,10 +434,6 @@ public final class FileSessionStore implements SessionStore {
         return new SessionData(sessionId, systemPrompt, history, metadata, createdAt, lastActiveAt);
     }
 
-    private String escape(String value) {
-        return value.replace("\\", "\\\\").replace("\n", "\\n").replace("\r", "\\r");
-    }
-
     private String unescape(String value) {
         return value.replace("\\n", "\n").replace("\\r", "\r").replace("\\\\", "\\");
     }
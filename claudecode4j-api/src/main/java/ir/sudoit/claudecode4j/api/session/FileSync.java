@@ -0,0 +1,93 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.session;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+
+/** Forces files and directories to stable storage for the file-backed stores' {@link java.io.Flushable#flush()}. */
+final class FileSync {
+
+    // Windows cannot open a directory as a channel, and makes directory entries durable without it
+    private static final boolean WINDOWS = System.getProperty("os.name", "").startsWith("Windows");
+
+    private FileSync() {}
+
+    /**
+     * Forces the content and metadata of every file in {@code files}, removing each from the set. A file deleted since
+     * it was written is skipped; one that fails stays in the set for the next attempt.
+     */
+    static void forceFiles(Set<Path> files) throws IOException {
+        forceAll(files, FileSync::file);
+    }
+
+    /**
+     * Forces the entries of every directory in {@code directories}, so the files created, replaced or deleted in them
+     * survive a crash, removing each from the set. One that fails stays in the set for the next attempt.
+     */
+    static void forceDirectories(Set<Path> directories) throws IOException {
+        forceAll(directories, FileSync::directory);
+    }
+
+    private static void forceAll(Set<Path> paths, Force force) throws IOException {
+        for (var path : List.copyOf(paths)) {
+            // Removed first, so a write racing with the flush marks the path again
+            paths.remove(path);
+            try {
+                force.apply(path);
+            } catch (IOException e) {
+                paths.add(path);
+                throw e;
+            }
+        }
+    }
+
+    private static void file(Path file) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        } catch (NoSuchFileException e) {
+            // Its removal is made durable with its directory
+        }
+    }
+
+    private static void directory(Path directory) throws IOException {
+        try (var channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            if (!WINDOWS) {
+                throw e;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Force {
+        void apply(Path path) throws IOException;
+    }
+}
@@ -30,19 +30,56 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import org.jspecify.annotations.Nullable;
 
 /**
  * In-memory session store for testing and development.
  *
  * <p>Note: Sessions are not persisted across application restarts.
+ *
+ * <p>Created with a time-to-live, the store expires each session that long after its {@code lastActiveAt} using a
+ * {@link TimingWheelExpiry}, so expired sessions are removed without scanning the map.
+ *
+ * <p>Secondary indexes on {@code lastActiveAt} and metadata answer {@link #query} and {@link #deleteOlderThan} in time
+ * proportional to the result.
  */
-public final class InMemorySessionStore implements SessionStore {
+public final class InMemorySessionStore implements SessionStore, AutoCloseable {
 
     private final Map<String, SessionData> sessions = new ConcurrentHashMap<>();
+    private final SessionQueryIndex index = new SessionQueryIndex();
+    private final @Nullable Duration timeToLive;
+    private final @Nullable TimingWheelExpiry<String> expiry;
+
+    /** Creates a store whose sessions never expire on their own. */
+    public InMemorySessionStore() {
+        this.timeToLive = null;
+        this.expiry = null;
+    }
+
+    /**
+     * Creates a store that removes each session {@code timeToLive} after its last activity.
+     *
+     * @param timeToLive how long an inactive session is kept
+     */
+    public InMemorySessionStore(Duration timeToLive) {
+        this(timeToLive, Duration.ofSeconds(1));
+    }
+
+    InMemorySessionStore(Duration timeToLive, Duration tick) {
+        this.timeToLive = timeToLive;
+        this.expiry = new TimingWheelExpiry<>(tick, this::expire);
+    }
 
     @Override
     public void save(SessionData data) {
-        sessions.put(data.sessionId(), data);
+        // Updating the index inside compute keeps it in step with the map per session
+        sessions.compute(data.sessionId(), (id, previous) -> {
+            index.put(data);
+            return data;
+        });
+        if (expiry != null) {
+            expiry.schedule(data.sessionId(), Duration.between(Instant.now(), expiresAt(data)));
+        }
     }
 
     @Override
@@ -52,7 +89,16 @@ public final class InMemorySessionStore implements SessionStore {
 
     @Override
     public boolean delete(String sessionId) {
-        return sessions.remove(sessionId) != null;
+        if (expiry != null) {
+            expiry.cancel(sessionId);
+        }
+        var removed = new boolean[1];
+        sessions.computeIfPresent(sessionId, (id, data) -> {
+            index.remove(id);
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
     }
 
     @Override
@@ -68,18 +114,34 @@ public final class InMemorySessionStore implements SessionStore {
     @Override
     public int deleteOlderThan(Duration maxAge) {
         var cutoff = Instant.now().minus(maxAge);
-        var toDelete = sessions.entrySet().stream()
-                .filter(e -> e.getValue().lastActiveAt().isBefore(cutoff))
-                .map(Map.Entry::getKey)
-                .toList();
+        var count = 0;
+        for (var sessionId : index.activeBefore(cutoff)) {
+            if (delete(sessionId)) {
+                count++;
+            }
+        }
+        return count;
+    }
 
-        toDelete.forEach(sessions::remove);
-        return toDelete.size();
+    @Override
+    public SessionPage query(SessionQuery query) {
+        var matches = new ArrayList<SessionData>();
+        for (var sessionId : index.query(query)) {
+            var data = sessions.get(sessionId);
+            if (data != null) {
+                matches.add(data);
+            }
+        }
+        return SessionPage.of(matches, query.limit());
     }
 
     @Override
     public void clear() {
+        if (expiry != null) {
+            expiry.cancelAll();
+        }
         sessions.clear();
+        index.clear();
     }
 
     @Override
@@ -91,4 +153,37 @@ public final class InMemorySessionStore implements SessionStore {
     public int size() {
         return sessions.size();
     }
+
+    /** Returns the number of sessions removed by the time-to-live, or {@code 0} without one. */
+    public long expiredCount() {
+        return expiry == null ? 0 : expiry.expiredCount();
+    }
+
+    /** Stops the expiry thread, if any. */
+    @Override
+    public void close() {
+        if (expiry != null) {
+            expiry.close();
+        }
+    }
+
+    private void expire(String sessionId) {
+        // A save may have raced with the expiry; a session kept must be re-armed or it would never expire
+        var kept = new SessionData[1];
+        sessions.computeIfPresent(sessionId, (id, data) -> {
+            if (expiresAt(data).isAfter(Instant.now())) {
+                kept[0] = data;
+                return data;
+            }
+            index.remove(id);
+            return null;
+        });
+        if (kept[0] != null && expiry != null) {
+            expiry.schedule(sessionId, Duration.between(Instant.now(), expiresAt(kept[0])));
+        }
+    }
+
+    private Instant expiresAt(SessionData data) {
+        return data.lastActiveAt().plus(timeToLive);
+    }
 }
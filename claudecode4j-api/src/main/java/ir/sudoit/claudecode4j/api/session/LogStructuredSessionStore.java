@@ -0,0 +1,789 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.session;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * File-based session store that appends to a per-session log instead of rewriting the session.
+ *
+ * <p>Each session has a {@code .log} file of checksummed records: a header with the system prompt, metadata and
+ * creation time, one record per conversation entry, and a small record for each {@code lastActiveAt} change. When a
+ * saved session extends the stored history, only the new entries are appended, so a save writes O(new entries) bytes
+ * rather than O(history). Whether it extends the history is decided by a CRC chained over every stored entry, so an
+ * edit anywhere in the stored history is detected; that check encodes the stored entries but reads nothing from disk.
+ * Any other change rewrites the log atomically.
+ *
+ * <p>An in-memory index holds each session's timestamps, entry count and log length, so {@link #exists},
+ * {@link #listIds} and {@link #deleteOlderThan} never read a log. The index is written to {@code sessions.index} during
+ * compaction and on {@link #close()}. On startup the store reads that file and replays only the bytes each log gained
+ * since, truncating a torn record left by a crash.
+ *
+ * <p>A background virtual thread compacts logs that have accumulated superseded header and timestamp records.
+ */
+public final class LogStructuredSessionStore implements SessionStore, Flushable, AutoCloseable {
+
+    private static final System.Logger log = System.getLogger(LogStructuredSessionStore.class.getName());
+
+    private static final String LOG_EXTENSION = ".log";
+    private static final String INDEX_FILE = "sessions.index";
+    private static final int INDEX_MAGIC = 0x434C5349; // "CLSI"
+    private static final int INDEX_VERSION = 2;
+    private static final int LOG_MAGIC = 0x434C534C; // "CLSL"
+    // magic + file id; the file id changes whenever the log is rewritten
+    private static final int PREAMBLE_LENGTH = Integer.BYTES + Long.BYTES;
+
+    private static final byte HEADER = 1;
+    private static final byte ENTRY = 2;
+    private static final byte TOUCH = 3;
+    // length + type + crc
+    private static final int RECORD_OVERHEAD = Integer.BYTES + 1 + Integer.BYTES;
+    private static final int MIN_GARBAGE_RECORDS = 32;
+
+    private final Path storageDirectory;
+    private final Map<String, SessionState> index = new ConcurrentHashMap<>();
+    // Written since the last flush
+    private final Set<Path> unsyncedFiles = ConcurrentHashMap.newKeySet();
+    private final Set<Path> unsyncedDirectories = ConcurrentHashMap.newKeySet();
+    private final Thread compactor;
+    private volatile boolean closed;
+
+    /** Creates a store compacting once a minute. */
+    public LogStructuredSessionStore(Path storageDirectory) throws IOException {
+        this(storageDirectory, Duration.ofMinutes(1));
+    }
+
+    /**
+     * Creates a store and recovers the sessions already in {@code storageDirectory}.
+     *
+     * @param storageDirectory the directory holding the logs and the index
+     * @param compactionInterval how often the background compactor runs
+     * @throws IOException if the directory cannot be created or read
+     */
+    public LogStructuredSessionStore(Path storageDirectory, Duration compactionInterval) throws IOException {
+        this.storageDirectory = storageDirectory;
+        Files.createDirectories(storageDirectory);
+        recover();
+        this.compactor =
+                Thread.ofVirtual().name("session-log-compactor").start(() -> compactPeriodically(compactionInterval));
+    }
+
+    @Override
+    public void save(SessionData data) throws IOException {
+        ensureOpen();
+        var state = index.computeIfAbsent(data.sessionId(), id -> new SessionState(id, logPath(id)));
+        state.lock.lock();
+        try {
+            if (state.deleted) {
+                // Lost a race with delete(); the replacement state is registered under the same id
+                save(data);
+                return;
+            }
+            var history = data.history();
+            var header = encodeHeader(data);
+            if (state.entries > 0
+                    && (history.size() < state.entries || historyCrc(history, state.entries) != state.historyCrc)) {
+                rewrite(state, data);
+                return;
+            }
+            var records = new ByteArrayOutputStream();
+            var fileId = state.length == 0 ? writePreamble(records) : state.fileId;
+            var count = 0;
+            var headerCrc = crc(HEADER, header);
+            if (state.records == 0 || headerCrc != state.headerCrc) {
+                writeRecord(records, HEADER, header);
+                count++;
+            }
+            var historyCrc = state.historyCrc;
+            for (var i = state.entries; i < history.size(); i++) {
+                historyCrc = chain(historyCrc, writeRecord(records, ENTRY, encodeEntry(history.get(i))));
+                count++;
+            }
+            if (!data.lastActiveAt().equals(state.lastActiveAt)) {
+                writeRecord(records, TOUCH, encodeInstant(data.lastActiveAt()));
+                count++;
+            }
+            if (count == 0) {
+                return;
+            }
+            // The index changes only once the bytes are written
+            append(state, records.toByteArray());
+            state.fileId = fileId;
+            state.headerCrc = headerCrc;
+            state.historyCrc = historyCrc;
+            state.createdAt = data.createdAt();
+            state.entries = history.size();
+            state.records += count;
+            state.lastActiveAt = data.lastActiveAt();
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<SessionData> load(String sessionId) throws IOException {
+        var state = index.get(sessionId);
+        if (state == null) {
+            return Optional.empty();
+        }
+        state.lock.lock();
+        try {
+            if (state.deleted) {
+                return Optional.empty();
+            }
+            return Optional.of(readSession(state));
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean delete(String sessionId) throws IOException {
+        var state = index.get(sessionId);
+        if (state == null) {
+            return false;
+        }
+        state.lock.lock();
+        try {
+            if (state.deleted) {
+                return false;
+            }
+            state.deleted = true;
+            index.remove(sessionId, state);
+            Files.deleteIfExists(state.log);
+            unsyncedDirectories.add(storageDirectory);
+            return true;
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    @Override
+    public List<String> listIds() {
+        return List.copyOf(index.keySet());
+    }
+
+    @Override
+    public boolean exists(String sessionId) {
+        return index.containsKey(sessionId);
+    }
+
+    @Override
+    public int deleteOlderThan(Duration maxAge) throws IOException {
+        var cutoff = Instant.now().minus(maxAge);
+        var count = 0;
+        for (var state : index.values()) {
+            if (state.lastActiveAt.isBefore(cutoff) && deleteIfOlder(state, cutoff)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void clear() throws IOException {
+        for (var sessionId : listIds()) {
+            delete(sessionId);
+        }
+    }
+
+    @Override
+    public int priority() {
+        return 25;
+    }
+
+    /** Returns the number of stored sessions. */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Rewrites every log that has accumulated enough superseded records, then persists the index. Runs periodically in
+     * the background; callable directly, e.g. before a backup.
+     *
+     * @throws IOException if a log or the index cannot be written
+     */
+    public void compact() throws IOException {
+        for (var state : index.values()) {
+            state.lock.lock();
+            try {
+                if (!state.deleted && state.garbage() >= Math.max(MIN_GARBAGE_RECORDS, state.entries)) {
+                    rewrite(state, readSession(state));
+                }
+            } finally {
+                state.lock.unlock();
+            }
+        }
+        writeIndex();
+    }
+
+    /**
+     * Forces the logs appended to or rewritten since the last flush, and the directory entries of logs created,
+     * replaced or deleted since, to stable storage. Until then a crash may lose recent records, which recovery then
+     * truncates as a torn tail.
+     *
+     * @throws IOException if a log or the directory cannot be forced
+     */
+    @Override
+    public void flush() throws IOException {
+        FileSync.forceFiles(unsyncedFiles);
+        FileSync.forceDirectories(unsyncedDirectories);
+    }
+
+    /** Stops the compactor and persists the index, so the next start needs no replay. */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        compactor.interrupt();
+        try {
+            compactor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeIndex();
+    }
+
+    private boolean deleteIfOlder(SessionState state, Instant cutoff) throws IOException {
+        state.lock.lock();
+        try {
+            if (state.deleted || !state.lastActiveAt.isBefore(cutoff)) {
+                return false;
+            }
+            state.deleted = true;
+            index.remove(state.sessionId, state);
+            Files.deleteIfExists(state.log);
+            unsyncedDirectories.add(storageDirectory);
+            return true;
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    private void compactPeriodically(Duration interval) {
+        while (!closed) {
+            try {
+                Thread.sleep(interval);
+                compact();
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.log(System.Logger.Level.WARNING, "Session log compaction failed: {0}", e.getMessage());
+            }
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Session store is closed");
+        }
+    }
+
+    // --- log I/O -------------------------------------------------------------------------------------------------
+
+    private void append(SessionState state, byte[] records) throws IOException {
+        try (var channel = FileChannel.open(state.log, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // Writing at the indexed length overwrites a torn tail instead of appending after it
+            var buffer = ByteBuffer.wrap(records);
+            var position = state.length;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        }
+        state.length += records.length;
+        unsyncedFiles.add(state.log);
+        if (state.length == records.length) {
+            // A new log
+            unsyncedDirectories.add(storageDirectory);
+        }
+    }
+
+    /** Replaces the log with a header, the entries and a timestamp record, via a temporary file and atomic move. */
+    private void rewrite(SessionState state, SessionData data) throws IOException {
+        var records = new ByteArrayOutputStream();
+        var fileId = writePreamble(records);
+        var header = encodeHeader(data);
+        var headerCrc = writeRecord(records, HEADER, header);
+        var historyCrc = 0;
+        for (var entry : data.history()) {
+            historyCrc = chain(historyCrc, writeRecord(records, ENTRY, encodeEntry(entry)));
+        }
+        writeRecord(records, TOUCH, encodeInstant(data.lastActiveAt()));
+        var bytes = records.toByteArray();
+        var temp = state.log.resolveSibling(state.log.getFileName() + ".tmp");
+        Files.write(temp, bytes);
+        Files.move(temp, state.log, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        unsyncedFiles.add(state.log);
+        unsyncedDirectories.add(storageDirectory);
+        state.fileId = fileId;
+        state.headerCrc = headerCrc;
+        state.historyCrc = historyCrc;
+        state.entries = data.history().size();
+        state.records = data.history().size() + 2;
+        state.length = bytes.length;
+        state.createdAt = data.createdAt();
+        state.lastActiveAt = data.lastActiveAt();
+    }
+
+    private SessionData readSession(SessionState state) throws IOException {
+        var builder = new Replay();
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(state.log)))) {
+            in.skipNBytes(PREAMBLE_LENGTH);
+            scan(in, state.length - PREAMBLE_LENGTH, builder, true);
+        }
+        return builder.toSessionData(state.sessionId);
+    }
+
+    /**
+     * Applies every intact record among the next {@code available} bytes of {@code in} to {@code replay}. Records are
+     * read one at a time, so a log of any size is scanned in constant memory beyond its largest record.
+     *
+     * @return the number of bytes holding intact records
+     */
+    private static long scan(DataInputStream in, long available, Replay replay, boolean materialize)
+            throws IOException {
+        var valid = 0L;
+        try {
+            while (available - valid >= RECORD_OVERHEAD) {
+                var length = in.readInt();
+                if (length < 0 || available - valid - RECORD_OVERHEAD < length) {
+                    break;
+                }
+                var type = in.readByte();
+                var payload = in.readNBytes(length);
+                if (payload.length < length) {
+                    break;
+                }
+                var crc = in.readInt();
+                if (crc != crc(type, payload)) {
+                    break;
+                }
+                replay.apply(type, payload, crc, materialize);
+                valid += RECORD_OVERHEAD + length;
+            }
+        } catch (EOFException e) {
+            // The file is shorter than expected; everything before is intact
+        }
+        return valid;
+    }
+
+    // --- recovery and index --------------------------------------------------------------------------------------
+
+    private void recover() throws IOException {
+        var indexed = readIndex();
+        try (Stream<Path> paths = Files.list(storageDirectory)) {
+            for (var path : (Iterable<Path>) paths::iterator) {
+                var name = path.getFileName().toString();
+                if (name.endsWith(LOG_EXTENSION + ".tmp")) {
+                    Files.deleteIfExists(path);
+                } else if (name.endsWith(LOG_EXTENSION)) {
+                    recoverLog(path, indexed.get(name));
+                }
+            }
+        }
+    }
+
+    private void recoverLog(Path path, @Nullable SessionState indexed) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            var size = channel.size();
+            var preamble = ByteBuffer.allocate(PREAMBLE_LENGTH);
+            while (preamble.hasRemaining() && channel.read(preamble) > 0) {}
+            preamble.flip();
+            if (preamble.remaining() < PREAMBLE_LENGTH || preamble.getInt() != LOG_MAGIC) {
+                log.log(System.Logger.Level.WARNING, "Ignoring {0}: not a session log", path.getFileName());
+                return;
+            }
+            var fileId = preamble.getLong();
+            // Resume after the indexed bytes only if the log was not rewritten since the index was written
+            var resume = indexed != null && indexed.fileId == fileId && indexed.length <= size;
+            var resumeFrom = resume ? indexed.length : PREAMBLE_LENGTH;
+            var replay = resume ? Replay.resume(indexed) : new Replay();
+            channel.position(resumeFrom);
+            // Not closed here: closing the stream would close the channel still needed for truncation
+            var in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            var valid = resumeFrom + scan(in, size - resumeFrom, replay, false);
+            if (valid < size) {
+                log.log(
+                        System.Logger.Level.WARNING,
+                        "Truncating {0} torn bytes at the end of {1}",
+                        size - valid,
+                        path.getFileName());
+                channel.truncate(valid);
+            }
+            if (replay.sessionId == null) {
+                return;
+            }
+            var state = new SessionState(replay.sessionId, path);
+            replay.copyTo(state);
+            state.fileId = fileId;
+            state.length = valid;
+            index.put(state.sessionId, state);
+        }
+    }
+
+    private Map<String, SessionState> readIndex() {
+        var path = storageDirectory.resolve(INDEX_FILE);
+        var states = new HashMap<String, SessionState>();
+        if (!Files.exists(path)) {
+            return states;
+        }
+        try (var in = new DataInputStream(Files.newInputStream(path))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION) {
+                return states;
+            }
+            var count = in.readInt();
+            for (var i = 0; i < count; i++) {
+                var sessionId = in.readUTF();
+                var state = new SessionState(sessionId, logPath(sessionId));
+                state.createdAt = readInstant(in);
+                state.lastActiveAt = readInstant(in);
+                state.entries = in.readInt();
+                state.records = in.readInt();
+                state.fileId = in.readLong();
+                state.length = in.readLong();
+                state.headerCrc = in.readInt();
+                state.historyCrc = in.readInt();
+                states.put(state.log.getFileName().toString(), state);
+            }
+        } catch (IOException e) {
+            // A damaged index only costs a full replay
+            log.log(System.Logger.Level.WARNING, "Ignoring unreadable session index: {0}", e.getMessage());
+            states.clear();
+        }
+        return states;
+    }
+
+    private void writeIndex() throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        var out = new DataOutputStream(bytes);
+        var states = new ArrayList<SessionState>();
+        for (var state : index.values()) {
+            state.lock.lock();
+            try {
+                if (!state.deleted) {
+                    states.add(state.copy());
+                }
+            } finally {
+                state.lock.unlock();
+            }
+        }
+        out.writeInt(INDEX_MAGIC);
+        out.writeInt(INDEX_VERSION);
+        out.writeInt(states.size());
+        for (var state : states) {
+            out.writeUTF(state.sessionId);
+            writeInstant(out, state.createdAt);
+            writeInstant(out, state.lastActiveAt);
+            out.writeInt(state.entries);
+            out.writeInt(state.records);
+            out.writeLong(state.fileId);
+            out.writeLong(state.length);
+            out.writeInt(state.headerCrc);
+            out.writeInt(state.historyCrc);
+        }
+        var path = storageDirectory.resolve(INDEX_FILE);
+        var temp = storageDirectory.resolve(INDEX_FILE + ".tmp");
+        Files.write(temp, bytes.toByteArray());
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path logPath(String sessionId) {
+        // Sanitize session ID to prevent path traversal; the real ID is stored in the header record
+        // The hash keeps IDs that sanitize to the same name apart
+        var safeName = sessionId.replaceAll("[^a-zA-Z0-9_-]", "_");
+        return storageDirectory.resolve(safeName + "-" + Integer.toHexString(sessionId.hashCode()) + LOG_EXTENSION);
+    }
+
+    // --- encoding ------------------------------------------------------------------------------------------------
+
+    private static long writePreamble(ByteArrayOutputStream out) {
+        var fileId = ThreadLocalRandom.current().nextLong();
+        out.writeBytes(ByteBuffer.allocate(PREAMBLE_LENGTH)
+                .putInt(LOG_MAGIC)
+                .putLong(fileId)
+                .array());
+        return fileId;
+    }
+
+    private static int writeRecord(ByteArrayOutputStream out, byte type, byte[] payload) {
+        var crc = crc(type, payload);
+        var frame = ByteBuffer.allocate(RECORD_OVERHEAD + payload.length);
+        frame.putInt(payload.length).put(type).put(payload).putInt(crc);
+        out.writeBytes(frame.array());
+        return crc;
+    }
+
+    private static int crc(byte type, byte[] payload) {
+        var crc = new CRC32C();
+        crc.update(type);
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /** Extends a CRC over the stored history with the next entry record's CRC. */
+    private static int chain(int historyCrc, int entryCrc) {
+        var crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(2 * Integer.BYTES)
+                .putInt(historyCrc)
+                .putInt(entryCrc)
+                .flip());
+        return (int) crc.getValue();
+    }
+
+    /** The chained CRC of the first {@code count} entries of {@code history}, as {@link #save} would have stored it. */
+    private static int historyCrc(List<SessionData.ConversationEntry> history, int count) {
+        var historyCrc = 0;
+        for (var i = 0; i < count; i++) {
+            historyCrc = chain(historyCrc, crc(ENTRY, encodeEntry(history.get(i))));
+        }
+        return historyCrc;
+    }
+
+    private static byte[] encodeHeader(SessionData data) {
+        return encode(out -> {
+            writeString(out, data.sessionId());
+            writeString(out, data.systemPrompt());
+            writeInstant(out, data.createdAt());
+            out.writeInt(data.metadata().size());
+            for (var entry : data.metadata().entrySet()) {
+                writeString(out, entry.getKey());
+                writeString(out, entry.getValue());
+            }
+        });
+    }
+
+    private static byte[] encodeEntry(SessionData.ConversationEntry entry) {
+        return encode(out -> {
+            writeString(out, entry.prompt());
+            writeString(out, entry.response());
+            writeInstant(out, entry.timestamp());
+            writeString(out, entry.model());
+            out.writeInt(entry.tokensUsed() != null ? entry.tokensUsed() : -1);
+        });
+    }
+
+    private static byte[] encodeInstant(Instant instant) {
+        return encode(out -> writeInstant(out, instant));
+    }
+
+    private static byte[] encode(Encoder encoder) {
+        var bytes = new ByteArrayOutputStream();
+        try {
+            encoder.encode(new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream out, @Nullable String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static @Nullable String readString(DataInputStream in) throws IOException {
+        var length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private static void writeInstant(DataOutputStream out, Instant instant) throws IOException {
+        out.writeLong(instant.getEpochSecond());
+        out.writeInt(instant.getNano());
+    }
+
+    private static Instant readInstant(DataInputStream in) throws IOException {
+        return Instant.ofEpochSecond(in.readLong(), in.readInt());
+    }
+
+    @FunctionalInterface
+    private interface Encoder {
+        void encode(DataOutputStream out) throws IOException;
+    }
+
+    /** What the index knows about one session. Mutable fields are guarded by {@link #lock}. */
+    private static final class SessionState {
+
+        final String sessionId;
+        final Path log;
+        final ReentrantLock lock = new ReentrantLock();
+        Instant createdAt = Instant.EPOCH;
+        Instant lastActiveAt = Instant.EPOCH;
+        int entries;
+        int records;
+        long fileId;
+        long length;
+        int headerCrc;
+        // CRC chained over the CRCs of every entry record, in order
+        int historyCrc;
+        boolean deleted;
+
+        SessionState(String sessionId, Path log) {
+            this.sessionId = sessionId;
+            this.log = log;
+        }
+
+        int garbage() {
+            // A compacted log holds one header, the entries and one timestamp record
+            return records - entries - 2;
+        }
+
+        SessionState copy() {
+            var copy = new SessionState(sessionId, log);
+            copy.createdAt = createdAt;
+            copy.lastActiveAt = lastActiveAt;
+            copy.entries = entries;
+            copy.records = records;
+            copy.fileId = fileId;
+            copy.length = length;
+            copy.headerCrc = headerCrc;
+            copy.historyCrc = historyCrc;
+            return copy;
+        }
+    }
+
+    /** Folds log records into session fields, optionally materializing the history. */
+    private static final class Replay {
+
+        @Nullable
+        String sessionId;
+
+        @Nullable
+        String systemPrompt;
+
+        Map<String, String> metadata = Map.of();
+        Instant createdAt = Instant.EPOCH;
+        Instant lastActiveAt = Instant.EPOCH;
+        final List<SessionData.ConversationEntry> history = new ArrayList<>();
+        int entries;
+        int records;
+        int headerCrc;
+        int historyCrc;
+
+        static Replay resume(SessionState state) {
+            var replay = new Replay();
+            replay.sessionId = state.sessionId;
+            replay.createdAt = state.createdAt;
+            replay.lastActiveAt = state.lastActiveAt;
+            replay.entries = state.entries;
+            replay.records = state.records;
+            replay.headerCrc = state.headerCrc;
+            replay.historyCrc = state.historyCrc;
+            return replay;
+        }
+
+        void apply(byte type, byte[] payload, int crc, boolean materialize) {
+            var in = new DataInputStream(new ByteArrayInputStream(payload));
+            try {
+                switch (type) {
+                    case HEADER -> {
+                        sessionId = readString(in);
+                        systemPrompt = readString(in);
+                        createdAt = readInstant(in);
+                        var size = in.readInt();
+                        var map = new LinkedHashMap<String, String>();
+                        for (var i = 0; i < size; i++) {
+                            map.put(readString(in), readString(in));
+                        }
+                        metadata = map;
+                        headerCrc = crc;
+                    }
+                    case ENTRY -> {
+                        if (materialize) {
+                            var prompt = readString(in);
+                            var response = readString(in);
+                            var timestamp = readInstant(in);
+                            var model = readString(in);
+                            var tokens = in.readInt();
+                            history.add(new SessionData.ConversationEntry(
+                                    prompt, response, timestamp, model, tokens >= 0 ? tokens : null));
+                        }
+                        entries++;
+                        historyCrc = chain(historyCrc, crc);
+                    }
+                    case TOUCH -> lastActiveAt = readInstant(in);
+                    default -> throw new IOException("Unknown record type " + type);
+                }
+                records++;
+            } catch (EOFException e) {
+                throw new UncheckedIOException("Truncated session record", e);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void copyTo(SessionState state) {
+            state.createdAt = createdAt;
+            state.lastActiveAt = lastActiveAt;
+            state.entries = entries;
+            state.records = records;
+            state.headerCrc = headerCrc;
+            state.historyCrc = historyCrc;
+        }
+
+        SessionData toSessionData(String id) {
+            return new SessionData(id, systemPrompt, List.copyOf(history), metadata, createdAt, lastActiveAt);
+        }
+    }
+}
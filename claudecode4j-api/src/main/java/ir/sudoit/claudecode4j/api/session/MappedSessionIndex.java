@@ -0,0 +1,460 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.session;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Memory-mapped hash table of session metadata: last activity, size and file offset per session ID.
+ *
+ * <p>The file is a header followed by fixed 256-byte slots, addressed by a 64-bit hash of the session ID with linear
+ * probing. Lookups, inserts and removals touch one or a few slots; expiry scans and listings read the slots
+ * sequentially. Neither reads a session body, so {@code exists}, {@code listIds} and {@code deleteOlderThan} cost no
+ * session reads. The table doubles through a temporary file and an atomic move when three quarters of its slots are
+ * used or deleted, so each session costs between 341 and 683 bytes of file and mapped memory: 300,000 sessions fit in
+ * 524,288 slots, or 128 MiB. Offsets are 64-bit, so the table is bounded only by memory and disk.
+ *
+ * <p>Writes go to the mapped pages, which the OS persists even if the JVM dies; {@link #force()} flushes them to disk.
+ * The header records when the index was last {@linkplain #close() closed} and is cleared on open, so
+ * {@link #cleanlyClosedAt()} tells whether the previous process may have died between updating its data and the index.
+ * Thread-safe.
+ */
+public final class MappedSessionIndex implements AutoCloseable {
+
+    /** Longest session ID the index can hold, in UTF-8 bytes; longer IDs would also exceed file-name limits. */
+    public static final int MAX_ID_BYTES = 220;
+
+    private static final int MAGIC = 0x434C4D49; // "CLMI"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_SIZE = 256;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // Slot layout
+    private static final int HASH = 0;
+    private static final int LAST_ACTIVE = 8;
+    private static final int SIZE = 16;
+    private static final int OFFSET = 24;
+    private static final int STATUS = 32;
+    private static final int ID_LENGTH = 34;
+    private static final int ID = 36;
+
+    // The file format is big-endian
+    private static final ValueLayout.OfByte BYTE = ValueLayout.JAVA_BYTE;
+    private static final ValueLayout.OfShort SHORT = ValueLayout.JAVA_SHORT.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG.withOrder(ByteOrder.BIG_ENDIAN);
+
+    private static final byte EMPTY = 0;
+    private static final byte USED = 1;
+    private static final byte DELETED = 2;
+
+    // Header layout
+    private static final int CAPACITY_FIELD = 8;
+    private static final int COUNT_FIELD = 12;
+    private static final int DELETED_FIELD = 16;
+    // Epoch millis of the last close(); 0 while open or after a crash
+    private static final int CLOSED_AT_FIELD = 24;
+
+    /** Metadata of one session. */
+    public record Entry(String sessionId, Instant lastActiveAt, long size, long offset) {}
+
+    private final Path file;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final @Nullable Instant cleanlyClosedAt;
+    private MemorySegment map;
+    private int capacity;
+    private int count;
+    private int deleted;
+
+    private MappedSessionIndex(Path file, MemorySegment map) {
+        this.file = file;
+        this.map = map;
+        this.capacity = map.get(INT, CAPACITY_FIELD);
+        this.count = map.get(INT, COUNT_FIELD);
+        this.deleted = map.get(INT, DELETED_FIELD);
+        var closedAt = map.get(LONG, CLOSED_AT_FIELD);
+        this.cleanlyClosedAt = closedAt != 0 ? Instant.ofEpochMilli(closedAt) : null;
+        map.set(LONG, CLOSED_AT_FIELD, 0);
+        map.force();
+    }
+
+    /**
+     * Opens the index at {@code file}, creating an empty one if the file is missing or not an index.
+     *
+     * @param file the index file
+     * @return the open index
+     * @throws IOException if the file cannot be mapped
+     */
+    public static MappedSessionIndex open(Path file) throws IOException {
+        if (Files.exists(file) && isValid(file)) {
+            return new MappedSessionIndex(file, map(file, Files.size(file)));
+        }
+        create(file, INITIAL_CAPACITY);
+        return new MappedSessionIndex(file, map(file, fileSize(INITIAL_CAPACITY)));
+    }
+
+    /** Records or replaces a session's metadata. */
+    public void put(String sessionId, Instant lastActiveAt, long size, long offset) throws IOException {
+        var id = encodeId(sessionId);
+        var hash = hash(id);
+        lock.writeLock().lock();
+        try {
+            if ((count + deleted + 1) * 4L > capacity * 3L) {
+                resize(count * 2 >= capacity ? capacity * 2 : capacity);
+            }
+            var slot = find(hash, id);
+            if (slot < 0) {
+                slot = freeSlot(hash);
+                if (map.get(BYTE, slotOffset(slot) + STATUS) == DELETED) {
+                    deleted--;
+                }
+                count++;
+                writeId(slot, hash, id);
+            }
+            var base = slotOffset(slot);
+            map.set(LONG, base + LAST_ACTIVE, toMillis(lastActiveAt));
+            map.set(LONG, base + SIZE, size);
+            map.set(LONG, base + OFFSET, offset);
+            map.set(BYTE, base + STATUS, USED);
+            writeCounts();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Removes a session; returns {@code false} if it was not indexed. */
+    public boolean remove(String sessionId) {
+        var id = encodeId(sessionId);
+        lock.writeLock().lock();
+        try {
+            var slot = find(hash(id), id);
+            if (slot < 0) {
+                return false;
+            }
+            map.set(BYTE, slotOffset(slot) + STATUS, DELETED);
+            count--;
+            deleted++;
+            writeCounts();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Returns {@code true} if the session is indexed. */
+    public boolean contains(String sessionId) {
+        var id = encodeId(sessionId);
+        lock.readLock().lock();
+        try {
+            return find(hash(id), id) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Returns the session's metadata if indexed. */
+    public Optional<Entry> get(String sessionId) {
+        var id = encodeId(sessionId);
+        lock.readLock().lock();
+        try {
+            var slot = find(hash(id), id);
+            return slot < 0 ? Optional.empty() : Optional.of(entry(slot));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Returns the IDs of all indexed sessions. */
+    public List<String> ids() {
+        lock.readLock().lock();
+        try {
+            var ids = new ArrayList<String>(count);
+            for (var slot = 0; slot < capacity; slot++) {
+                if (map.get(BYTE, slotOffset(slot) + STATUS) == USED) {
+                    ids.add(readId(slot));
+                }
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Returns the IDs of sessions last active before {@code cutoff}, decoding only those IDs. */
+    public List<String> idsInactiveSince(Instant cutoff) {
+        var cutoffMillis = toMillis(cutoff);
+        lock.readLock().lock();
+        try {
+            var ids = new ArrayList<String>();
+            for (var slot = 0; slot < capacity; slot++) {
+                var base = slotOffset(slot);
+                if (map.get(BYTE, base + STATUS) == USED && map.get(LONG, base + LAST_ACTIVE) < cutoffMillis) {
+                    ids.add(readId(slot));
+                }
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Returns the number of indexed sessions. */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Removes every entry. */
+    public void clear() throws IOException {
+        lock.writeLock().lock();
+        try {
+            create(file, INITIAL_CAPACITY);
+            remap(INITIAL_CAPACITY);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns when this index was last closed with {@link #close()} before being opened, or empty if it was new or the
+     * process that had it open did not close it, e.g. because it crashed. In that case entries may be out of step with
+     * the data they describe.
+     */
+    public Optional<Instant> cleanlyClosedAt() {
+        return Optional.ofNullable(cleanlyClosedAt);
+    }
+
+    /** Flushes the mapped pages to disk. */
+    public void force() {
+        lock.readLock().lock();
+        try {
+            map.force();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Flushes the mapped pages and marks the index as cleanly closed. */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            map.force();
+            map.set(LONG, CLOSED_AT_FIELD, System.currentTimeMillis());
+            map.force();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int find(long hash, byte[] id) {
+        var mask = capacity - 1;
+        for (var i = 0; i < capacity; i++) {
+            var slot = (int) (hash + i) & mask;
+            var base = slotOffset(slot);
+            var status = map.get(BYTE, base + STATUS);
+            if (status == EMPTY) {
+                return -1;
+            }
+            if (status == USED && map.get(LONG, base + HASH) == hash && idEquals(base, id)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int freeSlot(long hash) {
+        var mask = capacity - 1;
+        for (var i = 0; ; i++) {
+            var slot = (int) (hash + i) & mask;
+            if (map.get(BYTE, slotOffset(slot) + STATUS) != USED) {
+                return slot;
+            }
+        }
+    }
+
+    private boolean idEquals(long base, byte[] id) {
+        if (map.get(SHORT, base + ID_LENGTH) != id.length) {
+            return false;
+        }
+        var stored = new byte[id.length];
+        MemorySegment.copy(map, BYTE, base + ID, stored, 0, id.length);
+        return Arrays.equals(stored, id);
+    }
+
+    private void writeId(int slot, long hash, byte[] id) {
+        var base = slotOffset(slot);
+        map.set(LONG, base + HASH, hash);
+        map.set(SHORT, base + ID_LENGTH, (short) id.length);
+        MemorySegment.copy(id, 0, map, BYTE, base + ID, id.length);
+    }
+
+    private String readId(int slot) {
+        var base = slotOffset(slot);
+        var id = new byte[map.get(SHORT, base + ID_LENGTH)];
+        MemorySegment.copy(map, BYTE, base + ID, id, 0, id.length);
+        return new String(id, StandardCharsets.UTF_8);
+    }
+
+    private Entry entry(int slot) {
+        var base = slotOffset(slot);
+        return new Entry(
+                readId(slot),
+                Instant.ofEpochMilli(map.get(LONG, base + LAST_ACTIVE)),
+                map.get(LONG, base + SIZE),
+                map.get(LONG, base + OFFSET));
+    }
+
+    private void writeCounts() {
+        map.set(INT, COUNT_FIELD, count);
+        map.set(INT, DELETED_FIELD, deleted);
+    }
+
+    /** Copies the live entries into a table of {@code newCapacity} slots, dropping tombstones. */
+    private void resize(int newCapacity) throws IOException {
+        var temp = file.resolveSibling(file.getFileName() + ".tmp");
+        create(temp, newCapacity);
+        var target = map(temp, fileSize(newCapacity));
+        var mask = newCapacity - 1;
+        for (var i = 0; i < capacity; i++) {
+            var base = slotOffset(i);
+            if (map.get(BYTE, base + STATUS) != USED) {
+                continue;
+            }
+            var hash = map.get(LONG, base + HASH);
+            for (var j = 0; ; j++) {
+                var candidate = (int) (hash + j) & mask;
+                var targetBase = slotOffset(candidate);
+                if (target.get(BYTE, targetBase + STATUS) == EMPTY) {
+                    MemorySegment.copy(map, base, target, targetBase, SLOT_SIZE);
+                    break;
+                }
+            }
+        }
+        target.set(INT, COUNT_FIELD, count);
+        target.set(INT, DELETED_FIELD, 0);
+        target.force();
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        map = target;
+        capacity = newCapacity;
+        deleted = 0;
+    }
+
+    private void remap(int newCapacity) throws IOException {
+        map = map(file, fileSize(newCapacity));
+        capacity = newCapacity;
+        count = 0;
+        deleted = 0;
+    }
+
+    private static void create(Path file, int capacity) throws IOException {
+        var temp = file.resolveSibling(file.getFileName() + ".new");
+        try (var arena = Arena.ofConfined();
+                var channel = FileChannel.open(
+                        temp,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.READ,
+                        StandardOpenOption.WRITE)) {
+            // Mapping the whole table extends the file to its size
+            var header = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(capacity), arena);
+            header.set(INT, 0, MAGIC);
+            header.set(INT, 4, VERSION);
+            header.set(INT, CAPACITY_FIELD, capacity);
+            header.force();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static boolean isValid(Path file) throws IOException {
+        if (Files.size(file) < HEADER_SIZE) {
+            return false;
+        }
+        var map = map(file, HEADER_SIZE);
+        var capacity = map.get(INT, CAPACITY_FIELD);
+        return map.get(INT, 0) == MAGIC
+                && map.get(INT, 4) == VERSION
+                && Integer.bitCount(capacity) == 1
+                && Files.size(file) == fileSize(capacity);
+    }
+
+    private static MemorySegment map(Path file, long size) throws IOException {
+        // The mapping stays valid after the channel is closed and is unmapped once unreachable
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size, Arena.ofAuto());
+        }
+    }
+
+    private static long fileSize(int capacity) {
+        return HEADER_SIZE + (long) capacity * SLOT_SIZE;
+    }
+
+    private static long slotOffset(int slot) {
+        return HEADER_SIZE + (long) slot * SLOT_SIZE;
+    }
+
+    private static byte[] encodeId(String sessionId) {
+        var id = sessionId.getBytes(StandardCharsets.UTF_8);
+        if (id.length > MAX_ID_BYTES) {
+            throw new IllegalArgumentException("Session ID exceeds " + MAX_ID_BYTES + " bytes: " + sessionId);
+        }
+        return id;
+    }
+
+    /** 64-bit FNV-1a. */
+    private static long hash(byte[] id) {
+        var hash = 0xcbf29ce484222325L;
+        for (var b : id) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long toMillis(Instant instant) {
+        return instant.toEpochMilli();
+    }
+}
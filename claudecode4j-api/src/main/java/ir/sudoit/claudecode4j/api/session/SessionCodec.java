@@ -0,0 +1,462 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.session;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Compact binary encoding of {@link SessionData}.
+ *
+ * <p>Layout, big-endian: magic {@code "CLSB"}, a version byte and a flags byte; the session ID, system prompt,
+ * {@code createdAt}, {@code lastActiveAt} and metadata; then the entry count, the history length and the history
+ * block. Strings are a length followed by UTF-8 bytes, with length {@code -1} for {@code null}. The history block is
+ * Deflate-compressed when its raw form exceeds {@value #COMPRESSION_THRESHOLD} bytes and compression saves space.
+ *
+ * <p>When encoded with a {@link ContentStore}, long system prompts, prompts and responses are stored there and written
+ * as length {@code -2} followed by their 32-byte key. Such sessions use version 2, which lists the distinct keys right
+ * after the flags so {@link #readReferences} finds them without parsing the rest.
+ *
+ * <p>{@link #decode} reads the header eagerly and returns a history list that decodes the block on first access, so
+ * callers interested only in timestamps or metadata never inflate or parse the conversation.
+ */
+public final class SessionCodec {
+
+    /** The first four bytes of every encoded session. */
+    public static final int MAGIC = 0x434C5342; // "CLSB"
+
+    /** Raw history size above which the block is compressed. */
+    public static final int COMPRESSION_THRESHOLD = 4096;
+
+    private static final byte VERSION = 1;
+    private static final byte VERSION_WITH_REFERENCES = 2;
+    private static final int NULL_LENGTH = -1;
+    private static final int REFERENCE_LENGTH = -2;
+    private static final byte FLAG_COMPRESSED = 1;
+
+    private SessionCodec() {}
+
+    /**
+     * Encodes a session.
+     *
+     * @param data the session
+     * @return the encoded bytes
+     */
+    public static byte[] encode(SessionData data) {
+        try {
+            return encode(data, null);
+        } catch (IOException e) {
+            // Only staging content can fail
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Encodes a session, staging long strings in {@code content}.
+     *
+     * <p>The caller {@linkplain ContentStore#retain retains} the {@linkplain #readReferences references} once the
+     * encoded session is stored.
+     *
+     * @param data the session
+     * @param content where long strings are stored, or {@code null} to inline them
+     * @return the encoded bytes
+     * @throws IOException if content cannot be staged
+     */
+    public static byte[] encode(SessionData data, @Nullable ContentStore content) throws IOException {
+        var references = new LinkedHashSet<String>();
+        var history = new Writer(256);
+        for (var entry : data.history()) {
+            history.text(entry.prompt(), content, references);
+            history.text(entry.response(), content, references);
+            history.instant(entry.timestamp());
+            history.string(entry.model());
+            history.integer(entry.tokensUsed() != null ? entry.tokensUsed() : -1);
+        }
+        var block = history.toByteArray();
+        var flags = (byte) 0;
+        if (block.length > COMPRESSION_THRESHOLD) {
+            var compressed = deflate(block);
+            if (compressed.length < block.length) {
+                block = compressed;
+                flags |= FLAG_COMPRESSED;
+            }
+        }
+
+        var header = new Writer(128);
+        header.string(data.sessionId());
+        header.text(data.systemPrompt(), content, references);
+        var headerBytes = header.toByteArray();
+
+        var out = new Writer(16 + references.size() * ContentStore.KEY_BYTES + headerBytes.length + block.length);
+        out.integer(MAGIC);
+        if (references.isEmpty()) {
+            out.bytes(new byte[] {VERSION, flags});
+        } else {
+            out.bytes(new byte[] {VERSION_WITH_REFERENCES, flags});
+            out.integer(references.size());
+            for (var key : references) {
+                out.bytes(ContentStore.toBytes(key));
+            }
+        }
+        out.bytes(headerBytes);
+        out.instant(data.createdAt());
+        out.instant(data.lastActiveAt());
+        out.integer(data.metadata().size());
+        for (var entry : data.metadata().entrySet()) {
+            out.string(entry.getKey());
+            out.string(entry.getValue());
+        }
+        out.integer(data.history().size());
+        out.integer(block.length);
+        out.bytes(block);
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a session; the history is decoded on first access.
+     *
+     * @param bytes the encoded session
+     * @return the session
+     * @throws IOException if the bytes are not an encoded session, are truncated or are corrupt
+     */
+    public static SessionData decode(byte[] bytes) throws IOException {
+        return decode(bytes, null);
+    }
+
+    /**
+     * Decodes a session, resolving references to long strings from {@code content}; the history is decoded on first
+     * access.
+     *
+     * @param bytes the encoded session
+     * @param content the store the session's long strings were staged in, or {@code null}
+     * @return the session
+     * @throws IOException if the bytes are not an encoded session, are truncated or corrupt, or reference content that
+     *     cannot be loaded
+     */
+    public static SessionData decode(byte[] bytes, @Nullable ContentStore content) throws IOException {
+        var in = ByteBuffer.wrap(bytes);
+        try {
+            if (!isEncoded(bytes)) {
+                throw new IOException("Not an encoded session");
+            }
+            in.position(Integer.BYTES);
+            var version = in.get();
+            if (version != VERSION && version != VERSION_WITH_REFERENCES) {
+                throw new IOException("Unsupported session format version " + version);
+            }
+            var flags = in.get();
+            if (version == VERSION_WITH_REFERENCES) {
+                var references = in.getInt();
+                if (references < 0 || (long) references * ContentStore.KEY_BYTES > in.remaining()) {
+                    throw new IOException("Truncated session references");
+                }
+                in.position(in.position() + references * ContentStore.KEY_BYTES);
+            }
+            var sessionId = readString(in);
+            if (sessionId == null) {
+                throw new IOException("Session ID missing");
+            }
+            var systemPrompt = readText(in, content);
+            var createdAt = readInstant(in);
+            var lastActiveAt = readInstant(in);
+            var metadataSize = in.getInt();
+            var metadata = new LinkedHashMap<String, String>();
+            for (var i = 0; i < metadataSize; i++) {
+                var key = readString(in);
+                var value = readString(in);
+                if (key == null || value == null) {
+                    throw new IOException("Corrupt session metadata");
+                }
+                metadata.put(key, value);
+            }
+            var entries = in.getInt();
+            var blockLength = in.getInt();
+            if (entries < 0 || blockLength < 0 || blockLength > in.remaining()) {
+                throw new IOException("Truncated session history");
+            }
+            var history = new LazyHistory(
+                    bytes, in.position(), blockLength, entries, (flags & FLAG_COMPRESSED) != 0, content);
+            return new SessionData(sessionId, systemPrompt, history, metadata, createdAt, lastActiveAt);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Truncated session", e);
+        }
+    }
+
+    /**
+     * Reads the content keys an encoded session references, consuming only the start of {@code in}.
+     *
+     * @param in the encoded session, positioned at its start
+     * @param length the length of the encoded session in bytes, which bounds the number of keys
+     * @return the distinct keys, empty for sessions without references or for non-encoded input
+     * @throws IOException if the stream cannot be read or the reference list is truncated or corrupt
+     */
+    public static List<String> readReferences(InputStream in, long length) throws IOException {
+        var data = new DataInputStream(in);
+        var head = data.readNBytes(Integer.BYTES + 2);
+        if (head.length < Integer.BYTES + 2
+                || ByteBuffer.wrap(head).getInt() != MAGIC
+                || head[Integer.BYTES] != VERSION_WITH_REFERENCES) {
+            return List.of();
+        }
+        try {
+            var count = data.readInt();
+            if (count < 0 || count > (length - head.length - Integer.BYTES) / ContentStore.KEY_BYTES) {
+                throw new IOException("Corrupt session references: " + count + " keys in " + length + " bytes");
+            }
+            var keys = new ArrayList<String>(count);
+            var key = new byte[ContentStore.KEY_BYTES];
+            for (var i = 0; i < count; i++) {
+                data.readFully(key);
+                keys.add(ContentStore.toKey(key));
+            }
+            return keys;
+        } catch (EOFException e) {
+            throw new IOException("Truncated session references", e);
+        }
+    }
+
+    /** Returns {@code true} if {@code bytes} start with the {@linkplain #MAGIC magic number}. */
+    public static boolean isEncoded(byte[] bytes) {
+        return bytes.length >= Integer.BYTES && ByteBuffer.wrap(bytes).getInt(0) == MAGIC;
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        var deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            var out = new ByteArrayOutputStream(raw.length / 2);
+            var buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] bytes, int offset, int length) throws IOException {
+        var inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, offset, length);
+            var out = new ByteArrayOutputStream(length * 4);
+            var buffer = new byte[8192];
+            while (!inflater.finished()) {
+                var n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated compressed history");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt compressed history", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static @Nullable String readString(ByteBuffer in) throws IOException {
+        var length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.remaining()) {
+            throw new IOException("Truncated session string");
+        }
+        var value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static @Nullable String readText(ByteBuffer in, @Nullable ContentStore content) throws IOException {
+        if (in.getInt(in.position()) != REFERENCE_LENGTH) {
+            return readString(in);
+        }
+        in.position(in.position() + Integer.BYTES);
+        var key = new byte[ContentStore.KEY_BYTES];
+        in.get(key);
+        if (content == null) {
+            throw new IOException("Session references stored content but no content store was given");
+        }
+        return content.load(ContentStore.toKey(key));
+    }
+
+    private static Instant readInstant(ByteBuffer in) {
+        return Instant.ofEpochSecond(in.getLong(), in.getInt());
+    }
+
+    /** Growable big-endian buffer. */
+    private static final class Writer {
+
+        private ByteBuffer out;
+
+        Writer(int capacity) {
+            out = ByteBuffer.allocate(capacity);
+        }
+
+        void integer(int value) {
+            ensure(Integer.BYTES);
+            out.putInt(value);
+        }
+
+        void string(@Nullable String value) {
+            if (value == null) {
+                integer(NULL_LENGTH);
+                return;
+            }
+            var bytes = value.getBytes(StandardCharsets.UTF_8);
+            ensure(Integer.BYTES + bytes.length);
+            out.putInt(bytes.length).put(bytes);
+        }
+
+        /** Writes a string that is stored by reference when {@code content} accepts it. */
+        void text(@Nullable String value, @Nullable ContentStore content, Set<String> references)
+                throws IOException {
+            if (value == null || content == null || !content.shouldStore(value)) {
+                string(value);
+                return;
+            }
+            var key = content.stage(value);
+            references.add(key);
+            integer(REFERENCE_LENGTH);
+            bytes(ContentStore.toBytes(key));
+        }
+
+        void instant(Instant instant) {
+            ensure(Long.BYTES + Integer.BYTES + Integer.BYTES);
+            out.putLong(instant.getEpochSecond()).putInt(instant.getNano());
+        }
+
+        void bytes(byte[] bytes) {
+            ensure(bytes.length);
+            out.put(bytes);
+        }
+
+        private void ensure(int length) {
+            if (out.remaining() >= length) {
+                return;
+            }
+            var grown = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + length));
+            out.flip();
+            out = grown.put(out);
+        }
+
+        byte[] toByteArray() {
+            var bytes = new byte[out.position()];
+            out.get(0, bytes);
+            return bytes;
+        }
+    }
+
+    /** History list over the encoded block, decoded in full on first access. */
+    private static final class LazyHistory extends AbstractList<SessionData.ConversationEntry> {
+
+        private final int size;
+        private byte @Nullable [] source;
+        private final int offset;
+        private final int length;
+        private final boolean compressed;
+        private final @Nullable ContentStore content;
+        private volatile @Nullable List<SessionData.ConversationEntry> entries;
+
+        LazyHistory(
+                byte[] source, int offset, int length, int size, boolean compressed, @Nullable ContentStore content) {
+            this.source = source;
+            this.offset = offset;
+            this.length = length;
+            this.size = size;
+            this.compressed = compressed;
+            this.content = content;
+        }
+
+        @Override
+        public SessionData.ConversationEntry get(int index) {
+            return entries().get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        private List<SessionData.ConversationEntry> entries() {
+            var decoded = entries;
+            if (decoded == null) {
+                synchronized (this) {
+                    decoded = entries;
+                    if (decoded == null) {
+                        decoded = decodeEntries();
+                        entries = decoded;
+                        // The encoded form is no longer needed
+                        source = null;
+                    }
+                }
+            }
+            return decoded;
+        }
+
+        private List<SessionData.ConversationEntry> decodeEntries() {
+            try {
+                var in = compressed
+                        ? ByteBuffer.wrap(inflate(source, offset, length))
+                        : ByteBuffer.wrap(source, offset, length).slice();
+                var list = new ArrayList<SessionData.ConversationEntry>(size);
+                for (var i = 0; i < size; i++) {
+                    var prompt = readText(in, content);
+                    var response = readText(in, content);
+                    var timestamp = readInstant(in);
+                    var model = readString(in);
+                    var tokens = in.getInt();
+                    list.add(new SessionData.ConversationEntry(
+                            prompt, response, timestamp, model, tokens >= 0 ? tokens : null));
+                }
+                return Collections.unmodifiableList(list);
+            } catch (IOException | BufferUnderflowException | IndexOutOfBoundsException e) {
+                throw new UncheckedIOException(
+                        "Corrupt session history", e instanceof IOException io ? io : new IOException(e));
+            }
+        }
+    }
+}
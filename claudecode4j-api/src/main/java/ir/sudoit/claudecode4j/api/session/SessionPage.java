@@ -0,0 +1,60 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.session;
+
+import java.util.List;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * One page of a {@link SessionQuery}.
+ *
+ * @param sessions the matching sessions, in query order
+ * @param nextCursor cursor for the next page, or {@code null} if this is the last
+ */
+public record SessionPage(List<SessionData> sessions, @Nullable String nextCursor) {
+
+    public SessionPage {
+        sessions = List.copyOf(sessions);
+    }
+
+    /**
+     * Builds a page from up to {@code limit + 1} matches in query order; the extra match only signals a next page.
+     *
+     * @param matches the matching sessions, in query order
+     * @param limit the page size
+     * @return the page
+     */
+    public static SessionPage of(List<SessionData> matches, int limit) {
+        if (matches.size() <= limit) {
+            return new SessionPage(matches, null);
+        }
+        var page = matches.subList(0, limit);
+        return new SessionPage(page, SessionQuery.Position.of(page.getLast()).encode());
+    }
+
+    /** Returns {@code true} if more sessions follow this page. */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.session;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A filtered, sorted page request over a {@link SessionStore}.
+ *
+ * <p>Sessions match when every {@code metadata} entry is present with an equal value and {@code lastActiveAt} lies in
+ * {@code [activeFrom, activeUntil)}. Results are ordered by {@code lastActiveAt}, ties broken by session ID, and cut
+ * at {@code limit}; pass the returned {@link SessionPage#nextCursor()} as {@code cursor} to continue after the last
+ * session of a page. Cursors are stable under concurrent writes: a session moved by a save appears at its new
+ * position.
+ *
+ * <pre>{@code
+ * var page = store.query(SessionQuery.builder()
+ *         .metadata("tenant", "acme")
+ *         .newestFirst()
+ *         .limit(20)
+ *         .build());
+ * }</pre>
+ *
+ * @param metadata metadata entries a session must have
+ * @param activeFrom inclusive lower bound on {@code lastActiveAt}, or {@code null}
+ * @param activeUntil exclusive upper bound on {@code lastActiveAt}, or {@code null}
+ * @param newestFirst whether the most recently active sessions come first
+ * @param limit maximum number of sessions per page
+ * @param cursor position to continue after, from a previous page
+ */
+public record SessionQuery(
+        Map<String, String> metadata,
+        @Nullable Instant activeFrom,
+        @Nullable Instant activeUntil,
+        boolean newestFirst,
+        int limit,
+        @Nullable String cursor) {
+
+    /** Page size used when none is given. */
+    public static final int DEFAULT_LIMIT = 50;
+
+    public SessionQuery {
+        metadata = metadata == null ? Map.of() : Map.copyOf(metadata);
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** Returns {@code true} if a session with this activity and metadata matches the filters, ignoring the cursor. */
+    public boolean matches(Instant lastActiveAt, Map<String, String> sessionMetadata) {
+        if (activeFrom != null && lastActiveAt.isBefore(activeFrom)) {
+            return false;
+        }
+        if (activeUntil != null && !lastActiveAt.isBefore(activeUntil)) {
+            return false;
+        }
+        for (var entry : metadata.entrySet()) {
+            if (!entry.getValue().equals(sessionMetadata.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Returns the result order. */
+    public Comparator<Position> order() {
+        return newestFirst ? Position.ORDER.reversed() : Position.ORDER;
+    }
+
+    /** Returns the decoded cursor, or {@code null} for the first page. */
+    public @Nullable Position after() {
+        return cursor == null ? null : Position.decode(cursor);
+    }
+
+    /**
+     * A session's place in the result order.
+     *
+     * @param lastActiveAt the session's last activity
+     * @param sessionId the session ID
+     */
+    public record Position(Instant lastActiveAt, String sessionId) {
+
+        /** Ascending by activity, then session ID. */
+        public static final Comparator<Position> ORDER =
+                Comparator.comparing(Position::lastActiveAt).thenComparing(Position::sessionId);
+
+        public static Position of(SessionData data) {
+            return new Position(data.lastActiveAt(), data.sessionId());
+        }
+
+        /** Encodes this position as an opaque cursor. */
+        public String encode() {
+            var raw = lastActiveAt.getEpochSecond() + ":" + lastActiveAt.getNano() + ":" + sessionId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Decodes a cursor produced by {@link #encode()}.
+         *
+         * @throws IllegalArgumentException if the cursor is malformed
+         */
+        public static Position decode(String cursor) {
+            var raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            var first = raw.indexOf(':');
+            var second = raw.indexOf(':', first + 1);
+            if (first < 0 || second < 0) {
+                throw new IllegalArgumentException("Malformed session cursor: " + cursor);
+            }
+            try {
+                var instant = Instant.ofEpochSecond(
+                        Long.parseLong(raw.substring(0, first)), Long.parseLong(raw.substring(first + 1, second)));
+                return new Position(instant, raw.substring(second + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Malformed session cursor: " + cursor, e);
+            }
+        }
+    }
+
+    public static final class Builder {
+        private final Map<String, String> metadata = new LinkedHashMap<>();
+        private @Nullable Instant activeFrom;
+        private @Nullable Instant activeUntil;
+        private boolean newestFirst;
+        private int limit = DEFAULT_LIMIT;
+        private @Nullable String cursor;
+
+        private Builder() {}
+
+        public Builder metadata(String key, String value) {
+            this.metadata.put(key, value);
+            return this;
+        }
+
+        public Builder activeFrom(@Nullable Instant activeFrom) {
+            this.activeFrom = activeFrom;
+            return this;
+        }
+
+        public Builder activeUntil(@Nullable Instant activeUntil) {
+            this.activeUntil = activeUntil;
+            return this;
+        }
+
+        public Builder newestFirst() {
+            this.newestFirst = true;
+            return this;
+        }
+
+        public Builder oldestFirst() {
+            this.newestFirst = false;
+            return this;
+        }
+
+        public Builder limit(int limit) {
+            this.limit = limit;
+            return this;
+        }
+
+        public Builder cursor(@Nullable String cursor) {
+            this.cursor = cursor;
+            return this;
+        }
+
+        public SessionQuery build() {
+            return new SessionQuery(metadata, activeFrom, activeUntil, newestFirst, limit, cursor);
+        }
+    }
+}
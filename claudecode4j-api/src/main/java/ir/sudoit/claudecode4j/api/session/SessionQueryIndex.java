@@ -0,0 +1,205 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.session;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory secondary indexes answering {@link SessionQuery} with session IDs.
+ *
+ * <p>Sessions are kept in a tree ordered by {@link SessionQuery.Position}, and per metadata key and value in a set of
+ * IDs. A query without metadata filters walks the tree from the cursor or time bound and stops after one page; a query
+ * with filters starts from the smallest matching ID set. Thread-safe.
+ */
+final class SessionQueryIndex {
+
+    private record Indexed(SessionQuery.Position position, Map<String, String> metadata) {}
+
+    private final Map<String, Indexed> sessions = new HashMap<>();
+    private final NavigableSet<SessionQuery.Position> byActivity = new TreeSet<>(SessionQuery.Position.ORDER);
+    private final Map<String, Map<String, Set<String>>> byMetadata = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Indexes a session, replacing its previous entry. */
+    void put(SessionData data) {
+        lock.writeLock().lock();
+        try {
+            unindex(data.sessionId());
+            index(data);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Indexes a session unless it is already indexed. */
+    void putIfAbsent(SessionData data) {
+        lock.writeLock().lock();
+        try {
+            if (!sessions.containsKey(data.sessionId())) {
+                index(data);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(String sessionId) {
+        lock.writeLock().lock();
+        try {
+            unindex(sessionId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            sessions.clear();
+            byActivity.clear();
+            byMetadata.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Returns the IDs of up to {@code limit + 1} matching sessions in query order. */
+    List<String> query(SessionQuery query) {
+        lock.readLock().lock();
+        try {
+            return query.metadata().isEmpty() ? walk(query) : filter(query);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Returns the IDs of sessions last active before {@code cutoff}, oldest first. */
+    List<String> activeBefore(Instant cutoff) {
+        lock.readLock().lock();
+        try {
+            var ids = new ArrayList<String>();
+            for (var position : byActivity.headSet(new SessionQuery.Position(cutoff, ""), false)) {
+                ids.add(position.sessionId());
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<String> walk(SessionQuery query) {
+        NavigableSet<SessionQuery.Position> view = byActivity;
+        if (query.activeFrom() != null) {
+            view = view.tailSet(new SessionQuery.Position(query.activeFrom(), ""), true);
+        }
+        if (query.activeUntil() != null) {
+            view = view.headSet(new SessionQuery.Position(query.activeUntil(), ""), false);
+        }
+        if (query.newestFirst()) {
+            view = view.descendingSet();
+        }
+        var after = query.after();
+        if (after != null) {
+            view = view.tailSet(after, false);
+        }
+        var ids = new ArrayList<String>(query.limit() + 1);
+        for (var position : view) {
+            ids.add(position.sessionId());
+            if (ids.size() > query.limit()) {
+                break;
+            }
+        }
+        return ids;
+    }
+
+    private List<String> filter(SessionQuery query) {
+        Set<String> smallest = null;
+        for (var entry : query.metadata().entrySet()) {
+            var values = byMetadata.get(entry.getKey());
+            var ids = values == null ? null : values.get(entry.getValue());
+            if (ids == null) {
+                return List.of();
+            }
+            if (smallest == null || ids.size() < smallest.size()) {
+                smallest = ids;
+            }
+        }
+        var order = query.order();
+        var after = query.after();
+        var matches = new ArrayList<Indexed>();
+        for (var id : smallest) {
+            var indexed = sessions.get(id);
+            if (query.matches(indexed.position().lastActiveAt(), indexed.metadata())
+                    && (after == null || order.compare(indexed.position(), after) > 0)) {
+                matches.add(indexed);
+            }
+        }
+        matches.sort((a, b) -> order.compare(a.position(), b.position()));
+        var ids = new ArrayList<String>(Math.min(matches.size(), query.limit() + 1));
+        for (var i = 0; i < matches.size() && i <= query.limit(); i++) {
+            ids.add(matches.get(i).position().sessionId());
+        }
+        return ids;
+    }
+
+    private void index(SessionData data) {
+        var indexed = new Indexed(SessionQuery.Position.of(data), Map.copyOf(data.metadata()));
+        sessions.put(data.sessionId(), indexed);
+        byActivity.add(indexed.position());
+        for (var entry : indexed.metadata().entrySet()) {
+            byMetadata
+                    .computeIfAbsent(entry.getKey(), key -> new HashMap<>())
+                    .computeIfAbsent(entry.getValue(), value -> new HashSet<>())
+                    .add(data.sessionId());
+        }
+    }
+
+    private void unindex(String sessionId) {
+        var indexed = sessions.remove(sessionId);
+        if (indexed == null) {
+            return;
+        }
+        byActivity.remove(indexed.position());
+        for (var entry : indexed.metadata().entrySet()) {
+            var values = byMetadata.get(entry.getKey());
+            var ids = values.get(entry.getValue());
+            ids.remove(sessionId);
+            if (ids.isEmpty()) {
+                values.remove(entry.getValue());
+                if (values.isEmpty()) {
+                    byMetadata.remove(entry.getKey());
+                }
+            }
+        }
+    }
+}
@@ -25,7 +25,9 @@ package ir.sudoit.claudecode4j.api.session;
 
 import java.io.IOException;
 import java.time.Duration;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -84,7 +86,7 @@ public interface SessionStore {
                         return null;
                     }
                 })
-                .filter(java.util.Objects::nonNull)
+                .filter(Objects::nonNull)
                 .toList();
     }
 
@@ -99,6 +101,28 @@ public interface SessionStore {
         return load(sessionId).isPresent();
     }
 
+    /**
+     * Returns one page of the sessions matching {@code query}.
+     *
+     * <p>The default loads every session; stores with secondary indexes override it so the cost follows the page
+     * size.
+     *
+     * @param query the filters, order and page
+     * @return the page
+     * @throws IOException if the query fails
+     */
+    default SessionPage query(SessionQuery query) throws IOException {
+        var order = query.order();
+        var after = query.after();
+        var matches = listAll().stream()
+                .filter(data -> query.matches(data.lastActiveAt(), data.metadata()))
+                .filter(data -> after == null || order.compare(SessionQuery.Position.of(data), after) > 0)
+                .sorted(Comparator.comparing(SessionQuery.Position::of, order))
+                .limit(query.limit() + 1L)
+                .toList();
+        return SessionPage.of(matches, query.limit());
+    }
+
     /**
      * Deletes sessions older than the specified age.
      *
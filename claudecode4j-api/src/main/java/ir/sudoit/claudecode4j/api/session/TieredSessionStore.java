@@ -0,0 +1,486 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.session;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Two-tier session store: a bounded in-memory hot tier in front of a persistent cold tier.
+ *
+ * <p>The hot tier is an LRU map bounded by total weight; by default a session weighs roughly the bytes of its system
+ * prompt, metadata and history, so a few long conversations displace many short ones. Use {@code data -> 1} to bound
+ * it by session count instead. Loads that miss the hot tier read the cold tier and promote the session; inserts beyond
+ * the bound evict the least recently used sessions.
+ *
+ * <p>With {@link WritePolicy#WRITE_THROUGH}, every save reaches the cold tier before returning. With
+ * {@link WritePolicy#WRITE_BACK}, saves stay in memory until the session is evicted, {@link #flush()}ed or the store is
+ * closed, so a crash loses unflushed sessions. {@link #stats()} reports hits per tier.
+ */
+public final class TieredSessionStore implements SessionStore, AutoCloseable {
+
+    /** When saved sessions reach the cold tier. */
+    public enum WritePolicy {
+        /** On every save. */
+        WRITE_THROUGH,
+        /** On eviction, flush or close. */
+        WRITE_BACK
+    }
+
+    /**
+     * Tier counters since creation.
+     *
+     * @param hotHits loads answered by the hot tier
+     * @param coldHits loads answered by the cold tier
+     * @param misses loads of sessions in neither tier
+     * @param evictions sessions evicted from the hot tier
+     * @param hotSessions sessions currently in the hot tier
+     * @param hotWeight current total weight of the hot tier
+     */
+    public record Stats(long hotHits, long coldHits, long misses, long evictions, int hotSessions, long hotWeight) {
+
+        /** Returns hot hits divided by loads, or {@code 0} before the first load. */
+        public double hotHitRatio() {
+            var total = hotHits + coldHits + misses;
+            return total == 0 ? 0 : (double) hotHits / total;
+        }
+
+        /** Returns cold hits divided by loads that missed the hot tier, or {@code 0} if none did. */
+        public double coldHitRatio() {
+            var total = coldHits + misses;
+            return total == 0 ? 0 : (double) coldHits / total;
+        }
+    }
+
+    // Mutable fields are guarded by hotLock and updated in place, since a put or get would reorder the LRU
+    private static final class Cached {
+        final SessionData data;
+        final long weight;
+        boolean dirty;
+        // Cleared once the entry leaves the hot tier or is replaced
+        boolean live = true;
+
+        Cached(SessionData data, long weight, boolean dirty) {
+            this.data = data;
+            this.weight = weight;
+            this.dirty = dirty;
+        }
+    }
+
+    private final SessionStore cold;
+    private final long maxWeight;
+    private final ToLongFunction<SessionData> weigher;
+    private final WritePolicy writePolicy;
+    // Access-ordered; guarded by hotLock
+    private final LinkedHashMap<String, Cached> hot = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock hotLock = new ReentrantLock();
+    // Dirty sessions evicted from the hot tier and not yet written to the cold tier
+    private final Map<String, SessionData> evicted = new ConcurrentHashMap<>();
+    // Striped by session id; serialise a session's cold-tier writes so a delete cannot be overtaken by a write-back
+    private final ReentrantLock[] coldLocks = new ReentrantLock[64];
+    // Last save or delete of each session, numbered from sequence; a cold read is promoted only if its session's
+    // entry is unchanged. Holds one entry per session changed since the last deleteOlderThan or clear
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    // Bumped when sessions are removed in bulk and their versions dropped, which cancels every pending promotion
+    private final AtomicLong bulkRemovals = new AtomicLong();
+    private final LongAdder hotHits = new LongAdder();
+    private final LongAdder coldHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private long hotWeight;
+
+    /** Creates a write-through store holding up to {@code maxWeight} approximate bytes of sessions in memory. */
+    public TieredSessionStore(SessionStore cold, long maxWeight) {
+        this(cold, maxWeight, TieredSessionStore::estimateBytes, WritePolicy.WRITE_THROUGH);
+    }
+
+    /**
+     * Creates a tiered store.
+     *
+     * @param cold the persistent tier
+     * @param maxWeight the total weight the hot tier may hold
+     * @param weigher the weight of a session, at least {@code 1}
+     * @param writePolicy when saves reach the cold tier
+     */
+    public TieredSessionStore(
+            SessionStore cold, long maxWeight, ToLongFunction<SessionData> weigher, WritePolicy writePolicy) {
+        if (maxWeight < 1) {
+            throw new IllegalArgumentException("maxWeight must be positive");
+        }
+        this.cold = cold;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.writePolicy = writePolicy;
+        for (var i = 0; i < coldLocks.length; i++) {
+            coldLocks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public void save(SessionData data) throws IOException {
+        changed(data.sessionId());
+        if (writePolicy == WritePolicy.WRITE_BACK) {
+            cache(data, true, false);
+            writeBackEvicted();
+            return;
+        }
+        var lock = coldLockFor(data.sessionId());
+        lock.lock();
+        try {
+            cold.save(data);
+            cache(data, false, false);
+        } finally {
+            lock.unlock();
+        }
+        writeBackEvicted();
+    }
+
+    @Override
+    public Optional<SessionData> load(String sessionId) throws IOException {
+        hotLock.lock();
+        try {
+            var cached = hot.get(sessionId);
+            if (cached != null) {
+                hotHits.increment();
+                return Optional.of(cached.data);
+            }
+        } finally {
+            hotLock.unlock();
+        }
+        var pending = evicted.get(sessionId);
+        if (pending != null) {
+            hotHits.increment();
+            return Optional.of(pending);
+        }
+        var removalsBefore = bulkRemovals.get();
+        var versionBefore = versions.get(sessionId);
+        var data = cold.load(sessionId);
+        if (data.isEmpty()) {
+            misses.increment();
+            return data;
+        }
+        coldHits.increment();
+        if (Objects.equals(versions.get(sessionId), versionBefore) && bulkRemovals.get() == removalsBefore) {
+            cache(data.get(), false, true);
+            writeBackEvicted();
+        }
+        return data;
+    }
+
+    @Override
+    public boolean delete(String sessionId) throws IOException {
+        changed(sessionId);
+        boolean cached;
+        hotLock.lock();
+        try {
+            var removed = hot.remove(sessionId);
+            cached = removed != null;
+            if (cached) {
+                removed.live = false;
+                hotWeight -= removed.weight;
+            }
+        } finally {
+            hotLock.unlock();
+        }
+        var lock = coldLockFor(sessionId);
+        lock.lock();
+        try {
+            cached |= evicted.remove(sessionId) != null;
+            return cold.delete(sessionId) || cached;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<String> listIds() throws IOException {
+        var ids = new LinkedHashSet<>(cold.listIds());
+        ids.addAll(evicted.keySet());
+        hotLock.lock();
+        try {
+            ids.addAll(hot.keySet());
+        } finally {
+            hotLock.unlock();
+        }
+        return List.copyOf(ids);
+    }
+
+    @Override
+    public boolean exists(String sessionId) throws IOException {
+        hotLock.lock();
+        try {
+            if (hot.containsKey(sessionId)) {
+                return true;
+            }
+        } finally {
+            hotLock.unlock();
+        }
+        return evicted.containsKey(sessionId) || cold.exists(sessionId);
+    }
+
+    /** Flushes dirty sessions first, so the cold tier sees every session's latest activity. */
+    @Override
+    public int deleteOlderThan(Duration maxAge) throws IOException {
+        flush();
+        removedInBulk();
+        var cutoff = Instant.now().minus(maxAge);
+        hotLock.lock();
+        try {
+            var iterator = hot.values().iterator();
+            while (iterator.hasNext()) {
+                var cached = iterator.next();
+                if (cached.data.lastActiveAt().isBefore(cutoff)) {
+                    cached.live = false;
+                    hotWeight -= cached.weight;
+                    iterator.remove();
+                }
+            }
+        } finally {
+            hotLock.unlock();
+        }
+        lockAllColdLocks();
+        try {
+            return cold.deleteOlderThan(maxAge);
+        } finally {
+            unlockAllColdLocks();
+        }
+    }
+
+    @Override
+    public void clear() throws IOException {
+        removedInBulk();
+        hotLock.lock();
+        try {
+            hot.values().forEach(cached -> cached.live = false);
+            hot.clear();
+            hotWeight = 0;
+        } finally {
+            hotLock.unlock();
+        }
+        lockAllColdLocks();
+        try {
+            evicted.clear();
+            cold.clear();
+        } finally {
+            unlockAllColdLocks();
+        }
+    }
+
+    @Override
+    public int priority() {
+        return cold.priority();
+    }
+
+    /** Returns the tier counters. */
+    public Stats stats() {
+        hotLock.lock();
+        try {
+            return new Stats(
+                    hotHits.sum(), coldHits.sum(), misses.sum(), evictions.sum(), hot.size(), hotWeight);
+        } finally {
+            hotLock.unlock();
+        }
+    }
+
+    /**
+     * Writes every dirty session to the cold tier; they stay in the hot tier.
+     *
+     * @throws IOException if the cold tier fails
+     */
+    public void flush() throws IOException {
+        var dirty = new ArrayList<Cached>();
+        hotLock.lock();
+        try {
+            for (var cached : hot.values()) {
+                if (cached.dirty) {
+                    dirty.add(cached);
+                }
+            }
+        } finally {
+            hotLock.unlock();
+        }
+        for (var cached : dirty) {
+            var lock = coldLockFor(cached.data.sessionId());
+            lock.lock();
+            try {
+                // Skips sessions deleted, evicted or saved again since they were collected
+                if (isLive(cached)) {
+                    cold.save(cached.data);
+                    markClean(cached);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        writeBackEvicted();
+    }
+
+    /** Flushes dirty sessions and closes the cold tier if it is closeable. */
+    @Override
+    public void close() throws IOException {
+        flush();
+        if (cold instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Failed to close session store", e);
+            }
+        }
+    }
+
+    /**
+     * Approximates a session's heap footprint from its text: two bytes per character plus a fixed overhead per
+     * entry.
+     */
+    public static long estimateBytes(SessionData data) {
+        var bytes = 64L + length(data.systemPrompt());
+        for (var entry : data.metadata().entrySet()) {
+            bytes += 32 + length(entry.getKey()) + length(entry.getValue());
+        }
+        for (var entry : data.history()) {
+            bytes += 64 + length(entry.prompt()) + length(entry.response()) + length(entry.model());
+        }
+        return bytes;
+    }
+
+    /**
+     * Inserts a session into the hot tier and evicts the least recently used sessions above the weight bound.
+     *
+     * @param onlyIfAbsent keep an entry already present, which is newer than a cold read
+     */
+    private void cache(SessionData data, boolean dirty, boolean onlyIfAbsent) {
+        var weight = Math.max(1, weigher.applyAsLong(data));
+        hotLock.lock();
+        try {
+            if (onlyIfAbsent && hot.containsKey(data.sessionId())) {
+                return;
+            }
+            var previous = hot.put(data.sessionId(), new Cached(data, weight, dirty));
+            if (previous != null) {
+                previous.live = false;
+                hotWeight -= previous.weight;
+            }
+            hotWeight += weight;
+            var iterator = hot.entrySet().iterator();
+            // The session just inserted is most recent, so it is evicted only if it alone exceeds the bound
+            while (hotWeight > maxWeight && iterator.hasNext()) {
+                var eldest = iterator.next();
+                var cached = eldest.getValue();
+                cached.live = false;
+                hotWeight -= cached.weight;
+                iterator.remove();
+                evictions.increment();
+                if (cached.dirty) {
+                    evicted.put(eldest.getKey(), cached.data);
+                }
+            }
+        } finally {
+            hotLock.unlock();
+        }
+    }
+
+    private boolean isLive(Cached cached) {
+        hotLock.lock();
+        try {
+            return cached.live;
+        } finally {
+            hotLock.unlock();
+        }
+    }
+
+    private void markClean(Cached cached) {
+        hotLock.lock();
+        try {
+            cached.dirty = false;
+        } finally {
+            hotLock.unlock();
+        }
+    }
+
+    private void writeBackEvicted() throws IOException {
+        if (evicted.isEmpty()) {
+            return;
+        }
+        for (var entry : List.copyOf(evicted.entrySet())) {
+            var lock = coldLockFor(entry.getKey());
+            lock.lock();
+            try {
+                // A delete since the copy removed the entry, and a later eviction replaced it
+                if (evicted.get(entry.getKey()) == entry.getValue()) {
+                    cold.save(entry.getValue());
+                    evicted.remove(entry.getKey(), entry.getValue());
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void changed(String sessionId) {
+        versions.put(sessionId, sequence.incrementAndGet());
+    }
+
+    private void removedInBulk() {
+        bulkRemovals.incrementAndGet();
+        versions.clear();
+    }
+
+    private ReentrantLock coldLockFor(String sessionId) {
+        return coldLocks[Math.floorMod(sessionId.hashCode(), coldLocks.length)];
+    }
+
+    // Always in index order, so bulk operations cannot deadlock each other; per-session paths hold a single stripe
+    private void lockAllColdLocks() {
+        for (var lock : coldLocks) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAllColdLocks() {
+        for (var i = coldLocks.length - 1; i >= 0; i--) {
+            coldLocks[i].unlock();
+        }
+    }
+
+    private static long length(@Nullable String value) {
+        return value == null ? 0 : 2L * value.length();
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.session;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Expires keys after a per-key delay using a hierarchical timing wheel.
+ *
+ * <p>Four wheels of 64 buckets each cover delays up to 64<sup>4</sup> ticks (about 194 days at the default one-second
+ * tick); longer delays are re-armed when they reach the top wheel. Scheduling a key puts it in one bucket, and a
+ * bucket is visited once per revolution of its wheel, so each key costs O(1) amortised work however many are
+ * scheduled. Rescheduling a key to a later deadline only updates the key's deadline; the key moves when its old
+ * bucket comes up. A key never expires before its deadline, and at most about one tick after it.
+ *
+ * <p>A single virtual thread advances the wheel and calls the expiry callback outside any lock. The callback should
+ * re-check that the key is still stale, since it may race with a concurrent touch. Thread-safe.
+ *
+ * @param <K> the key type
+ */
+public final class TimingWheelExpiry<K> implements AutoCloseable {
+
+    private static final System.Logger log = System.getLogger(TimingWheelExpiry.class.getName());
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELAY_TICKS = (1L << (WHEEL_BITS * LEVELS)) - 1;
+
+    private static final class Timer<K> {
+        final K key;
+        volatile long deadline;
+        volatile boolean cancelled;
+
+        Timer(K key, long deadline) {
+            this.key = key;
+            this.deadline = deadline;
+        }
+    }
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final Consumer<K> onExpiry;
+    private final Map<K, Timer<K>> timers = new ConcurrentHashMap<>();
+    // buckets[level][slot]; guarded by lock
+    private final List<List<Timer<K>>> buckets;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongAdder expired = new LongAdder();
+    private final Thread ticker;
+    // Last tick whose bucket has fired; guarded by lock
+    private long currentTick;
+    private volatile boolean closed;
+
+    /** Creates an expiry service with a one-second tick. */
+    public TimingWheelExpiry(Consumer<K> onExpiry) {
+        this(Duration.ofSeconds(1), onExpiry);
+    }
+
+    /**
+     * Creates an expiry service and starts its thread.
+     *
+     * @param tick the wheel resolution
+     * @param onExpiry called with each expired key
+     */
+    public TimingWheelExpiry(Duration tick, Consumer<K> onExpiry) {
+        if (tick.isNegative() || tick.isZero()) {
+            throw new IllegalArgumentException("tick must be positive");
+        }
+        this.tickNanos = tick.toNanos();
+        this.startNanos = System.nanoTime();
+        this.onExpiry = onExpiry;
+        this.buckets = new ArrayList<>(LEVELS * WHEEL_SIZE);
+        for (var i = 0; i < LEVELS * WHEEL_SIZE; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        this.ticker = Thread.ofVirtual().name("timing-wheel-expiry").start(this::run);
+    }
+
+    /**
+     * Schedules {@code key} to expire after {@code delay}, replacing any earlier schedule. Call again on every access
+     * to implement an idle timeout.
+     *
+     * @param key the key
+     * @param delay time until expiry; zero or negative expires on the next tick
+     */
+    public void schedule(K key, Duration delay) {
+        var deadline = tickOf(System.nanoTime() + saturatedNanos(delay));
+        var extended = new boolean[1];
+        timers.computeIfPresent(key, (k, timer) -> {
+            if (deadline >= timer.deadline) {
+                timer.deadline = deadline;
+                extended[0] = true;
+            }
+            return timer;
+        });
+        if (extended[0]) {
+            return;
+        }
+        var timer = new Timer<>(key, deadline);
+        lock.lock();
+        try {
+            var previous = timers.put(key, timer);
+            if (previous != null) {
+                previous.cancelled = true;
+            }
+            insert(timer);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Cancels the key's expiry; returns {@code false} if it was not scheduled. */
+    public boolean cancel(K key) {
+        var timer = timers.remove(key);
+        if (timer == null) {
+            return false;
+        }
+        timer.cancelled = true;
+        return true;
+    }
+
+    /** Cancels every scheduled key. */
+    public void cancelAll() {
+        lock.lock();
+        try {
+            timers.values().forEach(timer -> timer.cancelled = true);
+            timers.clear();
+            buckets.forEach(List::clear);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Returns the number of scheduled keys. */
+    public int scheduled() {
+        return timers.size();
+    }
+
+    /** Returns the number of keys expired since creation. */
+    public long expiredCount() {
+        return expired.sum();
+    }
+
+    /** Stops the thread; scheduled keys no longer expire. */
+    @Override
+    public void close() {
+        closed = true;
+        ticker.interrupt();
+    }
+
+    private void run() {
+        while (!closed) {
+            try {
+                Thread.sleep(Duration.ofNanos(tickNanos));
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                // Only ticks that have fully elapsed, since deadlines round up to the next tick
+                advanceTo(Math.floorDiv(System.nanoTime() - startNanos, tickNanos));
+            } catch (RuntimeException e) {
+                log.log(System.Logger.Level.WARNING, "Timing wheel expiry failed: {0}", e.getMessage());
+            }
+        }
+    }
+
+    private void advanceTo(long tick) {
+        while (true) {
+            var due = new ArrayList<K>();
+            lock.lock();
+            try {
+                if (currentTick >= tick) {
+                    return;
+                }
+                advance(currentTick + 1, due);
+            } finally {
+                lock.unlock();
+            }
+            for (var key : due) {
+                expired.increment();
+                onExpiry.accept(key);
+            }
+        }
+    }
+
+    /** Cascades the higher wheels whose slot starts at {@code tick}, then fires the lowest wheel's bucket. */
+    private void advance(long tick, List<K> due) {
+        // Timers inserted from here on are placed relative to the tick being processed
+        currentTick = tick - 1;
+        for (var level = LEVELS - 1; level > 0; level--) {
+            if ((tick & ((1L << (WHEEL_BITS * level)) - 1)) == 0) {
+                for (var timer : take(level, slot(tick, level))) {
+                    if (!timer.cancelled) {
+                        insert(timer);
+                    }
+                }
+            }
+        }
+        for (var timer : take(0, slot(tick, 0))) {
+            if (!timer.cancelled) {
+                fire(timer, tick, due);
+            }
+        }
+        currentTick = tick;
+    }
+
+    private void fire(Timer<K> timer, long tick, List<K> due) {
+        var outcome = new boolean[2];
+        timers.computeIfPresent(timer.key, (k, current) -> {
+            if (current != timer) {
+                return current;
+            }
+            if (timer.deadline <= tick) {
+                outcome[0] = true;
+                return null;
+            }
+            // Touched since it was placed
+            outcome[1] = true;
+            return current;
+        });
+        if (outcome[0]) {
+            timer.cancelled = true;
+            due.add(timer.key);
+        } else if (outcome[1]) {
+            insert(timer);
+        }
+    }
+
+    /** Places a timer in the lowest wheel whose span covers its delay; the caller holds the lock. */
+    private void insert(Timer<K> timer) {
+        var base = currentTick + 1;
+        var deadline = Math.max(timer.deadline, base);
+        // Beyond the top wheel: park in its farthest slot and re-arm from there
+        deadline = Math.min(deadline, base + MAX_DELAY_TICKS - 1);
+        var delay = deadline - base;
+        var level = 0;
+        while (level < LEVELS - 1 && delay >= 1L << (WHEEL_BITS * (level + 1))) {
+            level++;
+        }
+        buckets.get(level * WHEEL_SIZE + slot(deadline, level)).add(timer);
+    }
+
+    private List<Timer<K>> take(int level, int slot) {
+        var index = level * WHEEL_SIZE + slot;
+        var bucket = buckets.get(index);
+        buckets.set(index, new ArrayList<>());
+        return bucket;
+    }
+
+    private static int slot(long tick, int level) {
+        return (int) (tick >>> (WHEEL_BITS * level)) & WHEEL_MASK;
+    }
+
+    private long tickOf(long nanos) {
+        return Math.ceilDiv(nanos - startNanos, tickNanos);
+    }
+
+    private static long saturatedNanos(Duration duration) {
+        try {
+            return Math.max(0, duration.toNanos());
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE / 4;
+        }
+    }
+}
@@ -0,0 +1,366 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.session;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Decorator that queues saves and deletes and writes them to another {@link SessionStore} in batches.
+ *
+ * <p>Pending updates are keyed by session ID, so repeated saves of a session between two flushes cost one write. A
+ * background virtual thread flushes the buffer every {@code flushInterval}, or earlier once {@code batchSize} sessions
+ * are pending. Reads consult the buffer first, so a caller always sees its own writes. If the delegate implements
+ * {@link Flushable}, as {@link FileSessionStore} and {@link LogStructuredSessionStore} do by forcing their files to
+ * stable storage, it is flushed once per batch.
+ *
+ * <p>With {@link Durability#ASYNC}, {@link #save} and {@link #delete} return immediately and a crash loses at most the
+ * unflushed buffer. With {@link Durability#GROUP_COMMIT}, they block until the batch holding the update is written
+ * and the delegate flushed, and all callers that arrive during one flush share the next.
+ *
+ * <p>A session the delegate fails to write does not hold up the others: the rest of the batch is written, only the
+ * failed updates stay buffered and are retried with the next batch, and {@link #flush()} reports them. A
+ * {@link Durability#GROUP_COMMIT} caller sees the failure only if its own session failed.
+ */
+public final class WriteBehindSessionStore implements SessionStore, AutoCloseable {
+
+    private static final System.Logger log = System.getLogger(WriteBehindSessionStore.class.getName());
+
+    private static final Pending DELETED = new Pending(null);
+
+    /** When {@link #save} and {@link #delete} return relative to the delegate write. */
+    public enum Durability {
+        /** Return once the update is buffered. */
+        ASYNC,
+        /** Return once the batch holding the update has been written. */
+        GROUP_COMMIT
+    }
+
+    /** A buffered update; {@code data} is {@code null} for a delete. */
+    private record Pending(@Nullable SessionData data) {}
+
+    private final SessionStore delegate;
+    private final Duration flushInterval;
+    private final int batchSize;
+    private final Durability durability;
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ReentrantLock wakeLock = new ReentrantLock();
+    private final Condition wake = wakeLock.newCondition();
+    private final Thread flusher;
+    // Completed with the sessions the batch failed to write
+    private volatile CompletableFuture<Map<String, Exception>> commit = new CompletableFuture<>();
+    private boolean flushRequested;
+    private volatile boolean closed;
+
+    /** Creates an asynchronous store flushing every 100 ms or every 256 pending sessions. */
+    public WriteBehindSessionStore(SessionStore delegate) {
+        this(delegate, Duration.ofMillis(100), 256, Durability.ASYNC);
+    }
+
+    /**
+     * Creates a write-behind store over {@code delegate}.
+     *
+     * @param delegate the store the batches are written to
+     * @param flushInterval the longest an update stays buffered while the flusher is idle
+     * @param batchSize the number of pending sessions that triggers an early flush
+     * @param durability when updates return to the caller
+     */
+    public WriteBehindSessionStore(
+            SessionStore delegate, Duration flushInterval, int batchSize, Durability durability) {
+        if (flushInterval.isNegative() || flushInterval.isZero()) {
+            throw new IllegalArgumentException("flushInterval must be positive");
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.delegate = delegate;
+        this.flushInterval = flushInterval;
+        this.batchSize = batchSize;
+        this.durability = durability;
+        this.flusher = Thread.ofVirtual().name("session-write-behind").start(this::flushPeriodically);
+    }
+
+    @Override
+    public void save(SessionData data) throws IOException {
+        ensureOpen();
+        pending.put(data.sessionId(), new Pending(data));
+        afterUpdate(data.sessionId());
+    }
+
+    @Override
+    public Optional<SessionData> load(String sessionId) throws IOException {
+        var update = pending.get(sessionId);
+        if (update != null) {
+            return Optional.ofNullable(update.data());
+        }
+        return delegate.load(sessionId);
+    }
+
+    @Override
+    public boolean delete(String sessionId) throws IOException {
+        ensureOpen();
+        var previous = pending.put(sessionId, DELETED);
+        var existed = previous != null ? previous.data() != null : delegate.exists(sessionId);
+        afterUpdate(sessionId);
+        return existed;
+    }
+
+    @Override
+    public List<String> listIds() throws IOException {
+        var ids = new LinkedHashSet<>(delegate.listIds());
+        for (var entry : pending.entrySet()) {
+            if (entry.getValue().data() != null) {
+                ids.add(entry.getKey());
+            } else {
+                ids.remove(entry.getKey());
+            }
+        }
+        return List.copyOf(ids);
+    }
+
+    @Override
+    public boolean exists(String sessionId) throws IOException {
+        var update = pending.get(sessionId);
+        if (update != null) {
+            return update.data() != null;
+        }
+        return delegate.exists(sessionId);
+    }
+
+    /** Flushes the buffer first, so the delegate sees every session's latest activity. */
+    @Override
+    public int deleteOlderThan(Duration maxAge) throws IOException {
+        flush();
+        return delegate.deleteOlderThan(maxAge);
+    }
+
+    @Override
+    public void clear() throws IOException {
+        flushLock.lock();
+        try {
+            pending.clear();
+            delegate.clear();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public int priority() {
+        return delegate.priority();
+    }
+
+    /** Returns the number of sessions with a buffered update. */
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Writes every buffered update to the delegate and releases the callers waiting on it.
+     *
+     * @throws IOException if the delegate fails to write some sessions, with one suppressed exception per session;
+     *     those updates stay buffered and the others are written
+     */
+    public void flush() throws IOException {
+        flushLock.lock();
+        try {
+            // Updates buffered from here on wait for the next batch
+            var batchCommit = commit;
+            commit = new CompletableFuture<>();
+            Map<String, Exception> failures;
+            try {
+                failures = writePending();
+            } catch (IOException | RuntimeException e) {
+                batchCommit.completeExceptionally(e);
+                throw e;
+            }
+            batchCommit.complete(failures);
+            if (!failures.isEmpty()) {
+                var error = new IOException(
+                        "Failed to write " + failures.size() + " session(s): " + String.join(", ", failures.keySet()));
+                failures.values().forEach(error::addSuppressed);
+                throw error;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /** Stops the flusher, writes the remaining buffer and closes the delegate if it is closeable. */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        // Woken rather than interrupted, so a write in progress is not aborted
+        requestFlush();
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        if (delegate instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Failed to close session store", e);
+            }
+        }
+    }
+
+    /**
+     * Writes the buffered updates, continuing past sessions the delegate rejects.
+     *
+     * @return the sessions that failed, which stay buffered
+     * @throws IOException if flushing the delegate fails
+     */
+    private Map<String, Exception> writePending() throws IOException {
+        var failures = new LinkedHashMap<String, Exception>();
+        if (pending.isEmpty()) {
+            return failures;
+        }
+        var batch = new ArrayList<Map.Entry<String, Pending>>(pending.size());
+        for (var entry : pending.entrySet()) {
+            batch.add(Map.entry(entry.getKey(), entry.getValue()));
+        }
+        for (var entry : batch) {
+            var data = entry.getValue().data();
+            try {
+                if (data != null) {
+                    delegate.save(data);
+                } else {
+                    delegate.delete(entry.getKey());
+                }
+            } catch (IOException | RuntimeException e) {
+                failures.put(entry.getKey(), e);
+                continue;
+            }
+            // Keeps a newer update that arrived during the write
+            pending.remove(entry.getKey(), entry.getValue());
+        }
+        if (delegate instanceof Flushable flushable) {
+            flushable.flush();
+        }
+        return failures;
+    }
+
+    private void afterUpdate(String sessionId) throws IOException {
+        if (durability == Durability.GROUP_COMMIT) {
+            var batchCommit = commit;
+            if (closed) {
+                // The flusher may already be gone
+                try {
+                    flush();
+                } catch (IOException e) {
+                    // Reported below for this session only
+                }
+            } else {
+                requestFlush();
+            }
+            awaitCommit(batchCommit, sessionId);
+        } else if (pending.size() >= batchSize) {
+            requestFlush();
+        }
+    }
+
+    private static void awaitCommit(CompletableFuture<Map<String, Exception>> batchCommit, String sessionId)
+            throws IOException {
+        Exception failure;
+        try {
+            failure = batchCommit.get().get(sessionId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for session commit");
+        } catch (ExecutionException e) {
+            failure = e.getCause() instanceof Exception cause ? cause : new IOException(e.getCause());
+        }
+        if (failure instanceof IOException io) {
+            throw io;
+        }
+        if (failure != null) {
+            throw new IOException("Session commit failed", failure);
+        }
+    }
+
+    private void requestFlush() {
+        wakeLock.lock();
+        try {
+            flushRequested = true;
+            wake.signal();
+        } finally {
+            wakeLock.unlock();
+        }
+    }
+
+    private void flushPeriodically() {
+        while (!closed) {
+            wakeLock.lock();
+            try {
+                if (!flushRequested) {
+                    wake.await(flushInterval.toNanos(), TimeUnit.NANOSECONDS);
+                }
+                flushRequested = false;
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                wakeLock.unlock();
+            }
+            if (closed) {
+                return;
+            }
+            try {
+                flush();
+            } catch (IOException | RuntimeException e) {
+                // Failed sessions stay buffered and are retried with the next batch
+                log.log(System.Logger.Level.WARNING, "Session write-behind flush failed: {0}", e.getMessage());
+            }
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Session store is closed");
+        }
+    }
+}
@@ -26,6 +26,7 @@ package ir.sudoit.claudecode4j.api.spi;
 import ir.sudoit.claudecode4j.api.model.request.OutputFormat;
 import ir.sudoit.claudecode4j.api.model.response.ClaudeResponse;
 import ir.sudoit.claudecode4j.api.model.response.StreamEvent;
+import java.util.function.IntConsumer;
 import java.util.stream.Stream;
 
 public interface OutputParser {
@@ -35,4 +36,17 @@ public interface OutputParser {
     ClaudeResponse parse(String output, int exitCode);
 
     Stream<StreamEvent> parseStream(Stream<String> lines);
+
+    /**
+     * Parses streamed lines like {@link #parseStream(Stream)}, also reporting the output token counts they carry.
+     *
+     * <p>The default reports nothing.
+     *
+     * @param lines the output lines
+     * @param outputTokens receives each output token count found in the lines, as they are consumed
+     * @return the parsed events
+     */
+    default Stream<StreamEvent> parseStream(Stream<String> lines, IntConsumer outputTokens) {
+        return parseStream(lines);
+    }
 }
@@ -23,6 +23,11 @@
  */
 package ir.sudoit.claudecode4j.api.spi;
 
+import ir.sudoit.claudecode4j.api.model.request.PromptSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.util.List;
@@ -89,6 +94,57 @@ public interface ProcessExecutor {
         return executeStreaming(command, workingDirectory, lineConsumer, timeout);
     }
 
+    /**
+     * Executes a command, streaming {@code stdin} to the process's stdin.
+     *
+     * <p>The default implementation reads the source into a string and delegates to {@link #execute(List, Path,
+     * Duration, String)}; implementations should stream it instead.
+     *
+     * @param command the command to execute
+     * @param workingDirectory the working directory for the process
+     * @param timeout maximum time to wait for the process
+     * @param stdin the input to write to the process stdin
+     * @return the execution result
+     * @throws SecurityException if the source rejects its content while it is written, e.g. a guarded prompt source
+     */
+    default ExecutionResult executeWithStdin(
+            List<String> command, Path workingDirectory, Duration timeout, PromptSource stdin) {
+        return execute(command, workingDirectory, timeout, readFully(stdin));
+    }
+
+    /**
+     * Executes a command with streaming output, streaming {@code stdin} to the process's stdin.
+     *
+     * <p>The default implementation reads the source into a string and delegates to {@link #executeStreaming(List,
+     * Path, Consumer, Duration, String)}; implementations should stream it instead.
+     *
+     * @param command the command to execute
+     * @param workingDirectory the working directory for the process
+     * @param lineConsumer consumer for each output line
+     * @param timeout maximum time to wait for the process
+     * @param stdin the input to write to the process stdin
+     * @return a future containing the exit code, completed exceptionally with a {@link SecurityException} if the source
+     *     rejects its content while it is written
+     */
+    default CompletableFuture<Integer> executeStreamingWithStdin(
+            List<String> command,
+            Path workingDirectory,
+            Consumer<String> lineConsumer,
+            Duration timeout,
+            PromptSource stdin) {
+        return executeStreaming(command, workingDirectory, lineConsumer, timeout, readFully(stdin));
+    }
+
+    private static String readFully(PromptSource source) {
+        var out = new ByteArrayOutputStream();
+        try {
+            source.transferTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
     record ExecutionResult(int exitCode, String stdout, String stderr) {
         public boolean isSuccess() {
             return exitCode == 0;
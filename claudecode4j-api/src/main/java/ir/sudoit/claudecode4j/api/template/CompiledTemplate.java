@@ -0,0 +1,221 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.template;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * A template string parsed once into alternating literal and variable segments.
+ *
+ * <p>Rendering is a single pass that appends literals and variable values in order, so it costs one copy of the output
+ * regardless of how many variables there are. Values are inserted verbatim: {@code $}, {@code \} and {@code {{...}}}
+ * inside a value are never interpreted.
+ *
+ * <p>The literal text before the first variable is the <em>static prefix</em>: it is identical for every render, and
+ * upstream prompt caching can only reuse what is identical from the first byte. Literals are encoded to UTF-8 once at
+ * compile time, so {@link #writeTo(OutputStream, Map)} emits the prefix as the same bytes on every call, and
+ * {@link #prefixHash()} identifies it for cache-hit accounting. Put instructions and reference material first and
+ * variables last to make the prefix as long as possible.
+ *
+ * <p>Instances are immutable and safe to share between threads.
+ */
+public final class CompiledTemplate {
+
+    private static final Pattern VARIABLE_PATTERN = Pattern.compile("\\{\\{\\s*(\\w+)\\s*}}");
+
+    private final String source;
+    // literals[i] precedes placeholders[i]; the last literal follows the last placeholder
+    private final String[] literals;
+    private final String[] placeholders;
+    private final byte[][] literalBytes;
+    private final List<String> variables;
+    private final int literalLength;
+    private final PromptPrefix prefix;
+
+    private CompiledTemplate(String source, String[] literals, String[] placeholders, List<String> variables) {
+        this.source = source;
+        this.literals = literals;
+        this.placeholders = placeholders;
+        this.variables = variables;
+        this.literalBytes = new byte[literals.length][];
+        var length = 0;
+        for (var i = 0; i < literals.length; i++) {
+            length += literals[i].length();
+            literalBytes[i] = literals[i].getBytes(StandardCharsets.UTF_8);
+        }
+        this.literalLength = length;
+        this.prefix = PromptPrefix.of(literalBytes[0]);
+    }
+
+    /**
+     * Parses a template using the {@code {{variableName}}} syntax.
+     *
+     * @param source the template string
+     * @return the compiled template
+     */
+    public static CompiledTemplate compile(String source) {
+        var literals = new ArrayList<String>();
+        var placeholders = new ArrayList<String>();
+        var variables = new ArrayList<String>();
+        var matcher = VARIABLE_PATTERN.matcher(source);
+        var position = 0;
+        while (matcher.find()) {
+            var name = matcher.group(1);
+            literals.add(source.substring(position, matcher.start()));
+            placeholders.add(name);
+            if (!variables.contains(name)) {
+                variables.add(name);
+            }
+            position = matcher.end();
+        }
+        literals.add(source.substring(position));
+        return new CompiledTemplate(
+                source, literals.toArray(String[]::new), placeholders.toArray(String[]::new), List.copyOf(variables));
+    }
+
+    /** Returns the template string this was compiled from. */
+    public String source() {
+        return source;
+    }
+
+    /** Returns the distinct variable names in order of first appearance. */
+    public List<String> variables() {
+        return variables;
+    }
+
+    /** Returns the number of characters contributed by literal segments. */
+    public int literalLength() {
+        return literalLength;
+    }
+
+    /** Returns {@code true} if the template has no variables, i.e. the whole template is its static prefix. */
+    public boolean isStatic() {
+        return placeholders.length == 0;
+    }
+
+    /** Returns the literal text before the first variable. */
+    public String staticPrefix() {
+        return literals[0];
+    }
+
+    /** Returns the static prefix encoded as UTF-8, as a read-only view of the bytes cached at compile time. */
+    public ByteBuffer staticPrefixBytes() {
+        return ByteBuffer.wrap(literalBytes[0]).asReadOnlyBuffer();
+    }
+
+    /** Returns the hash and length of the static prefix. */
+    public PromptPrefix prefix() {
+        return prefix;
+    }
+
+    /**
+     * Returns the CRC-32C of the static prefix. Different hashes mean different prefixes; equal hashes are very likely,
+     * but not guaranteed, to mean identical ones.
+     */
+    public int prefixHash() {
+        return prefix.hash();
+    }
+
+    /**
+     * Renders the template into a new string sized exactly for the result.
+     *
+     * <p>Variables absent from the map, or mapped to {@code null}, render as the empty string.
+     *
+     * @param values variable values, converted with {@link Object#toString()}
+     * @return the rendered text
+     */
+    public String render(Map<String, ?> values) {
+        if (placeholders.length == 0) {
+            return source;
+        }
+        var resolved = new String[placeholders.length];
+        var length = literalLength;
+        for (var i = 0; i < placeholders.length; i++) {
+            resolved[i] = valueOf(values, placeholders[i]);
+            length += resolved[i].length();
+        }
+        var out = new StringBuilder(length);
+        for (var i = 0; i < placeholders.length; i++) {
+            out.append(literals[i]).append(resolved[i]);
+        }
+        return out.append(literals[placeholders.length]).toString();
+    }
+
+    /**
+     * Renders the template directly into {@code out}, for example a process's stdin writer, without building the whole
+     * text in memory first.
+     *
+     * @param out the destination
+     * @param values variable values, converted with {@link Object#toString()}
+     * @throws UncheckedIOException if writing fails
+     */
+    public void renderTo(Appendable out, Map<String, ?> values) {
+        try {
+            for (var i = 0; i < placeholders.length; i++) {
+                out.append(literals[i]).append(valueOf(values, placeholders[i]));
+            }
+            out.append(literals[placeholders.length]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Renders the template as UTF-8 into {@code out}. Literal segments are written from their pre-encoded bytes, so the
+     * static prefix is byte-identical on every call and only variable values are encoded.
+     *
+     * @param out the destination
+     * @param values variable values, converted with {@link Object#toString()}
+     * @throws UncheckedIOException if writing fails
+     */
+    public void writeTo(OutputStream out, Map<String, ?> values) {
+        try {
+            for (var i = 0; i < placeholders.length; i++) {
+                out.write(literalBytes[i]);
+                out.write(valueOf(values, placeholders[i]).getBytes(StandardCharsets.UTF_8));
+            }
+            out.write(literalBytes[placeholders.length]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String valueOf(Map<String, ?> values, String name) {
+        var value = values.get(name);
+        return value != null ? value.toString() : "";
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
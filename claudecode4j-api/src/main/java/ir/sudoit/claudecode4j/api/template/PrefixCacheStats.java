@@ -0,0 +1,102 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.template;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estimates the upstream prompt-cache hit ratio from the prefixes of the prompts sent.
+ *
+ * <p>A render counts as a hit when a prompt with the same {@link PromptPrefix} was recorded within the cache lifetime,
+ * five minutes by default. Prompts with an empty prefix count as misses. The estimate ignores the model's minimum
+ * cacheable length and eviction, so it is an upper bound; it is meant for comparing template layouts.
+ *
+ * <pre>{@code
+ * var rendered = engine.get("review").orElseThrow().renderWithPrefix(variables);
+ * stats.record(rendered.prefix());
+ * client.execute(rendered.prompt());
+ * }</pre>
+ *
+ * <p>One entry is kept per distinct prefix. Thread-safe.
+ */
+public final class PrefixCacheStats {
+
+    private final long ttlNanos;
+    private final Map<PromptPrefix, Long> lastSeen = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public PrefixCacheStats() {
+        this(Duration.ofMinutes(5));
+    }
+
+    public PrefixCacheStats(Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Records a prompt about to be sent.
+     *
+     * @param prefix the prompt's prefix
+     * @return {@code true} if it is expected to be a cache hit
+     */
+    public boolean record(PromptPrefix prefix) {
+        if (prefix.isEmpty()) {
+            misses.increment();
+            return false;
+        }
+        var now = System.nanoTime();
+        var previous = lastSeen.put(prefix, now);
+        var hit = previous != null && now - previous <= ttlNanos;
+        (hit ? hits : misses).increment();
+        return hit;
+    }
+
+    /** Returns the number of recorded prompts expected to hit the cache. */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /** Returns the number of recorded prompts expected to miss the cache. */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /** Returns hits divided by recorded prompts, or {@code 0} before the first record. */
+    public double hitRatio() {
+        var hit = hits.sum();
+        var total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    /** Clears counters and remembered prefixes. */
+    public void reset() {
+        lastSeen.clear();
+        hits.reset();
+        misses.reset();
+    }
+}
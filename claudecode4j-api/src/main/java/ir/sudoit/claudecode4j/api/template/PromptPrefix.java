@@ -0,0 +1,75 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.template;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Identifies the part of a rendered prompt that is the same on every render.
+ *
+ * <p>Upstream prompt caching serves a cache read when two prompts start with the same bytes. Two prompts with equal
+ * prefixes almost certainly do: the hash is a CRC-32C over the UTF-8 bytes, so distinct prefixes of equal length
+ * collide only by chance. That is precise enough for hit-ratio accounting, not for deduplication. The system prompt and
+ * the prompt text are separated by a NUL byte so that moving text between them changes the hash.
+ *
+ * @param hash CRC-32C of the prefix bytes
+ * @param length prefix length in UTF-8 bytes
+ */
+public record PromptPrefix(int hash, int length) {
+
+    /** The prefix of a prompt that starts with a variable. */
+    public static final PromptPrefix EMPTY = of(new byte[0]);
+
+    static PromptPrefix of(byte[] bytes) {
+        var crc = new CRC32C();
+        crc.update(bytes);
+        return new PromptPrefix((int) crc.getValue(), bytes.length);
+    }
+
+    /** Prefix of prompts rendered from {@code text} with an optional system prompt template. */
+    static PromptPrefix of(CompiledTemplate text, @Nullable CompiledTemplate systemPrompt) {
+        if (systemPrompt == null) {
+            return text.prefix();
+        }
+        return systemPrompt.isStatic() ? of(systemPrompt.source(), text.staticPrefix()) : systemPrompt.prefix();
+    }
+
+    /** Prefix of a prompt with a fully static system prompt followed by text starting with {@code textPrefix}. */
+    static PromptPrefix of(String systemPrompt, String textPrefix) {
+        var system = systemPrompt.getBytes(StandardCharsets.UTF_8);
+        var text = textPrefix.getBytes(StandardCharsets.UTF_8);
+        var crc = new CRC32C();
+        crc.update(system);
+        crc.update(0);
+        crc.update(text);
+        return new PromptPrefix((int) crc.getValue(), system.length + 1 + text.length);
+    }
+
+    /** Returns {@code true} if the prompt starts with dynamic content, so nothing can be cached. */
+    public boolean isEmpty() {
+        return length == 0;
+    }
+}
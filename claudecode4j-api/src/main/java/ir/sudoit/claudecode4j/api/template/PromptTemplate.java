@@ -48,6 +48,15 @@ public interface PromptTemplate {
     @Nullable
     String systemPromptTemplate();
 
+    /**
+     * Returns the static start of every prompt rendered from this template, for prompt-cache accounting. It does not
+     * depend on variables, so implementations compute it once. Defaults to {@link PromptPrefix#EMPTY}, which records
+     * no reusable prefix.
+     */
+    default PromptPrefix prefix() {
+        return PromptPrefix.EMPTY;
+    }
+
     /**
      * Renders the template with the given variables.
      *
@@ -57,6 +66,23 @@ public interface PromptTemplate {
      */
     Prompt render(Map<String, Object> variables);
 
+    /**
+     * Renders the template and reports the prefix of the rendered prompt.
+     *
+     * <pre>{@code
+     * var rendered = template.renderWithPrefix(variables);
+     * stats.record(rendered.prefix());
+     * client.execute(rendered.prompt());
+     * }</pre>
+     *
+     * @param variables map of variable name to value
+     * @return the rendered prompt and its prefix
+     * @throws IllegalArgumentException if required variables are missing
+     */
+    default RenderedPrompt renderWithPrefix(Map<String, Object> variables) {
+        return new RenderedPrompt(render(variables), prefix());
+    }
+
     /**
      * Renders the template with the given variables and additional prompt settings.
      *
@@ -27,18 +27,24 @@ import ir.sudoit.claudecode4j.api.model.request.Prompt;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Pattern;
 import org.jspecify.annotations.Nullable;
 
-/** Simple implementation of PromptTemplate using {{variable}} syntax. */
+/**
+ * Simple implementation of PromptTemplate using {{variable}} syntax.
+ *
+ * <p>The template and system prompt are compiled once into {@link CompiledTemplate}s, so rendering does no parsing and
+ * inserts values literally.
+ *
+ * <p>The system prompt comes before the text in the request, so a fully static system prompt plus the static start of
+ * the text form the prompt's cacheable {@link #prefix()}.
+ */
 public final class SimplePromptTemplate implements PromptTemplate {
 
-    private static final Pattern VARIABLE_PATTERN = Pattern.compile("\\{\\{\\s*(\\w+)\\s*}}");
-
     private final String name;
-    private final String template;
-    private final @Nullable String systemPromptTemplate;
+    private final CompiledTemplate template;
+    private final @Nullable CompiledTemplate systemPromptTemplate;
     private final List<String> variables;
+    private final PromptPrefix prefix;
 
     public SimplePromptTemplate(String name, String template) {
         this(name, template, null);
@@ -46,9 +52,11 @@ public final class SimplePromptTemplate implements PromptTemplate {
 
     public SimplePromptTemplate(String name, String template, @Nullable String systemPromptTemplate) {
         this.name = name;
-        this.template = template;
-        this.systemPromptTemplate = systemPromptTemplate;
-        this.variables = extractVariables(template, systemPromptTemplate);
+        this.template = CompiledTemplate.compile(template);
+        this.systemPromptTemplate =
+                systemPromptTemplate != null ? CompiledTemplate.compile(systemPromptTemplate) : null;
+        this.variables = mergeVariables(this.template, this.systemPromptTemplate);
+        this.prefix = PromptPrefix.of(this.template, this.systemPromptTemplate);
     }
 
     @Override
@@ -58,7 +66,7 @@ public final class SimplePromptTemplate implements PromptTemplate {
 
     @Override
     public String template() {
-        return template;
+        return template.source();
     }
 
     @Override
@@ -68,52 +76,84 @@ public final class SimplePromptTemplate implements PromptTemplate {
 
     @Override
     public @Nullable String systemPromptTemplate() {
-        return systemPromptTemplate;
+        return systemPromptTemplate != null ? systemPromptTemplate.source() : null;
+    }
+
+    /** Returns the compiled form of the prompt text template. */
+    public CompiledTemplate compiledTemplate() {
+        return template;
+    }
+
+    /**
+     * Returns the part of every rendered prompt that does not depend on variables. Render calls of the same template
+     * report the same prefix, and prompts with equal prefixes can share an upstream cache entry.
+     */
+    @Override
+    public PromptPrefix prefix() {
+        return prefix;
     }
 
     @Override
     public Prompt render(Map<String, Object> variables) {
-        var missing = validateVariables(variables);
-        if (!missing.isEmpty()) {
-            throw new IllegalArgumentException("Missing required variables: " + String.join(", ", missing));
-        }
+        requireVariables(variables);
 
-        var renderedText = substituteVariables(template, variables);
-        var builder = Prompt.builder().text(renderedText);
+        var builder = Prompt.builder().text(template.render(variables));
 
         if (systemPromptTemplate != null) {
-            builder.systemPrompt(substituteVariables(systemPromptTemplate, variables));
+            builder.systemPrompt(systemPromptTemplate.render(variables));
         }
 
         return builder.build();
     }
 
-    private String substituteVariables(String text, Map<String, Object> variables) {
-        var result = text;
-        for (var entry : variables.entrySet()) {
-            var pattern = "\\{\\{\\s*" + Pattern.quote(entry.getKey()) + "\\s*}}";
-            var value = entry.getValue() != null ? entry.getValue().toString() : "";
-            result = result.replaceAll(pattern, value);
+    /**
+     * Renders the template with a system prompt override and reports the prefix of the rendered prompt. An override is
+     * fully static for this render, so the prefix is the override followed by the text's static prefix.
+     *
+     * @param variables map of variable name to value
+     * @param systemPrompt optional system prompt override
+     * @return the rendered prompt and its prefix
+     * @throws IllegalArgumentException if required variables are missing
+     */
+    public RenderedPrompt renderWithPrefix(Map<String, Object> variables, @Nullable String systemPrompt) {
+        var rendered = render(variables, systemPrompt);
+        if (systemPrompt == null) {
+            return new RenderedPrompt(rendered, prefix);
         }
-        return result;
+        return new RenderedPrompt(rendered, PromptPrefix.of(systemPrompt, template.staticPrefix()));
     }
 
-    private static List<String> extractVariables(String template, @Nullable String systemPromptTemplate) {
-        var vars = new ArrayList<String>();
-        extractVariablesFromText(template, vars);
-        if (systemPromptTemplate != null) {
-            extractVariablesFromText(systemPromptTemplate, vars);
+    /**
+     * Renders the prompt text straight into {@code out}, e.g. the CLI's stdin, without materializing it.
+     *
+     * @param out the destination
+     * @param variables map of variable name to value
+     * @throws IllegalArgumentException if required variables are missing
+     */
+    public void renderTo(Appendable out, Map<String, Object> variables) {
+        requireVariables(variables);
+        template.renderTo(out, variables);
+    }
+
+    private void requireVariables(Map<String, Object> values) {
+        for (var variable : variables) {
+            if (!values.containsKey(variable)) {
+                throw new IllegalArgumentException(
+                        "Missing required variables: " + String.join(", ", validateVariables(values)));
+            }
         }
-        return List.copyOf(vars);
     }
 
-    private static void extractVariablesFromText(String text, List<String> vars) {
-        var matcher = VARIABLE_PATTERN.matcher(text);
-        while (matcher.find()) {
-            var varName = matcher.group(1);
-            if (!vars.contains(varName)) {
-                vars.add(varName);
+    private static List<String> mergeVariables(CompiledTemplate template, @Nullable CompiledTemplate systemPrompt) {
+        if (systemPrompt == null) {
+            return template.variables();
+        }
+        var vars = new ArrayList<>(template.variables());
+        for (var variable : systemPrompt.variables()) {
+            if (!vars.contains(variable)) {
+                vars.add(variable);
             }
         }
+        return List.copyOf(vars);
     }
 }
@@ -31,7 +31,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Stream;
 
 /**
  * Simple template engine using {{variable}} syntax.
@@ -44,6 +43,9 @@ import java.util.stream.Stream;
  * ---
  * {{userPrompt}}
  * </pre>
+ *
+ * <p>Every template is compiled once into {@link CompiledTemplate} segments when it is compiled or loaded; registered
+ * templates render without any further parsing.
  */
 public final class SimpleTemplateEngine implements TemplateEngine {
 
@@ -62,7 +64,7 @@ public final class SimpleTemplateEngine implements TemplateEngine {
     @Override
     public PromptTemplate load(Path path) throws IOException {
         var content = Files.readString(path);
-        var name = extractName(path);
+        var name = TemplateFiles.templateName(path);
         return parseTemplate(name, content);
     }
 
@@ -72,19 +74,8 @@ public final class SimpleTemplateEngine implements TemplateEngine {
             throw new IOException("Path is not a directory: " + directory);
         }
 
-        var result = new ArrayList<PromptTemplate>();
-        try (Stream<Path> paths = Files.walk(directory)) {
-            paths.filter(Files::isRegularFile)
-                    .filter(p -> p.toString().endsWith(".prompt"))
-                    .forEach(p -> {
-                        try {
-                            result.add(load(p));
-                        } catch (IOException e) {
-                            throw new RuntimeException("Failed to load template: " + p, e);
-                        }
-                    });
-        }
-        return result;
+        return List.copyOf(
+                TemplateFiles.loadAll(this, TemplateFiles.find(directory)).values());
     }
 
     @Override
@@ -92,6 +83,11 @@ public final class SimpleTemplateEngine implements TemplateEngine {
         templates.put(template.name(), template);
     }
 
+    @Override
+    public boolean unregister(String name) {
+        return templates.remove(name) != null;
+    }
+
     @Override
     public Optional<PromptTemplate> get(String name) {
         return Optional.ofNullable(templates.get(name));
@@ -112,12 +108,6 @@ public final class SimpleTemplateEngine implements TemplateEngine {
         return 10;
     }
 
-    private String extractName(Path path) {
-        var fileName = path.getFileName().toString();
-        var dotIndex = fileName.lastIndexOf('.');
-        return dotIndex > 0 ? fileName.substring(0, dotIndex) : fileName;
-    }
-
     private PromptTemplate parseTemplate(String name, String content) {
         // Check for frontmatter (YAML-like header)
         if (content.startsWith("---")) {
@@ -79,6 +79,18 @@ public interface TemplateEngine {
      */
     void register(PromptTemplate template);
 
+    /**
+     * Removes a template from the engine's cache.
+     *
+     * <p>The default does nothing and returns {@code false}, for engines that cannot remove templates.
+     *
+     * @param name the template name
+     * @return {@code true} if a template was removed
+     */
+    default boolean unregister(String name) {
+        return false;
+    }
+
     /**
      * Gets a template by name from the cache.
      *
@@ -0,0 +1,116 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.template;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/** File-system helpers shared by {@link SimpleTemplateEngine} and {@link WatchedTemplateRepository}. */
+final class TemplateFiles {
+
+    static final String EXTENSION = ".prompt";
+
+    /** Upper bound on files read at once, so a large tree does not open thousands of files in parallel. */
+    static final int MAX_CONCURRENT_LOADS = 16;
+
+    private TemplateFiles() {}
+
+    static boolean isTemplate(Path path) {
+        return path.getFileName() != null && path.getFileName().toString().endsWith(EXTENSION);
+    }
+
+    static String templateName(Path path) {
+        var fileName = path.getFileName().toString();
+        var dotIndex = fileName.lastIndexOf('.');
+        return dotIndex > 0 ? fileName.substring(0, dotIndex) : fileName;
+    }
+
+    /** Lists every template file below {@code directory}, in walk order. */
+    static List<Path> find(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(TemplateFiles::isTemplate)
+                    .toList();
+        }
+    }
+
+    /**
+     * Loads and compiles the given files concurrently on virtual threads, at most {@link #MAX_CONCURRENT_LOADS} at a
+     * time.
+     *
+     * @return the templates keyed by path, in the order of {@code paths}
+     * @throws RuntimeException wrapping the first failure, naming the file
+     */
+    static Map<Path, PromptTemplate> loadAll(TemplateEngine engine, List<Path> paths) {
+        var futures = new ArrayList<Future<PromptTemplate>>(paths.size());
+        var permits = new Semaphore(MAX_CONCURRENT_LOADS);
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (var path : paths) {
+                acquire(permits, path);
+                futures.add(executor.submit(() -> {
+                    try {
+                        return engine.load(path);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            var result = new LinkedHashMap<Path, PromptTemplate>();
+            for (var i = 0; i < paths.size(); i++) {
+                result.put(paths.get(i), await(futures.get(i), paths.get(i)));
+            }
+            return result;
+        }
+    }
+
+    private static void acquire(Semaphore permits, Path path) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while loading template: " + path, e);
+        }
+    }
+
+    private static PromptTemplate await(Future<PromptTemplate> future, Path path) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to load template: " + path, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while loading template: " + path, e);
+        }
+    }
+}
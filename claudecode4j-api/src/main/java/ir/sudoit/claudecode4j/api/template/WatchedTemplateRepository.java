@@ -0,0 +1,259 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.template;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Keeps a {@link TemplateEngine}'s registry in sync with a directory of {@code .prompt} files.
+ *
+ * <p>{@link #open(TemplateEngine, Path)} loads and compiles every template below the directory in parallel and
+ * registers it. A {@link WatchService} then recompiles a file when it changes and swaps the new template into the
+ * registry in one step, so readers see either the old or the new version. Deleted files are unregistered. A file that
+ * fails to load keeps its previous version.
+ *
+ * <p>Templates are named by file name alone, so {@code a/review.prompt} and {@code b/review.prompt} share the name
+ * {@code review}; the one loaded last is registered. Deleting a file only unregisters its name if that file's template
+ * is the registered one, and another file with the same name then takes its place.
+ *
+ * <p>Lookups go to the engine's in-memory registry and never touch the disk.
+ *
+ * <pre>{@code
+ * try (var repository = WatchedTemplateRepository.open(new SimpleTemplateEngine(), Path.of("prompts"))) {
+ *     var prompt = repository.get("review").orElseThrow().render(Map.of("diff", diff));
+ * }
+ * }</pre>
+ */
+public final class WatchedTemplateRepository implements AutoCloseable {
+
+    private static final System.Logger log = System.getLogger(WatchedTemplateRepository.class.getName());
+
+    private final TemplateEngine engine;
+    private final Path directory;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> watchedDirectories = new ConcurrentHashMap<>();
+    private final Map<Path, LoadedFile> loaded = new ConcurrentHashMap<>();
+    private final Thread watcher;
+
+    private WatchedTemplateRepository(TemplateEngine engine, Path directory) throws IOException {
+        this.engine = engine;
+        this.directory = directory;
+        this.watchService = directory.getFileSystem().newWatchService();
+        try {
+            watchTree(directory);
+            loadAll(TemplateFiles.find(directory));
+        } catch (IOException | RuntimeException e) {
+            watchService.close();
+            throw e;
+        }
+        this.watcher = Thread.ofVirtual().name("template-watcher").start(this::watch);
+    }
+
+    /**
+     * Loads every template below {@code directory} into {@code engine} and starts watching for changes.
+     *
+     * @param engine the engine that compiles and holds the templates; deleted files stay registered unless it supports
+     *     {@link TemplateEngine#unregister}
+     * @param directory the template directory
+     * @return the running repository
+     * @throws IOException if the directory cannot be read or watched
+     */
+    public static WatchedTemplateRepository open(TemplateEngine engine, Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            throw new IOException("Path is not a directory: " + directory);
+        }
+        return new WatchedTemplateRepository(engine, directory.toAbsolutePath().normalize());
+    }
+
+    /**
+     * Looks a template up in the engine's registry.
+     *
+     * @param name the template name, i.e. the file name without {@code .prompt}
+     * @return the template if loaded
+     */
+    public Optional<PromptTemplate> get(String name) {
+        return engine.get(name);
+    }
+
+    /** Returns the engine holding the templates. */
+    public TemplateEngine engine() {
+        return engine;
+    }
+
+    /** Returns the watched directory. */
+    public Path directory() {
+        return directory;
+    }
+
+    /** Stops watching. Templates already registered stay in the engine. */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        watcher.interrupt();
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                var key = watchService.take();
+                var dir = watchedDirectories.get(key);
+                if (dir != null) {
+                    handleEvents(key, dir);
+                }
+                if (!key.reset()) {
+                    watchedDirectories.remove(key);
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // closed
+        }
+    }
+
+    private void handleEvents(WatchKey key, Path dir) {
+        for (var event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                rescan();
+                continue;
+            }
+            var path = dir.resolve((Path) event.context());
+            try {
+                if (event.kind() == ENTRY_DELETE) {
+                    remove(path);
+                } else if (Files.isDirectory(path) && event.kind() == ENTRY_CREATE) {
+                    watchTree(path);
+                    loadAll(TemplateFiles.find(path));
+                } else if (Files.isRegularFile(path) && TemplateFiles.isTemplate(path)) {
+                    reload(path);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.log(System.Logger.Level.WARNING, "Failed to reload template {0}: {1}", path, e.getMessage());
+            }
+        }
+    }
+
+    private void loadAll(List<Path> paths) throws IOException {
+        for (var entry : TemplateFiles.loadAll(engine, paths).entrySet()) {
+            loaded.put(entry.getKey(), new LoadedFile(FileStamp.of(entry.getKey()), entry.getValue()));
+            engine.register(entry.getValue());
+        }
+    }
+
+    private void reload(Path path) throws IOException {
+        var stamp = FileStamp.of(path);
+        var previous = loaded.get(path);
+        if (previous != null && stamp.equals(previous.stamp())) {
+            return;
+        }
+        var template = engine.load(path);
+        loaded.put(path, new LoadedFile(stamp, template));
+        engine.register(template);
+        log.log(System.Logger.Level.DEBUG, "Reloaded template {0}", template.name());
+    }
+
+    private void remove(Path path) {
+        var removed = new HashSet<Path>();
+        for (var file : loaded.keySet()) {
+            if (file.equals(path) || file.startsWith(path)) {
+                removed.add(file);
+            }
+        }
+        for (var file : removed) {
+            var gone = loaded.remove(file);
+            if (gone != null) {
+                unregister(gone.template());
+            }
+        }
+    }
+
+    /** Unregisters a deleted file's template, unless another file's template of the same name is registered. */
+    private void unregister(PromptTemplate template) {
+        var name = template.name();
+        if (engine.get(name).orElse(null) != template) {
+            return;
+        }
+        var replacement = loaded.values().stream()
+                .map(LoadedFile::template)
+                .filter(other -> other.name().equals(name))
+                .findFirst();
+        if (replacement.isPresent()) {
+            engine.register(replacement.get());
+        } else {
+            engine.unregister(name);
+        }
+    }
+
+    private void rescan() {
+        try {
+            var present = new HashSet<>(TemplateFiles.find(directory));
+            for (var file : loaded.keySet()) {
+                if (!present.contains(file)) {
+                    remove(file);
+                }
+            }
+            watchTree(directory);
+            for (var file : present) {
+                reload(file);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.log(System.Logger.Level.WARNING, "Failed to rescan templates in {0}: {1}", directory, e.getMessage());
+        }
+    }
+
+    private void watchTree(Path root) throws IOException {
+        try (Stream<Path> dirs = Files.walk(root)) {
+            for (var dir : (Iterable<Path>) dirs.filter(Files::isDirectory)::iterator) {
+                var key = dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+                watchedDirectories.put(key, dir);
+            }
+        }
+    }
+
+    /** A loaded file: the version it was compiled from and the resulting template. */
+    private record LoadedFile(FileStamp stamp, PromptTemplate template) {}
+
+    /** Identifies a file version; a template is recompiled only when this changes. */
+    private record FileStamp(FileTime modified, long size) {
+
+        static FileStamp of(Path path) throws IOException {
+            return new FileStamp(Files.getLastModifiedTime(path), Files.size(path));
+        }
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("ContentStore")
+class ContentStoreTest {
+
+    private static final String PROMPT = "You are a careful reviewer.";
+
+    @TempDir
+    Path dir;
+
+    private ContentStore content;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        content = ContentStore.open(dir, 8);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        content.close();
+    }
+
+    @Test
+    @DisplayName("should stage a string once without referencing it")
+    void shouldStageOnce() throws IOException {
+        var key = content.stage(PROMPT);
+
+        assertThat(content.stage(PROMPT)).isEqualTo(key);
+        assertThat(content.size()).isEqualTo(1);
+        assertThat(content.referenceCount(key)).isZero();
+        assertThat(content.load(key)).isEqualTo(PROMPT);
+    }
+
+    @Test
+    @DisplayName("should count retains and releases without going below zero")
+    void shouldCountReferences() throws IOException {
+        var key = content.stage(PROMPT);
+
+        content.retain(List.of(key));
+        content.retain(List.of(key));
+        content.release(List.of(key));
+
+        assertThat(content.referenceCount(key)).isEqualTo(1);
+
+        content.release(List.of(key));
+        content.release(List.of(key));
+
+        assertThat(content.referenceCount(key)).isZero();
+    }
+
+    @Test
+    @DisplayName("should reject retaining content that was not staged")
+    void shouldRejectUnstagedRetain() {
+        assertThatThrownBy(() -> content.retain(List.of("ab".repeat(ContentStore.KEY_BYTES))))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("was not staged");
+    }
+
+    @Nested
+    @DisplayName("gc")
+    class Gc {
+
+        @Test
+        @DisplayName("should keep unreferenced content within the grace period")
+        void shouldKeepWithinGrace() throws IOException {
+            var key = content.stage(PROMPT);
+
+            assertThat(content.gc(Duration.ofMinutes(1))).isZero();
+            assertThat(content.load(key)).isEqualTo(PROMPT);
+        }
+
+        @Test
+        @DisplayName("should delete unreferenced content after the grace period")
+        void shouldDeleteAfterGrace() throws IOException {
+            var key = content.stage(PROMPT);
+
+            assertThat(content.gc(Duration.ZERO)).isEqualTo(1);
+
+            assertThat(content.size()).isZero();
+            assertThatThrownBy(() -> content.load(key))
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("Missing session content");
+        }
+
+        @Test
+        @DisplayName("should keep referenced content")
+        void shouldKeepReferenced() throws IOException {
+            var key = content.stage(PROMPT);
+            content.retain(List.of(key));
+
+            assertThat(content.gc(Duration.ZERO)).isZero();
+            assertThat(content.load(key)).isEqualTo(PROMPT);
+        }
+    }
+
+    @Nested
+    @DisplayName("with a file session store")
+    class WithFileSessionStore {
+
+        private FileSessionStore store;
+
+        @BeforeEach
+        void setUp() throws IOException {
+            store = new FileSessionStore(dir.resolve("sessions"), content);
+        }
+
+        @AfterEach
+        void tearDown() {
+            store.close();
+        }
+
+        @Test
+        @DisplayName("should reference shared content once per session")
+        void shouldReferenceSharedContent() throws IOException {
+            store.save(session("a"));
+            store.save(session("b"));
+            var key = content.stage(PROMPT);
+
+            assertThat(content.referenceCount(key)).isEqualTo(2);
+
+            store.delete("a");
+
+            assertThat(content.referenceCount(key)).isEqualTo(1);
+            assertThat(content.gc(Duration.ZERO)).isZero();
+            assertThat(store.load("b").orElseThrow().systemPrompt()).isEqualTo(PROMPT);
+        }
+
+        @Test
+        @DisplayName("should collect content of expired sessions")
+        void shouldCollectContentOfExpiredSessions() throws IOException {
+            store.close();
+            content = ContentStore.open(dir, 8, Duration.ZERO);
+            store = new FileSessionStore(dir.resolve("sessions"), content);
+            store.save(session("a"));
+            var key = content.stage(PROMPT);
+
+            assertThat(store.deleteOlderThan(Duration.ZERO)).isEqualTo(1);
+
+            assertThat(content.size()).isZero();
+            assertThat(Files.exists(dir.resolve(key.substring(0, 2)).resolve(key))).isFalse();
+        }
+
+        @Test
+        @DisplayName("should keep counts across a clean reopen")
+        void shouldKeepCountsAcrossCleanReopen() throws IOException {
+            store.save(session("a"));
+            var key = content.stage(PROMPT);
+            store.close();
+            content.close();
+
+            content = ContentStore.open(dir, 8);
+            store = new FileSessionStore(dir.resolve("sessions"), content);
+
+            assertThat(content.needsRecount()).isFalse();
+            assertThat(content.referenceCount(key)).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should require a recount after an unclean shutdown")
+        void shouldRequireRecountAfterUncleanShutdown() throws IOException {
+            store.save(session("a"));
+            var key = content.stage(PROMPT);
+
+            // Not closed, as after a crash
+            var reopened = ContentStore.open(dir, 8);
+
+            assertThat(reopened.needsRecount()).isTrue();
+            assertThat(reopened.referenceCount(key)).isZero();
+            assertThatThrownBy(() -> reopened.gc(Duration.ZERO)).isInstanceOf(IllegalStateException.class);
+            assertThat(reopened.load(key)).isEqualTo(PROMPT);
+        }
+
+        @Test
+        @DisplayName("should recount references when the session store opens")
+        void shouldRecountOnOpen() throws IOException {
+            store.save(session("a"));
+            store.save(session("b"));
+            var key = content.stage(PROMPT);
+            store.close();
+
+            content = ContentStore.open(dir, 8);
+            store = new FileSessionStore(dir.resolve("sessions"), content);
+
+            assertThat(content.needsRecount()).isFalse();
+            assertThat(content.referenceCount(key)).isEqualTo(2);
+            assertThat(content.gc(Duration.ZERO)).isZero();
+        }
+
+        @Test
+        @DisplayName("should repair counts that drifted")
+        void shouldRepairDriftedCounts() throws IOException {
+            store.save(session("a"));
+            var key = content.stage(PROMPT);
+            Files.copy(dir.resolve("sessions/a.session"), dir.resolve("sessions/b.session"));
+
+            assertThat(store.recountContent()).isEqualTo(1);
+
+            assertThat(content.referenceCount(key)).isEqualTo(2);
+            assertThat(store.recountContent()).isZero();
+        }
+
+        @Test
+        @DisplayName("should fail to load a session whose content was collected")
+        void shouldFailToLoadCollectedContent() throws IOException {
+            store.save(session("a"));
+            content.release(List.of(content.stage(PROMPT)));
+            content.gc(Duration.ZERO);
+
+            assertThatThrownBy(() -> store.load("a").orElseThrow().systemPrompt())
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("Missing session content");
+        }
+    }
+
+    private static SessionData session(String id) {
+        return SessionData.builder(id)
+                .systemPrompt(PROMPT)
+                .createdAt(Instant.parse("2026-01-01T00:00:00Z"))
+                .lastActiveAt(Instant.parse("2026-01-02T00:00:00Z"))
+                .build();
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("FileSessionStore")
+class FileSessionStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private FileSessionStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = new FileSessionStore(dir);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    @DisplayName("should round-trip a session")
+    void shouldRoundTripSession() throws IOException {
+        var data = session("s", Instant.now());
+
+        store.save(data);
+
+        assertThat(store.load("s")).contains(data);
+        assertThat(store.exists("s")).isTrue();
+    }
+
+    @Test
+    @DisplayName("should flush saved sessions and skip ones deleted since")
+    void shouldFlushSavedAndDeletedSessions() throws IOException {
+        var data = session("kept", Instant.now());
+        store.save(data);
+        store.save(session("gone", Instant.now()));
+        store.delete("gone");
+
+        store.flush();
+        store.flush();
+
+        assertThat(store.load("kept")).contains(data);
+        assertThat(store.exists("gone")).isFalse();
+    }
+
+    @Test
+    @DisplayName("should keep the index and the files agreeing under concurrent saves and deletes")
+    void shouldKeepIndexAndFilesAgreeing() throws Exception {
+        var data = session("s", Instant.now());
+        for (var round = 0; round < 200; round++) {
+            var saved = CompletableFuture.runAsync(() -> {
+                try {
+                    store.save(data);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            store.delete("s");
+            saved.get(5, TimeUnit.SECONDS);
+
+            assertThat(store.exists("s")).isEqualTo(Files.exists(dir.resolve("s.session")));
+        }
+    }
+
+    @Test
+    @DisplayName("should migrate text-format files to the binary format")
+    void shouldMigrateTextFiles() throws IOException {
+        store.save(session("binary", Instant.now()));
+        Files.writeString(
+                dir.resolve("legacy.session"),
+                """
+                sessionId=legacy
+                systemPrompt=line one\\nline two
+                createdAt=2026-01-01T00:00:00Z
+                lastActiveAt=2026-01-02T00:00:00Z
+                meta.user=alice
+                history.0.prompt=prompt
+                history.0.response=response
+                history.0.timestamp=2026-01-01T00:00:00Z
+                history.0.model=model
+                history.0.tokensUsed=5
+                """);
+        store.close();
+        store = new FileSessionStore(dir);
+        var legacy = store.load("legacy").orElseThrow();
+
+        assertThat(store.migrate()).isEqualTo(1);
+
+        assertThat(SessionCodec.isEncoded(Files.readAllBytes(dir.resolve("legacy.session"))))
+                .isTrue();
+        assertThat(store.load("legacy")).contains(legacy);
+        assertThat(legacy.systemPrompt()).isEqualTo("line one\nline two");
+        assertThat(legacy.metadata()).containsEntry("user", "alice");
+        assertThat(legacy.history())
+                .containsExactly(new SessionData.ConversationEntry(
+                        "prompt", "response", Instant.parse("2026-01-01T00:00:00Z"), "model", 5));
+        assertThat(store.migrate()).isZero();
+    }
+
+    @Nested
+    @DisplayName("index recovery")
+    class IndexRecovery {
+
+        @Test
+        @DisplayName("should rebuild the index after a crash between writing a file and indexing it")
+        void shouldRebuildAfterCrash() throws IOException {
+            store.save(session("s", Instant.now()));
+            // The process dies after writing the new file but before updating the index
+            var stale = session("s", Instant.now().minus(Duration.ofDays(3)));
+            Files.write(dir.resolve("s.session"), SessionCodec.encode(stale));
+
+            var reopened = new FileSessionStore(dir);
+
+            assertThat(reopened.deleteOlderThan(Duration.ofDays(1))).isEqualTo(1);
+            assertThat(reopened.listIds()).isEmpty();
+            reopened.close();
+        }
+
+        @Test
+        @DisplayName("should rebuild the index when a file was edited after a clean close")
+        void shouldRebuildAfterOutOfBandEdit() throws IOException {
+            store.save(session("s", Instant.now()));
+            store.close();
+            var file = dir.resolve("s.session");
+            Files.write(file, SessionCodec.encode(session("s", Instant.now().minus(Duration.ofDays(3)))));
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(1)));
+
+            store = new FileSessionStore(dir);
+
+            assertThat(store.deleteOlderThan(Duration.ofDays(1))).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should index files added while the store was closed")
+        void shouldIndexFilesAddedWhileClosed() throws IOException {
+            store.save(session("a", Instant.now()));
+            store.close();
+            Files.write(dir.resolve("b.session"), SessionCodec.encode(session("b", Instant.now())));
+
+            store = new FileSessionStore(dir);
+
+            assertThat(store.listIds()).containsExactlyInAnyOrder("a", "b");
+        }
+
+        @Test
+        @DisplayName("should reuse a cleanly closed index")
+        void shouldReuseCleanIndex() throws IOException {
+            store.save(session("a", Instant.now()));
+            store.save(session("b", Instant.now().minus(Duration.ofDays(3))));
+            store.close();
+
+            store = new FileSessionStore(dir);
+
+            assertThat(store.listIds()).containsExactlyInAnyOrder("a", "b");
+            assertThat(store.deleteOlderThan(Duration.ofDays(1))).isEqualTo(1);
+        }
+    }
+
+    private static SessionData session(String id, Instant lastActiveAt) {
+        return SessionData.builder(id)
+                .systemPrompt("system")
+                .history(List.of(new SessionData.ConversationEntry(
+                        "prompt", "response", Instant.parse("2026-01-01T00:00:00Z"), "model", 5)))
+                .createdAt(Instant.parse("2026-01-01T00:00:00Z"))
+                .lastActiveAt(lastActiveAt)
+                .build();
+    }
+}
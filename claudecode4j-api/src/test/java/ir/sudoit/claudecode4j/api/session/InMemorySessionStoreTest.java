@@ -0,0 +1,127 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("InMemorySessionStore")
+class InMemorySessionStoreTest {
+
+    private InMemorySessionStore store;
+
+    @AfterEach
+    void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Nested
+    @DisplayName("with a time-to-live")
+    class Expiring {
+
+        @Test
+        @DisplayName("should remove sessions once they have been inactive for the time-to-live")
+        void shouldExpireInactiveSessions() throws InterruptedException {
+            store = new InMemorySessionStore(Duration.ofMillis(50), Duration.ofMillis(5));
+
+            store.save(session("a", Instant.now()));
+
+            await(() -> store.size() == 0);
+            assertThat(store.load("a")).isEmpty();
+            assertThat(store.expiredCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should keep sessions that are saved again before they expire")
+        void shouldKeepActiveSessions() throws InterruptedException {
+            store = new InMemorySessionStore(Duration.ofMillis(200), Duration.ofMillis(5));
+            store.save(session("idle", Instant.now()));
+
+            await(() -> {
+                store.save(session("active", Instant.now()));
+                return store.load("idle").isEmpty();
+            });
+
+            assertThat(store.load("active")).isPresent();
+            assertThat(store.expiredCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should expire a session relative to its lastActiveAt")
+        void shouldExpireRelativeToLastActivity() throws InterruptedException {
+            store = new InMemorySessionStore(Duration.ofMinutes(5), Duration.ofMillis(5));
+
+            store.save(session("stale", Instant.now().minus(Duration.ofHours(1))));
+
+            await(() -> store.size() == 0);
+            assertThat(store.query(SessionQuery.builder().build()).sessions()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("should not count deleted sessions as expired")
+        void shouldNotExpireDeletedSessions() throws InterruptedException {
+            store = new InMemorySessionStore(Duration.ofMillis(20), Duration.ofMillis(5));
+
+            store.save(session("a", Instant.now()));
+            assertThat(store.delete("a")).isTrue();
+            Thread.sleep(100);
+
+            assertThat(store.expiredCount()).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("should keep sessions indefinitely without a time-to-live")
+    void shouldKeepSessionsWithoutTimeToLive() {
+        store = new InMemorySessionStore();
+
+        store.save(session("a", Instant.EPOCH));
+
+        assertThat(store.load("a")).isPresent();
+        assertThat(store.expiredCount()).isZero();
+    }
+
+    private static SessionData session(String id, Instant lastActiveAt) {
+        return SessionData.builder(id).lastActiveAt(lastActiveAt).build();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("condition not met within 5 seconds");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("LogStructuredSessionStore")
+class LogStructuredSessionStoreTest {
+
+    private static final Instant CREATED = Instant.parse("2026-01-01T00:00:00Z");
+
+    @TempDir
+    Path dir;
+
+    private LogStructuredSessionStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = open();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+    }
+
+    @Nested
+    @DisplayName("save")
+    class Save {
+
+        @Test
+        @DisplayName("should append new entries without rewriting the log")
+        void shouldAppendNewEntries() throws IOException {
+            store.save(session("s", entries(2)));
+            var before = Files.readAllBytes(logFile());
+
+            store.save(session("s", entries(3)));
+
+            var after = Files.readAllBytes(logFile());
+            assertThat(after.length).isGreaterThan(before.length);
+            assertThat(Arrays.copyOf(after, before.length)).isEqualTo(before);
+            assertThat(store.load("s").orElseThrow().history()).isEqualTo(entries(3));
+        }
+
+        @Test
+        @DisplayName("should flush appended and rewritten logs and skip deleted ones")
+        void shouldFlushLogs() throws IOException {
+            store.save(session("s", entries(2)));
+            store.save(session("s", entries(1)));
+            store.save(session("gone", entries(1)));
+            store.delete("gone");
+
+            store.flush();
+            store.flush();
+
+            assertThat(store.load("s").orElseThrow().history()).isEqualTo(entries(1));
+            assertThat(store.exists("gone")).isFalse();
+        }
+
+        @Test
+        @DisplayName("should rewrite the log when a middle entry changes")
+        void shouldRewriteWhenMiddleEntryChanges() throws IOException {
+            store.save(session("s", entries(3)));
+            var edited = new ArrayList<>(entries(4));
+            edited.set(1, entry(1, "edited response"));
+
+            store.save(session("s", edited));
+
+            assertThat(store.load("s").orElseThrow().history()).isEqualTo(edited);
+        }
+
+        @Test
+        @DisplayName("should rewrite the log when the last entry is replaced without changing the count")
+        void shouldRewriteWhenLastEntryReplaced() throws IOException {
+            store.save(session("s", entries(3)));
+            var replaced = new ArrayList<>(entries(3));
+            replaced.set(2, entry(2, "another response"));
+
+            store.save(session("s", replaced));
+
+            assertThat(store.load("s").orElseThrow().history()).isEqualTo(replaced);
+        }
+
+        @Test
+        @DisplayName("should rewrite the log when the history shrinks")
+        void shouldRewriteWhenHistoryShrinks() throws IOException {
+            store.save(session("s", entries(3)));
+
+            store.save(session("s", entries(1)));
+
+            assertThat(store.load("s").orElseThrow().history()).isEqualTo(entries(1));
+        }
+
+        @Test
+        @DisplayName("should detect an edit made before a restart")
+        void shouldDetectEditAfterRestart() throws IOException {
+            store.save(session("s", entries(3)));
+            store.close();
+            store = open();
+            var edited = new ArrayList<>(entries(4));
+            edited.set(0, entry(0, "edited response"));
+
+            store.save(session("s", edited));
+
+            assertThat(store.load("s").orElseThrow().history()).isEqualTo(edited);
+        }
+    }
+
+    @Nested
+    @DisplayName("recovery")
+    class Recovery {
+
+        @Test
+        @DisplayName("should truncate a torn tail and keep the intact records")
+        void shouldTruncateTornTail() throws IOException {
+            store.save(session("s", entries(2)));
+            store.close();
+            var intact = Files.size(logFile());
+            store = open();
+            store.save(session("s", entries(3)));
+            store.close();
+            // Cut the last entry record in half, as a crash mid-append would
+            truncate(logFile(), intact + (Files.size(logFile()) - intact) / 2);
+
+            store = open();
+
+            assertThat(store.load("s").orElseThrow().history()).isEqualTo(entries(2));
+            assertThat(Files.size(logFile())).isEqualTo(intact);
+            store.save(session("s", entries(4)));
+            assertThat(store.load("s").orElseThrow().history()).isEqualTo(entries(4));
+        }
+
+        @Test
+        @DisplayName("should replay every log when the index is missing")
+        void shouldReplayWithoutIndex() throws IOException {
+            store.save(session("a", entries(2)));
+            store.save(session("b", entries(1)));
+            store.close();
+            Files.delete(dir.resolve("sessions.index"));
+
+            store = open();
+
+            assertThat(store.listIds()).containsExactlyInAnyOrder("a", "b");
+            assertThat(store.load("a").orElseThrow().history()).isEqualTo(entries(2));
+        }
+
+        @Test
+        @DisplayName("should replay only the bytes appended after the index was written")
+        void shouldReplayAppendedBytes() throws IOException {
+            store.save(session("s", entries(1)));
+            store.close();
+            store = open();
+            store.save(session("s", entries(3)));
+            // Simulate a crash: the index on disk still describes one entry
+            store = open();
+
+            assertThat(store.load("s").orElseThrow().history()).isEqualTo(entries(3));
+        }
+
+        @Test
+        @DisplayName("should recover a log larger than 2 GB without reading it into one buffer")
+        void shouldRecoverLogLargerThan2Gb() throws IOException {
+            store.save(session("s", entries(2)));
+            store.close();
+            var intact = Files.size(logFile());
+            // A sparse region of zeros, as left by a crash after the file was extended
+            try (var channel = FileChannel.open(logFile(), StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(new byte[] {1}), 3L * 1024 * 1024 * 1024);
+            }
+            Files.delete(dir.resolve("sessions.index"));
+
+            store = open();
+
+            assertThat(store.load("s").orElseThrow().history()).isEqualTo(entries(2));
+            assertThat(Files.size(logFile())).isEqualTo(intact);
+        }
+    }
+
+    @Nested
+    @DisplayName("compact")
+    class Compact {
+
+        @Test
+        @DisplayName("should drop superseded records and keep the session")
+        void shouldDropSupersededRecords() throws IOException {
+            var history = entries(2);
+            for (var i = 0; i < 40; i++) {
+                store.save(session("s", history, CREATED.plusSeconds(i)));
+            }
+            var before = Files.size(logFile());
+
+            store.compact();
+
+            assertThat(Files.size(logFile())).isLessThan(before);
+            var loaded = store.load("s").orElseThrow();
+            assertThat(loaded.history()).isEqualTo(history);
+            assertThat(loaded.lastActiveAt()).isEqualTo(CREATED.plusSeconds(39));
+
+            store.close();
+            store = open();
+            store.save(session("s", entries(3), CREATED.plusSeconds(40)));
+            assertThat(store.load("s").orElseThrow().history()).isEqualTo(entries(3));
+        }
+    }
+
+    @Nested
+    @DisplayName("deleteOlderThan")
+    class DeleteOlderThan {
+
+        @Test
+        @DisplayName("should delete sessions inactive for longer than the given age")
+        void shouldDeleteInactiveSessions() throws IOException {
+            store.save(session("old", entries(1), Instant.now().minus(Duration.ofDays(2))));
+            store.save(session("new", entries(1), Instant.now()));
+
+            assertThat(store.deleteOlderThan(Duration.ofDays(1))).isEqualTo(1);
+            assertThat(store.listIds()).containsExactly("new");
+        }
+    }
+
+    private LogStructuredSessionStore open() throws IOException {
+        return new LogStructuredSessionStore(dir, Duration.ofDays(1));
+    }
+
+    private Path logFile() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> f.getFileName().toString().endsWith(".log"))
+                    .findFirst()
+                    .orElseThrow();
+        }
+    }
+
+    private static void truncate(Path file, long size) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+        }
+    }
+
+    private static SessionData session(String id, List<SessionData.ConversationEntry> history) {
+        return session(id, history, CREATED);
+    }
+
+    private static SessionData session(String id, List<SessionData.ConversationEntry> history, Instant lastActiveAt) {
+        return SessionData.builder(id)
+                .systemPrompt("system")
+                .history(history)
+                .createdAt(CREATED)
+                .lastActiveAt(lastActiveAt)
+                .build();
+    }
+
+    private static List<SessionData.ConversationEntry> entries(int count) {
+        var entries = new ArrayList<SessionData.ConversationEntry>();
+        for (var i = 0; i < count; i++) {
+            entries.add(entry(i, "response " + i));
+        }
+        return entries;
+    }
+
+    private static SessionData.ConversationEntry entry(int i, String response) {
+        return new SessionData.ConversationEntry("prompt " + i, response, CREATED.plusSeconds(i), "model", 10 + i);
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("MappedSessionIndex")
+class MappedSessionIndexTest {
+
+    private static final Instant T0 = Instant.parse("2026-01-01T00:00:00Z");
+
+    @TempDir
+    Path dir;
+
+    private Path file;
+    private MappedSessionIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = dir.resolve("sessions.idx");
+        index = MappedSessionIndex.open(file);
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.close();
+    }
+
+    @Nested
+    @DisplayName("put and get")
+    class PutAndGet {
+
+        @Test
+        @DisplayName("should store and replace metadata")
+        void shouldStoreAndReplaceMetadata() throws IOException {
+            index.put("a", T0, 10, 1);
+            index.put("a", T0.plusSeconds(5), 20, 2);
+
+            assertThat(index.get("a")).contains(new MappedSessionIndex.Entry("a", T0.plusSeconds(5), 20, 2));
+            assertThat(index.size()).isEqualTo(1);
+            assertThat(index.contains("b")).isFalse();
+        }
+
+        @Test
+        @DisplayName("should find every entry when many share probe sequences")
+        void shouldFindEntriesAcrossProbing() throws IOException {
+            for (var i = 0; i < 700; i++) {
+                index.put("session-" + i, T0.plusSeconds(i), i, 0);
+            }
+
+            for (var i = 0; i < 700; i++) {
+                assertThat(index.get("session-" + i).orElseThrow().size()).isEqualTo(i);
+            }
+            assertThat(index.ids()).hasSize(700);
+        }
+
+        @Test
+        @DisplayName("should reject IDs longer than the slot can hold")
+        void shouldRejectLongIds() {
+            var id = "x".repeat(MappedSessionIndex.MAX_ID_BYTES + 1);
+
+            assertThatThrownBy(() -> index.put(id, T0, 0, 0)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("remove")
+    class Remove {
+
+        @Test
+        @DisplayName("should keep entries reachable past tombstones")
+        void shouldProbePastTombstones() throws IOException {
+            for (var i = 0; i < 500; i++) {
+                index.put("session-" + i, T0, i, 0);
+            }
+            for (var i = 0; i < 500; i += 2) {
+                assertThat(index.remove("session-" + i)).isTrue();
+            }
+
+            for (var i = 0; i < 500; i++) {
+                assertThat(index.contains("session-" + i)).isEqualTo(i % 2 == 1);
+            }
+            assertThat(index.size()).isEqualTo(250);
+            assertThat(index.remove("session-0")).isFalse();
+        }
+
+        @Test
+        @DisplayName("should reuse a tombstone for a re-inserted ID")
+        void shouldReuseTombstone() throws IOException {
+            index.put("a", T0, 1, 0);
+            index.remove("a");
+
+            index.put("a", T0, 2, 0);
+
+            assertThat(index.get("a").orElseThrow().size()).isEqualTo(2);
+            assertThat(index.ids()).containsExactly("a");
+        }
+    }
+
+    @Nested
+    @DisplayName("resize")
+    class Resize {
+
+        @Test
+        @DisplayName("should grow the file and keep every entry")
+        void shouldGrowAndKeepEntries() throws IOException {
+            var initialSize = Files.size(file);
+
+            for (var i = 0; i < 2000; i++) {
+                index.put("session-" + i, T0, i, 0);
+            }
+
+            assertThat(Files.size(file)).isGreaterThan(initialSize);
+            assertThat(index.size()).isEqualTo(2000);
+            assertThat(index.get("session-1999").orElseThrow().size()).isEqualTo(1999);
+        }
+
+        @Test
+        @DisplayName("should drop tombstones when churn fills the table")
+        void shouldDropTombstonesOnChurn() throws IOException {
+            var initialSize = Files.size(file);
+
+            for (var i = 0; i < 5000; i++) {
+                index.put("session-" + i, T0, i, 0);
+                index.remove("session-" + i);
+            }
+
+            assertThat(index.size()).isZero();
+            assertThat(Files.size(file)).isEqualTo(initialSize);
+        }
+    }
+
+    @Nested
+    @DisplayName("reopen")
+    class Reopen {
+
+        @Test
+        @DisplayName("should keep entries and report a clean close")
+        void shouldKeepEntriesAfterCleanClose() throws IOException {
+            index.put("a", T0, 10, 0);
+            index.put("b", T0.plusSeconds(60), 20, 0);
+            index.remove("a");
+            index.close();
+
+            index = MappedSessionIndex.open(file);
+
+            assertThat(index.cleanlyClosedAt()).isPresent();
+            assertThat(index.ids()).containsExactly("b");
+            assertThat(index.get("b").orElseThrow().lastActiveAt()).isEqualTo(T0.plusSeconds(60));
+        }
+
+        @Test
+        @DisplayName("should report an index that was not closed")
+        void shouldReportUncleanClose() throws IOException {
+            index.put("a", T0, 10, 0);
+
+            var reopened = MappedSessionIndex.open(file);
+
+            assertThat(reopened.cleanlyClosedAt()).isEmpty();
+            assertThat(reopened.contains("a")).isTrue();
+        }
+
+        @Test
+        @DisplayName("should replace a file that is not an index")
+        void shouldReplaceInvalidFile() throws IOException {
+            index.close();
+            Files.writeString(file, "not an index");
+
+            index = MappedSessionIndex.open(file);
+
+            assertThat(index.size()).isZero();
+            assertThat(index.cleanlyClosedAt()).isEmpty();
+        }
+    }
+
+    @Test
+    @DisplayName("should list only sessions inactive since the cutoff")
+    void shouldListInactiveSessions() throws IOException {
+        var expected = new ArrayList<String>();
+        for (var i = 0; i < 10; i++) {
+            index.put("session-" + i, T0.plusSeconds(i), 0, 0);
+            if (i < 4) {
+                expected.add("session-" + i);
+            }
+        }
+
+        assertThat(index.idsInactiveSince(T0.plusSeconds(4))).containsExactlyInAnyOrderElementsOf(expected);
+    }
+}
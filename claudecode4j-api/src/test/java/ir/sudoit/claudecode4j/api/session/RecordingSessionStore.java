@@ -0,0 +1,118 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.session;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** In-memory delegate for decorator tests that counts calls and can be told to fail or hold reads and writes. */
+final class RecordingSessionStore implements SessionStore, Flushable {
+
+    final Map<String, SessionData> sessions = new ConcurrentHashMap<>();
+    final AtomicInteger saves = new AtomicInteger();
+    final AtomicInteger loads = new AtomicInteger();
+    final AtomicInteger flushes = new AtomicInteger();
+    final Set<String> failing = ConcurrentHashMap.newKeySet();
+    volatile CountDownLatch gate = new CountDownLatch(0);
+    // Loads read the session, count down loading, then wait for loadGate before returning
+    volatile CountDownLatch loading = new CountDownLatch(0);
+    volatile CountDownLatch loadGate = new CountDownLatch(0);
+
+    @Override
+    public void save(SessionData data) throws IOException {
+        await(gate);
+        if (failing.contains(data.sessionId())) {
+            throw new IOException("rejected " + data.sessionId());
+        }
+        saves.incrementAndGet();
+        sessions.put(data.sessionId(), data);
+    }
+
+    @Override
+    public Optional<SessionData> load(String sessionId) throws IOException {
+        loads.incrementAndGet();
+        var data = Optional.ofNullable(sessions.get(sessionId));
+        loading.countDown();
+        await(loadGate);
+        return data;
+    }
+
+    @Override
+    public boolean delete(String sessionId) throws IOException {
+        await(gate);
+        if (failing.contains(sessionId)) {
+            throw new IOException("rejected " + sessionId);
+        }
+        return sessions.remove(sessionId) != null;
+    }
+
+    @Override
+    public List<String> listIds() {
+        return List.copyOf(sessions.keySet());
+    }
+
+    @Override
+    public boolean exists(String sessionId) {
+        return sessions.containsKey(sessionId);
+    }
+
+    @Override
+    public int deleteOlderThan(Duration maxAge) {
+        var cutoff = Instant.now().minus(maxAge);
+        var expired = sessions.values().stream()
+                .filter(data -> data.lastActiveAt().isBefore(cutoff))
+                .map(SessionData::sessionId)
+                .toList();
+        expired.forEach(sessions::remove);
+        return expired.size();
+    }
+
+    @Override
+    public void clear() {
+        sessions.clear();
+    }
+
+    @Override
+    public void flush() {
+        flushes.incrementAndGet();
+    }
+
+    private static void await(CountDownLatch latch) throws IOException {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+}
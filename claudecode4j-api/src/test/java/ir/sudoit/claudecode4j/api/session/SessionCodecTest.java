@@ -0,0 +1,232 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("SessionCodec")
+class SessionCodecTest {
+
+    private static final int FLAGS_OFFSET = Integer.BYTES + 1;
+
+    @Nested
+    @DisplayName("round trip")
+    class RoundTrip {
+
+        @Test
+        @DisplayName("should round-trip a short session without compressing it")
+        void shouldRoundTripUncompressed() throws IOException {
+            var data = session(2);
+
+            var bytes = SessionCodec.encode(data);
+
+            assertThat(SessionCodec.isEncoded(bytes)).isTrue();
+            assertThat(bytes[FLAGS_OFFSET]).isZero();
+            assertThat(SessionCodec.decode(bytes)).isEqualTo(data);
+        }
+
+        @Test
+        @DisplayName("should compress a long history and round-trip it")
+        void shouldRoundTripCompressed() throws IOException {
+            var data = session(200);
+
+            var bytes = SessionCodec.encode(data);
+
+            assertThat(bytes[FLAGS_OFFSET]).isEqualTo((byte) 1);
+            assertThat(SessionCodec.decode(bytes)).isEqualTo(data);
+        }
+
+        @Test
+        @DisplayName("should keep null fields, empty history and non-ASCII text")
+        void shouldRoundTripEdgeValues() throws IOException {
+            var data = SessionData.builder("s")
+                    .metadata(Map.of("clé", "значение"))
+                    .history(List.of(new SessionData.ConversationEntry(
+                            "日本語", "", Instant.parse("2026-01-01T00:00:00.123456789Z"), null, null)))
+                    .build();
+            var empty = SessionData.builder("empty").build();
+
+            assertThat(SessionCodec.decode(SessionCodec.encode(data))).isEqualTo(data);
+            assertThat(SessionCodec.decode(SessionCodec.encode(empty))).isEqualTo(empty);
+        }
+
+        @Test
+        @DisplayName("should report no references for sessions without a content store")
+        void shouldReportNoReferences() throws IOException {
+            var bytes = SessionCodec.encode(session(2));
+
+            assertThat(SessionCodec.readReferences(new ByteArrayInputStream(bytes), bytes.length))
+                    .isEmpty();
+            assertThat(SessionCodec.readReferences(new ByteArrayInputStream(new byte[] {1, 2}), 2))
+                    .isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("lazy decoding")
+    class LazyDecoding {
+
+        @Test
+        @DisplayName("should decode the header without reading the history")
+        void shouldDecodeHeaderWithoutHistory() throws IOException {
+            for (var entries : List.of(2, 200)) {
+                var data = session(entries);
+                var bytes = SessionCodec.encode(data);
+                // Corrupts only the end of the history block
+                Arrays.fill(bytes, bytes.length - 16, bytes.length, (byte) 0x7f);
+
+                var decoded = SessionCodec.decode(bytes);
+
+                assertThat(decoded.sessionId()).isEqualTo("s");
+                assertThat(decoded.metadata()).isEqualTo(data.metadata());
+                assertThat(decoded.lastActiveAt()).isEqualTo(data.lastActiveAt());
+                assertThat(decoded.history()).hasSize(entries);
+                assertThatThrownBy(() -> decoded.history().get(entries - 1))
+                        .isInstanceOf(UncheckedIOException.class)
+                        .hasMessageContaining("Corrupt session history");
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("invalid input")
+    class InvalidInput {
+
+        @Test
+        @DisplayName("should reject every truncation of an encoded session")
+        void shouldRejectTruncatedInput() {
+            for (var entries : List.of(2, 200)) {
+                var bytes = SessionCodec.encode(session(entries));
+                for (var length = 0; length < bytes.length; length++) {
+                    var truncated = Arrays.copyOf(bytes, length);
+                    assertThatThrownBy(() -> SessionCodec.decode(truncated).history().size())
+                            .as("%d of %d bytes", length, bytes.length)
+                            .isInstanceOf(IOException.class);
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("should reject input that is not an encoded session")
+        void shouldRejectForeignInput() {
+            assertThatThrownBy(() -> SessionCodec.decode("sessionId=s\n".getBytes(StandardCharsets.UTF_8)))
+                    .isInstanceOf(IOException.class)
+                    .hasMessage("Not an encoded session");
+        }
+
+        @Test
+        @DisplayName("should reject an unknown format version")
+        void shouldRejectUnknownVersion() {
+            var bytes = SessionCodec.encode(session(1));
+            bytes[Integer.BYTES] = 9;
+
+            assertThatThrownBy(() -> SessionCodec.decode(bytes))
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("version 9");
+        }
+
+        @Test
+        @DisplayName("should reject null metadata keys and values")
+        void shouldRejectNullMetadata() {
+            assertThatThrownBy(() -> SessionCodec.decode(withMetadata(null, "value")))
+                    .isInstanceOf(IOException.class)
+                    .hasMessage("Corrupt session metadata");
+            assertThatThrownBy(() -> SessionCodec.decode(withMetadata("key", null)))
+                    .isInstanceOf(IOException.class)
+                    .hasMessage("Corrupt session metadata");
+        }
+
+        @Test
+        @DisplayName("should reject a reference count the input cannot hold")
+        void shouldRejectOversizedReferenceCount() {
+            var bytes = ByteBuffer.allocate(Integer.BYTES + 2 + Integer.BYTES)
+                    .putInt(SessionCodec.MAGIC)
+                    .put((byte) 2)
+                    .put((byte) 0)
+                    .putInt(Integer.MAX_VALUE)
+                    .array();
+
+            assertThatThrownBy(() -> SessionCodec.readReferences(new ByteArrayInputStream(bytes), bytes.length))
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("Corrupt session references");
+        }
+
+        /** Hand-encodes a version 1 session with one metadata entry and no history. */
+        private static byte[] withMetadata(String key, String value) {
+            var out = ByteBuffer.allocate(256);
+            out.putInt(SessionCodec.MAGIC).put((byte) 1).put((byte) 0);
+            putString(out, "s");
+            putString(out, null);
+            out.putLong(0).putInt(0).putLong(0).putInt(0);
+            out.putInt(1);
+            putString(out, key);
+            putString(out, value);
+            out.putInt(0).putInt(0);
+            return Arrays.copyOf(out.array(), out.position());
+        }
+
+        private static void putString(ByteBuffer out, String value) {
+            if (value == null) {
+                out.putInt(-1);
+                return;
+            }
+            var bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static SessionData session(int entries) {
+        var history = new ArrayList<SessionData.ConversationEntry>();
+        for (var i = 0; i < entries; i++) {
+            history.add(new SessionData.ConversationEntry(
+                    "prompt " + i,
+                    "response " + i,
+                    Instant.parse("2026-01-01T00:00:00Z").plusSeconds(i),
+                    i % 2 == 0 ? "model" : null,
+                    i % 3 == 0 ? null : i));
+        }
+        return SessionData.builder("s")
+                .systemPrompt("system")
+                .history(history)
+                .metadata(Map.of("user", "alice", "topic", "codec"))
+                .createdAt(Instant.parse("2026-01-01T00:00:00Z"))
+                .lastActiveAt(Instant.parse("2026-01-02T00:00:00Z"))
+                .build();
+    }
+}
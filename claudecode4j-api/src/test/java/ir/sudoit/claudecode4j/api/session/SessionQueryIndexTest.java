@@ -0,0 +1,109 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("SessionQueryIndex")
+class SessionQueryIndexTest {
+
+    private static final Instant T0 = Instant.parse("2026-01-01T00:00:00Z");
+
+    private final SessionQueryIndex index = new SessionQueryIndex();
+
+    @Test
+    @DisplayName("should return one match beyond the limit to signal a next page")
+    void shouldReturnOneExtraMatch() {
+        for (var i = 0; i < 5; i++) {
+            index.put(session("s" + i, T0.plusSeconds(i), Map.of("tenant", "acme")));
+        }
+
+        assertThat(index.query(SessionQuery.builder().limit(2).build())).containsExactly("s0", "s1", "s2");
+        assertThat(index.query(SessionQuery.builder().metadata("tenant", "acme").limit(2).build()))
+                .containsExactly("s0", "s1", "s2");
+    }
+
+    @Test
+    @DisplayName("should move a session to its new position and metadata when it is put again")
+    void shouldReindexOnPut() {
+        index.put(session("a", T0, Map.of("tenant", "acme")));
+        index.put(session("b", T0.plusSeconds(1), Map.of("tenant", "acme")));
+
+        index.put(session("a", T0.plusSeconds(2), Map.of("tenant", "globex")));
+
+        assertThat(index.query(SessionQuery.builder().build())).containsExactly("b", "a");
+        assertThat(index.query(SessionQuery.builder().metadata("tenant", "acme").build()))
+                .containsExactly("b");
+        assertThat(index.query(SessionQuery.builder().metadata("tenant", "globex").build()))
+                .containsExactly("a");
+    }
+
+    @Test
+    @DisplayName("should keep the existing entry on putIfAbsent")
+    void shouldKeepExistingEntryOnPutIfAbsent() {
+        index.put(session("a", T0.plusSeconds(5), Map.of()));
+
+        index.putIfAbsent(session("a", T0, Map.of()));
+
+        assertThat(index.activeBefore(T0.plusSeconds(1))).isEmpty();
+        assertThat(index.activeBefore(T0.plusSeconds(6))).containsExactly("a");
+    }
+
+    @Test
+    @DisplayName("should forget removed and cleared sessions")
+    void shouldForgetRemovedSessions() {
+        index.put(session("a", T0, Map.of("tenant", "acme")));
+        index.put(session("b", T0, Map.of("tenant", "acme")));
+
+        index.remove("a");
+        index.remove("missing");
+
+        assertThat(index.query(SessionQuery.builder().metadata("tenant", "acme").build()))
+                .containsExactly("b");
+        index.clear();
+        assertThat(index.query(SessionQuery.builder().build())).isEmpty();
+        assertThat(index.query(SessionQuery.builder().metadata("tenant", "acme").build()))
+                .isEmpty();
+    }
+
+    @Test
+    @DisplayName("should list sessions active before a cutoff, oldest first")
+    void shouldListSessionsActiveBeforeCutoff() {
+        index.put(session("late", T0.plusSeconds(2), Map.of()));
+        index.put(session("early", T0, Map.of()));
+        index.put(session("edge", T0.plusSeconds(1), Map.of()));
+
+        assertThat(index.activeBefore(T0.plusSeconds(1))).containsExactly("early");
+        assertThat(index.activeBefore(T0.plusSeconds(3))).containsExactly("early", "edge", "late");
+    }
+
+    private static SessionData session(String id, Instant lastActiveAt, Map<String, String> metadata) {
+        return SessionData.builder(id).metadata(metadata).lastActiveAt(lastActiveAt).build();
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/** Runs the same queries against the {@link SessionStore#query} default and the index-backed stores. */
+@DisplayName("SessionStore.query")
+class SessionStoreQueryTest {
+
+    private static final Instant T0 = Instant.parse("2026-01-01T00:00:00Z");
+
+    enum Kind {
+        DEFAULT,
+        IN_MEMORY,
+        FILE
+    }
+
+    @TempDir
+    Path dir;
+
+    private SessionStore store;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (store instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(Kind.class)
+    @DisplayName("should page through every session oldest first")
+    void shouldPageOldestFirst(Kind kind) throws IOException {
+        store = populated(kind);
+
+        var pages = pages(SessionQuery.builder().limit(2));
+
+        assertThat(pages).containsExactly(List.of("a", "b"), List.of("c", "d"), List.of("e"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Kind.class)
+    @DisplayName("should page through every session newest first")
+    void shouldPageNewestFirst(Kind kind) throws IOException {
+        store = populated(kind);
+
+        var pages = pages(SessionQuery.builder().newestFirst().limit(2));
+
+        assertThat(pages).containsExactly(List.of("e", "d"), List.of("c", "b"), List.of("a"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Kind.class)
+    @DisplayName("should break ties in activity by session ID across pages")
+    void shouldBreakTiesBySessionId(Kind kind) throws IOException {
+        store = store(kind);
+        for (var id : List.of("z", "x", "y", "w")) {
+            store.save(session(id, T0, Map.of()));
+        }
+
+        assertThat(pages(SessionQuery.builder().limit(3))).containsExactly(List.of("w", "x", "y"), List.of("z"));
+        assertThat(pages(SessionQuery.builder().newestFirst().limit(3)))
+                .containsExactly(List.of("z", "y", "x"), List.of("w"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Kind.class)
+    @DisplayName("should return only sessions with every requested metadata entry")
+    void shouldFilterByMetadata(Kind kind) throws IOException {
+        store = populated(kind);
+
+        var acme = SessionQuery.builder().metadata("tenant", "acme").limit(1);
+        var acmeBob = SessionQuery.builder().metadata("tenant", "acme").metadata("user", "bob");
+        var unknown = SessionQuery.builder().metadata("tenant", "nobody");
+
+        assertThat(pages(acme)).containsExactly(List.of("a"), List.of("c"), List.of("e"));
+        assertThat(pages(acmeBob)).containsExactly(List.of("c"));
+        assertThat(pages(unknown)).containsExactly(List.of());
+    }
+
+    @ParameterizedTest
+    @EnumSource(Kind.class)
+    @DisplayName("should include the start and exclude the end of the activity range")
+    void shouldFilterByActivityRange(Kind kind) throws IOException {
+        store = populated(kind);
+
+        var range = SessionQuery.builder().activeFrom(T0.plusSeconds(1)).activeUntil(T0.plusSeconds(4));
+        var filtered = SessionQuery.builder()
+                .metadata("tenant", "acme")
+                .activeFrom(T0.plusSeconds(1))
+                .newestFirst();
+
+        assertThat(pages(range.limit(2))).containsExactly(List.of("b", "c"), List.of("d"));
+        assertThat(pages(filtered)).containsExactly(List.of("e", "c"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Kind.class)
+    @DisplayName("should show a session moved by a save at its new position")
+    void shouldFollowSessionsMovedBetweenPages(Kind kind) throws IOException {
+        store = populated(kind);
+        var first = store.query(SessionQuery.builder().limit(2).build());
+
+        store.save(session("a", T0.plusSeconds(10), Map.of()));
+        var rest = pages(SessionQuery.builder().limit(2).cursor(first.nextCursor()));
+
+        assertThat(ids(first)).containsExactly("a", "b");
+        assertThat(rest).containsExactly(List.of("c", "d"), List.of("e", "a"));
+    }
+
+    @Test
+    @DisplayName("should reject malformed cursors and non-positive limits")
+    void shouldRejectInvalidQueries() throws IOException {
+        store = store(Kind.IN_MEMORY);
+
+        assertThatThrownBy(() -> store.query(SessionQuery.builder().cursor("bm90LWEtY3Vyc29y").build()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Malformed session cursor");
+        assertThatThrownBy(() -> SessionQuery.builder().limit(0).build())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /** Sessions a to e, one second apart, in two tenants. */
+    private SessionStore populated(Kind kind) throws IOException {
+        var populated = store(kind);
+        populated.save(session("c", T0.plusSeconds(2), Map.of("tenant", "acme", "user", "bob")));
+        populated.save(session("a", T0, Map.of("tenant", "acme", "user", "alice")));
+        populated.save(session("e", T0.plusSeconds(4), Map.of("tenant", "acme", "user", "alice")));
+        populated.save(session("b", T0.plusSeconds(1), Map.of("tenant", "globex", "user", "bob")));
+        populated.save(session("d", T0.plusSeconds(3), Map.of("tenant", "globex")));
+        return populated;
+    }
+
+    private SessionStore store(Kind kind) throws IOException {
+        return switch (kind) {
+            case DEFAULT -> new RecordingSessionStore();
+            case IN_MEMORY -> new InMemorySessionStore();
+            case FILE -> new FileSessionStore(dir);
+        };
+    }
+
+    /** Follows the cursors from {@code query} to the last page and returns each page's IDs. */
+    private List<List<String>> pages(SessionQuery.Builder query) throws IOException {
+        var pages = new ArrayList<List<String>>();
+        var page = store.query(query.build());
+        pages.add(ids(page));
+        while (page.hasNext()) {
+            page = store.query(query.cursor(page.nextCursor()).build());
+            pages.add(ids(page));
+        }
+        return pages;
+    }
+
+    private static List<String> ids(SessionPage page) {
+        return page.sessions().stream().map(SessionData::sessionId).toList();
+    }
+
+    private static SessionData session(String id, Instant lastActiveAt, Map<String, String> metadata) {
+        return SessionData.builder(id)
+                .metadata(metadata)
+                .createdAt(T0)
+                .lastActiveAt(lastActiveAt)
+                .build();
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ir.sudoit.claudecode4j.api.session.TieredSessionStore.WritePolicy;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("TieredSessionStore")
+class TieredSessionStoreTest {
+
+    private final RecordingSessionStore cold = new RecordingSessionStore();
+
+    @AfterEach
+    void tearDown() {
+        cold.gate.countDown();
+        cold.loadGate.countDown();
+    }
+
+    @Nested
+    @DisplayName("with WRITE_THROUGH")
+    class WriteThrough {
+
+        @Test
+        @DisplayName("should write every save to the cold tier and serve loads from the hot tier")
+        void shouldWriteThroughAndServeFromHotTier() throws IOException {
+            var store = byCount(2, WritePolicy.WRITE_THROUGH);
+
+            store.save(session("a", "v1"));
+
+            assertThat(cold.sessions.get("a").metadata()).containsEntry("version", "v1");
+            assertThat(store.load("a")).map(TieredSessionStoreTest::version).contains("v1");
+            assertThat(cold.loads).hasValue(0);
+            assertThat(store.stats().hotHits()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should promote cold reads and evict the least recently used session")
+        void shouldPromoteAndEvictLeastRecentlyUsed() throws IOException {
+            var store = byCount(2, WritePolicy.WRITE_THROUGH);
+            cold.sessions.put("a", session("a", "v1"));
+            store.save(session("b", "v1"));
+
+            assertThat(store.load("a")).isPresent();
+            store.load("b");
+            store.save(session("c", "v1"));
+            var loadsBefore = cold.loads.get();
+            store.load("b");
+            store.load("a");
+
+            assertThat(cold.loads.get() - loadsBefore).isEqualTo(1);
+            var stats = store.stats();
+            assertThat(stats.coldHits()).isEqualTo(2);
+            assertThat(stats.evictions()).isEqualTo(2);
+            assertThat(stats.hotSessions()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("should not promote a cold read that a concurrent save overtook")
+        void shouldNotPromoteStaleColdRead() throws Exception {
+            var store = byCount(1, WritePolicy.WRITE_THROUGH);
+            cold.sessions.put("s", session("s", "v1"));
+            cold.loading = new CountDownLatch(1);
+            cold.loadGate = new CountDownLatch(1);
+
+            var staleLoad = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return store.load("s");
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            assertThat(cold.loading.await(5, TimeUnit.SECONDS)).isTrue();
+            store.save(session("s", "v2"));
+            store.save(session("other", "v1"));
+            cold.loadGate.countDown();
+
+            assertThat(staleLoad.get(5, TimeUnit.SECONDS)).map(TieredSessionStoreTest::version).contains("v1");
+            assertThat(store.load("s")).map(TieredSessionStoreTest::version).contains("v2");
+        }
+
+        @Test
+        @DisplayName("should promote a cold read while other sessions are saved")
+        void shouldPromoteDespiteSavesOfOtherSessions() throws Exception {
+            var store = byCount(2, WritePolicy.WRITE_THROUGH);
+            cold.sessions.put("s", session("s", "v1"));
+            cold.loading = new CountDownLatch(1);
+            cold.loadGate = new CountDownLatch(1);
+
+            var load = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return store.load("s");
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            assertThat(cold.loading.await(5, TimeUnit.SECONDS)).isTrue();
+            store.save(session("other", "v1"));
+            cold.loadGate.countDown();
+            load.get(5, TimeUnit.SECONDS);
+            var loadsBefore = cold.loads.get();
+
+            assertThat(store.load("s")).map(TieredSessionStoreTest::version).contains("v1");
+            assertThat(cold.loads).hasValue(loadsBefore);
+        }
+    }
+
+    @Nested
+    @DisplayName("with WRITE_BACK")
+    class WriteBack {
+
+        @Test
+        @DisplayName("should keep saves in memory until flushed")
+        void shouldKeepSavesUntilFlushed() throws IOException {
+            var store = byCount(2, WritePolicy.WRITE_BACK);
+
+            store.save(session("a", "v1"));
+            store.save(session("a", "v2"));
+
+            assertThat(cold.sessions).isEmpty();
+            store.flush();
+            assertThat(cold.saves).hasValue(1);
+            assertThat(cold.sessions.get("a").metadata()).containsEntry("version", "v2");
+            store.flush();
+            assertThat(cold.saves).hasValue(1);
+        }
+
+        @Test
+        @DisplayName("should write dirty sessions back when they are evicted")
+        void shouldWriteBackOnEviction() throws IOException {
+            var store = byCount(1, WritePolicy.WRITE_BACK);
+
+            store.save(session("a", "v1"));
+            store.save(session("b", "v1"));
+
+            assertThat(cold.sessions).containsOnlyKeys("a");
+            assertThat(store.load("b")).isPresent();
+            assertThat(store.stats().evictions()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should not reorder the hot tier when flushing")
+        void shouldNotReorderOnFlush() throws IOException {
+            var store = byCount(2, WritePolicy.WRITE_BACK);
+            store.save(session("a", "v1"));
+            store.flush();
+            store.save(session("b", "v1"));
+            store.load("a");
+
+            store.flush();
+            store.save(session("c", "v1"));
+            var loadsBefore = cold.loads.get();
+            store.load("a");
+
+            assertThat(cold.loads.get()).isEqualTo(loadsBefore);
+            assertThat(cold.sessions).containsKeys("b");
+        }
+
+        @Test
+        @DisplayName("should not resurrect a session deleted before the flush")
+        void shouldNotWriteDeletedSession() throws IOException {
+            var store = byCount(2, WritePolicy.WRITE_BACK);
+
+            store.save(session("a", "v1"));
+            assertThat(store.delete("a")).isTrue();
+            store.flush();
+
+            assertThat(cold.sessions).isEmpty();
+            assertThat(store.exists("a")).isFalse();
+        }
+
+        @Test
+        @DisplayName("should flush on close")
+        void shouldFlushOnClose() throws IOException {
+            var store = byCount(2, WritePolicy.WRITE_BACK);
+
+            store.save(session("a", "v1"));
+            store.close();
+
+            assertThat(cold.sessions).containsOnlyKeys("a");
+        }
+    }
+
+    @Test
+    @DisplayName("should weigh sessions by their approximate size")
+    void shouldWeighBySize() {
+        var small = SessionData.builder("s").build();
+        var large = SessionData.builder("s").systemPrompt("x".repeat(1000)).build();
+
+        assertThat(TieredSessionStore.estimateBytes(large) - TieredSessionStore.estimateBytes(small))
+                .isEqualTo(2000);
+    }
+
+    private TieredSessionStore byCount(long maxSessions, WritePolicy writePolicy) {
+        return new TieredSessionStore(cold, maxSessions, data -> 1, writePolicy);
+    }
+
+    private static SessionData session(String id, String version) {
+        return SessionData.builder(id)
+                .metadata(Map.of("version", version))
+                .lastActiveAt(Instant.now())
+                .build();
+    }
+
+    private static String version(SessionData data) {
+        return data.metadata().get("version");
+    }
+}
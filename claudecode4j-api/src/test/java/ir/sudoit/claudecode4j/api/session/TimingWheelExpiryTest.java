@@ -0,0 +1,129 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("TimingWheelExpiry")
+class TimingWheelExpiryTest {
+
+    private final BlockingQueue<String> expired = new LinkedBlockingQueue<>();
+    private TimingWheelExpiry<String> expiry;
+
+    @AfterEach
+    void tearDown() {
+        if (expiry != null) {
+            expiry.close();
+        }
+    }
+
+    @Test
+    @DisplayName("should expire a key once its delay has passed")
+    void shouldExpireAfterDelay() throws InterruptedException {
+        expiry = wheel(Duration.ofMillis(5));
+        var scheduledAt = System.nanoTime();
+
+        expiry.schedule("a", Duration.ofMillis(50));
+
+        assertThat(expired.poll(5, TimeUnit.SECONDS)).isEqualTo("a");
+        assertThat(System.nanoTime() - scheduledAt).isGreaterThanOrEqualTo(Duration.ofMillis(45).toNanos());
+        assertThat(expiry.expiredCount()).isEqualTo(1);
+        assertThat(expiry.scheduled()).isZero();
+    }
+
+    @Test
+    @DisplayName("should cascade keys from the higher wheels down to their bucket")
+    void shouldCascadeFromHigherWheels() throws InterruptedException {
+        // 100µs ticks: 10ms lands on the second wheel, 450ms (4500 ticks) on the third
+        expiry = wheel(Duration.ofNanos(100_000));
+        var scheduledAt = System.nanoTime();
+
+        expiry.schedule("third", Duration.ofMillis(450));
+        expiry.schedule("second", Duration.ofMillis(10));
+
+        assertThat(expired.poll(5, TimeUnit.SECONDS)).isEqualTo("second");
+        assertThat(expired.poll(5, TimeUnit.SECONDS)).isEqualTo("third");
+        assertThat(System.nanoTime() - scheduledAt).isGreaterThanOrEqualTo(Duration.ofMillis(449).toNanos());
+        assertThat(expiry.expiredCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should re-arm a key that is touched before it expires")
+    void shouldReArmOnTouch() throws InterruptedException {
+        expiry = wheel(Duration.ofMillis(5));
+
+        expiry.schedule("a", Duration.ofMillis(200));
+        for (var i = 0; i < 20; i++) {
+            Thread.sleep(20);
+            expiry.schedule("a", Duration.ofMillis(200));
+        }
+
+        assertThat(expired).isEmpty();
+        assertThat(expired.poll(5, TimeUnit.SECONDS)).isEqualTo("a");
+        assertThat(expiry.expiredCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should honour a reschedule to an earlier deadline")
+    void shouldRescheduleEarlier() throws InterruptedException {
+        expiry = wheel(Duration.ofMillis(5));
+
+        expiry.schedule("a", Duration.ofHours(1));
+        expiry.schedule("a", Duration.ofMillis(20));
+
+        assertThat(expired.poll(5, TimeUnit.SECONDS)).isEqualTo("a");
+        assertThat(expired.poll(100, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    @DisplayName("should not expire cancelled keys")
+    void shouldNotExpireCancelledKeys() throws InterruptedException {
+        expiry = wheel(Duration.ofMillis(5));
+
+        expiry.schedule("a", Duration.ofMillis(20));
+        expiry.schedule("b", Duration.ofMillis(20));
+        expiry.schedule("c", Duration.ofMillis(40));
+
+        assertThat(expiry.cancel("a")).isTrue();
+        assertThat(expiry.cancel("missing")).isFalse();
+        assertThat(expired.poll(5, TimeUnit.SECONDS)).isEqualTo("b");
+        assertThat(expired.poll(5, TimeUnit.SECONDS)).isEqualTo("c");
+        expiry.schedule("d", Duration.ofMillis(20));
+        expiry.cancelAll();
+        assertThat(expired.poll(100, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(expiry.scheduled()).isZero();
+    }
+
+    private TimingWheelExpiry<String> wheel(Duration tick) {
+        return new TimingWheelExpiry<>(tick, expired::add);
+    }
+}
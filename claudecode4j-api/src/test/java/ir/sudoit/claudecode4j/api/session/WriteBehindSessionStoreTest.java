@@ -0,0 +1,216 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ir.sudoit.claudecode4j.api.session.WriteBehindSessionStore.Durability;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("WriteBehindSessionStore")
+class WriteBehindSessionStoreTest {
+
+    private final RecordingSessionStore delegate = new RecordingSessionStore();
+    private WriteBehindSessionStore store;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        delegate.failing.clear();
+        delegate.gate.countDown();
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Nested
+    @DisplayName("with ASYNC durability")
+    class Async {
+
+        @Test
+        @DisplayName("should merge repeated saves of a session into one write")
+        void shouldMergeRepeatedSaves() throws IOException {
+            store = idle(Durability.ASYNC);
+
+            for (var i = 0; i < 5; i++) {
+                store.save(session("s", "v" + i));
+            }
+            store.flush();
+
+            assertThat(delegate.saves).hasValue(1);
+            assertThat(delegate.sessions.get("s").metadata()).containsEntry("version", "v4");
+        }
+
+        @Test
+        @DisplayName("should serve buffered saves and deletes before they are written")
+        void shouldReadOwnWrites() throws IOException {
+            store = idle(Durability.ASYNC);
+            delegate.sessions.put("old", session("old", "v0"));
+
+            store.save(session("new", "v1"));
+            store.delete("old");
+
+            assertThat(store.load("new")).isPresent();
+            assertThat(store.exists("new")).isTrue();
+            assertThat(store.load("old")).isEmpty();
+            assertThat(store.exists("old")).isFalse();
+            assertThat(store.listIds()).containsExactly("new");
+            assertThat(delegate.sessions).containsOnlyKeys("old");
+            assertThat(store.pendingCount()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("should write the other sessions and keep only the failed one buffered")
+        void shouldContinuePastFailedSession() throws IOException {
+            store = idle(Durability.ASYNC);
+            delegate.failing.add("bad");
+            store.save(session("bad", "v1"));
+            store.save(session("good", "v1"));
+
+            assertThatThrownBy(store::flush)
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("bad")
+                    .satisfies(e -> assertThat(e.getSuppressed()).hasSize(1));
+
+            assertThat(delegate.sessions).containsOnlyKeys("good");
+            assertThat(store.pendingCount()).isEqualTo(1);
+            assertThat(store.load("bad")).isPresent();
+        }
+
+        @Test
+        @DisplayName("should retry a failed session with the next batch")
+        void shouldRetryFailedSession() throws IOException {
+            store = idle(Durability.ASYNC);
+            delegate.failing.add("bad");
+            store.save(session("bad", "v1"));
+            assertThatThrownBy(store::flush).isInstanceOf(IOException.class);
+
+            delegate.failing.clear();
+            store.flush();
+
+            assertThat(delegate.sessions).containsOnlyKeys("bad");
+            assertThat(store.pendingCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("should flush once the batch size is reached")
+        void shouldFlushAtBatchSize() throws Exception {
+            store = new WriteBehindSessionStore(delegate, Duration.ofHours(1), 3, Durability.ASYNC);
+
+            for (var i = 0; i < 3; i++) {
+                store.save(session("s" + i, "v1"));
+            }
+
+            var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (delegate.sessions.size() < 3 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(delegate.sessions).hasSize(3);
+        }
+    }
+
+    @Nested
+    @DisplayName("with GROUP_COMMIT durability")
+    class GroupCommit {
+
+        @Test
+        @DisplayName("should block until the batch holding the update is written")
+        void shouldBlockUntilWritten() throws Exception {
+            store = idle(Durability.GROUP_COMMIT);
+            delegate.gate = new CountDownLatch(1);
+
+            var saved = CompletableFuture.runAsync(() -> {
+                try {
+                    store.save(session("s", "v1"));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+
+            assertThatThrownBy(() -> saved.get(200, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+            delegate.gate.countDown();
+            saved.get(10, TimeUnit.SECONDS);
+            assertThat(delegate.sessions).containsKey("s");
+        }
+
+        @Test
+        @DisplayName("should flush the delegate before the update returns")
+        void shouldFlushDelegateBeforeReturning() throws IOException {
+            store = idle(Durability.GROUP_COMMIT);
+
+            store.save(session("s", "v1"));
+
+            assertThat(delegate.sessions).containsKey("s");
+            assertThat(delegate.flushes).hasValue(1);
+        }
+
+        @Test
+        @DisplayName("should fail only the caller whose session failed")
+        void shouldFailOnlyFailedCaller() throws IOException {
+            store = idle(Durability.GROUP_COMMIT);
+            delegate.failing.add("bad");
+
+            assertThatThrownBy(() -> store.save(session("bad", "v1")))
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("rejected bad");
+            store.save(session("good", "v1"));
+
+            assertThat(delegate.sessions).containsOnlyKeys("good");
+        }
+    }
+
+    @Test
+    @DisplayName("should write the remaining buffer on close")
+    void shouldWriteBufferOnClose() throws IOException {
+        store = idle(Durability.ASYNC);
+        store.save(session("s", "v1"));
+
+        store.close();
+
+        assertThat(delegate.sessions).containsKey("s");
+    }
+
+    /** A store whose flusher only runs when woken, so tests decide when batches are written. */
+    private WriteBehindSessionStore idle(Durability durability) {
+        return new WriteBehindSessionStore(delegate, Duration.ofHours(1), Integer.MAX_VALUE, durability);
+    }
+
+    private static SessionData session(String id, String version) {
+        return SessionData.builder(id)
+                .metadata(Map.of("version", version))
+                .lastActiveAt(Instant.now())
+                .build();
+    }
+}
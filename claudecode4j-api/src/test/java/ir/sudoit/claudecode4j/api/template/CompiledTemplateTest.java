@@ -0,0 +1,132 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.template;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("CompiledTemplate")
+class CompiledTemplateTest {
+
+    @Nested
+    @DisplayName("compile")
+    class Compile {
+
+        @Test
+        @DisplayName("should list distinct variables in order of first appearance")
+        void shouldListDistinctVariables() {
+            var template = CompiledTemplate.compile("{{b}} and {{a}} then {{ b }}");
+
+            assertThat(template.variables()).containsExactly("b", "a");
+            assertThat(template.literalLength()).isEqualTo(" and  then ".length());
+            assertThat(template.isStatic()).isFalse();
+        }
+
+        @Test
+        @DisplayName("should treat a template without variables as its own prefix")
+        void shouldTreatStaticTemplateAsPrefix() {
+            var template = CompiledTemplate.compile("No variables here.");
+
+            assertThat(template.isStatic()).isTrue();
+            assertThat(template.staticPrefix()).isEqualTo("No variables here.");
+            assertThat(template.render(Map.of())).isEqualTo("No variables here.");
+        }
+
+        @Test
+        @DisplayName("should render missing and null values as empty")
+        void shouldRenderMissingValuesAsEmpty() {
+            var values = new HashMap<String, Object>();
+            values.put("a", null);
+
+            assertThat(CompiledTemplate.compile("[{{a}}|{{b}}]").render(values)).isEqualTo("[|]");
+        }
+    }
+
+    @Nested
+    @DisplayName("prefix")
+    class Prefix {
+
+        @Test
+        @DisplayName("should end the static prefix at the first variable")
+        void shouldEndPrefixAtFirstVariable() {
+            var template = CompiledTemplate.compile("Instructions: é.\n{{input}} tail");
+
+            assertThat(template.staticPrefix()).isEqualTo("Instructions: é.\n");
+            assertThat(template.prefix().length())
+                    .isEqualTo("Instructions: é.\n".getBytes(StandardCharsets.UTF_8).length);
+            assertThat(template.prefixHash()).isEqualTo(template.prefix().hash());
+        }
+
+        @Test
+        @DisplayName("should report an empty prefix when the template starts with a variable")
+        void shouldReportEmptyPrefix() {
+            var template = CompiledTemplate.compile("{{input}} tail");
+
+            assertThat(template.prefix()).isEqualTo(PromptPrefix.EMPTY);
+            assertThat(template.prefix().isEmpty()).isTrue();
+        }
+
+        @Test
+        @DisplayName("should hash equal prefixes equally and different prefixes differently")
+        void shouldHashPrefixes() {
+            var first = CompiledTemplate.compile("Review carefully. {{diff}}");
+            var second = CompiledTemplate.compile("Review carefully. {{other}} and more");
+            var third = CompiledTemplate.compile("Review quickly. {{diff}}");
+
+            assertThat(first.prefix()).isEqualTo(second.prefix());
+            assertThat(first.prefix()).isNotEqualTo(third.prefix());
+        }
+
+        @Test
+        @DisplayName("should write the cached prefix bytes on every render")
+        void shouldWritePrefixBytesOnEveryRender() {
+            var template = CompiledTemplate.compile("Static ü part {{value}}");
+            var expected = new byte[template.staticPrefixBytes().remaining()];
+            template.staticPrefixBytes().get(expected);
+
+            for (var value : new String[] {"one", "two"}) {
+                var out = new ByteArrayOutputStream();
+                template.writeTo(out, Map.of("value", value));
+                var bytes = out.toByteArray();
+                assertThat(Arrays.copyOf(bytes, expected.length)).isEqualTo(expected);
+                assertThat(new String(bytes, StandardCharsets.UTF_8)).isEqualTo("Static ü part " + value);
+            }
+        }
+
+        @Test
+        @DisplayName("should expose the prefix bytes read-only")
+        void shouldExposePrefixBytesReadOnly() {
+            assertThat(CompiledTemplate.compile("abc {{x}}").staticPrefixBytes().isReadOnly())
+                    .isTrue();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.template;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("PrefixCacheStats")
+class PrefixCacheStatsTest {
+
+    private final PromptPrefix prefix =
+            CompiledTemplate.compile("Shared instructions {{x}}").prefix();
+
+    @Test
+    @DisplayName("should count a repeated prefix as a hit")
+    void shouldCountRepeatedPrefixAsHit() {
+        var stats = new PrefixCacheStats();
+
+        assertThat(stats.record(prefix)).isFalse();
+        assertThat(stats.record(prefix)).isTrue();
+        assertThat(stats.record(prefix)).isTrue();
+
+        assertThat(stats.hits()).isEqualTo(2);
+        assertThat(stats.misses()).isEqualTo(1);
+        assertThat(stats.hitRatio()).isEqualTo(2.0 / 3);
+    }
+
+    @Test
+    @DisplayName("should count empty prefixes as misses")
+    void shouldCountEmptyPrefixesAsMisses() {
+        var stats = new PrefixCacheStats();
+
+        stats.record(PromptPrefix.EMPTY);
+        stats.record(PromptPrefix.EMPTY);
+
+        assertThat(stats.hits()).isZero();
+        assertThat(stats.misses()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should count a prefix seen after the cache lifetime as a miss")
+    void shouldExpireAfterLifetime() throws InterruptedException {
+        var stats = new PrefixCacheStats(Duration.ofMillis(1));
+
+        stats.record(prefix);
+        Thread.sleep(10);
+
+        assertThat(stats.record(prefix)).isFalse();
+    }
+
+    @Test
+    @DisplayName("should forget prefixes and counters on reset")
+    void shouldResetCountersAndPrefixes() {
+        var stats = new PrefixCacheStats();
+        stats.record(prefix);
+        stats.record(prefix);
+
+        stats.reset();
+
+        assertThat(stats.hitRatio()).isZero();
+        assertThat(stats.record(prefix)).isFalse();
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.template;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ir.sudoit.claudecode4j.api.model.request.Prompt;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("SimplePromptTemplate")
+class SimplePromptTemplateTest {
+
+    @Nested
+    @DisplayName("render")
+    class Render {
+
+        @Test
+        @DisplayName("should substitute every occurrence of a variable")
+        void shouldSubstituteEveryOccurrence() {
+            var template = new SimplePromptTemplate("greet", "Hi {{name}}, bye {{ name }}.");
+
+            assertThat(template.render(Map.of("name", "Ada")).text()).isEqualTo("Hi Ada, bye Ada.");
+        }
+
+        @Test
+        @DisplayName("should insert dollar signs and backslashes verbatim")
+        void shouldInsertDollarAndBackslashVerbatim() {
+            var template = new SimplePromptTemplate("path", "Open {{path}} and set {{var}}.");
+
+            var prompt = template.render(Map.of("path", "C:\\Users\\$1\\docs", "var", "$HOME\\$0"));
+
+            assertThat(prompt.text()).isEqualTo("Open C:\\Users\\$1\\docs and set $HOME\\$0.");
+        }
+
+        @Test
+        @DisplayName("should not expand placeholders inside values")
+        void shouldNotExpandPlaceholdersInsideValues() {
+            var template = new SimplePromptTemplate("nested", "{{a}} {{b}}");
+
+            var prompt = template.render(Map.of("a", "{{b}}", "b", "{{a}}"));
+
+            assertThat(prompt.text()).isEqualTo("{{b}} {{a}}");
+        }
+
+        @Test
+        @DisplayName("should render the system prompt template")
+        void shouldRenderSystemPrompt() {
+            var template = new SimplePromptTemplate("review", "Review {{file}}", "You review {{language}} code.");
+
+            var prompt = template.render(Map.of("file", "Main.java", "language", "Java"));
+
+            assertThat(prompt.text()).isEqualTo("Review Main.java");
+            assertThat(prompt.systemPrompt()).isEqualTo("You review Java code.");
+            assertThat(template.variables()).containsExactly("file", "language");
+        }
+
+        @Test
+        @DisplayName("should reject missing variables")
+        void shouldRejectMissingVariables() {
+            var template = new SimplePromptTemplate("greet", "Hi {{name}} from {{city}}");
+
+            assertThatThrownBy(() -> template.render(Map.of("name", "Ada")))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("city");
+        }
+    }
+
+    @Nested
+    @DisplayName("renderWithPrefix")
+    class RenderWithPrefix {
+
+        @Test
+        @DisplayName("should report the same prefix for every render of a template")
+        void shouldReportSamePrefixPerRender() {
+            var template = new SimplePromptTemplate("review", "Review {{diff}}", "You are a strict reviewer.");
+
+            var first = template.renderWithPrefix(Map.of("diff", "a"));
+            var second = template.renderWithPrefix(Map.of("diff", "b"));
+
+            assertThat(first.prompt().text()).isEqualTo("Review a");
+            assertThat(first.prefix()).isEqualTo(second.prefix()).isEqualTo(template.prefix());
+            assertThat(first.prefix().length())
+                    .isEqualTo("You are a strict reviewer.".length() + 1 + "Review ".length());
+        }
+
+        @Test
+        @DisplayName("should stop the prefix at a variable in the system prompt")
+        void shouldStopPrefixAtSystemPromptVariable() {
+            var template = new SimplePromptTemplate("review", "Review {{diff}}", "You review {{language}}.");
+
+            var rendered = template.renderWithPrefix(Map.of("diff", "a", "language", "Java"));
+
+            assertThat(rendered.prefix().length()).isEqualTo("You review ".length());
+        }
+
+        @Test
+        @DisplayName("should derive the prefix from a system prompt override")
+        void shouldDerivePrefixFromOverride() {
+            var template = new SimplePromptTemplate("review", "Review {{diff}}", "Default system prompt.");
+
+            var first = template.renderWithPrefix(Map.of("diff", "a"), "Override one.");
+            var second = template.renderWithPrefix(Map.of("diff", "b"), "Override one.");
+            var other = template.renderWithPrefix(Map.of("diff", "a"), "Override two.");
+
+            assertThat(first.prompt().systemPrompt()).isEqualTo("Override one.");
+            assertThat(first.prefix()).isEqualTo(second.prefix()).isNotEqualTo(template.prefix());
+            assertThat(other.prefix()).isNotEqualTo(first.prefix());
+        }
+
+        @Test
+        @DisplayName("should report an empty prefix for templates that do not compute one")
+        void shouldDefaultToEmptyPrefix() {
+            PromptTemplate template = new PromptTemplate() {
+                @Override
+                public String name() {
+                    return "plain";
+                }
+
+                @Override
+                public String template() {
+                    return "Hello";
+                }
+
+                @Override
+                public List<String> variables() {
+                    return List.of();
+                }
+
+                @Override
+                public @Nullable String systemPromptTemplate() {
+                    return null;
+                }
+
+                @Override
+                public Prompt render(Map<String, Object> variables) {
+                    return Prompt.of(template());
+                }
+            };
+
+            assertThat(template.renderWithPrefix(Map.of()).prefix()).isEqualTo(PromptPrefix.EMPTY);
+        }
+    }
+
+    @Nested
+    @DisplayName("renderTo")
+    class RenderTo {
+
+        @Test
+        @DisplayName("should write the same text as render")
+        void shouldWriteSameTextAsRender() {
+            var template = new SimplePromptTemplate("path", "Use {{path}} \\ {{name}}");
+            Map<String, Object> values = Map.of("path", "$1\\$2", "name", "a$b");
+            var out = new StringBuilder();
+
+            template.renderTo(out, values);
+
+            assertThat(out).hasToString(template.render(values).text());
+        }
+
+        @Test
+        @DisplayName("should write UTF-8 bytes with values verbatim")
+        void shouldWriteUtf8BytesVerbatim() {
+            var compiled = CompiledTemplate.compile("Préfixe {{value}}");
+            var out = new ByteArrayOutputStream();
+
+            compiled.writeTo(out, Map.of("value", "\\$€"));
+
+            assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("Préfixe \\$€");
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.template;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("SimpleTemplateEngine")
+class SimpleTemplateEngineTest {
+
+    private final SimpleTemplateEngine engine = new SimpleTemplateEngine();
+
+    @Nested
+    @DisplayName("load")
+    class Load {
+
+        @Test
+        @DisplayName("should read the system prompt from frontmatter")
+        void shouldReadSystemPromptFromFrontmatter(@TempDir Path dir) throws IOException {
+            var file = Files.writeString(dir.resolve("review.prompt"), "---\nsystem: Be brief.\n---\nReview {{diff}}\n");
+
+            var template = engine.load(file);
+
+            assertThat(template.name()).isEqualTo("review");
+            assertThat(template.systemPromptTemplate()).isEqualTo("Be brief.");
+            assertThat(template.render(Map.of("diff", "x")).text()).isEqualTo("Review x");
+        }
+
+        @Test
+        @DisplayName("should load more files than the concurrency limit in walk order")
+        void shouldLoadManyFilesInOrder(@TempDir Path dir) throws IOException {
+            var count = TemplateFiles.MAX_CONCURRENT_LOADS * 4;
+            for (var i = 0; i < count; i++) {
+                Files.writeString(dir.resolve("t" + i + ".prompt"), "Template " + i);
+            }
+            var expected = TemplateFiles.find(dir).stream()
+                    .map(TemplateFiles::templateName)
+                    .toList();
+
+            var templates = engine.loadFromDirectory(dir);
+
+            assertThat(templates).extracting(PromptTemplate::name).containsExactlyElementsOf(expected);
+            assertThat(templates).hasSize(count);
+        }
+
+        @Test
+        @DisplayName("should name the file that failed to load")
+        void shouldNameFailingFile(@TempDir Path dir) throws IOException {
+            var file = Files.write(dir.resolve("bad.prompt"), new byte[] {(byte) 0xC3, (byte) 0x28});
+
+            assertThatThrownBy(() -> engine.loadFromDirectory(dir)).hasMessageContaining(file.toString());
+        }
+    }
+
+    @Nested
+    @DisplayName("unregister")
+    class Unregister {
+
+        @Test
+        @DisplayName("should remove a registered template")
+        void shouldRemoveRegisteredTemplate() {
+            engine.register(engine.compile("greet", "Hi {{name}}"));
+
+            assertThat(engine.unregister("greet")).isTrue();
+            assertThat(engine.get("greet")).isEmpty();
+            assertThat(engine.unregister("greet")).isFalse();
+        }
+
+        @Test
+        @DisplayName("should return false by default for engines that cannot remove templates")
+        void shouldReturnFalseByDefault() {
+            TemplateEngine readOnly = new TemplateEngine() {
+                @Override
+                public PromptTemplate compile(String name, String template) {
+                    return engine.compile(name, template);
+                }
+
+                @Override
+                public PromptTemplate compile(String name, String template, String systemPrompt) {
+                    return engine.compile(name, template, systemPrompt);
+                }
+
+                @Override
+                public PromptTemplate load(Path path) throws IOException {
+                    return engine.load(path);
+                }
+
+                @Override
+                public List<PromptTemplate> loadFromDirectory(Path directory) throws IOException {
+                    return engine.loadFromDirectory(directory);
+                }
+
+                @Override
+                public void register(PromptTemplate template) {}
+
+                @Override
+                public Optional<PromptTemplate> get(String name) {
+                    return Optional.empty();
+                }
+
+                @Override
+                public List<PromptTemplate> getAll() {
+                    return List.of();
+                }
+
+                @Override
+                public void clear() {}
+            };
+
+            assertThat(readOnly.unregister("greet")).isFalse();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.api.template;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("WatchedTemplateRepository")
+class WatchedTemplateRepositoryTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("should load templates from nested directories on open")
+    void shouldLoadTemplatesOnOpen() throws IOException {
+        Files.writeString(dir.resolve("greet.prompt"), "Hi {{name}}");
+        Files.createDirectories(dir.resolve("code"));
+        Files.writeString(dir.resolve("code/review.prompt"), "Review {{diff}}");
+
+        try (var repository = WatchedTemplateRepository.open(new SimpleTemplateEngine(), dir)) {
+            assertThat(repository.get("greet")).isPresent();
+            assertThat(repository.get("review")).isPresent();
+        }
+    }
+
+    @Test
+    @DisplayName("should recompile changed files and unregister deleted ones")
+    void shouldFollowChangesAndDeletes() throws Exception {
+        var file = Files.writeString(dir.resolve("greet.prompt"), "Hi {{name}}");
+
+        try (var repository = WatchedTemplateRepository.open(new SimpleTemplateEngine(), dir)) {
+            Files.writeString(file, "Hello there, {{name}}");
+            awaitUntil(() -> repository
+                    .get("greet")
+                    .map(t -> t.template().startsWith("Hello"))
+                    .orElse(false));
+
+            Files.delete(file);
+            awaitUntil(() -> repository.get("greet").isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("should keep a same-named template from another directory when one is deleted")
+    void shouldKeepSameNamedTemplateFromOtherDirectory() throws Exception {
+        Files.createDirectories(dir.resolve("a"));
+        Files.createDirectories(dir.resolve("b"));
+        Files.writeString(dir.resolve("a/review.prompt"), "from a");
+        Files.writeString(dir.resolve("b/review.prompt"), "from b");
+
+        try (var repository = WatchedTemplateRepository.open(new SimpleTemplateEngine(), dir)) {
+            var registered = repository.get("review").orElseThrow().template();
+            var shadowed = registered.equals("from a") ? "b" : "a";
+            var active = registered.equals("from a") ? "a" : "b";
+
+            // deleting the shadowed file must leave the registered template alone
+            Files.delete(dir.resolve(shadowed + "/review.prompt"));
+            Files.writeString(dir.resolve(shadowed + "/marker.prompt"), "marker");
+            awaitUntil(() -> repository.get("marker").isPresent());
+            assertThat(repository.get("review").orElseThrow().template()).isEqualTo(registered);
+
+            Files.writeString(dir.resolve(shadowed + "/review.prompt"), "from " + shadowed + " again");
+            awaitUntil(() -> repository
+                    .get("review")
+                    .map(t -> t.template().endsWith("again"))
+                    .orElse(false));
+
+            // deleting the registered file brings back the other one
+            Files.delete(dir.resolve(shadowed + "/review.prompt"));
+            awaitUntil(() -> repository
+                    .get("review")
+                    .map(t -> t.template().equals("from " + active))
+                    .orElse(false));
+
+            Files.delete(dir.resolve(active + "/review.prompt"));
+            awaitUntil(() -> repository.get("review").isEmpty());
+        }
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        var deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within %s", TIMEOUT).isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.benchmarks;
+
+import ir.sudoit.claudecode4j.benchmarks.loadtest.LoadGenerator;
+import ir.sudoit.claudecode4j.benchmarks.report.BaselineComparison;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar.
+ *
+ * <p>Runs the JMH suites with the GC profiler enabled, writes a JSON result file and optionally compares it against a
+ * baseline result. All standard JMH command-line options are accepted; the runner adds:
+ *
+ * <ul>
+ *   <li>{@code -baseline <file>}: JMH JSON result to compare against; the process exits with status 2 when a regression
+ *       is detected
+ *   <li>{@code -threshold <percent>}: tolerated relative change, defaults to 10
+ * </ul>
+ *
+ * <p>Two results can also be compared without running anything: {@code compare <baseline.json> <current.json>
+ * [threshold]}. {@code loadtest [options]} runs the end-to-end load generator instead, see {@link LoadGenerator}.
+ *
+ * <pre>{@code
+ * mvn -pl claudecode4j-benchmarks -am package -DskipTests
+ * java --enable-preview -jar claudecode4j-benchmarks/target/benchmarks.jar -rff before.json
+ * # ... upgrade a dependency, rebuild ...
+ * java --enable-preview -jar claudecode4j-benchmarks/target/benchmarks.jar -rff after.json -baseline before.json
+ * }</pre>
+ */
+public final class BenchmarkRunner {
+
+    private static final double DEFAULT_THRESHOLD_PERCENT = 10.0;
+    private static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    private BenchmarkRunner() {}
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("loadtest")) {
+            LoadGenerator.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("compare")) {
+            if (args.length < 3) {
+                System.err.println("Usage: compare <baseline.json> <current.json> [threshold-percent]");
+                System.exit(1);
+            }
+            var threshold = args.length > 3 ? Double.parseDouble(args[3]) : DEFAULT_THRESHOLD_PERCENT;
+            System.exit(report(Path.of(args[1]), Path.of(args[2]), threshold));
+        }
+
+        Path baseline = null;
+        var threshold = DEFAULT_THRESHOLD_PERCENT;
+        var jmhArgs = new ArrayList<String>();
+        for (var i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-baseline" -> baseline = Path.of(args[++i]);
+                case "-threshold" -> threshold = Double.parseDouble(args[++i]);
+                default -> jmhArgs.add(args[i]);
+            }
+        }
+
+        var commandLine = new CommandLineOptions(jmhArgs.toArray(String[]::new));
+        var builder = new OptionsBuilder().parent(commandLine).addProfiler(GCProfiler.class);
+        if (!commandLine.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        var resultFile = commandLine.getResult().orElse(DEFAULT_RESULT_FILE);
+        builder.result(resultFile);
+
+        new Runner(builder.build()).run();
+
+        if (baseline != null) {
+            System.exit(report(baseline, Path.of(resultFile), threshold));
+        }
+    }
+
+    private static int report(Path baseline, Path current, double threshold) throws Exception {
+        var report = BaselineComparison.compare(baseline, current, threshold);
+        var markdown = report.toMarkdown();
+        System.out.println();
+        System.out.println(markdown);
+        Files.writeString(siblingOf(current, "-comparison.md"), markdown);
+        return report.hasRegressions() ? 2 : 0;
+    }
+
+    private static Path siblingOf(Path file, String suffix) {
+        var name = file.getFileName().toString();
+        var base = name.endsWith(".json") ? name.substring(0, name.length() - 5) : name;
+        return file.toAbsolutePath().resolveSibling(base + suffix);
+    }
+}
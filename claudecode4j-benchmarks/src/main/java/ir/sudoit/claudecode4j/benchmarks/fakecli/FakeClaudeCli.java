@@ -0,0 +1,200 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.benchmarks.fakecli;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Stand-in for the {@code claude} binary used for offline load tests.
+ *
+ * <p>Accepts every flag {@code ClaudeCommandBuilder} emits and rejects unknown ones the way the real CLI does, so drift
+ * between the builder and the fake surfaces as a failure. The prompt is read from stdin ({@code -p -}) or taken from
+ * the positional argument. Output follows the selected {@code --output-format}; for {@code stream-json} the run emits a
+ * {@code system} init event, paced {@code assistant} events and a final {@code result} event carrying the session id
+ * and token usage.
+ *
+ * <p>Timing, size and failure behaviour come from {@link FakeCliProfile}, read from {@code FAKE_CLAUDE_*} environment
+ * variables. Use {@link FakeCliLauncher} to produce an executable that can be configured as the binary path.
+ */
+public final class FakeClaudeCli {
+
+    static final String VERSION = "2.0.0-fake (Claude Code)";
+
+    private static final Set<String> VALUE_FLAGS = Set.of(
+            "--permission-mode",
+            "--output-format",
+            "--model",
+            "--max-turns",
+            "--allowedTools",
+            "--disallowedTools",
+            "--agent",
+            "--system-prompt",
+            "--add-dir",
+            "--resume",
+            "-p");
+
+    private static final Set<String> BOOLEAN_FLAGS =
+            Set.of("--print", "--dangerously-skip-permissions", "--verbose", "--continue");
+
+    private static final String[] WORDS = ("the a parser stream token budget session template context file class "
+                    + "method returns value should would because which there their update refactor test build module "
+                    + "service thread virtual executor process output input render cache index record latency")
+            .split(" ");
+
+    private FakeClaudeCli() {}
+
+    public static void main(String[] args) throws IOException {
+        System.exit(run(args, FakeCliProfile.fromEnvironment(System.getenv()), System.out, System.err));
+    }
+
+    static int run(String[] args, FakeCliProfile profile, PrintStream out, PrintStream err) throws IOException {
+        var outputFormat = "text";
+        String prompt = null;
+        String resumeId = null;
+
+        for (var i = 0; i < args.length; i++) {
+            var arg = args[i];
+            if (arg.equals("--version") || arg.equals("-v")) {
+                out.println(VERSION);
+                out.flush();
+                return 0;
+            }
+            if (VALUE_FLAGS.contains(arg)) {
+                if (i + 1 >= args.length) {
+                    err.println("error: option '" + arg + "' argument missing");
+                    return 1;
+                }
+                var value = args[++i];
+                switch (arg) {
+                    case "--output-format" -> outputFormat = value;
+                    case "--resume" -> resumeId = value;
+                    case "-p" -> prompt = value.equals("-") ? readStdin() : value;
+                    default -> {}
+                }
+            } else if (arg.startsWith("-") && !BOOLEAN_FLAGS.contains(arg)) {
+                err.println("error: unknown option '" + arg + "'");
+                return 1;
+            } else if (!arg.startsWith("-")) {
+                prompt = arg;
+            }
+        }
+
+        if (prompt == null || prompt.isBlank()) {
+            err.println(
+                    "Error: Input must be provided either through stdin or as a prompt argument when using --print");
+            return 1;
+        }
+
+        var random = new SplittableRandom(profile.seed() ^ prompt.hashCode());
+        var sessionId = resumeId != null ? resumeId : new UUID(random.nextLong(), random.nextLong()).toString();
+        var fails = random.nextDouble() < profile.failureRate();
+        var start = System.nanoTime();
+
+        var jitterMillis = profile.startupJitter().toMillis();
+        sleepNanos(profile.startupDelay().toNanos()
+                + (jitterMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(random.nextLong(jitterMillis + 1)) : 0));
+
+        var streaming = outputFormat.equals("stream-json");
+        if (streaming) {
+            out.println("{\"type\":\"system\",\"subtype\":\"init\",\"session_id\":\"" + sessionId
+                    + "\",\"model\":\"claude-fake\",\"tools\":[\"Read\",\"Edit\",\"Bash\"]}");
+            out.flush();
+        }
+
+        if (fails && profile.failureMode() == FakeCliProfile.FailureMode.STARTUP) {
+            return fail(out, err, streaming, "Simulated failure before first token");
+        }
+
+        var failAt = fails ? profile.responseTokens() / 2 : Integer.MAX_VALUE;
+        var nanosPerEvent = (long) (profile.tokensPerEvent() * 1_000_000_000L / profile.tokensPerSecond());
+        var content = new StringBuilder(profile.responseTokens() * 8);
+        var emitted = 0;
+        var nextDeadline = System.nanoTime();
+
+        while (emitted < profile.responseTokens()) {
+            if (emitted >= failAt) {
+                return fail(out, err, streaming, "Simulated failure mid-stream");
+            }
+            var chunk = new StringBuilder();
+            var n = Math.min(profile.tokensPerEvent(), profile.responseTokens() - emitted);
+            for (var t = 0; t < n; t++) {
+                chunk.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            emitted += n;
+            content.append(chunk);
+
+            nextDeadline += nanosPerEvent;
+            sleepNanos(nextDeadline - System.nanoTime());
+            if (streaming) {
+                out.println(
+                        "{\"type\":\"assistant\",\"content\":\"" + chunk + "\",\"session_id\":\"" + sessionId + "\"}");
+                out.flush();
+            }
+        }
+
+        var inputTokens = Math.max(1, prompt.length() / 4);
+        var durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        var result = "{\"type\":\"result\",\"subtype\":\"success\",\"is_error\":false,\"content\":\""
+                + (streaming ? "" : content.toString().trim())
+                + "\",\"session_id\":\"" + sessionId
+                + "\",\"duration_ms\":" + durationMs
+                + ",\"num_turns\":1,\"usage\":{\"input_tokens\":" + inputTokens
+                + ",\"output_tokens\":" + emitted + "}}";
+
+        switch (outputFormat) {
+            case "stream-json", "json" -> out.println(result);
+            default -> out.println(content.toString().trim());
+        }
+        out.flush();
+        return 0;
+    }
+
+    private static int fail(PrintStream out, PrintStream err, boolean streaming, String message) {
+        if (streaming) {
+            out.println("{\"type\":\"error\",\"message\":\"" + message + "\"}");
+            out.flush();
+        }
+        err.println("Error: " + message);
+        err.flush();
+        return 1;
+    }
+
+    private static String readStdin() throws IOException {
+        return new String(System.in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private static void sleepNanos(long nanos) {
+        var deadline = System.nanoTime() + nanos;
+        for (var remaining = nanos; remaining > 0; remaining = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.benchmarks.fakecli;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+/**
+ * Installs an executable {@code fake-claude} script that runs {@link FakeClaudeCli} with a fixed profile.
+ *
+ * <p>The script exports the profile as {@code FAKE_CLAUDE_*} variables and starts a JVM tuned for short-lived
+ * processes, so the resulting path can be used anywhere the library expects the {@code claude} binary, including
+ * {@code claude.code.binary-path}.
+ */
+public final class FakeCliLauncher {
+
+    public static final String SCRIPT_NAME = "fake-claude";
+
+    private FakeCliLauncher() {}
+
+    /**
+     * Writes the launcher script into {@code directory}.
+     *
+     * @param directory target directory, created if missing
+     * @param profile behaviour of the fake CLI
+     * @return path of the executable script
+     * @throws IOException if the script cannot be written
+     */
+    public static Path install(Path directory, FakeCliProfile profile) throws IOException {
+        Files.createDirectories(directory);
+        var java = Path.of(System.getProperty("java.home"), "bin", "java");
+
+        var script = new StringBuilder("#!/bin/sh\n");
+        profile.toEnvironment().forEach((key, value) -> script.append("export ")
+                .append(key)
+                .append('=')
+                .append(quote(value))
+                .append('\n'));
+        script.append("exec ")
+                .append(quote(java.toString()))
+                .append(" --enable-preview -Xshare:auto -XX:TieredStopAtLevel=1 -XX:+UseSerialGC -cp ")
+                .append(quote(System.getProperty("java.class.path")))
+                .append(' ')
+                .append(FakeClaudeCli.class.getName())
+                .append(" \"$@\"\n");
+
+        var path = directory.resolve(SCRIPT_NAME);
+        Files.writeString(path, script);
+        Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rwxr-xr-x"));
+        return path;
+    }
+
+    private static String quote(String value) {
+        return "'" + value.replace("'", "'\\''") + "'";
+    }
+}
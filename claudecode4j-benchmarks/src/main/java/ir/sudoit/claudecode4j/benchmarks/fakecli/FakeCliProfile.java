@@ -0,0 +1,197 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.benchmarks.fakecli;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Behaviour of the fake CLI: startup latency, token rate, response size and failure injection.
+ *
+ * <p>The profile travels to the fake CLI process through {@code FAKE_CLAUDE_*} environment variables, because the
+ * library spawns the binary with a fixed set of flags and an inherited environment.
+ *
+ * @param startupDelay delay before the first output line, simulating CLI boot and model queueing
+ * @param startupJitter maximum random extra startup delay
+ * @param tokensPerSecond output token rate
+ * @param responseTokens number of output tokens per response
+ * @param tokensPerEvent number of tokens per {@code assistant} event
+ * @param failureRate probability, between 0 and 1, that a run fails
+ * @param failureMode when an injected failure happens
+ * @param seed seed for all random decisions; combined with the prompt so identical prompts behave identically
+ */
+public record FakeCliProfile(
+        Duration startupDelay,
+        Duration startupJitter,
+        double tokensPerSecond,
+        int responseTokens,
+        int tokensPerEvent,
+        double failureRate,
+        FailureMode failureMode,
+        long seed) {
+
+    static final String ENV_PREFIX = "FAKE_CLAUDE_";
+
+    /** When an injected failure is reported. */
+    public enum FailureMode {
+        /** Fail before emitting any assistant output. */
+        STARTUP,
+        /** Fail after half of the response has been streamed. */
+        MIDSTREAM
+    }
+
+    public FakeCliProfile {
+        if (tokensPerSecond <= 0) {
+            throw new IllegalArgumentException("tokensPerSecond must be positive");
+        }
+        if (responseTokens < 0 || tokensPerEvent <= 0) {
+            throw new IllegalArgumentException("responseTokens must be >= 0 and tokensPerEvent > 0");
+        }
+        if (failureRate < 0 || failureRate > 1) {
+            throw new IllegalArgumentException("failureRate must be between 0 and 1");
+        }
+    }
+
+    public static FakeCliProfile defaults() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Reads a profile from {@code FAKE_CLAUDE_*} variables, falling back to the defaults for missing entries.
+     *
+     * @param environment the process environment
+     * @return the profile
+     */
+    public static FakeCliProfile fromEnvironment(Map<String, String> environment) {
+        var defaults = defaults();
+        return builder()
+                .startupDelay(
+                        Duration.ofMillis(longValue(environment, "STARTUP_DELAY_MS", defaults.startupDelay.toMillis())))
+                .startupJitter(Duration.ofMillis(
+                        longValue(environment, "STARTUP_JITTER_MS", defaults.startupJitter.toMillis())))
+                .tokensPerSecond(doubleValue(environment, "TOKENS_PER_SECOND", defaults.tokensPerSecond))
+                .responseTokens((int) longValue(environment, "RESPONSE_TOKENS", defaults.responseTokens))
+                .tokensPerEvent((int) longValue(environment, "TOKENS_PER_EVENT", defaults.tokensPerEvent))
+                .failureRate(doubleValue(environment, "FAILURE_RATE", defaults.failureRate))
+                .failureMode(FailureMode.valueOf(environment
+                        .getOrDefault(ENV_PREFIX + "FAILURE_MODE", defaults.failureMode.name())
+                        .toUpperCase()))
+                .seed(longValue(environment, "SEED", defaults.seed))
+                .build();
+    }
+
+    /** Returns the {@code FAKE_CLAUDE_*} variables describing this profile. */
+    public Map<String, String> toEnvironment() {
+        var env = new LinkedHashMap<String, String>();
+        env.put(ENV_PREFIX + "STARTUP_DELAY_MS", Long.toString(startupDelay.toMillis()));
+        env.put(ENV_PREFIX + "STARTUP_JITTER_MS", Long.toString(startupJitter.toMillis()));
+        env.put(ENV_PREFIX + "TOKENS_PER_SECOND", Double.toString(tokensPerSecond));
+        env.put(ENV_PREFIX + "RESPONSE_TOKENS", Integer.toString(responseTokens));
+        env.put(ENV_PREFIX + "TOKENS_PER_EVENT", Integer.toString(tokensPerEvent));
+        env.put(ENV_PREFIX + "FAILURE_RATE", Double.toString(failureRate));
+        env.put(ENV_PREFIX + "FAILURE_MODE", failureMode.name());
+        env.put(ENV_PREFIX + "SEED", Long.toString(seed));
+        return env;
+    }
+
+    private static long longValue(Map<String, String> env, String key, long defaultValue) {
+        var value = env.get(ENV_PREFIX + key);
+        return value == null || value.isBlank() ? defaultValue : Long.parseLong(value.trim());
+    }
+
+    private static double doubleValue(Map<String, String> env, String key, double defaultValue) {
+        var value = env.get(ENV_PREFIX + key);
+        return value == null || value.isBlank() ? defaultValue : Double.parseDouble(value.trim());
+    }
+
+    public static final class Builder {
+        private Duration startupDelay = Duration.ofMillis(300);
+        private Duration startupJitter = Duration.ofMillis(100);
+        private double tokensPerSecond = 80;
+        private int responseTokens = 250;
+        private int tokensPerEvent = 5;
+        private double failureRate = 0.0;
+        private FailureMode failureMode = FailureMode.STARTUP;
+        private long seed = 42L;
+
+        private Builder() {}
+
+        public Builder startupDelay(Duration startupDelay) {
+            this.startupDelay = startupDelay;
+            return this;
+        }
+
+        public Builder startupJitter(Duration startupJitter) {
+            this.startupJitter = startupJitter;
+            return this;
+        }
+
+        public Builder tokensPerSecond(double tokensPerSecond) {
+            this.tokensPerSecond = tokensPerSecond;
+            return this;
+        }
+
+        public Builder responseTokens(int responseTokens) {
+            this.responseTokens = responseTokens;
+            return this;
+        }
+
+        public Builder tokensPerEvent(int tokensPerEvent) {
+            this.tokensPerEvent = tokensPerEvent;
+            return this;
+        }
+
+        public Builder failureRate(double failureRate) {
+            this.failureRate = failureRate;
+            return this;
+        }
+
+        public Builder failureMode(FailureMode failureMode) {
+            this.failureMode = failureMode;
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public FakeCliProfile build() {
+            return new FakeCliProfile(
+                    startupDelay,
+                    startupJitter,
+                    tokensPerSecond,
+                    responseTokens,
+                    tokensPerEvent,
+                    failureRate,
+                    failureMode,
+                    seed);
+        }
+    }
+}
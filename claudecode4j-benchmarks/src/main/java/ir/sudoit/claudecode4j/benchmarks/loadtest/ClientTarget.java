@@ -0,0 +1,87 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.benchmarks.loadtest;
+
+import ir.sudoit.claudecode4j.api.client.ClaudeClient;
+import ir.sudoit.claudecode4j.api.model.request.Prompt;
+import ir.sudoit.claudecode4j.api.model.request.PromptOptions;
+import ir.sudoit.claudecode4j.api.model.response.StreamEvent;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/** Drives {@link ClaudeClient#stream(Prompt, PromptOptions)} in-process, without any adapter in between. */
+final class ClientTarget implements LoadTarget {
+
+    private final ClaudeClient client;
+
+    ClientTarget(ClaudeClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public String name() {
+        return "client";
+    }
+
+    @Override
+    public Connection connect() {
+        return prompt -> {
+            var exchange = new CompletableFuture<Exchange>();
+            client.stream(Prompt.of(prompt), PromptOptions.defaults()).subscribe(new Flow.Subscriber<>() {
+                private long firstTokenAt;
+                private boolean failed;
+
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscription.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(StreamEvent event) {
+                    if (event.type() == StreamEvent.EventType.ASSISTANT && firstTokenAt == 0) {
+                        firstTokenAt = System.nanoTime();
+                    } else if (event.isError()) {
+                        failed = true;
+                    }
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    exchange.complete(new Exchange(firstTokenAt, false));
+                }
+
+                @Override
+                public void onComplete() {
+                    exchange.complete(new Exchange(firstTokenAt, !failed));
+                }
+            });
+            return exchange.join();
+        };
+    }
+
+    @Override
+    public void close() {
+        client.close();
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.benchmarks.loadtest;
+
+import ir.sudoit.claudecode4j.api.client.ClaudeClientFactory;
+import ir.sudoit.claudecode4j.api.config.ClaudeConfig;
+import ir.sudoit.claudecode4j.benchmarks.fakecli.FakeCliLauncher;
+import ir.sudoit.claudecode4j.benchmarks.fakecli.FakeCliProfile;
+import ir.sudoit.claudecode4j.kafka.producer.ClaudeKafkaProducer;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jspecify.annotations.Nullable;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.requestreply.ReplyingKafkaTemplate;
+
+/**
+ * Closed-loop load generator for the client and the adapters, backed by the fake CLI.
+ *
+ * <p>Each of {@code --concurrency} virtual users opens a connection and sends prompts back to back until
+ * {@code --requests} have completed. A warmup round runs first and is not recorded. Unless {@code --url} points at an
+ * already running server, the generator installs the fake CLI with the requested profile and, for adapter targets,
+ * starts {@link LoadTestServer} in-process.
+ *
+ * <pre>{@code
+ * java --enable-preview -jar benchmarks.jar loadtest --target rest --concurrency 16 --requests 500 \
+ *     --tokens-per-second 60 --response-tokens 400 --failure-rate 0.01
+ * }</pre>
+ *
+ * <p>Options: {@code --target client|rest|websocket|kafka}, {@code --url}, {@code --concurrency}, {@code --requests},
+ * {@code --warmup}, {@code --prompt-chars}, {@code --kafka-bootstrap}, {@code --output} and the fake CLI profile
+ * options {@code --startup-delay-ms}, {@code --startup-jitter-ms}, {@code --tokens-per-second},
+ * {@code --response-tokens}, {@code --tokens-per-event}, {@code --failure-rate}, {@code --failure-mode} and
+ * {@code --seed}.
+ */
+public final class LoadGenerator {
+
+    private static final String WORDS = "Summarize the design trade-offs of this module and list concrete follow-ups. ";
+
+    private String target = "client";
+    private @Nullable URI url;
+    private int concurrency = 8;
+    private int requests = 200;
+    private int warmup = 20;
+    private int promptChars = 2000;
+    private @Nullable String kafkaBootstrap;
+    private @Nullable Path output;
+    private final FakeCliProfile.Builder profile = FakeCliProfile.builder();
+
+    private LoadGenerator() {}
+
+    public static void main(String[] args) throws Exception {
+        var generator = new LoadGenerator();
+        try {
+            generator.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+        var report = generator.run();
+        System.exit(report.failures() == report.requests() && report.requests() > 0 ? 3 : 0);
+    }
+
+    private void parse(String[] args) {
+        for (var i = 0; i < args.length; i++) {
+            var option = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            var value = args[++i];
+            switch (option) {
+                case "--target" -> target = value.toLowerCase(Locale.ROOT);
+                case "--url" -> url = URI.create(value);
+                case "--concurrency" -> concurrency = Integer.parseInt(value);
+                case "--requests" -> requests = Integer.parseInt(value);
+                case "--warmup" -> warmup = Integer.parseInt(value);
+                case "--prompt-chars" -> promptChars = Integer.parseInt(value);
+                case "--kafka-bootstrap" -> kafkaBootstrap = value;
+                case "--output" -> output = Path.of(value);
+                case "--startup-delay-ms" -> profile.startupDelay(Duration.ofMillis(Long.parseLong(value)));
+                case "--startup-jitter-ms" -> profile.startupJitter(Duration.ofMillis(Long.parseLong(value)));
+                case "--tokens-per-second" -> profile.tokensPerSecond(Double.parseDouble(value));
+                case "--response-tokens" -> profile.responseTokens(Integer.parseInt(value));
+                case "--tokens-per-event" -> profile.tokensPerEvent(Integer.parseInt(value));
+                case "--failure-rate" -> profile.failureRate(Double.parseDouble(value));
+                case "--failure-mode" ->
+                    profile.failureMode(FakeCliProfile.FailureMode.valueOf(value.toUpperCase(Locale.ROOT)));
+                case "--seed" -> profile.seed(Long.parseLong(value));
+                default -> throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+        if (target.equals("kafka") && kafkaBootstrap == null) {
+            throw new IllegalArgumentException("--target kafka requires --kafka-bootstrap");
+        }
+    }
+
+    private LoadReport run() throws Exception {
+        var cliProfile = profile.build();
+        ConfigurableApplicationContext server = null;
+        try {
+            if (!target.equals("client") && (url == null || target.equals("kafka"))) {
+                server = LoadTestServer.start(installFakeCli(cliProfile), concurrency, kafkaBootstrap);
+            }
+            try (var loadTarget = createTarget(cliProfile, server)) {
+                System.out.printf(
+                        Locale.ROOT,
+                        "Target %s, concurrency %d, %d requests (+%d warmup), profile %s%n",
+                        loadTarget.name(),
+                        concurrency,
+                        requests,
+                        warmup,
+                        cliProfile);
+
+                drive(loadTarget, warmup, new LoadReport());
+                var report = drive(loadTarget, requests, new LoadReport());
+
+                var markdown = report.toMarkdown("Load test: " + loadTarget.name());
+                System.out.println();
+                System.out.println(markdown);
+                if (output != null) {
+                    Files.writeString(output, markdown);
+                }
+                return report;
+            }
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    private LoadTarget createTarget(FakeCliProfile cliProfile, @Nullable ConfigurableApplicationContext server)
+            throws Exception {
+        if (target.equals("client")) {
+            return new ClientTarget(ClaudeClientFactory.create(ClaudeConfig.builder()
+                    .binaryPath(installFakeCli(cliProfile))
+                    .concurrencyLimit(concurrency)
+                    .build()));
+        }
+        var base = server != null ? URI.create("http://localhost:" + LoadTestServer.port(server) + "/") : url;
+        return switch (target) {
+            case "rest" -> new RestTarget(url != null ? url : base.resolve("api/claude/"));
+            case "websocket" ->
+                new WebSocketTarget(url != null ? url : URI.create("ws://localhost:" + base.getPort() + "/ws/cli"));
+            case "kafka" -> {
+                server.getBean(ReplyingKafkaTemplate.class).waitForAssignment(Duration.ofSeconds(60));
+                yield new KafkaTarget(server.getBean(ClaudeKafkaProducer.class));
+            }
+            default -> throw new IllegalArgumentException("Unknown target " + target);
+        };
+    }
+
+    private static Path installFakeCli(FakeCliProfile cliProfile) throws Exception {
+        return FakeCliLauncher.install(Files.createTempDirectory("fake-claude"), cliProfile);
+    }
+
+    private LoadReport drive(LoadTarget loadTarget, int total, LoadReport report) throws Exception {
+        var next = new AtomicInteger();
+        report.start();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var users = new ArrayList<Future<?>>();
+            for (var u = 0; u < concurrency; u++) {
+                users.add(executor.submit(() -> {
+                    try (var connection = loadTarget.connect()) {
+                        for (var i = next.getAndIncrement(); i < total; i = next.getAndIncrement()) {
+                            var prompt = prompt(i);
+                            var sentAt = System.nanoTime();
+                            try {
+                                report.record(sentAt, connection.send(prompt), System.nanoTime());
+                            } catch (Exception e) {
+                                report.recordFailure(sentAt, System.nanoTime());
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (var user : users) {
+                user.get();
+            }
+        }
+        report.stop();
+        return report;
+    }
+
+    private String prompt(int index) {
+        var random = new SplittableRandom(index);
+        var sb = new StringBuilder(promptChars + 16);
+        sb.append("Request ").append(index).append(": ");
+        while (sb.length() < promptChars) {
+            sb.append(WORDS, random.nextInt(WORDS.length() / 2), WORDS.length());
+        }
+        sb.setLength(Math.max(1, promptChars));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.benchmarks.loadtest;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Thread-safe collector for a load-test run: request count, failures, time-to-first-token and end-to-end latency.
+ *
+ * <p>Latencies are recorded in microseconds into HdrHistograms covering up to one hour with three significant digits,
+ * so percentiles stay accurate without retaining individual samples.
+ */
+public final class LoadReport {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+
+    private final Histogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Histogram timeToFirstToken = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private final LongAdder failures = new LongAdder();
+    private volatile long startNanos;
+    private volatile long endNanos;
+
+    void start() {
+        startNanos = System.nanoTime();
+    }
+
+    void stop() {
+        endNanos = System.nanoTime();
+    }
+
+    /**
+     * Records one finished request.
+     *
+     * @param sentAt {@link System#nanoTime()} when the request was issued
+     * @param exchange outcome reported by the target
+     * @param finishedAt {@link System#nanoTime()} when the response was complete
+     */
+    void record(long sentAt, LoadTarget.Exchange exchange, long finishedAt) {
+        if (!exchange.success()) {
+            failures.increment();
+        }
+        latency.recordValue(clamp(finishedAt - sentAt));
+        if (exchange.firstTokenAt() != 0) {
+            timeToFirstToken.recordValue(clamp(exchange.firstTokenAt() - sentAt));
+        }
+    }
+
+    void recordFailure(long sentAt, long finishedAt) {
+        record(sentAt, LoadTarget.Exchange.failed(), finishedAt);
+    }
+
+    public long requests() {
+        return latency.getTotalCount();
+    }
+
+    public long failures() {
+        return failures.sum();
+    }
+
+    public Duration elapsed() {
+        return Duration.ofNanos(endNanos - startNanos);
+    }
+
+    /** Completed requests per second over the measured window. */
+    public double throughput() {
+        var nanos = endNanos - startNanos;
+        return nanos <= 0 ? 0 : requests() * 1e9 / nanos;
+    }
+
+    public Histogram latency() {
+        return latency;
+    }
+
+    public Histogram timeToFirstToken() {
+        return timeToFirstToken;
+    }
+
+    /**
+     * Renders the report as a Markdown table.
+     *
+     * @param title heading describing the run
+     * @return the Markdown text
+     */
+    public String toMarkdown(String title) {
+        var sb = new StringBuilder();
+        sb.append("## ").append(title).append("\n\n");
+        sb.append(String.format(
+                Locale.ROOT,
+                "Requests: %d, failures: %d (%.2f%%), elapsed: %.1f s, throughput: %.2f req/s%n%n",
+                requests(),
+                failures(),
+                requests() == 0 ? 0.0 : failures() * 100.0 / requests(),
+                elapsed().toMillis() / 1000.0,
+                throughput()));
+        sb.append("| Metric | p50 (ms) | p90 (ms) | p99 (ms) | max (ms) | samples |\n");
+        sb.append("|---|---:|---:|---:|---:|---:|\n");
+        appendRow(sb, "time to first token", timeToFirstToken);
+        appendRow(sb, "latency", latency);
+        return sb.toString();
+    }
+
+    private static void appendRow(StringBuilder sb, String name, Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            sb.append("| ").append(name).append(" | n/a | n/a | n/a | n/a | 0 |\n");
+            return;
+        }
+        sb.append(String.format(
+                Locale.ROOT,
+                "| %s | %.1f | %.1f | %.1f | %.1f | %d |%n",
+                name,
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getMaxValue()),
+                histogram.getTotalCount()));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static long clamp(long nanos) {
+        return Math.min(HIGHEST_TRACKABLE_MICROS, Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos)));
+    }
+}
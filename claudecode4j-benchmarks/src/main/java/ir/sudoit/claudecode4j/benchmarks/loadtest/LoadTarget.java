@@ -0,0 +1,77 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.benchmarks.loadtest;
+
+/**
+ * Entry point exercised by the load generator: the in-process client or one of the adapters.
+ *
+ * <p>Each virtual user opens its own {@link Connection} and issues requests on it sequentially, which mirrors how a
+ * WebSocket client keeps a socket per user while HTTP and Kafka clients share pooled resources.
+ */
+public interface LoadTarget extends AutoCloseable {
+
+    /** Short name used in reports. */
+    String name();
+
+    /**
+     * Opens a connection for one virtual user.
+     *
+     * @return the connection
+     * @throws Exception if the connection cannot be established
+     */
+    Connection connect() throws Exception;
+
+    @Override
+    default void close() throws Exception {}
+
+    /** A per-user channel to the target. */
+    interface Connection extends AutoCloseable {
+
+        /**
+         * Sends one prompt and blocks until the response is complete.
+         *
+         * @param prompt prompt text
+         * @return outcome of the exchange
+         * @throws Exception if the exchange fails before completion
+         */
+        Exchange send(String prompt) throws Exception;
+
+        @Override
+        default void close() throws Exception {}
+    }
+
+    /**
+     * Outcome of a single request.
+     *
+     * @param firstTokenAt {@link System#nanoTime()} when the first assistant output arrived, or 0 when the target does
+     *     not stream
+     * @param success whether the response completed without an error
+     */
+    record Exchange(long firstTokenAt, boolean success) {
+
+        static Exchange failed() {
+            return new Exchange(0, false);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.benchmarks.loadtest;
+
+import ir.sudoit.claudecode4j.api.client.ClaudeClient;
+import ir.sudoit.claudecode4j.kafka.config.ClaudeKafkaProperties;
+import ir.sudoit.claudecode4j.kafka.listener.ClaudeKafkaListener;
+import ir.sudoit.claudecode4j.kafka.producer.ClaudeKafkaProducer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.jspecify.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.requestreply.ReplyingKafkaTemplate;
+
+/**
+ * Spring Boot application hosting the REST, WebSocket and, optionally, Kafka adapters on top of the fake CLI.
+ *
+ * <p>The server binds to a random port. Kafka beans are only created when a bootstrap server is supplied; they are
+ * declared explicitly rather than through Boot's Kafka auto-configuration so the harness works against any broker
+ * without extra modules.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@Import(LoadTestServer.KafkaConfig.class)
+public class LoadTestServer {
+
+    static final String KAFKA_BOOTSTRAP_PROPERTY = "loadtest.kafka.bootstrap-servers";
+
+    /**
+     * Starts the server.
+     *
+     * @param binaryPath path to the fake CLI launcher
+     * @param concurrency number of concurrent CLI processes and Kafka partitions
+     * @param kafkaBootstrapServers Kafka bootstrap servers, or {@code null} to leave Kafka disabled
+     * @return the running application context
+     */
+    public static ConfigurableApplicationContext start(
+            Path binaryPath, int concurrency, @Nullable String kafkaBootstrapServers) {
+        var properties = new HashMap<String, Object>();
+        properties.put("server.port", 0);
+        properties.put("claude.code.binary-path", binaryPath.toString());
+        properties.put("claude.code.concurrency-limit", concurrency);
+        properties.put("claude.code.health.enabled", false);
+        properties.put("spring.main.banner-mode", "off");
+        if (kafkaBootstrapServers != null) {
+            var runId = UUID.randomUUID().toString().substring(0, 8);
+            properties.put(KAFKA_BOOTSTRAP_PROPERTY, kafkaBootstrapServers);
+            properties.put("claude.code.kafka.request-topic", "loadtest-requests-" + runId);
+            properties.put("claude.code.kafka.reply-topic", "loadtest-replies-" + runId);
+            properties.put("claude.code.kafka.group-id", "loadtest-" + runId);
+            properties.put("claude.code.kafka.concurrency", concurrency);
+        }
+
+        var application = new SpringApplication(LoadTestServer.class);
+        application.setDefaultProperties(properties);
+        return application.run();
+    }
+
+    static int port(ConfigurableApplicationContext context) {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(KAFKA_BOOTSTRAP_PROPERTY)
+    @EnableKafka
+    static class KafkaConfig {
+
+        @Value("${" + KAFKA_BOOTSTRAP_PROPERTY + "}")
+        private String bootstrapServers;
+
+        @Bean
+        ClaudeKafkaProperties claudeKafkaProperties(
+                @Value("${claude.code.kafka.request-topic}") String requestTopic,
+                @Value("${claude.code.kafka.reply-topic}") String replyTopic,
+                @Value("${claude.code.kafka.group-id}") String groupId,
+                @Value("${claude.code.kafka.concurrency}") int concurrency) {
+            return new ClaudeKafkaProperties(
+                    true, requestTopic, replyTopic, groupId, Duration.ofMinutes(5), concurrency);
+        }
+
+        @Bean
+        ProducerFactory<String, String> producerFactory() {
+            var props = new HashMap<String, Object>();
+            props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+            props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+            props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+            props.put(ProducerConfig.LINGER_MS_CONFIG, 0);
+            return new DefaultKafkaProducerFactory<>(props);
+        }
+
+        @Bean
+        ConsumerFactory<String, String> consumerFactory(ClaudeKafkaProperties properties) {
+            var props = new HashMap<String, Object>();
+            props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+            props.put(ConsumerConfig.GROUP_ID_CONFIG, properties.groupId());
+            props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+            props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+            props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+            return new DefaultKafkaConsumerFactory<>(props);
+        }
+
+        @Bean
+        KafkaTemplate<String, String> kafkaTemplate(ProducerFactory<String, String> producerFactory) {
+            return new KafkaTemplate<>(producerFactory);
+        }
+
+        @Bean
+        ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory(
+                ConsumerFactory<String, String> consumerFactory, KafkaTemplate<String, String> kafkaTemplate) {
+            var factory = new ConcurrentKafkaListenerContainerFactory<String, String>();
+            factory.setConsumerFactory(consumerFactory);
+            factory.setReplyTemplate(kafkaTemplate);
+            return factory;
+        }
+
+        @Bean
+        ConcurrentMessageListenerContainer<String, String> repliesContainer(
+                ConcurrentKafkaListenerContainerFactory<String, String> containerFactory,
+                ClaudeKafkaProperties properties) {
+            var container = containerFactory.createContainer(properties.replyTopic());
+            container.getContainerProperties().setGroupId(properties.groupId() + "-reply");
+            container.setAutoStartup(false);
+            return container;
+        }
+
+        @Bean
+        ReplyingKafkaTemplate<String, String, String> replyingKafkaTemplate(
+                ProducerFactory<String, String> producerFactory,
+                ConcurrentMessageListenerContainer<String, String> repliesContainer,
+                ClaudeKafkaProperties properties) {
+            var template = new ReplyingKafkaTemplate<>(producerFactory, repliesContainer);
+            template.setDefaultReplyTimeout(properties.replyTimeout());
+            template.setSharedReplyTopic(true);
+            return template;
+        }
+
+        @Bean
+        ClaudeKafkaListener claudeKafkaListener(ClaudeClient claudeClient) {
+            return new ClaudeKafkaListener(claudeClient);
+        }
+
+        @Bean
+        ClaudeKafkaProducer claudeKafkaProducer(
+                ReplyingKafkaTemplate<String, String, String> replyingKafkaTemplate, ClaudeKafkaProperties properties) {
+            return new ClaudeKafkaProducer(replyingKafkaTemplate, properties);
+        }
+
+        @Bean
+        KafkaAdmin kafkaAdmin() {
+            Map<String, Object> configs = new HashMap<>();
+            configs.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+            return new KafkaAdmin(configs);
+        }
+
+        @Bean
+        NewTopic requestTopic(ClaudeKafkaProperties properties) {
+            return new NewTopic(properties.requestTopic(), properties.concurrency(), (short) 1);
+        }
+
+        @Bean
+        NewTopic replyTopic(ClaudeKafkaProperties properties) {
+            return new NewTopic(properties.replyTopic(), 1, (short) 1);
+        }
+    }
+}
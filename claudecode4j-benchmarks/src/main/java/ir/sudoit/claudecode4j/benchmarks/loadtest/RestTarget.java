@@ -0,0 +1,89 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.benchmarks.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Drives the REST adapter's {@code POST /stream} SSE endpoint.
+ *
+ * <p>Time-to-first-token is taken at the first {@code assistant} event; an {@code error} event or a non-200 status
+ * marks the request as failed.
+ */
+final class RestTarget implements LoadTarget {
+
+    private static final JsonMapper JSON_MAPPER = JsonMapper.builder().build();
+
+    private final URI streamUri;
+    private final HttpClient httpClient;
+
+    RestTarget(URI baseUri) {
+        this.streamUri = baseUri.resolve("stream");
+        this.httpClient =
+                HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @Override
+    public String name() {
+        return "rest";
+    }
+
+    @Override
+    public Connection connect() {
+        return prompt -> {
+            var request = HttpRequest.newBuilder(streamUri)
+                    .header("Content-Type", "application/json")
+                    .header("Accept", "text/event-stream")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(JSON_MAPPER.writeValueAsBytes(Map.of("text", prompt))))
+                    .build();
+            var response = httpClient.send(request, HttpResponse.BodyHandlers.ofLines());
+
+            long firstTokenAt = 0;
+            var failed = response.statusCode() != 200;
+            var iterator = response.body().iterator();
+            while (iterator.hasNext()) {
+                var line = iterator.next();
+                if (line.startsWith("event:")) {
+                    var event = line.substring("event:".length()).trim();
+                    if (event.equals("assistant") && firstTokenAt == 0) {
+                        firstTokenAt = System.nanoTime();
+                    } else if (event.equals("error")) {
+                        failed = true;
+                    }
+                }
+            }
+            return new Exchange(firstTokenAt, !failed);
+        };
+    }
+
+    @Override
+    public void close() {
+        httpClient.close();
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.benchmarks.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicReference;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Drives the WebSocket adapter with one socket per virtual user.
+ *
+ * <p>Server messages are classified by their fields: a {@code sequence} marks a stream chunk, {@code complete} the
+ * final response and {@code code} an error. The adapter forwards error events emitted by the CLI as ordinary chunks, so
+ * only failures surfaced as error messages are counted.
+ */
+final class WebSocketTarget implements LoadTarget {
+
+    private static final JsonMapper JSON_MAPPER = JsonMapper.builder().build();
+
+    private final URI endpoint;
+    private final HttpClient httpClient;
+
+    WebSocketTarget(URI endpoint) {
+        this.endpoint = endpoint;
+        this.httpClient = HttpClient.newHttpClient();
+    }
+
+    @Override
+    public String name() {
+        return "websocket";
+    }
+
+    @Override
+    public Connection connect() {
+        var listener = new ExchangeListener();
+        var webSocket =
+                httpClient.newWebSocketBuilder().buildAsync(endpoint, listener).join();
+        return new Connection() {
+            @Override
+            public Exchange send(String prompt) {
+                var exchange = listener.begin();
+                webSocket
+                        .sendText(JSON_MAPPER.writeValueAsString(Map.of("type", "prompt", "text", prompt)), true)
+                        .join();
+                return exchange.join();
+            }
+
+            @Override
+            public void close() {
+                webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "done").join();
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        httpClient.close();
+    }
+
+    private static final class ExchangeListener implements WebSocket.Listener {
+
+        private final AtomicReference<CompletableFuture<Exchange>> current = new AtomicReference<>();
+        private final StringBuilder buffer = new StringBuilder();
+        private long firstTokenAt;
+
+        CompletableFuture<Exchange> begin() {
+            firstTokenAt = 0;
+            var exchange = new CompletableFuture<Exchange>();
+            current.set(exchange);
+            return exchange;
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            buffer.append(data);
+            if (last) {
+                var message = JSON_MAPPER.readTree(buffer.toString());
+                buffer.setLength(0);
+                handle(message);
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+            fail();
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            fail();
+        }
+
+        private void handle(JsonNode message) {
+            var exchange = current.get();
+            if (exchange == null) {
+                return;
+            }
+            if (message.has("code")) {
+                exchange.complete(new Exchange(firstTokenAt, false));
+            } else if (message.has("complete") && message.get("complete").asBoolean()) {
+                exchange.complete(new Exchange(firstTokenAt, true));
+            } else if (message.has("sequence") && firstTokenAt == 0) {
+                firstTokenAt = System.nanoTime();
+            }
+        }
+
+        private void fail() {
+            var exchange = current.get();
+            if (exchange != null) {
+                exchange.complete(Exchange.failed());
+            }
+        }
+    }
+}
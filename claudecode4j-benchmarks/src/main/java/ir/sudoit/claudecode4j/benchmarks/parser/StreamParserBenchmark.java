@@ -0,0 +1,87 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.benchmarks.parser;
+
+import ir.sudoit.claudecode4j.api.model.response.ClaudeResponse;
+import ir.sudoit.claudecode4j.benchmarks.support.Transcripts;
+import ir.sudoit.claudecode4j.core.parser.JacksonStreamParser;
+import ir.sudoit.claudecode4j.core.parser.StreamJsonParser;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Compares {@link JacksonStreamParser} with the deprecated regex-based {@link StreamJsonParser} on recorded output. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Benchmark)
+@SuppressWarnings("removal")
+public class StreamParserBenchmark {
+
+    @Param({Transcripts.SHORT_ANSWER, Transcripts.TOOL_SESSION})
+    public String transcript;
+
+    private String output;
+    private JacksonStreamParser jacksonParser;
+    private StreamJsonParser regexParser;
+
+    @Setup
+    public void setUp() {
+        output = Transcripts.load(transcript);
+        jacksonParser = new JacksonStreamParser();
+        regexParser = new StreamJsonParser();
+    }
+
+    @Benchmark
+    public ClaudeResponse jacksonParse() {
+        return jacksonParser.parse(output, 0);
+    }
+
+    @Benchmark
+    public ClaudeResponse regexParse() {
+        return regexParser.parse(output, 0);
+    }
+
+    @Benchmark
+    public void jacksonParseStream(Blackhole blackhole) {
+        jacksonParser.parseStream(output.lines()).forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public void regexParseStream(Blackhole blackhole) {
+        regexParser.parseStream(output.lines()).forEach(blackhole::consume);
+    }
+}
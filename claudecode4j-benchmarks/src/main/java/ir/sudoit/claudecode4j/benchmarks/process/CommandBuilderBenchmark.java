@@ -0,0 +1,87 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.benchmarks.process;
+
+import ir.sudoit.claudecode4j.api.model.request.OutputFormat;
+import ir.sudoit.claudecode4j.api.model.request.PermissionMode;
+import ir.sudoit.claudecode4j.api.model.request.Prompt;
+import ir.sudoit.claudecode4j.api.model.request.PromptOptions;
+import ir.sudoit.claudecode4j.core.process.ClaudeCommandBuilder;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measures command-line assembly for a fully populated prompt and option set. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Benchmark)
+public class CommandBuilderBenchmark {
+
+    private Path binary;
+    private Prompt prompt;
+    private PromptOptions options;
+
+    @Setup
+    public void setUp() {
+        binary = Path.of("/usr/local/bin/claude");
+        prompt = Prompt.builder()
+                .text("Summarise the failing tests and propose a fix.")
+                .systemPrompt("You are a senior Java reviewer.")
+                .contextFiles(List.of(Path.of("/workspace/app/src"), Path.of("/workspace/app/docs")))
+                .workingDirectory(Path.of("/workspace/app"))
+                .agentName("code-reviewer")
+                .build();
+        options = PromptOptions.builder()
+                .outputFormat(OutputFormat.STREAM_JSON)
+                .model("claude-sonnet-4-5")
+                .permissionMode(PermissionMode.ACCEPT_EDITS)
+                .maxTurns(12)
+                .allowedTools("Read", "Grep", "Edit")
+                .disallowedTools("Bash")
+                .build();
+    }
+
+    @Benchmark
+    public List<String> build() {
+        return new ClaudeCommandBuilder(binary).prompt(prompt).options(options).build();
+    }
+
+    @Benchmark
+    public ClaudeCommandBuilder.CommandWithStdin buildWithStdin() {
+        return new ClaudeCommandBuilder(binary).prompt(prompt).options(options).buildWithStdin();
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.benchmarks.report;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import org.jspecify.annotations.Nullable;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Compares two JMH JSON result files and flags regressions.
+ *
+ * <p>A benchmark regresses when its primary score moves in the wrong direction by more than the threshold <em>and</em>
+ * by more than the combined score error of both runs, or when its normalized allocation rate
+ * ({@code gc.alloc.rate.norm}, bytes per operation) grows by more than the threshold. Throughput modes treat lower
+ * scores as worse; all time-based modes treat higher scores as worse.
+ */
+public final class BaselineComparison {
+
+    /** Secondary metric reported by the GC profiler: bytes allocated per benchmark operation. */
+    public static final String ALLOC_NORM_METRIC = "gc.alloc.rate.norm";
+
+    /** Allocation growth below this many bytes per operation is treated as noise. */
+    private static final double ALLOC_NOISE_BYTES = 16.0;
+
+    private static final JsonMapper JSON_MAPPER = JsonMapper.builder().build();
+
+    private BaselineComparison() {}
+
+    /**
+     * Compares a current JMH result file against a baseline.
+     *
+     * @param baseline JMH JSON result used as reference
+     * @param current JMH JSON result of the run under test
+     * @param thresholdPercent tolerated relative change before a difference counts as a regression
+     * @return the comparison report
+     * @throws IOException if either file cannot be read
+     */
+    public static Report compare(Path baseline, Path current, double thresholdPercent) throws IOException {
+        var baselineResults = read(baseline);
+        var currentResults = read(current);
+        var rows = new ArrayList<Row>();
+        for (var entry : currentResults.entrySet()) {
+            rows.add(compare(entry.getKey(), baselineResults.get(entry.getKey()), entry.getValue(), thresholdPercent));
+        }
+        return new Report(rows, thresholdPercent);
+    }
+
+    private static Row compare(String key, @Nullable Result baseline, Result current, double thresholdPercent) {
+        if (baseline == null) {
+            return new Row(key, current.unit(), null, current.score(), null, current.allocNorm(), false, false);
+        }
+        var delta = current.score() - baseline.score();
+        var worse = current.higherIsBetter() ? -delta : delta;
+        var noise = Math.hypot(sanitize(baseline.error()), sanitize(current.error()));
+        var scoreRegressed = worse > noise && worse > Math.abs(baseline.score()) * thresholdPercent / 100.0;
+
+        var allocRegressed = false;
+        if (baseline.allocNorm() != null && current.allocNorm() != null) {
+            var growth = current.allocNorm() - baseline.allocNorm();
+            allocRegressed = growth > ALLOC_NOISE_BYTES && growth > baseline.allocNorm() * thresholdPercent / 100.0;
+        }
+        return new Row(
+                key,
+                current.unit(),
+                baseline.score(),
+                current.score(),
+                baseline.allocNorm(),
+                current.allocNorm(),
+                scoreRegressed,
+                allocRegressed);
+    }
+
+    private static double sanitize(double error) {
+        return Double.isFinite(error) ? error : 0.0;
+    }
+
+    private static Map<String, Result> read(Path file) throws IOException {
+        var results = new LinkedHashMap<String, Result>();
+        JsonNode root = JSON_MAPPER.readTree(Files.readString(file));
+        for (var node : root) {
+            var primary = node.get("primaryMetric");
+            Double allocNorm = null;
+            var secondary = node.get("secondaryMetrics");
+            if (secondary != null && secondary.has(ALLOC_NORM_METRIC)) {
+                allocNorm = number(secondary.get(ALLOC_NORM_METRIC).get("score"));
+            }
+            var mode = node.get("mode").asText();
+            results.put(
+                    key(node),
+                    new Result(
+                            number(primary.get("score")),
+                            number(primary.get("scoreError")),
+                            primary.get("scoreUnit").asText(),
+                            mode.equals("thrpt"),
+                            allocNorm));
+        }
+        return results;
+    }
+
+    /** JMH writes non-finite values such as a single-iteration error as the string {@code "NaN"}. */
+    private static double number(JsonNode node) {
+        return node.isNumber() ? node.asDouble() : Double.NaN;
+    }
+
+    private static String key(JsonNode node) {
+        var benchmark = node.get("benchmark").asText();
+        var shortName = benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1);
+        var params = node.get("params");
+        if (params == null || params.isEmpty()) {
+            return shortName;
+        }
+        var sorted = new TreeMap<String, String>();
+        for (var name : params.propertyNames()) {
+            sorted.put(name, params.get(name).asText());
+        }
+        return shortName + sorted;
+    }
+
+    private record Result(
+            double score,
+            double error,
+            String unit,
+            boolean higherIsBetter,
+            @Nullable Double allocNorm) {}
+
+    /**
+     * One benchmark (including its parameters) in the comparison.
+     *
+     * @param benchmark benchmark class and method, followed by its parameters
+     * @param unit unit of the primary score
+     * @param baselineScore primary score in the baseline, or {@code null} if the benchmark is new
+     * @param currentScore primary score in the current run
+     * @param baselineAllocNorm bytes per operation in the baseline, if the GC profiler was enabled
+     * @param currentAllocNorm bytes per operation in the current run, if the GC profiler was enabled
+     * @param scoreRegressed whether the primary score regressed
+     * @param allocRegressed whether allocation per operation regressed
+     */
+    public record Row(
+            String benchmark,
+            String unit,
+            @Nullable Double baselineScore,
+            double currentScore,
+            @Nullable Double baselineAllocNorm,
+            @Nullable Double currentAllocNorm,
+            boolean scoreRegressed,
+            boolean allocRegressed) {
+
+        public boolean regressed() {
+            return scoreRegressed || allocRegressed;
+        }
+    }
+
+    /**
+     * Result of a baseline comparison.
+     *
+     * @param rows one row per benchmark in the current run
+     * @param thresholdPercent threshold used for the comparison
+     */
+    public record Report(List<Row> rows, double thresholdPercent) {
+
+        public Report {
+            rows = List.copyOf(rows);
+        }
+
+        public List<Row> regressions() {
+            return rows.stream().filter(Row::regressed).toList();
+        }
+
+        public boolean hasRegressions() {
+            return rows.stream().anyMatch(Row::regressed);
+        }
+
+        /** Renders the report as a Markdown table. */
+        public String toMarkdown() {
+            var sb = new StringBuilder();
+            sb.append(
+                    "| Benchmark | Unit | Baseline | Current | Δ score | Baseline B/op | Current B/op | Δ B/op | |\n");
+            sb.append("|---|---|---:|---:|---:|---:|---:|---:|---|\n");
+            for (var row : rows) {
+                sb.append("| ")
+                        .append(row.benchmark())
+                        .append(" | ")
+                        .append(row.unit())
+                        .append(" | ")
+                        .append(format(row.baselineScore()))
+                        .append(" | ")
+                        .append(format(row.currentScore()))
+                        .append(" | ")
+                        .append(percent(row.baselineScore(), row.currentScore()))
+                        .append(" | ")
+                        .append(format(row.baselineAllocNorm()))
+                        .append(" | ")
+                        .append(format(row.currentAllocNorm()))
+                        .append(" | ")
+                        .append(percent(row.baselineAllocNorm(), row.currentAllocNorm()))
+                        .append(" | ")
+                        .append(row.regressed() ? "REGRESSION" : "")
+                        .append(" |\n");
+            }
+            sb.append('\n')
+                    .append(regressions().size())
+                    .append(" regression(s) at a ")
+                    .append(String.format(Locale.ROOT, "%.1f", thresholdPercent))
+                    .append("% threshold.\n");
+            return sb.toString();
+        }
+
+        private static String format(@Nullable Double value) {
+            return value == null ? "-" : String.format(Locale.ROOT, "%.3f", value);
+        }
+
+        private static String percent(@Nullable Double baseline, @Nullable Double current) {
+            if (baseline == null || current == null || baseline == 0.0) {
+                return "-";
+            }
+            return String.format(Locale.ROOT, "%+.1f%%", (current - baseline) / baseline * 100.0);
+        }
+    }
+}
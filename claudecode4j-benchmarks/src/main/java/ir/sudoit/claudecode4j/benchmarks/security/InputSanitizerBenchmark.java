@@ -0,0 +1,102 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.benchmarks.security;
+
+import ir.sudoit.claudecode4j.api.model.request.Prompt;
+import ir.sudoit.claudecode4j.api.spi.InputSanitizer;
+import ir.sudoit.claudecode4j.core.security.DefaultInputSanitizer;
+import ir.sudoit.claudecode4j.core.security.ScanningInputSanitizer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link DefaultInputSanitizer} against {@link ScanningInputSanitizer} on prompts right below the 256 KB
+ * limit.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Benchmark)
+public class InputSanitizerBenchmark {
+
+    static final int PROMPT_CHARS = 256 * 1024 - 1;
+
+    private static final String ASCII_ALPHABET =
+            "abcdefghijklmnopqrstuvwxyz ABCDEFGHIJKLMNOPQRSTUVWXYZ 0123456789 .,;:-_(){}[]<>=+*/\n\t";
+    private static final String UNICODE_ALPHABET = ASCII_ALPHABET + "éüßçñ中文日本語한국어ـعربی";
+
+    @Param({"ascii", "unicode"})
+    public String charset;
+
+    @Param({"default", "scanning"})
+    public String implementation;
+
+    private InputSanitizer sanitizer;
+    private Prompt prompt;
+    private String argument;
+
+    @Setup
+    public void setUp() {
+        sanitizer = implementation.equals("default") ? new DefaultInputSanitizer() : new ScanningInputSanitizer();
+        var text = randomText(charset.equals("ascii") ? ASCII_ALPHABET : UNICODE_ALPHABET, PROMPT_CHARS);
+        prompt = Prompt.builder()
+                .text(text)
+                .systemPrompt(randomText(ASCII_ALPHABET, 4096))
+                .agentName("code-reviewer")
+                .build();
+        argument = text;
+    }
+
+    @Benchmark
+    public Prompt sanitize() {
+        return sanitizer.sanitize(prompt);
+    }
+
+    @Benchmark
+    public boolean isValidArgument() {
+        return sanitizer.isValidArgument(argument);
+    }
+
+    static String randomText(String alphabet, int length) {
+        var random = new Random(42);
+        var sb = new StringBuilder(length);
+        for (var i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+}
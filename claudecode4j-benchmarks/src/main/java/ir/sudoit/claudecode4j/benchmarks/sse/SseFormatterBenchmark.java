@@ -0,0 +1,92 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.benchmarks.sse;
+
+import ir.sudoit.claudecode4j.api.model.response.StreamEvent;
+import ir.sudoit.claudecode4j.api.model.response.StreamResponse;
+import ir.sudoit.claudecode4j.benchmarks.support.SerializingSseEmitter;
+import ir.sudoit.claudecode4j.benchmarks.support.Transcripts;
+import ir.sudoit.claudecode4j.core.parser.JacksonStreamParser;
+import ir.sudoit.claudecode4j.rest.anthropic.sse.AnthropicSseFormatter;
+import ir.sudoit.claudecode4j.rest.openai.sse.OpenAiSseFormatter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures a full streamed response, from the first text delta to the completion marker, through the Anthropic and
+ * OpenAI SSE formatters including JSON serialization of the event payloads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Benchmark)
+public class SseFormatterBenchmark {
+
+    private List<StreamEvent> events;
+
+    @Setup
+    public void setUp() {
+        var response = (StreamResponse) new JacksonStreamParser().parse(Transcripts.load(Transcripts.TOOL_SESSION), 0);
+        events = new ArrayList<>();
+        for (var event : response.events()) {
+            if (event.type() == StreamEvent.EventType.ASSISTANT) {
+                events.add(event);
+            }
+        }
+        events.add(StreamEvent.of(StreamEvent.EventType.COMPLETE, "", events.size() + 1L));
+    }
+
+    @Benchmark
+    public void anthropic(Blackhole blackhole) throws IOException {
+        var emitter = new SerializingSseEmitter(blackhole::consume);
+        var formatter = new AnthropicSseFormatter("msg_bench", "claude-sonnet-4-5");
+        for (var event : events) {
+            formatter.sendEvent(emitter, event);
+        }
+    }
+
+    @Benchmark
+    public void openAi(Blackhole blackhole) throws IOException {
+        var emitter = new SerializingSseEmitter(blackhole::consume);
+        var formatter = new OpenAiSseFormatter("chatcmpl-bench", "claude-sonnet-4-5");
+        for (var event : events) {
+            formatter.sendEvent(emitter, event);
+        }
+    }
+}
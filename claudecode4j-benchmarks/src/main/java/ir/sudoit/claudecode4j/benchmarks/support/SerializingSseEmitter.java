@@ -0,0 +1,67 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.benchmarks.support;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * {@link SseEmitter} that serializes every event the way the MVC message converters would, then hands the bytes to a
+ * sink instead of a servlet response.
+ *
+ * <p>An emitter that is not attached to a request buffers early sends indefinitely, which would turn a formatter
+ * benchmark into a buffer-growth benchmark. This emitter keeps the formatter and DTO code paths identical and makes the
+ * serialization cost part of the measurement.
+ */
+public final class SerializingSseEmitter extends SseEmitter {
+
+    private static final JsonMapper JSON_MAPPER = JsonMapper.builder().build();
+
+    private final Consumer<byte[]> sink;
+
+    public SerializingSseEmitter(Consumer<byte[]> sink) {
+        this.sink = sink;
+    }
+
+    // SseEmitter.send(SseEventBuilder) calls super.send(Set) non-virtually, so it has to be redirected as well
+    @Override
+    public void send(SseEventBuilder builder) {
+        send(builder.build());
+    }
+
+    @Override
+    public void send(Set<DataWithMediaType> items) {
+        for (var item : items) {
+            var data = item.getData();
+            if (data instanceof String text) {
+                sink.accept(text.getBytes(StandardCharsets.UTF_8));
+            } else {
+                sink.accept(JSON_MAPPER.writeValueAsBytes(data));
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.benchmarks.support;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Access to the recorded stream-json transcripts bundled with the benchmarks.
+ *
+ * <p>Transcripts live under {@code /transcripts} on the classpath and mirror the line-delimited JSON emitted by
+ * {@code claude --output-format stream-json}.
+ */
+public final class Transcripts {
+
+    /** Short single-turn answer: an init event, ~40 text deltas and a result. */
+    public static final String SHORT_ANSWER = "short-answer";
+
+    /** Multi-turn agentic session with nested tool inputs and large, escape-heavy tool results. */
+    public static final String TOOL_SESSION = "tool-session";
+
+    private Transcripts() {}
+
+    /**
+     * Loads a recorded transcript.
+     *
+     * @param name the transcript name, without the {@code .jsonl} extension
+     * @return the raw CLI output
+     */
+    public static String load(String name) {
+        var resource = "/transcripts/" + name + ".jsonl";
+        try (var in = Transcripts.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Unknown transcript: " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Repeats a transcript until the output reaches at least {@code minChars} characters.
+     *
+     * @param name the transcript name
+     * @param minChars the minimum size of the returned output
+     * @return the concatenated output
+     */
+    public static String loadRepeated(String name, int minChars) {
+        var transcript = load(name);
+        var sb = new StringBuilder(minChars + transcript.length());
+        while (sb.length() < minChars) {
+            sb.append(transcript);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.benchmarks.template;
+
+import ir.sudoit.claudecode4j.api.model.request.Prompt;
+import ir.sudoit.claudecode4j.api.template.PromptTemplate;
+import ir.sudoit.claudecode4j.api.template.SimplePromptTemplate;
+import ir.sudoit.claudecode4j.api.template.SimpleTemplateEngine;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measures {@link SimplePromptTemplate} rendering and compilation through {@link SimpleTemplateEngine}. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Benchmark)
+public class PromptTemplateBenchmark {
+
+    private static final String PARAGRAPH = "Review the following change carefully and report any correctness, "
+            + "concurrency, or performance problems you can find. Keep the answer focused on actionable items.\n";
+
+    @Param({"4", "16"})
+    public int variableCount;
+
+    @Param({"1", "16"})
+    public int paragraphsPerVariable;
+
+    private String templateText;
+    private PromptTemplate template;
+    private SimpleTemplateEngine engine;
+    private Map<String, Object> variables;
+
+    @Setup
+    public void setUp() {
+        var sb = new StringBuilder();
+        variables = new HashMap<>();
+        for (var i = 0; i < variableCount; i++) {
+            sb.append(PARAGRAPH.repeat(paragraphsPerVariable));
+            sb.append("Section ").append(i).append(": {{ var").append(i).append(" }}\n");
+            variables.put("var" + i, "value-" + i + " with some padding text to make it realistic");
+        }
+        templateText = sb.toString();
+        template = new SimplePromptTemplate("review", templateText, "You are reviewing {{ var0 }}.");
+        engine = new SimpleTemplateEngine();
+    }
+
+    @Benchmark
+    public Prompt render() {
+        return template.render(variables);
+    }
+
+    @Benchmark
+    public PromptTemplate compile() {
+        return engine.compile("review", templateText);
+    }
+}
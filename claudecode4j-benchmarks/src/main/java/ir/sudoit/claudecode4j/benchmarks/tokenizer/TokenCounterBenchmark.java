@@ -0,0 +1,93 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.benchmarks.tokenizer;
+
+import ir.sudoit.claudecode4j.benchmarks.support.Transcripts;
+import ir.sudoit.claudecode4j.context.tokenizer.CachingTokenCounter;
+import ir.sudoit.claudecode4j.context.tokenizer.JTokkitTokenCounter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measures {@link JTokkitTokenCounter} on strings and files, and {@link CachingTokenCounter} cache hits. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+@State(Scope.Benchmark)
+public class TokenCounterBenchmark {
+
+    @Param({"4096", "262144"})
+    public int sizeChars;
+
+    private String text;
+    private Path file;
+    private JTokkitTokenCounter counter;
+    private CachingTokenCounter cachingCounter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        text = Transcripts.loadRepeated(Transcripts.TOOL_SESSION, sizeChars).substring(0, sizeChars);
+        file = Files.createTempFile("claudecode4j-bench", ".txt");
+        Files.writeString(file, text);
+        counter = new JTokkitTokenCounter();
+        cachingCounter = new CachingTokenCounter(counter);
+        cachingCounter.count(file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public int countString() {
+        return counter.count(text);
+    }
+
+    @Benchmark
+    public int countFile() throws IOException {
+        return counter.count(file);
+    }
+
+    @Benchmark
+    public int cachedCountFile() throws IOException {
+        return cachingCounter.count(file);
+    }
+}
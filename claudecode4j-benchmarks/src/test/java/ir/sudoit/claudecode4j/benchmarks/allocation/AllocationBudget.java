@@ -0,0 +1,113 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.benchmarks.allocation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Upper bounds for one workload, read from {@code allocation-budgets.properties}.
+ *
+ * <p>Keys are {@code <workload>.bytesPerOp}, {@code <workload>.largeObjectsPerOp} and {@code <workload>.microsPerOp}.
+ * Byte and large-object budgets are tight because allocation is deterministic. Only objects allocated outside a TLAB
+ * are counted; objects allocated inside one are not counted at all. The time budget is only reported, never enforced,
+ * since wall-clock time on a shared build machine is too noisy to fail a build on; JMH is the tool for timing.
+ *
+ * @param workload the workload name
+ * @param bytesPerOp maximum heap bytes allocated per operation
+ * @param largeObjectsPerOp maximum objects allocated outside a TLAB per operation
+ * @param microsPerOp average wall-clock time per operation above which a slowdown is reported
+ */
+record AllocationBudget(String workload, long bytesPerOp, double largeObjectsPerOp, double microsPerOp) {
+
+    static final String RESOURCE = "/allocation-budgets.properties";
+
+    private static final Properties BUDGETS = load();
+
+    static AllocationBudget of(String workload) {
+        return new AllocationBudget(
+                workload,
+                Long.parseLong(required(workload + ".bytesPerOp")),
+                Double.parseDouble(required(workload + ".largeObjectsPerOp")),
+                Double.parseDouble(required(workload + ".microsPerOp")));
+    }
+
+    /**
+     * Returns the allocation budgets this measurement exceeds, one line each, or an empty string.
+     *
+     * @param measurement the measurement to check
+     * @return a description of every violation
+     */
+    String violations(AllocationProbe.Measurement measurement) {
+        var sb = new StringBuilder();
+        if (measurement.bytesPerOp() > bytesPerOp) {
+            sb.append(
+                    String.format(Locale.ROOT, "bytesPerOp %,d > budget %,d%n", measurement.bytesPerOp(), bytesPerOp));
+        }
+        if (measurement.largeObjectsPerOp() > largeObjectsPerOp) {
+            sb.append(String.format(
+                    Locale.ROOT,
+                    "largeObjectsPerOp %.2f > budget %.2f%n",
+                    measurement.largeObjectsPerOp(),
+                    largeObjectsPerOp));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns a description of the slowdown if this measurement is slower than the time budget, or an empty string.
+     *
+     * @param measurement the measurement to check
+     * @return a description of the slowdown
+     */
+    String slowdown(AllocationProbe.Measurement measurement) {
+        if (measurement.microsPerOp() <= microsPerOp) {
+            return "";
+        }
+        return String.format(Locale.ROOT, "microsPerOp %.1f > budget %.1f", measurement.microsPerOp(), microsPerOp);
+    }
+
+    private static String required(String key) {
+        var value = BUDGETS.getProperty(key);
+        if (value == null) {
+            throw new IllegalStateException("Missing allocation budget " + key + " in " + RESOURCE);
+        }
+        return value.trim().replace("_", "");
+    }
+
+    private static Properties load() {
+        var properties = new Properties();
+        try (var in = AllocationBudget.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing " + RESOURCE);
+            }
+            properties.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return properties;
+    }
+}
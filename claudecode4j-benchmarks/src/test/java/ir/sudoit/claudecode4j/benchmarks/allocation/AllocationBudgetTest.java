@@ -0,0 +1,185 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.benchmarks.allocation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ir.sudoit.claudecode4j.api.model.request.Prompt;
+import ir.sudoit.claudecode4j.api.model.request.PromptOptions;
+import ir.sudoit.claudecode4j.api.model.response.StreamEvent;
+import ir.sudoit.claudecode4j.api.model.response.StreamResponse;
+import ir.sudoit.claudecode4j.api.template.PromptTemplate;
+import ir.sudoit.claudecode4j.api.template.SimplePromptTemplate;
+import ir.sudoit.claudecode4j.benchmarks.support.SerializingSseEmitter;
+import ir.sudoit.claudecode4j.benchmarks.support.Transcripts;
+import ir.sudoit.claudecode4j.core.parser.JacksonStreamParser;
+import ir.sudoit.claudecode4j.core.security.ScanningInputSanitizer;
+import ir.sudoit.claudecode4j.rest.anthropic.sse.AnthropicSseFormatter;
+import ir.sudoit.claudecode4j.rest.common.streaming.AbstractSseStreamer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Allocation and throughput budgets for the library's hot paths.
+ *
+ * <p>Each workload runs under a JFR recording and must stay within the allocation budgets checked in to
+ * {@code src/test/resources/allocation-budgets.properties}. When a change legitimately moves a number, the failure
+ * message prints the new measurement and the classes allocating most; update the budget in the same change and explain
+ * why in the commit. Time budgets are only logged when exceeded.
+ */
+@DisplayName("Allocation budgets")
+class AllocationBudgetTest {
+
+    private static final System.Logger log = System.getLogger(AllocationBudgetTest.class.getName());
+
+    private static final int TRANSCRIPT_CHARS = 10 * 1024 * 1024;
+    private static final int STREAM_EVENTS = 10_000;
+    private static final int PROMPT_CHARS = 256 * 1024 - 1;
+
+    @Test
+    @DisplayName("parsing a 10 MB stream-json transcript")
+    void parseTranscript() throws Exception {
+        var parser = new JacksonStreamParser();
+        var output = Transcripts.loadRepeated(Transcripts.TOOL_SESSION, TRANSCRIPT_CHARS);
+
+        var measurement = AllocationProbe.measure(3, 5, () -> parser.parse(output, 0));
+
+        assertWithinBudget("transcript-parse", measurement);
+    }
+
+    @Test
+    @DisplayName("streaming 10k events through AbstractSseStreamer")
+    void streamSseEvents() throws Exception {
+        var events = new ArrayList<StreamEvent>(STREAM_EVENTS + 1);
+        var recorded = ((StreamResponse) new JacksonStreamParser().parse(Transcripts.load(Transcripts.TOOL_SESSION), 0))
+                .events().stream()
+                        .filter(event -> event.type() == StreamEvent.EventType.ASSISTANT)
+                        .toList();
+        for (var i = 0; i < STREAM_EVENTS; i++) {
+            var source = recorded.get(i % recorded.size());
+            events.add(StreamEvent.of(StreamEvent.EventType.ASSISTANT, source.content(), i + 1L));
+        }
+        events.add(StreamEvent.of(StreamEvent.EventType.COMPLETE, "", STREAM_EVENTS + 1L));
+
+        var client = new ReplayingClaudeClient(events);
+        var streamer = new AnthropicStreamer(client);
+        var bytesWritten = new LongAdder();
+        try {
+            var measurement = AllocationProbe.measure(3, 5, () -> {
+                var completion = client.expectStream();
+                streamer.stream(bytes -> bytesWritten.add(bytes.length));
+                assertThat(completion.await(30, TimeUnit.SECONDS)).isTrue();
+            });
+
+            assertThat(bytesWritten.sum()).isPositive();
+            assertWithinBudget("sse-stream", measurement);
+        } finally {
+            streamer.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("rendering a prompt template with 16 variables")
+    void renderTemplate() throws Exception {
+        var paragraph = "Review the following change carefully and report any correctness, "
+                + "concurrency, or performance problems you can find.\n";
+        var text = new StringBuilder();
+        Map<String, Object> variables = new HashMap<>();
+        for (var i = 0; i < 16; i++) {
+            text.append(paragraph.repeat(16))
+                    .append("Section ")
+                    .append(i)
+                    .append(": {{ var")
+                    .append(i)
+                    .append(" }}\n");
+            variables.put("var" + i, "value-" + i + " with some padding text to make it realistic");
+        }
+        PromptTemplate template = new SimplePromptTemplate("review", text.toString(), "You are reviewing {{ var0 }}.");
+
+        var measurement = AllocationProbe.measure(200, 200, () -> template.render(variables));
+
+        assertWithinBudget("template-render", measurement);
+    }
+
+    @Test
+    @DisplayName("sanitizing a prompt right below the size limit")
+    void sanitizePrompt() throws Exception {
+        var sanitizer = new ScanningInputSanitizer();
+        var random = new Random(42);
+        var alphabet = "abcdefghijklmnopqrstuvwxyz ABCDEFGHIJKLMNOPQRSTUVWXYZ 0123456789 .,;:-_(){}[]<>=+*/\n\t";
+        var text = new StringBuilder(PROMPT_CHARS);
+        for (var i = 0; i < PROMPT_CHARS; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        var prompt = Prompt.builder()
+                .text(text.toString())
+                .systemPrompt("You are a careful reviewer.")
+                .agentName("code-reviewer")
+                .build();
+
+        var measurement = AllocationProbe.measure(1_000, 1_000, () -> sanitizer.sanitize(prompt));
+
+        assertWithinBudget("prompt-sanitize", measurement);
+    }
+
+    private static void assertWithinBudget(String workload, AllocationProbe.Measurement measurement) {
+        var budget = AllocationBudget.of(workload);
+        log.log(System.Logger.Level.DEBUG, () -> workload + ": " + measurement.describe());
+        var slowdown = budget.slowdown(measurement);
+        if (!slowdown.isEmpty()) {
+            log.log(System.Logger.Level.WARNING, () -> workload + " is slower than expected: " + slowdown);
+        }
+        assertThat(budget.violations(measurement))
+                .as("%s exceeded its budget: %s", workload, measurement.describe())
+                .isEmpty();
+    }
+
+    /** Streams through the Anthropic formatter into a serializing sink instead of a servlet response. */
+    private static final class AnthropicStreamer extends AbstractSseStreamer {
+
+        AnthropicStreamer(ReplayingClaudeClient client) {
+            super(client);
+        }
+
+        void stream(Consumer<byte[]> sink) {
+            var target = new SerializingSseEmitter(sink);
+            var formatter = new AnthropicSseFormatter("msg_alloc", "claude-sonnet-4-5");
+            createStreamer(
+                    Prompt.of("stream"),
+                    PromptOptions.defaults(),
+                    (emitter, event) -> formatter.sendEvent(target, event));
+        }
+
+        void shutdown() {
+            heartbeatScheduler.shutdownNow();
+        }
+    }
+}
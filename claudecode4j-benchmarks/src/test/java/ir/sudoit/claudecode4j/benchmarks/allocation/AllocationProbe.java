@@ -0,0 +1,182 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.benchmarks.allocation;
+
+import com.sun.management.ThreadMXBean;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Runs a workload under a JFR recording and reports what it allocated per operation.
+ *
+ * <p>Allocated bytes come from the JVM's per-thread allocation counters, which are exact and include virtual threads
+ * through their carriers. JFR supplies what the counters cannot: the number of objects too large for a TLAB (typically
+ * buffers being resized or whole documents being copied), the number of collections triggered, and a sampled breakdown
+ * of allocation by class that makes a failed budget actionable.
+ */
+final class AllocationProbe {
+
+    private static final String OUTSIDE_TLAB = "jdk.ObjectAllocationOutsideTLAB";
+    private static final String ALLOCATION_SAMPLE = "jdk.ObjectAllocationSample";
+    private static final String GARBAGE_COLLECTION = "jdk.GarbageCollection";
+    private static final int TOP_ALLOCATORS = 8;
+
+    private static final ThreadMXBean THREADS = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private AllocationProbe() {}
+
+    /** A single operation of a workload. */
+    @FunctionalInterface
+    interface Operation {
+        void run() throws Exception;
+    }
+
+    /**
+     * Warms the workload up, then measures {@code operations} invocations under a JFR recording.
+     *
+     * @param warmup unrecorded invocations used to reach steady state (JIT, caches, lazy initialization)
+     * @param operations recorded invocations
+     * @param operation the workload
+     * @return the measurement
+     * @throws Exception if the workload fails
+     */
+    static Measurement measure(int warmup, int operations, Operation operation) throws Exception {
+        for (var i = 0; i < warmup; i++) {
+            operation.run();
+        }
+
+        var file = Files.createTempFile("allocation-", ".jfr");
+        try (var recording = new Recording()) {
+            recording.enable(OUTSIDE_TLAB).withoutStackTrace();
+            recording.enable(ALLOCATION_SAMPLE).withoutStackTrace().with("throttle", "1000/s");
+            recording.enable(GARBAGE_COLLECTION);
+            recording.start();
+
+            var bytesBefore = THREADS.getTotalThreadAllocatedBytes();
+            var start = System.nanoTime();
+            for (var i = 0; i < operations; i++) {
+                operation.run();
+            }
+            var elapsed = System.nanoTime() - start;
+            var bytesAfter = THREADS.getTotalThreadAllocatedBytes();
+
+            recording.stop();
+            recording.dump(file);
+            return summarize(file, operations, bytesAfter - bytesBefore, Duration.ofNanos(elapsed));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static Measurement summarize(Path file, int operations, long allocatedBytes, Duration elapsed)
+            throws IOException {
+        long largeObjects = 0;
+        long collections = 0;
+        var sampledBytes = new HashMap<String, Long>();
+        for (var event : RecordingFile.readAllEvents(file)) {
+            if (isRecorderThread(event)) {
+                continue;
+            }
+            switch (event.getEventType().getName()) {
+                case OUTSIDE_TLAB -> largeObjects++;
+                case GARBAGE_COLLECTION -> collections++;
+                case ALLOCATION_SAMPLE ->
+                    sampledBytes.merge(event.getClass("objectClass").getName(), event.getLong("weight"), Long::sum);
+                default -> {}
+            }
+        }
+
+        var topAllocators = new LinkedHashMap<String, Long>();
+        sampledBytes.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(TOP_ALLOCATORS)
+                .forEach(entry -> topAllocators.put(entry.getKey(), entry.getValue() / operations));
+        return new Measurement(operations, allocatedBytes, largeObjects, collections, elapsed, topAllocators);
+    }
+
+    private static boolean isRecorderThread(RecordedEvent event) {
+        var thread = event.getThread();
+        return thread != null
+                && thread.getJavaName() != null
+                && thread.getJavaName().startsWith("JFR ");
+    }
+
+    /**
+     * What a workload allocated.
+     *
+     * @param operations number of recorded operations
+     * @param allocatedBytes heap bytes allocated by all threads during the recording
+     * @param largeObjects objects allocated outside a TLAB
+     * @param collections garbage collections during the recording
+     * @param elapsed wall-clock time of the recorded operations
+     * @param topAllocators sampled bytes per operation of the classes allocating most, largest first
+     */
+    record Measurement(
+            int operations,
+            long allocatedBytes,
+            long largeObjects,
+            long collections,
+            Duration elapsed,
+            Map<String, Long> topAllocators) {
+
+        long bytesPerOp() {
+            return allocatedBytes / operations;
+        }
+
+        double largeObjectsPerOp() {
+            return (double) largeObjects / operations;
+        }
+
+        double microsPerOp() {
+            return elapsed.toNanos() / 1000.0 / operations;
+        }
+
+        String describe() {
+            var sb = new StringBuilder();
+            sb.append(String.format(
+                    Locale.ROOT,
+                    "%,d bytes/op, %.2f large objects/op, %.1f us/op, %d GCs over %d ops",
+                    bytesPerOp(),
+                    largeObjectsPerOp(),
+                    microsPerOp(),
+                    collections,
+                    operations));
+            sb.append("\n  sampled allocation per op:");
+            topAllocators.forEach(
+                    (type, bytes) -> sb.append(String.format(Locale.ROOT, "%n    %,14d  %s", bytes, type)));
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.benchmarks.allocation;
+
+import ir.sudoit.claudecode4j.api.client.ClaudeClient;
+import ir.sudoit.claudecode4j.api.client.ClaudeSession;
+import ir.sudoit.claudecode4j.api.model.request.Prompt;
+import ir.sudoit.claudecode4j.api.model.request.PromptOptions;
+import ir.sudoit.claudecode4j.api.model.response.ClaudeResponse;
+import ir.sudoit.claudecode4j.api.model.response.StreamEvent;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+
+/**
+ * {@link ClaudeClient} whose streams replay a fixed list of events synchronously on the subscribing thread.
+ *
+ * <p>Keeps the publisher out of the measurement so that only the streamer, the formatter and serialization allocate.
+ * Each replay counts down the latch handed to {@link #expectStream()} once {@code onComplete} has returned.
+ */
+final class ReplayingClaudeClient implements ClaudeClient {
+
+    private final List<StreamEvent> events;
+    private volatile CountDownLatch completion = new CountDownLatch(0);
+
+    ReplayingClaudeClient(List<StreamEvent> events) {
+        this.events = List.copyOf(events);
+    }
+
+    /** Returns a latch released when the next stream has been fully delivered. */
+    CountDownLatch expectStream() {
+        var latch = new CountDownLatch(1);
+        completion = latch;
+        return latch;
+    }
+
+    @Override
+    public Flow.Publisher<StreamEvent> stream(Prompt prompt, PromptOptions options) {
+        var latch = completion;
+        return subscriber -> {
+            var cancelled = new boolean[1];
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {}
+
+                @Override
+                public void cancel() {
+                    cancelled[0] = true;
+                }
+            });
+            for (var event : events) {
+                if (cancelled[0]) {
+                    break;
+                }
+                subscriber.onNext(event);
+            }
+            subscriber.onComplete();
+            latch.countDown();
+        };
+    }
+
+    @Override
+    public Flow.Publisher<StreamEvent> stream(Prompt prompt) {
+        return stream(prompt, PromptOptions.defaults());
+    }
+
+    @Override
+    public ClaudeResponse execute(Prompt prompt) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ClaudeResponse execute(Prompt prompt, PromptOptions options) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CompletableFuture<ClaudeResponse> executeAsync(Prompt prompt) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CompletableFuture<ClaudeResponse> executeAsync(Prompt prompt, PromptOptions options) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ClaudeSession createSession() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public String getCliVersion() {
+        return "replay";
+    }
+
+    @Override
+    public void close() {}
+}
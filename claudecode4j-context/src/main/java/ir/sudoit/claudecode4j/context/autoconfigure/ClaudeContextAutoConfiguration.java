@@ -29,6 +29,7 @@ import ir.sudoit.claudecode4j.context.spi.ContextOptimizer;
 import ir.sudoit.claudecode4j.context.spi.TokenCounter;
 import ir.sudoit.claudecode4j.context.tokenizer.CachingTokenCounter;
 import ir.sudoit.claudecode4j.context.tokenizer.JTokkitTokenCounter;
+import ir.sudoit.claudecode4j.context.tokenizer.TieredTokenCounter;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -46,11 +47,15 @@ public class ClaudeContextAutoConfiguration {
     @Bean
     @ConditionalOnMissingBean
     public TokenCounter tokenCounter(ClaudeContextProperties properties) {
-        TokenCounter baseCounter = new JTokkitTokenCounter();
+        TokenCounter counter = new JTokkitTokenCounter();
         if (properties.cacheTokenCounts()) {
-            return new CachingTokenCounter(baseCounter);
+            counter = new CachingTokenCounter(counter, properties.tokenCacheSize(), properties.tokenCacheFile());
         }
-        return baseCounter;
+        if (properties.estimateTokens()) {
+            // Outermost, so that conclusive estimates skip hashing as well as tokenizing
+            counter = new TieredTokenCounter(counter);
+        }
+        return counter;
     }
 
     @Bean
@@ -71,6 +76,8 @@ public class ClaudeContextAutoConfiguration {
                 .tokenCounter(tokenCounter)
                 .rankingStrategy(rankingStrategy)
                 .warnOnExclusion(properties.warnOnTruncation())
+                .truncation(properties.getTruncationStrategy())
+                .selection(properties.getSelectionStrategy())
                 .build();
     }
 }
@@ -23,6 +23,10 @@
  */
 package ir.sudoit.claudecode4j.context.autoconfigure;
 
+import ir.sudoit.claudecode4j.context.optimizer.SelectionStrategy;
+import ir.sudoit.claudecode4j.context.optimizer.TruncationStrategy;
+import java.nio.file.Path;
+import org.jspecify.annotations.Nullable;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.bind.DefaultValue;
 
@@ -33,7 +37,14 @@ import org.springframework.boot.context.properties.bind.DefaultValue;
  * @param model the default model for token limits
  * @param maxContextRatio the maximum ratio of context window to use (0.0 to 1.0)
  * @param rankingStrategy the strategy for ranking files (recency, size, preserve_order)
+ * @param selectionStrategy how the files that fit the budget are chosen (first_fit, knapsack)
+ * @param truncationStrategy which part of a file to keep when truncating one into the left-over budget (none, head,
+ *     tail, head_and_tail)
  * @param cacheTokenCounts whether to cache file token counts
+ * @param tokenCacheSize the maximum number of cached file token counts
+ * @param tokenCacheFile where cached token counts are persisted across restarts, or {@code null}
+ * @param estimateTokens whether to bound file token counts from file sizes, so that files far too large for the budget
+ *     are not read
  * @param warnOnTruncation whether to log warnings when files are excluded
  */
 @ConfigurationProperties(prefix = "claude.code.context")
@@ -42,7 +53,12 @@ public record ClaudeContextProperties(
         @DefaultValue("claude-sonnet-4") String model,
         @DefaultValue("0.8") double maxContextRatio,
         @DefaultValue("recency") String rankingStrategy,
+        @DefaultValue("first_fit") String selectionStrategy,
+        @DefaultValue("none") String truncationStrategy,
         @DefaultValue("true") boolean cacheTokenCounts,
+        @DefaultValue("10000") int tokenCacheSize,
+        @Nullable Path tokenCacheFile,
+        @DefaultValue("true") boolean estimateTokens,
         @DefaultValue("true") boolean warnOnTruncation) {
 
     /**
@@ -57,6 +73,32 @@ public record ClaudeContextProperties(
         };
     }
 
+    /**
+     * Returns the selection strategy, {@link SelectionStrategy#FIRST_FIT} if unrecognized.
+     *
+     * @return the selection strategy
+     */
+    public SelectionStrategy getSelectionStrategy() {
+        return switch (selectionStrategy.toLowerCase()) {
+            case "knapsack" -> SelectionStrategy.KNAPSACK;
+            default -> SelectionStrategy.FIRST_FIT;
+        };
+    }
+
+    /**
+     * Returns the truncation strategy, {@link TruncationStrategy#NONE} if unrecognized.
+     *
+     * @return the truncation strategy
+     */
+    public TruncationStrategy getTruncationStrategy() {
+        return switch (truncationStrategy.toLowerCase()) {
+            case "head" -> TruncationStrategy.HEAD;
+            case "tail" -> TruncationStrategy.TAIL;
+            case "head_and_tail" -> TruncationStrategy.HEAD_AND_TAIL;
+            default -> TruncationStrategy.NONE;
+        };
+    }
+
     /**
      * Returns the max context ratio, clamped to valid range.
      *
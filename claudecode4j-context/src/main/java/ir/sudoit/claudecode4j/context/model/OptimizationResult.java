@@ -25,17 +25,19 @@ package ir.sudoit.claudecode4j.context.model;
 
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Optional;
 import org.jspecify.annotations.Nullable;
 
 /**
  * Result of context optimization.
  *
- * @param includedFiles files that will be included in context
+ * @param includedFiles files that will be included in context, whole or truncated
  * @param excludedFiles files that were excluded due to budget constraints
- * @param truncatedFiles files that were truncated to fit the budget
+ * @param truncatedFiles the included files that were truncated to fit the budget
  * @param totalTokensUsed total tokens consumed by included files
  * @param filesProcessed number of files processed
  * @param warning optional warning message about optimization decisions
+ * @param truncations the content to send in place of each truncated file, when the optimizer provides it
  */
 public record OptimizationResult(
         List<Path> includedFiles,
@@ -43,12 +45,34 @@ public record OptimizationResult(
         List<Path> truncatedFiles,
         int totalTokensUsed,
         int filesProcessed,
-        @Nullable String warning) {
+        @Nullable String warning,
+        List<TruncatedFile> truncations) {
 
     public OptimizationResult {
         includedFiles = List.copyOf(includedFiles);
         excludedFiles = List.copyOf(excludedFiles);
         truncatedFiles = List.copyOf(truncatedFiles);
+        truncations = List.copyOf(truncations);
+    }
+
+    /**
+     * Creates a result without truncated content.
+     *
+     * @param includedFiles files that will be included in context, whole or truncated
+     * @param excludedFiles files that were excluded due to budget constraints
+     * @param truncatedFiles the included files that were truncated to fit the budget
+     * @param totalTokensUsed total tokens consumed by included files
+     * @param filesProcessed number of files processed
+     * @param warning optional warning message about optimization decisions
+     */
+    public OptimizationResult(
+            List<Path> includedFiles,
+            List<Path> excludedFiles,
+            List<Path> truncatedFiles,
+            int totalTokensUsed,
+            int filesProcessed,
+            @Nullable String warning) {
+        this(includedFiles, excludedFiles, truncatedFiles, totalTokensUsed, filesProcessed, warning, List.of());
     }
 
     /**
@@ -89,6 +113,19 @@ public record OptimizationResult(
         return !truncatedFiles.isEmpty();
     }
 
+    /**
+     * Returns the content to send in place of a truncated file.
+     *
+     * @param file the file
+     * @return the truncated content, or empty if the file was not truncated or its content was not provided
+     */
+    public Optional<String> truncatedContent(Path file) {
+        return truncations.stream()
+                .filter(truncation -> truncation.file().equals(file))
+                .map(TruncatedFile::content)
+                .findFirst();
+    }
+
     /**
      * Returns true if optimization made changes (exclusions or truncations).
      *
@@ -115,6 +152,7 @@ public record OptimizationResult(
         private int totalTokensUsed;
         private int filesProcessed;
         private @Nullable String warning;
+        private List<TruncatedFile> truncations = List.of();
 
         private Builder() {}
 
@@ -133,6 +171,13 @@ public record OptimizationResult(
             return this;
         }
 
+        /** Sets the truncated content, and the truncated files to the files it belongs to. */
+        public Builder truncations(List<TruncatedFile> truncations) {
+            this.truncations = truncations;
+            this.truncatedFiles = truncations.stream().map(TruncatedFile::file).toList();
+            return this;
+        }
+
         public Builder totalTokensUsed(int tokens) {
             this.totalTokensUsed = tokens;
             return this;
@@ -150,7 +195,13 @@ public record OptimizationResult(
 
         public OptimizationResult build() {
             return new OptimizationResult(
-                    includedFiles, excludedFiles, truncatedFiles, totalTokensUsed, filesProcessed, warning);
+                    includedFiles,
+                    excludedFiles,
+                    truncatedFiles,
+                    totalTokensUsed,
+                    filesProcessed,
+                    warning,
+                    truncations);
         }
     }
 }
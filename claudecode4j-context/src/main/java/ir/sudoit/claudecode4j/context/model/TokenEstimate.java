@@ -0,0 +1,68 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.context.model;
+
+/**
+ * Bounds on the token count of some content.
+ *
+ * @param low the smallest possible count
+ * @param high the largest possible count, {@link Integer#MAX_VALUE} if unbounded
+ */
+public record TokenEstimate(int low, int high) {
+
+    public TokenEstimate {
+        if (low < 0 || high < low) {
+            throw new IllegalArgumentException("Invalid token bounds [%d, %d]".formatted(low, high));
+        }
+    }
+
+    /**
+     * Creates an estimate known to be exact.
+     *
+     * @param tokens the token count
+     * @return the estimate
+     */
+    public static TokenEstimate exact(int tokens) {
+        return new TokenEstimate(tokens, tokens);
+    }
+
+    /**
+     * Creates an estimate for a count known only to exceed {@code limit}.
+     *
+     * @param limit the limit the count exceeds
+     * @return the estimate
+     */
+    public static TokenEstimate above(int limit) {
+        return new TokenEstimate(limit + 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns true if the bounds coincide.
+     *
+     * @return true if the count is known exactly
+     */
+    public boolean isExact() {
+        return low == high;
+    }
+}
@@ -26,6 +26,8 @@ package ir.sudoit.claudecode4j.context.optimizer;
 import ir.sudoit.claudecode4j.api.model.request.Prompt;
 import ir.sudoit.claudecode4j.context.model.ContextBudget;
 import ir.sudoit.claudecode4j.context.model.OptimizationResult;
+import ir.sudoit.claudecode4j.context.model.TokenEstimate;
+import ir.sudoit.claudecode4j.context.model.TruncatedFile;
 import ir.sudoit.claudecode4j.context.spi.ContextOptimizer;
 import ir.sudoit.claudecode4j.context.spi.TokenCounter;
 import ir.sudoit.claudecode4j.context.tokenizer.JTokkitTokenCounter;
@@ -33,20 +35,57 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import org.jspecify.annotations.Nullable;
 
 /**
  * Default implementation of ContextOptimizer.
  *
- * <p>This optimizer processes files in priority order (based on the ranking strategy) and includes as many files as
- * possible within the token budget. Files that don't fit are excluded.
+ * <p>By default this optimizer includes, in rank order, each file that still fits within the token budget. With
+ * {@link SelectionStrategy#KNAPSACK} it instead includes the files of greatest total value that fit, where a file's
+ * value comes from its rank: the first of n ranked files is worth n, the next n - 1, and so on down to 1. That choice
+ * is a 0/1 knapsack, solved approximately by {@link Knapsack} and then topped up in rank order with any file that still
+ * fits. With a {@link TruncationStrategy} other than {@link TruncationStrategy#NONE}, the budget left over is then
+ * filled by truncating the excluded file with the most value per token; its kept content is reported in
+ * {@link OptimizationResult#truncations()}, and the file is listed as both included and truncated. Files that are not
+ * included are excluded, in rank order.
+ *
+ * <p>Files are compared with the budget through {@link TokenCounter#estimate}, so a counter such as
+ * {@link ir.sudoit.claudecode4j.context.tokenizer.TieredTokenCounter} can rule a file out without reading it, and
+ * counts may stop once they exceed the budget. A file is only included once it is counted exactly, so
+ * {@code totalTokensUsed} is exact. First fit bounds each file against the budget left, a few files ahead of the
+ * selection, and reads no further non-empty files once the budget is spent; the knapsack needs every file's weight,
+ * so it counts each file that might fit the whole budget. File attributes are read and tokens counted on virtual
+ * threads, at most {@code parallelism} files at a time, so the token counter must be thread-safe.
  */
 public final class DefaultContextOptimizer implements ContextOptimizer {
 
+    /** Files read and counted at once when no parallelism is given. */
+    public static final int DEFAULT_PARALLELISM = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    /** Left-over budget below which no file is truncated, as so short a part is rarely useful. */
+    public static final int MIN_TRUNCATED_TOKENS = 32;
+
     private final TokenCounter tokenCounter;
     private final RankingStrategy rankingStrategy;
     private final boolean warnOnExclusion;
+    private final int parallelism;
+    private final TruncationStrategy truncation;
+    private final SelectionStrategy selection;
 
     /** Creates a new optimizer with default settings. */
     public DefaultContextOptimizer() {
@@ -71,9 +110,66 @@ public final class DefaultContextOptimizer implements ContextOptimizer {
      */
     public DefaultContextOptimizer(
             TokenCounter tokenCounter, RankingStrategy rankingStrategy, boolean warnOnExclusion) {
+        this(tokenCounter, rankingStrategy, warnOnExclusion, DEFAULT_PARALLELISM, TruncationStrategy.NONE);
+    }
+
+    /**
+     * Creates a new optimizer with the specified settings.
+     *
+     * @param tokenCounter the token counter to use, which must be thread-safe
+     * @param rankingStrategy the strategy for ranking files
+     * @param warnOnExclusion whether to generate warnings when files are excluded
+     * @param parallelism the maximum number of files read and counted at once
+     */
+    public DefaultContextOptimizer(
+            TokenCounter tokenCounter, RankingStrategy rankingStrategy, boolean warnOnExclusion, int parallelism) {
+        this(tokenCounter, rankingStrategy, warnOnExclusion, parallelism, TruncationStrategy.NONE);
+    }
+
+    /**
+     * Creates a new optimizer with the specified settings.
+     *
+     * @param tokenCounter the token counter to use, which must be thread-safe
+     * @param rankingStrategy the strategy for ranking files
+     * @param warnOnExclusion whether to generate warnings when files are excluded or truncated
+     * @param parallelism the maximum number of files read and counted at once
+     * @param truncation which part of a file to keep when truncating one into the left-over budget
+     */
+    public DefaultContextOptimizer(
+            TokenCounter tokenCounter,
+            RankingStrategy rankingStrategy,
+            boolean warnOnExclusion,
+            int parallelism,
+            TruncationStrategy truncation) {
+        this(tokenCounter, rankingStrategy, warnOnExclusion, parallelism, truncation, SelectionStrategy.FIRST_FIT);
+    }
+
+    /**
+     * Creates a new optimizer with the specified settings.
+     *
+     * @param tokenCounter the token counter to use, which must be thread-safe
+     * @param rankingStrategy the strategy for ranking files
+     * @param warnOnExclusion whether to generate warnings when files are excluded or truncated
+     * @param parallelism the maximum number of files read and counted at once
+     * @param truncation which part of a file to keep when truncating one into the left-over budget
+     * @param selection how the files that fit the budget are chosen
+     */
+    public DefaultContextOptimizer(
+            TokenCounter tokenCounter,
+            RankingStrategy rankingStrategy,
+            boolean warnOnExclusion,
+            int parallelism,
+            TruncationStrategy truncation,
+            SelectionStrategy selection) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
         this.tokenCounter = tokenCounter;
         this.rankingStrategy = rankingStrategy;
         this.warnOnExclusion = warnOnExclusion;
+        this.parallelism = parallelism;
+        this.truncation = truncation;
+        this.selection = selection;
     }
 
     @Override
@@ -83,45 +179,74 @@ public final class DefaultContextOptimizer implements ContextOptimizer {
             return OptimizationResult.empty();
         }
 
-        // Filter to existing regular files
-        List<Path> paths = contextFiles.stream()
-                .filter(Files::exists)
-                .filter(Files::isRegularFile)
-                .toList();
+        var budgetTokens = budget.totalTokens();
+        List<Path> paths;
+        List<Path> rankedPaths;
+        Map<Path, TokenEstimate> estimates = new HashMap<>();
+        Set<Path> chosen;
+        @Nullable TruncatedFile truncated = null;
+        long totalTokens = 0;
 
-        if (paths.isEmpty()) {
-            return OptimizationResult.empty();
-        }
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            // Filter to existing regular files, keeping their sizes
+            Map<Path, Long> sizes = inParallel(executor, contextFiles, path -> {
+                var fileAttributes = Files.readAttributes(path, BasicFileAttributes.class);
+                return fileAttributes.isRegularFile() ? fileAttributes.size() : null;
+            });
+            paths = contextFiles.stream().filter(sizes::containsKey).toList();
 
-        // Rank files by priority
-        List<Path> rankedPaths = rankingStrategy.rank(paths);
+            if (paths.isEmpty()) {
+                return OptimizationResult.empty();
+            }
 
-        // Process files and track what fits
-        List<Path> included = new ArrayList<>();
-        List<Path> excluded = new ArrayList<>();
-        int totalTokens = 0;
-        int remainingBudget = budget.totalTokens();
+            // Rank files by priority
+            rankedPaths = rankingStrategy.rank(paths);
+            var values = new HashMap<Path, Long>();
+            for (var i = 0; i < rankedPaths.size(); i++) {
+                values.put(rankedPaths.get(i), (long) rankedPaths.size() - i);
+            }
 
-        for (Path path : rankedPaths) {
-            try {
-                int fileTokens = tokenCounter.count(path);
-
-                if (fileTokens <= remainingBudget) {
-                    included.add(path);
-                    totalTokens += fileTokens;
-                    remainingBudget -= fileTokens;
-                } else {
-                    excluded.add(path);
+            if (selection == SelectionStrategy.KNAPSACK) {
+                // The knapsack weighs every file, so each that might fit is counted; unreadable files are left out
+                estimates.putAll(inParallel(executor, rankedPaths, path -> tokenCounter.estimate(path, budgetTokens)));
+                var inexact = rankedPaths.stream()
+                        .filter(estimates::containsKey)
+                        .filter(path -> !estimates.get(path).isExact() && estimates.get(path).low() <= budgetTokens)
+                        .toList();
+                estimates.putAll(inParallel(executor, inexact, path -> countUpTo(path, budgetTokens)));
+                var fitting = rankedPaths.stream()
+                        .filter(estimates::containsKey)
+                        .filter(path -> estimates.get(path).isExact() && estimates.get(path).high() <= budgetTokens)
+                        .toList();
+                chosen = choose(fitting, values, estimates, budgetTokens);
+            } else {
+                chosen = firstFit(executor, rankedPaths, sizes, estimates, budgetTokens);
+            }
+
+            // Every chosen file is counted exactly
+            for (var path : chosen) {
+                totalTokens += estimates.get(path).high();
+            }
+            var slack = (int) (budgetTokens - totalTokens);
+            if (truncation != TruncationStrategy.NONE && slack >= MIN_TRUNCATED_TOKENS) {
+                var remaining = rankedPaths.stream()
+                        .filter(path -> estimates.containsKey(path) && !chosen.contains(path))
+                        .toList();
+                truncated = truncateBest(remaining, values, estimates, slack);
+                if (truncated != null) {
+                    chosen.add(truncated.file());
+                    totalTokens += truncated.tokens();
                 }
-            } catch (IOException e) {
-                // Skip files that can't be read
-                excluded.add(path);
             }
         }
 
+        List<Path> included = rankedPaths.stream().filter(chosen::contains).toList();
+        List<Path> excluded =
+                rankedPaths.stream().filter(path -> !chosen.contains(path)).toList();
+
         // Build result
         String warning = null;
-        if (warnOnExclusion && !excluded.isEmpty()) {
+        if (warnOnExclusion && (!excluded.isEmpty() || truncated != null)) {
             warning = String.format(
                     "Excluded %d file(s) from context due to token budget constraints. "
                             + "Total budget: %d tokens, used: %d tokens. "
@@ -130,13 +255,16 @@ public final class DefaultContextOptimizer implements ContextOptimizer {
                     budget.totalTokens(),
                     totalTokens,
                     excluded.stream().map(Path::getFileName).map(Path::toString).toList());
+            if (truncated != null) {
+                warning += ". Truncated %s to %d tokens".formatted(truncated.file().getFileName(), truncated.tokens());
+            }
         }
 
         return OptimizationResult.builder()
                 .includedFiles(included)
                 .excludedFiles(excluded)
-                .truncatedFiles(List.of())
-                .totalTokensUsed(totalTokens)
+                .truncations(truncated == null ? List.of() : List.of(truncated))
+                .totalTokensUsed((int) totalTokens)
                 .filesProcessed(paths.size())
                 .warning(warning)
                 .build();
@@ -159,17 +287,226 @@ public final class DefaultContextOptimizer implements ContextOptimizer {
      * @return the total estimated tokens
      */
     public int estimateTotalTokens(List<Path> files) {
-        return files.stream()
-                .filter(Files::exists)
-                .filter(Files::isRegularFile)
-                .mapToInt(path -> {
-                    try {
-                        return tokenCounter.count(path);
-                    } catch (IOException e) {
-                        throw new UncheckedIOException(e);
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var permits = new Semaphore(parallelism);
+            var counts = new ArrayList<Future<Integer>>(files.size());
+            for (var path : files) {
+                counts.add(executor.submit(() -> withPermit(permits, () -> {
+                    if (!Files.isRegularFile(path)) {
+                        return 0;
                     }
-                })
-                .sum();
+                    return tokenCounter.count(path);
+                })));
+            }
+            var total = 0;
+            for (var count : counts) {
+                try {
+                    total += count.get();
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof IOException io
+                            ? new UncheckedIOException(io)
+                            : propagate(e.getCause());
+                }
+            }
+            return total;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while counting tokens", e);
+        }
+    }
+
+    /**
+     * Includes, in rank order, each file whose count fits the budget left, bounding files against that budget through
+     * {@link TokenCounter#estimate} at most {@code parallelism} at a time ahead of the selection. A file whose bounds
+     * might fit is counted exactly, so every included file has an exact count. Once the budget is spent, the estimates
+     * in flight are cancelled and the remaining non-empty files are not read.
+     *
+     * @return the included files; every file looked at, included or not, has its estimate recorded in {@code estimates}
+     */
+    private Set<Path> firstFit(
+            ExecutorService executor,
+            List<Path> rankedPaths,
+            Map<Path, Long> sizes,
+            Map<Path, TokenEstimate> estimates,
+            int budgetTokens) {
+        var chosen = new HashSet<Path>();
+        var remainingBudget = budgetTokens;
+        var pending = new ArrayDeque<Future<TokenEstimate>>();
+        var next = 0;
+        for (var path : rankedPaths) {
+            if (remainingBudget == 0 && sizes.get(path) > 0) {
+                // Nothing but empty files can fit any more
+                continue;
+            }
+            while (next < rankedPaths.size() && pending.size() < parallelism) {
+                var ahead = rankedPaths.get(next++);
+                var limit = remainingBudget;
+                pending.add(executor.submit(() -> tokenCounter.estimate(ahead, limit)));
+            }
+            var limit = remainingBudget;
+            var estimate = pending.isEmpty() ? now(() -> tokenCounter.estimate(path, limit)) : await(pending.poll());
+            if (estimate != null && !estimate.isExact() && estimate.low() <= limit) {
+                // The bounds leave the decision open, or are too wide to add up
+                estimate = now(() -> countUpTo(path, limit));
+            }
+            if (estimate == null) {
+                // Can't be read
+                continue;
+            }
+            estimates.put(path, estimate);
+            if (estimate.isExact() && estimate.high() <= remainingBudget) {
+                chosen.add(path);
+                remainingBudget -= estimate.high();
+            }
+            if (remainingBudget == 0) {
+                pending.forEach(estimated -> estimated.cancel(true));
+                pending.clear();
+                next = rankedPaths.size();
+            }
+        }
+        return chosen;
+    }
+
+    /** Counts {@code path} exactly if it has at most {@code limit} tokens, and bounds it from below otherwise. */
+    private TokenEstimate countUpTo(Path path, int limit) throws IOException {
+        var tokens = tokenCounter.countUpTo(path, limit);
+        return tokens <= limit ? TokenEstimate.exact(tokens) : TokenEstimate.above(limit);
+    }
+
+    /** Returns the task's result, or {@code null} if it failed with an {@link IOException}. */
+    private static <T> @Nullable T now(IoTask<T> task) {
+        try {
+            return task.call();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /** Chooses the files that fit the budget as {@link #selection} directs. */
+    private Set<Path> choose(
+            List<Path> fitting, Map<Path, Long> values, Map<Path, TokenEstimate> estimates, int budgetTokens) {
+        var weights = new int[fitting.size()];
+        var rankValues = new long[fitting.size()];
+        for (var i = 0; i < fitting.size(); i++) {
+            weights[i] = estimates.get(fitting.get(i)).high();
+            rankValues[i] = values.get(fitting.get(i));
+        }
+        var selected = selection == SelectionStrategy.KNAPSACK
+                ? Knapsack.select(weights, rankValues, budgetTokens)
+                : new boolean[fitting.size()];
+        var chosen = new HashSet<Path>();
+        long used = 0;
+        for (var i = 0; i < fitting.size(); i++) {
+            if (selected[i]) {
+                chosen.add(fitting.get(i));
+                used += weights[i];
+            }
+        }
+        // First fit, or spend what rounding in the knapsack left over, in rank order
+        for (var i = 0; i < fitting.size(); i++) {
+            if (!selected[i] && used + weights[i] <= budgetTokens) {
+                chosen.add(fitting.get(i));
+                used += weights[i];
+            }
+        }
+        return chosen;
+    }
+
+    /**
+     * Truncates the file with the most rank value per token to {@code slack} tokens, trying the next on failure.
+     *
+     * @return the truncated file, or {@code null} if none could be truncated to a non-empty part
+     */
+    private @Nullable TruncatedFile truncateBest(
+            List<Path> remaining, Map<Path, Long> values, Map<Path, TokenEstimate> estimates, int slack) {
+        var byDensity = new ArrayList<>(remaining);
+        // Stable, so ties keep rank order
+        byDensity.sort(Comparator.comparingDouble(
+                        (Path path) -> (double) values.get(path) / Math.max(1, estimates.get(path).low()))
+                .reversed());
+        for (var path : byDensity) {
+            String kept;
+            try {
+                // Reads only the ends of the file that can be kept
+                kept = TokenTruncator.truncate(
+                        tokenCounter, path, slack, truncation, estimates.get(path).low() > slack);
+            } catch (IOException e) {
+                continue;
+            }
+            if (!kept.isEmpty()) {
+                return new TruncatedFile(path, kept, tokenCounter.count(kept));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Applies {@code function} to every path, at most {@code parallelism} at a time. Paths it fails for with an
+     * {@link IOException}, or returns {@code null} for, are left out of the result.
+     */
+    private <T> Map<Path, T> inParallel(ExecutorService executor, List<Path> files, IoFunction<T> function) {
+        var permits = new Semaphore(parallelism);
+        var results = new ArrayList<Future<@Nullable T>>(files.size());
+        for (var path : files) {
+            results.add(executor.submit(() -> withPermit(permits, () -> function.apply(path))));
+        }
+        var byPath = new HashMap<Path, T>();
+        for (var i = 0; i < files.size(); i++) {
+            var result = await(results.get(i));
+            if (result != null) {
+                byPath.put(files.get(i), result);
+            }
+        }
+        return byPath;
+    }
+
+    /** Returns the task's result, or {@code null} if it failed with an {@link IOException}. */
+    private static <T> @Nullable T await(@Nullable Future<T> future) {
+        if (future == null) {
+            return null;
+        }
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                return null;
+            }
+            throw propagate(e.getCause());
+        } catch (CancellationException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while counting tokens", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface IoTask<T> {
+        T call() throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface IoFunction<T> {
+        @Nullable T apply(Path path) throws IOException;
+    }
+
+    private static <T> T withPermit(Semaphore permits, IoTask<T> task) throws IOException, InterruptedException {
+        permits.acquire();
+        try {
+            return task.call();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static RuntimeException propagate(Throwable cause) {
+        if (cause instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        throw new IllegalStateException(cause);
     }
 
     /**
@@ -195,6 +532,9 @@ public final class DefaultContextOptimizer implements ContextOptimizer {
         private TokenCounter tokenCounter = new JTokkitTokenCounter();
         private RankingStrategy rankingStrategy = RankingStrategy.recency();
         private boolean warnOnExclusion = true;
+        private int parallelism = DEFAULT_PARALLELISM;
+        private TruncationStrategy truncation = TruncationStrategy.NONE;
+        private SelectionStrategy selection = SelectionStrategy.FIRST_FIT;
 
         private Builder() {}
 
@@ -213,8 +553,42 @@ public final class DefaultContextOptimizer implements ContextOptimizer {
             return this;
         }
 
+        /**
+         * Sets the maximum number of files read and counted at once.
+         *
+         * @param parallelism the fan-out, {@code 1} to count sequentially
+         * @return this builder
+         */
+        public Builder parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Sets which part of a file to keep when truncating one into the left-over budget.
+         *
+         * @param truncation the truncation strategy, {@link TruncationStrategy#NONE} to only include whole files
+         * @return this builder
+         */
+        public Builder truncation(TruncationStrategy truncation) {
+            this.truncation = truncation;
+            return this;
+        }
+
+        /**
+         * Sets how the files that fit the budget are chosen.
+         *
+         * @param selection the selection strategy, {@link SelectionStrategy#FIRST_FIT} by default
+         * @return this builder
+         */
+        public Builder selection(SelectionStrategy selection) {
+            this.selection = selection;
+            return this;
+        }
+
         public DefaultContextOptimizer build() {
-            return new DefaultContextOptimizer(tokenCounter, rankingStrategy, warnOnExclusion);
+            return new DefaultContextOptimizer(
+                    tokenCounter, rankingStrategy, warnOnExclusion, parallelism, truncation, selection);
         }
     }
 }
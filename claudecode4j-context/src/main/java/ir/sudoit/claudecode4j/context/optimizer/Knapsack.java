@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.context.optimizer;
+
+/**
+ * Approximate 0/1 knapsack: picks items of maximum total value whose weights fit a capacity.
+ *
+ * <p>The dynamic program runs over the capacity in units chosen so that the table has at most {@value #MAX_CELLS}
+ * cells. Weights are rounded up to whole units, so every selection fits the capacity; the rounding can leave up to one
+ * unit per item unused, which callers may fill afterwards. With a capacity of at most that many units per item the
+ * result is optimal.
+ */
+final class Knapsack {
+
+    private static final long MAX_CELLS = 1L << 22;
+
+    private Knapsack() {}
+
+    /**
+     * Selects items to maximize the total value within the capacity. Items of weight zero are always selected.
+     *
+     * @param weights the non-negative weight of each item
+     * @param values the non-negative value of each item
+     * @param capacity the maximum total weight
+     * @return whether each item is selected
+     */
+    static boolean[] select(int[] weights, long[] values, int capacity) {
+        var items = weights.length;
+        var selected = new boolean[items];
+        if (items == 0 || capacity <= 0) {
+            for (var i = 0; i < items; i++) {
+                selected[i] = weights[i] == 0;
+            }
+            return selected;
+        }
+        var maxUnits = Math.max(1, MAX_CELLS / items - 1);
+        var unit = (int) Math.max(1, (capacity + maxUnits - 1) / maxUnits);
+        var units = capacity / unit;
+
+        var scaled = new int[items];
+        var best = new long[units + 1];
+        var taken = new boolean[items][];
+        for (var i = 0; i < items; i++) {
+            scaled[i] = (int) Math.min(units + 1L, ((long) weights[i] + unit - 1) / unit);
+            taken[i] = new boolean[units + 1];
+            for (var c = units; c >= scaled[i]; c--) {
+                var value = best[c - scaled[i]] + values[i];
+                if (value > best[c] || (value == best[c] && scaled[i] == 0)) {
+                    best[c] = value;
+                    taken[i][c] = true;
+                }
+            }
+        }
+        for (int i = items - 1, c = units; i >= 0; i--) {
+            if (taken[i][c]) {
+                selected[i] = true;
+                c -= scaled[i];
+            }
+        }
+        return selected;
+    }
+}
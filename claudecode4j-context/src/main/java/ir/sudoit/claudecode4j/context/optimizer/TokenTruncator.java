@@ -0,0 +1,257 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.context.optimizer;
+
+import ir.sudoit.claudecode4j.context.spi.TokenCounter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntFunction;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Cuts text down to a token limit at the longest prefix or suffix that fits.
+ *
+ * <p>The cut point is found by counting candidate pieces: a galloping search from a guess of four characters per token
+ * brackets it, and a binary search narrows it to the character. That takes a logarithmic number of counts, each of at
+ * most about twice the kept text, rather than one per character or a full encoding of a file that may be much larger
+ * than the budget. Cuts never split a surrogate pair.
+ *
+ * <p>Files are read only as far as the cut needs: a window of about twice the guessed length is read from each end
+ * that is kept, and doubled only while the kept part fills it.
+ */
+final class TokenTruncator {
+
+    private static final int CHARS_PER_TOKEN_GUESS = 4;
+
+    private TokenTruncator() {}
+
+    /**
+     * Returns the part of {@code text} that {@code strategy} keeps within {@code limit} tokens.
+     *
+     * @param counter the counter that defines the limit
+     * @param text the text to truncate
+     * @param limit the maximum token count of the result
+     * @param strategy which part of the text to keep, other than {@link TruncationStrategy#NONE}
+     * @return the truncated text, possibly empty
+     */
+    static String truncate(TokenCounter counter, String text, int limit, TruncationStrategy strategy) {
+        return truncate(counter, text, limit, strategy, false);
+    }
+
+    /**
+     * Returns the part of the UTF-8 {@code file} that {@code strategy} keeps within {@code limit} tokens, reading only
+     * the ends of the file that are kept.
+     *
+     * @param counter the counter that defines the limit
+     * @param file the file to truncate
+     * @param limit the maximum token count of the result
+     * @param strategy which part of the file to keep, other than {@link TruncationStrategy#NONE}
+     * @param over whether the file is known to exceed {@code limit}, which saves counting it whole
+     * @return the truncated content, possibly empty
+     * @throws IOException if the file cannot be read
+     */
+    static String truncate(TokenCounter counter, Path file, int limit, TruncationStrategy strategy, boolean over)
+            throws IOException {
+        if (strategy == TruncationStrategy.NONE) {
+            throw new IllegalArgumentException("Truncation is disabled");
+        }
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var size = channel.size();
+            // The windows at both ends must not overlap, so larger ones read the whole file
+            for (var window = Math.max(1L, limit) * CHARS_PER_TOKEN_GUESS * 2; window * 2 < size; window *= 2) {
+                var front = strategy == TruncationStrategy.TAIL ? "" : decodeHead(read(channel, 0, window));
+                var back = strategy == TruncationStrategy.HEAD ? "" : decodeTail(read(channel, size - window, window));
+                switch (strategy) {
+                    case HEAD -> {
+                        var head = head(counter, front, limit, false);
+                        if (head.length() < front.length()) {
+                            return head;
+                        }
+                    }
+                    case TAIL -> {
+                        var tail = tail(counter, back, limit, false);
+                        if (tail.length() < back.length()) {
+                            return tail;
+                        }
+                    }
+                    default -> {
+                        var kept = headAndTail(counter, front, false, headLength -> back, limit);
+                        if (kept.head().length() < front.length()
+                                && (kept.tail() == null || kept.tail().length() < back.length())) {
+                            return kept.text();
+                        }
+                    }
+                }
+            }
+            var text = new String(read(channel, 0, size), StandardCharsets.UTF_8);
+            return truncate(counter, text, limit, strategy, over);
+        }
+    }
+
+    private static String truncate(
+            TokenCounter counter, String text, int limit, TruncationStrategy strategy, boolean over) {
+        return switch (strategy) {
+            case HEAD -> head(counter, text, limit, over);
+            case TAIL -> tail(counter, text, limit, over);
+            case HEAD_AND_TAIL -> headAndTail(counter, text, limit, over);
+            case NONE -> throw new IllegalArgumentException("Truncation is disabled");
+        };
+    }
+
+    private static String head(TokenCounter counter, String text, int limit, boolean over) {
+        return longest(counter, text.length(), limit, over, length -> prefix(text, length));
+    }
+
+    private static String tail(TokenCounter counter, String text, int limit, boolean over) {
+        return longest(counter, text.length(), limit, over, length -> suffix(text, length));
+    }
+
+    private static String headAndTail(TokenCounter counter, String text, int limit, boolean over) {
+        if (!over && counter.count(text) <= limit) {
+            return text;
+        }
+        return headAndTail(counter, text, true, text::substring, limit).text();
+    }
+
+    /**
+     * Keeps the beginning of {@code front} and the end of what {@code back} leaves after it, split evenly.
+     *
+     * @param frontOver whether {@code front} is known to exceed {@code limit}
+     * @param back the text the tail is cut from, given the length of the kept head
+     */
+    private static Kept headAndTail(
+            TokenCounter counter, String front, boolean frontOver, IntFunction<String> back, int limit) {
+        var available = limit - counter.count(TruncationStrategy.ELISION);
+        while (available > 1) {
+            var head = head(counter, front, available / 2, frontOver);
+            var rest = back.apply(head.length());
+            var tail = tail(counter, rest, available - available / 2, false);
+            var excess = counter.count(head + TruncationStrategy.ELISION + tail) - limit;
+            if (excess <= 0) {
+                return new Kept(head, tail);
+            }
+            // Tokens merged differently across the joins
+            available -= excess;
+        }
+        return new Kept(head(counter, front, limit, frontOver), null);
+    }
+
+    /**
+     * Returns the longest piece of at most {@code length} characters that fits in {@code limit} tokens.
+     *
+     * @param tooLong whether the whole piece is known not to fit
+     */
+    private static String longest(
+            TokenCounter counter, int length, int limit, boolean tooLong, IntFunction<String> piece) {
+        if (!tooLong) {
+            var whole = piece.apply(length);
+            if (counter.count(whole) <= limit) {
+                return whole;
+            }
+        }
+        var fits = 0;
+        var over = length;
+        for (var probe = Math.max(1L, (long) limit * CHARS_PER_TOKEN_GUESS); probe < over; probe *= 2) {
+            if (counter.count(piece.apply((int) probe)) <= limit) {
+                fits = (int) probe;
+            } else {
+                over = (int) probe;
+            }
+        }
+        while (over - fits > 1) {
+            var middle = (fits + over) >>> 1;
+            if (counter.count(piece.apply(middle)) <= limit) {
+                fits = middle;
+            } else {
+                over = middle;
+            }
+        }
+        return piece.apply(fits);
+    }
+
+    /** Reads {@code length} bytes of {@code channel} from {@code position}, or up to its end. */
+    private static byte[] read(FileChannel channel, long position, long length) throws IOException {
+        var buffer = ByteBuffer.allocate(Math.toIntExact(length));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        var bytes = new byte[buffer.position()];
+        buffer.flip().get(bytes);
+        return bytes;
+    }
+
+    /** Decodes the start of a UTF-8 text, dropping a character cut off at the end. */
+    private static String decodeHead(byte[] bytes) {
+        var end = bytes.length;
+        for (var i = end - 1; i >= Math.max(0, end - 4); i--) {
+            var lead = bytes[i] & 0xFF;
+            if ((lead & 0xC0) != 0x80) {
+                var width = lead >= 0xF0 ? 4 : lead >= 0xE0 ? 3 : lead >= 0xC0 ? 2 : 1;
+                if (i + width > end) {
+                    end = i;
+                }
+                break;
+            }
+        }
+        return new String(bytes, 0, end, StandardCharsets.UTF_8);
+    }
+
+    /** Decodes the end of a UTF-8 text, dropping a character cut off at the start. */
+    private static String decodeTail(byte[] bytes) {
+        var start = 0;
+        while (start < Math.min(bytes.length, 3) && (bytes[start] & 0xC0) == 0x80) {
+            start++;
+        }
+        return new String(bytes, start, bytes.length - start, StandardCharsets.UTF_8);
+    }
+
+    private static String prefix(String text, int length) {
+        if (length > 0 && length < text.length() && Character.isHighSurrogate(text.charAt(length - 1))) {
+            length--;
+        }
+        return text.substring(0, length);
+    }
+
+    private static String suffix(String text, int length) {
+        var start = text.length() - length;
+        if (start > 0 && start < text.length() && Character.isLowSurrogate(text.charAt(start))) {
+            start++;
+        }
+        return text.substring(start);
+    }
+
+    /** The kept beginning of a text and, unless only the beginning could be kept, its kept end. */
+    private record Kept(String head, @Nullable String tail) {
+
+        String text() {
+            return tail == null ? head : head + TruncationStrategy.ELISION + tail;
+        }
+    }
+}
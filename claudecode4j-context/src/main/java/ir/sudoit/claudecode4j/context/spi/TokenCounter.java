@@ -23,6 +23,7 @@
  */
 package ir.sudoit.claudecode4j.context.spi;
 
+import ir.sudoit.claudecode4j.context.model.TokenEstimate;
 import java.io.IOException;
 import java.nio.file.Path;
 
@@ -51,6 +52,37 @@ public interface TokenCounter {
      */
     int count(Path file) throws IOException;
 
+    /**
+     * Counts the number of tokens in a file, stopping early once the count exceeds {@code limit}.
+     *
+     * <p>The result is exact when it is at most {@code limit}; otherwise it is some value greater than {@code limit}.
+     * The default counts the whole file.
+     *
+     * @param file the file to tokenize
+     * @param limit the count above which counting may stop
+     * @return the token count, or a value greater than {@code limit}
+     * @throws IOException if the file cannot be read
+     */
+    default int countUpTo(Path file, int limit) throws IOException {
+        return count(file);
+    }
+
+    /**
+     * Returns bounds on the number of tokens in a file, counting exactly only where {@code limit} requires it.
+     *
+     * <p>Implementations may return wide bounds when they are clearly below or above {@code limit}. The default counts
+     * the file with {@link #countUpTo}.
+     *
+     * @param file the file to tokenize
+     * @param limit the count the caller compares against
+     * @return the bounds on the token count
+     * @throws IOException if the file cannot be read
+     */
+    default TokenEstimate estimate(Path file, int limit) throws IOException {
+        int tokens = countUpTo(file, limit);
+        return tokens <= limit ? TokenEstimate.exact(tokens) : TokenEstimate.above(limit);
+    }
+
     /**
      * Returns the name of the encoding used by this counter.
      *
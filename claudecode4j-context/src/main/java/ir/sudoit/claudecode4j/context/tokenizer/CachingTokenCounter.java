@@ -24,23 +24,55 @@
 package ir.sudoit.claudecode4j.context.tokenizer;
 
 import ir.sudoit.claudecode4j.context.spi.TokenCounter;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.attribute.FileTime;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+import org.jspecify.annotations.Nullable;
 
 /**
  * A caching wrapper around a TokenCounter that caches file token counts.
  *
- * <p>Cache entries are invalidated when the file's last modified time changes. Text-based counting is not cached as
- * it's typically not repeated.
+ * <p>Counts are keyed by the size and checksums of the file content, so identical content at different paths, or
+ * content whose modification time changed without the content changing (for example after a checkout), is tokenized
+ * once. A per-path record of size, modification time and hash skips hashing for files that have not been touched. The
+ * checksums are hardware-accelerated CRCs rather than a cryptographic digest, so hashing a changed file costs far less
+ * than tokenizing it. Both maps hold at most {@code maxEntries} entries and evict the least recently used. Text-based
+ * counting is not cached as it's typically not repeated.
+ *
+ * <p>With a cache file, the entries are loaded on construction and written back by {@link #flush()} and
+ * {@link #close()}, so counts survive restarts. The file records the delegate's encoding and is ignored if it differs.
  */
-public final class CachingTokenCounter implements TokenCounter {
+public final class CachingTokenCounter implements TokenCounter, AutoCloseable {
+
+    /** Maximum number of cached entries when none is given. */
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    private static final System.Logger log = System.getLogger(CachingTokenCounter.class.getName());
+
+    private static final int MAGIC = 0x434C5443; // "CLTC"
+    private static final int VERSION = 2;
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
 
     private final TokenCounter delegate;
-    private final ConcurrentMap<Path, CacheEntry> cache;
+    private final @Nullable Path cacheFile;
+    private final Map<Path, FileStamp> stamps;
+    private final Map<ContentHash, Integer> counts;
 
     /**
      * Creates a new caching token counter wrapping the given delegate.
@@ -48,8 +80,32 @@ public final class CachingTokenCounter implements TokenCounter {
      * @param delegate the underlying token counter
      */
     public CachingTokenCounter(TokenCounter delegate) {
+        this(delegate, DEFAULT_MAX_ENTRIES, null);
+    }
+
+    /**
+     * Creates a new caching token counter wrapping the given delegate.
+     *
+     * @param delegate the underlying token counter
+     * @param maxEntries the maximum number of cached files and of cached contents
+     * @param cacheFile where the cache is persisted, or {@code null} to keep it in memory only
+     */
+    public CachingTokenCounter(TokenCounter delegate, int maxEntries, @Nullable Path cacheFile) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
         this.delegate = delegate;
-        this.cache = new ConcurrentHashMap<>();
+        this.cacheFile = cacheFile;
+        this.stamps = lruMap(maxEntries);
+        this.counts = lruMap(maxEntries);
+        if (cacheFile != null && Files.exists(cacheFile)) {
+            try {
+                load(cacheFile);
+            } catch (IOException e) {
+                log.log(System.Logger.Level.WARNING, "Ignoring unreadable token count cache " + cacheFile, e);
+                clearCache();
+            }
+        }
     }
 
     @Override
@@ -60,16 +116,46 @@ public final class CachingTokenCounter implements TokenCounter {
 
     @Override
     public int count(Path file) throws IOException {
+        return countUpTo(file, Integer.MAX_VALUE);
+    }
+
+    /** Returns the cached count if there is one; counts that stopped early at {@code limit} are not cached. */
+    @Override
+    public int countUpTo(Path file, int limit) throws IOException {
         Path absolutePath = file.toAbsolutePath().normalize();
-        FileTime currentModTime = Files.getLastModifiedTime(absolutePath);
+        var attributes = Files.readAttributes(absolutePath, BasicFileAttributes.class);
+        var size = attributes.size();
+        var modified = attributes.lastModifiedTime().toMillis();
+
+        ContentHash hash;
+        synchronized (this) {
+            var stamp = stamps.get(absolutePath);
+            hash = stamp != null && stamp.size() == size && stamp.lastModified() == modified ? stamp.hash() : null;
+            if (hash != null) {
+                var cached = counts.get(hash);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+        }
 
-        CacheEntry cached = cache.get(absolutePath);
-        if (cached != null && cached.lastModified().equals(currentModTime)) {
-            return cached.tokenCount();
+        if (hash == null) {
+            hash = ContentHash.of(absolutePath);
+            synchronized (this) {
+                stamps.put(absolutePath, new FileStamp(size, modified, hash));
+                var cached = counts.get(hash);
+                if (cached != null) {
+                    return cached;
+                }
+            }
         }
 
-        int tokenCount = delegate.count(absolutePath);
-        cache.put(absolutePath, new CacheEntry(tokenCount, currentModTime));
+        int tokenCount = delegate.countUpTo(absolutePath, limit);
+        if (tokenCount <= limit) {
+            synchronized (this) {
+                counts.put(hash, tokenCount);
+            }
+        }
         return tokenCount;
     }
 
@@ -84,8 +170,9 @@ public final class CachingTokenCounter implements TokenCounter {
     }
 
     /** Clears all cached token counts. */
-    public void clearCache() {
-        cache.clear();
+    public synchronized void clearCache() {
+        stamps.clear();
+        counts.clear();
     }
 
     /**
@@ -93,8 +180,11 @@ public final class CachingTokenCounter implements TokenCounter {
      *
      * @param file the file to remove from cache
      */
-    public void invalidate(Path file) {
-        cache.remove(file.toAbsolutePath().normalize());
+    public synchronized void invalidate(Path file) {
+        var stamp = stamps.remove(file.toAbsolutePath().normalize());
+        if (stamp != null) {
+            counts.remove(stamp.hash());
+        }
     }
 
     /**
@@ -102,9 +192,124 @@ public final class CachingTokenCounter implements TokenCounter {
      *
      * @return the cache size
      */
-    public int cacheSize() {
-        return cache.size();
+    public synchronized int cacheSize() {
+        return counts.size();
+    }
+
+    /**
+     * Writes the cache to the cache file, if there is one.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void flush() throws IOException {
+        if (cacheFile == null) {
+            return;
+        }
+        List<Map.Entry<Path, FileStamp>> stampEntries;
+        List<Map.Entry<ContentHash, Integer>> countEntries;
+        synchronized (this) {
+            stampEntries = new ArrayList<>(stamps.entrySet());
+            countEntries = new ArrayList<>(counts.entrySet());
+        }
+        var parent = cacheFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        var temp = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(delegate.getEncodingName());
+            // Least recently used first, so loading restores the order
+            out.writeInt(countEntries.size());
+            for (var entry : countEntries) {
+                entry.getKey().write(out);
+                out.writeInt(entry.getValue());
+            }
+            out.writeInt(stampEntries.size());
+            for (var entry : stampEntries) {
+                out.writeUTF(entry.getKey().toString());
+                out.writeLong(entry.getValue().size());
+                out.writeLong(entry.getValue().lastModified());
+                entry.getValue().hash().write(out);
+            }
+        }
+        Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Writes the cache to the cache file, if there is one. */
+    @Override
+    public void close() {
+        try {
+            flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write token count cache " + cacheFile, e);
+        }
+    }
+
+    private synchronized void load(Path file) throws IOException {
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a token count cache");
+            }
+            if (in.readInt() != VERSION || !in.readUTF().equals(delegate.getEncodingName())) {
+                // Hashes from another version and counts from another encoding are useless
+                return;
+            }
+            var countEntries = in.readInt();
+            for (var i = 0; i < countEntries; i++) {
+                counts.put(ContentHash.read(in), in.readInt());
+            }
+            var stampEntries = in.readInt();
+            for (var i = 0; i < stampEntries; i++) {
+                var path = Path.of(in.readUTF());
+                stamps.put(path, new FileStamp(in.readLong(), in.readLong(), ContentHash.read(in)));
+            }
+        }
     }
 
-    private record CacheEntry(int tokenCount, FileTime lastModified) {}
+    private static <K, V> Map<K, V> lruMap(int maxEntries) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /** Size and modification time of a file when its content had {@code hash}. */
+    private record FileStamp(long size, long lastModified, ContentHash hash) {}
+
+    /**
+     * The length of a file's content and its CRC-32C and CRC-32, whose different polynomials make them independent.
+     * Not collision resistant against crafted input, which a token count cache does not need.
+     */
+    private record ContentHash(long size, long crcs) {
+
+        static ContentHash of(Path file) throws IOException {
+            var crc32c = new CRC32C();
+            var crc32 = new CRC32();
+            var size = 0L;
+            try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                var buffer = ByteBuffer.allocateDirect(HASH_BUFFER_SIZE);
+                while (channel.read(buffer) >= 0) {
+                    buffer.flip();
+                    size += buffer.remaining();
+                    crc32c.update(buffer.duplicate());
+                    crc32.update(buffer);
+                    buffer.clear();
+                }
+            }
+            return new ContentHash(size, crc32c.getValue() << 32 | crc32.getValue());
+        }
+
+        static ContentHash read(DataInputStream in) throws IOException {
+            return new ContentHash(in.readLong(), in.readLong());
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeLong(size);
+            out.writeLong(crcs);
+        }
+    }
 }
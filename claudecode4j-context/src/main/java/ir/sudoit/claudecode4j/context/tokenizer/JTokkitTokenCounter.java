@@ -29,19 +29,35 @@ import com.knuddels.jtokkit.api.EncodingRegistry;
 import com.knuddels.jtokkit.api.EncodingType;
 import ir.sudoit.claudecode4j.context.spi.TokenCounter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 /**
  * Token counter using JTokkit library with cl100k_base encoding.
  *
  * <p>The cl100k_base encoding is used by GPT-4 and closely matches Claude's tokenization. This provides a reasonable
  * approximation for token counting.
+ *
+ * <p>Files are streamed as UTF-8 in chunks of about {@value #CHUNK_SIZE} bytes, with malformed input replaced rather
+ * than rejected. Each chunk is cut where the cl100k_base pre-tokenizer always splits, after a newline followed by a
+ * letter or digit, or failing that between a letter and a space followed by a letter, so the chunk counts add up to
+ * the count of the whole file. A chunk without such a point grows until one appears. Memory therefore follows the
+ * chunk size rather than the file size, and {@link #countUpTo} stops after the chunk that exceeds its limit.
  */
 public final class JTokkitTokenCounter implements TokenCounter {
 
     private static final String ENCODING_NAME = "cl100k_base";
 
+    /** Bytes read from a file at a time. */
+    static final int CHUNK_SIZE = 64 * 1024;
+
     private final Encoding encoding;
 
     /** Creates a new JTokkit-based token counter using cl100k_base encoding. */
@@ -60,14 +76,88 @@ public final class JTokkitTokenCounter implements TokenCounter {
 
     @Override
     public int count(Path file) throws IOException {
+        return countUpTo(file, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int countUpTo(Path file, int limit) throws IOException {
         if (!Files.exists(file)) {
             throw new IOException("File does not exist: " + file);
         }
         if (!Files.isRegularFile(file)) {
             throw new IOException("Not a regular file: " + file);
         }
-        String content = Files.readString(file);
-        return count(content);
+        CharsetDecoder decoder = StandardCharsets.UTF_8
+                .newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer bytes = ByteBuffer.allocate(CHUNK_SIZE);
+            CharBuffer chars = CharBuffer.allocate(CHUNK_SIZE);
+            int total = 0;
+            boolean endOfInput = false;
+            while (!endOfInput) {
+                // Carried-over text has no split point, except possibly at its last character
+                int scanFrom = Math.max(1, chars.position() - 1);
+                endOfInput = channel.read(bytes) < 0;
+                bytes.flip();
+                chars = decode(decoder, bytes, chars, endOfInput);
+                bytes.compact();
+
+                chars.flip();
+                int end = endOfInput ? chars.limit() : splitPoint(chars, scanFrom);
+                if (end > 0) {
+                    total += encoding.countTokens(chars.subSequence(0, end).toString());
+                    if (total > limit) {
+                        return total;
+                    }
+                    chars.position(end);
+                }
+                chars.compact();
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Returns the last position from {@code from} on where the pre-tokenizer always starts a new piece, or {@code 0}.
+     *
+     * <p>No piece containing a newline continues into a following letter or digit, and no piece containing a letter
+     * continues into a following space.
+     */
+    static int splitPoint(CharSequence chars, int from) {
+        for (int i = chars.length() - 1; i >= from; i--) {
+            if (chars.charAt(i - 1) == '\n' && Character.isLetterOrDigit(chars.charAt(i))) {
+                return i;
+            }
+        }
+        for (int i = chars.length() - 2; i >= from; i--) {
+            if (chars.charAt(i) == ' '
+                    && Character.isLetter(chars.charAt(i - 1))
+                    && Character.isLetter(chars.charAt(i + 1))) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    /** Decodes {@code in} into {@code out}, growing it as needed; returns the buffer written to. */
+    private static CharBuffer decode(CharsetDecoder decoder, ByteBuffer in, CharBuffer out, boolean endOfInput) {
+        while (decoder.decode(in, out, endOfInput).isOverflow()) {
+            out = grow(out);
+        }
+        if (endOfInput) {
+            while (decoder.flush(out).isOverflow()) {
+                out = grow(out);
+            }
+        }
+        return out;
+    }
+
+    private static CharBuffer grow(CharBuffer buffer) {
+        CharBuffer grown = CharBuffer.allocate(buffer.capacity() * 2);
+        buffer.flip();
+        return grown.put(buffer);
     }
 
     @Override
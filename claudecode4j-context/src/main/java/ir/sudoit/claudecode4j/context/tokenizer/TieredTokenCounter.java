@@ -0,0 +1,129 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.context.tokenizer;
+
+import ir.sudoit.claudecode4j.context.model.TokenEstimate;
+import ir.sudoit.claudecode4j.context.spi.TokenCounter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A TokenCounter that bounds file token counts from the file size, tokenizing only when the bounds are inconclusive.
+ *
+ * <p>The bounds follow from how files are encoded rather than from observed densities, so they always hold for a
+ * byte-level BPE delegate such as {@link JTokkitTokenCounter}. A file is decoded as UTF-8 with malformed input
+ * replaced, which at most triples its length in bytes, and every token covers at least one byte, so a file of
+ * {@code n} bytes has at most {@code 3n} tokens. No token covers more than {@code maxTokenBytes} bytes, so it has at
+ * least {@code n / maxTokenBytes}. A file whose upper bound is within the caller's limit, or whose lower bound exceeds
+ * it, is bounded without being read; any other file is counted with {@link TokenCounter#countUpTo}, which may stop
+ * once the limit is passed.
+ *
+ * <p>The bounds are wide, so they settle only files far from the limit. The saving is mostly in never reading files
+ * far too large to fit; a caller that needs exact counts of the files it keeps still counts those. Closing the counter
+ * closes the delegate if it is closeable.
+ */
+public final class TieredTokenCounter implements TokenCounter, AutoCloseable {
+
+    /** Bytes covered by the longest token of cl100k_base, and of every other encoding JTokkit ships. */
+    public static final int DEFAULT_MAX_TOKEN_BYTES = 128;
+
+    // U+FFFD, which replaces a malformed byte, takes three bytes
+    private static final int MAX_DECODED_BYTES_PER_BYTE = 3;
+
+    private final TokenCounter delegate;
+    private final int maxTokenBytes;
+
+    /**
+     * Creates a new tiered token counter wrapping the given delegate.
+     *
+     * @param delegate the counter used for exact counts
+     */
+    public TieredTokenCounter(TokenCounter delegate) {
+        this(delegate, DEFAULT_MAX_TOKEN_BYTES);
+    }
+
+    /**
+     * Creates a new tiered token counter wrapping the given delegate.
+     *
+     * @param delegate the counter used for exact counts
+     * @param maxTokenBytes the most bytes any token of the delegate's encoding covers
+     */
+    public TieredTokenCounter(TokenCounter delegate, int maxTokenBytes) {
+        if (maxTokenBytes < 1) {
+            throw new IllegalArgumentException("maxTokenBytes must be positive");
+        }
+        this.delegate = delegate;
+        this.maxTokenBytes = maxTokenBytes;
+    }
+
+    @Override
+    public int count(String text) {
+        return delegate.count(text);
+    }
+
+    @Override
+    public int count(Path file) throws IOException {
+        return delegate.count(file);
+    }
+
+    @Override
+    public int countUpTo(Path file, int limit) throws IOException {
+        return delegate.countUpTo(file, limit);
+    }
+
+    @Override
+    public TokenEstimate estimate(Path file, int limit) throws IOException {
+        var size = Files.size(file);
+        if (size == 0) {
+            return TokenEstimate.exact(0);
+        }
+        var low = (size + maxTokenBytes - 1) / maxTokenBytes;
+        var high = size * MAX_DECODED_BYTES_PER_BYTE;
+        if (high <= limit || low > limit) {
+            return new TokenEstimate(
+                    (int) Math.min(low, Integer.MAX_VALUE), (int) Math.min(high, Integer.MAX_VALUE));
+        }
+        var tokens = delegate.countUpTo(file, limit);
+        return tokens <= limit ? TokenEstimate.exact(tokens) : TokenEstimate.above(limit);
+    }
+
+    @Override
+    public String getEncodingName() {
+        return delegate.getEncodingName();
+    }
+
+    @Override
+    public int priority() {
+        return delegate.priority() + 1;
+    }
+
+    /** Closes the delegate, if it is closeable. */
+    @Override
+    public void close() throws Exception {
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
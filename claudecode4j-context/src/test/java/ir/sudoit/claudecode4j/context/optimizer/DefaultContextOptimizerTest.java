@@ -28,10 +28,15 @@ import static org.assertj.core.api.Assertions.assertThat;
 import ir.sudoit.claudecode4j.api.model.request.Prompt;
 import ir.sudoit.claudecode4j.context.model.ContextBudget;
 import ir.sudoit.claudecode4j.context.model.OptimizationResult;
+import ir.sudoit.claudecode4j.context.spi.TokenCounter;
+import ir.sudoit.claudecode4j.context.tokenizer.JTokkitTokenCounter;
+import ir.sudoit.claudecode4j.context.tokenizer.TieredTokenCounter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -132,8 +137,242 @@ class DefaultContextOptimizerTest {
         assertThat(result.filesProcessed()).isZero();
     }
 
+    @Test
+    void shouldSelectTheSameFilesWithAnyParallelism() throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Path file = tempDir.resolve("file" + i + ".txt");
+            Files.writeString(file, "word ".repeat(1 + (i * 7) % 30));
+            files.add(file);
+        }
+        Prompt prompt = Prompt.builder().text("test").contextFiles(files).build();
+        ContextBudget budget = ContextBudget.withLimit(200);
+
+        OptimizationResult sequential = DefaultContextOptimizer.builder()
+                .rankingStrategy(RankingStrategy.preserveOrder())
+                .parallelism(1)
+                .build()
+                .optimize(prompt, budget);
+        OptimizationResult parallel = DefaultContextOptimizer.builder()
+                .rankingStrategy(RankingStrategy.preserveOrder())
+                .parallelism(8)
+                .build()
+                .optimize(prompt, budget);
+
+        assertThat(parallel.includedFiles()).containsExactlyElementsOf(sequential.includedFiles());
+        assertThat(parallel.excludedFiles()).containsExactlyElementsOf(sequential.excludedFiles());
+        assertThat(parallel.totalTokensUsed()).isEqualTo(sequential.totalTokensUsed());
+    }
+
+    @Test
+    void shouldStopCountingOnceBudgetIsSpent() throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Path file = tempDir.resolve("file" + i + ".txt");
+            Files.writeString(file, "content");
+            files.add(file);
+        }
+        Path empty = tempDir.resolve("empty.txt");
+        Files.writeString(empty, "");
+        files.add(empty);
+        AtomicInteger counted = new AtomicInteger();
+        TokenCounter fixed = new TokenCounter() {
+            @Override
+            public int count(String text) {
+                return 10;
+            }
+
+            @Override
+            public int count(Path file) throws IOException {
+                counted.incrementAndGet();
+                return Files.size(file) == 0 ? 0 : 10;
+            }
+
+            @Override
+            public String getEncodingName() {
+                return "fixed";
+            }
+        };
+        DefaultContextOptimizer sequentialOptimizer = DefaultContextOptimizer.builder()
+                .tokenCounter(fixed)
+                .rankingStrategy(RankingStrategy.preserveOrder())
+                .parallelism(1)
+                .build();
+
+        OptimizationResult result = sequentialOptimizer.optimize(
+                Prompt.builder().text("test").contextFiles(files).build(), ContextBudget.withLimit(30));
+
+        assertThat(result.includedFiles()).containsExactly(files.get(0), files.get(1), files.get(2), empty);
+        assertThat(result.excludedFiles()).hasSize(17);
+        assertThat(counted.get()).isLessThanOrEqualTo(5);
+    }
+
+    @Test
+    void shouldIncludeFilesFirstFitInRankOrderByDefault() throws IOException {
+        Path first = write("first.txt", 60);
+        Path second = write("second.txt", 50);
+        Path third = write("third.txt", 30);
+        Path oversized = write("oversized.txt", 1000);
+
+        OptimizationResult result = lengthOptimizer(TruncationStrategy.NONE)
+                .optimize(
+                        Prompt.builder()
+                                .text("test")
+                                .contextFiles(List.of(first, second, third, oversized))
+                                .build(),
+                        ContextBudget.withLimit(100));
+
+        assertThat(result.includedFiles()).containsExactly(first, third);
+        assertThat(result.excludedFiles()).containsExactly(second, oversized);
+        assertThat(result.totalTokensUsed()).isEqualTo(90);
+    }
+
+    @Test
+    void shouldPreferFilesOfGreaterTotalRankValueWithKnapsackSelection() throws IOException {
+        Path first = write("first.txt", 60);
+        Path second = write("second.txt", 50);
+        Path third = write("third.txt", 50);
+        Path oversized = write("oversized.txt", 1000);
+
+        OptimizationResult result = lengthOptimizer(TruncationStrategy.NONE, SelectionStrategy.KNAPSACK)
+                .optimize(
+                        Prompt.builder()
+                                .text("test")
+                                .contextFiles(List.of(first, second, third, oversized))
+                                .build(),
+                        ContextBudget.withLimit(100));
+
+        // first alone is worth 4; second and third together 3 + 2
+        assertThat(result.includedFiles()).containsExactly(second, third);
+        assertThat(result.excludedFiles()).containsExactly(first, oversized);
+        assertThat(result.totalTokensUsed()).isEqualTo(100);
+        assertThat(result.hasTruncations()).isFalse();
+    }
+
+    @Test
+    void shouldTruncateIntoTheLeftOverBudget() throws IOException {
+        Path small = write("small.txt", 60);
+        Path large = tempDir.resolve("large.txt");
+        Files.writeString(large, "0123456789".repeat(100));
+
+        OptimizationResult result = lengthOptimizer(TruncationStrategy.HEAD)
+                .optimize(
+                        Prompt.builder()
+                                .text("test")
+                                .contextFiles(List.of(small, large))
+                                .build(),
+                        ContextBudget.withLimit(100));
+
+        assertThat(result.includedFiles()).containsExactly(small, large);
+        assertThat(result.truncatedFiles()).containsExactly(large);
+        assertThat(result.excludedFiles()).isEmpty();
+        assertThat(result.truncatedContent(large)).contains("0123456789".repeat(4));
+        assertThat(result.totalTokensUsed()).isEqualTo(100);
+    }
+
+    @Test
+    void shouldNotTruncateIntoATinyLeftOverBudget() throws IOException {
+        Path small = write("small.txt", 90);
+        Path large = write("large.txt", 1000);
+
+        OptimizationResult result = lengthOptimizer(TruncationStrategy.HEAD)
+                .optimize(
+                        Prompt.builder()
+                                .text("test")
+                                .contextFiles(List.of(small, large))
+                                .build(),
+                        ContextBudget.withLimit(100));
+
+        assertThat(result.includedFiles()).containsExactly(small);
+        assertThat(result.excludedFiles()).containsExactly(large);
+        assertThat(result.hasTruncations()).isFalse();
+    }
+
+    @Test
+    void shouldSelectTheSameFilesWithEstimatedCounts() throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            String content =
+                    switch (i % 5) {
+                        case 0 -> "word ".repeat(60 + (i * 37) % 400);
+                        case 1 -> "int x%d = y * %d; // note\n".formatted(i, i).repeat(20 + (i * 13) % 100);
+                        case 2 -> "a".repeat(500 + (i * 997) % 4000);
+                        case 3 -> "Übergrößenträger 日本語の文章 ".repeat(10 + i % 50);
+                        default -> "The quick brown fox jumps over the lazy dog. ".repeat(i % 7 == 0 ? 20_000 : 30);
+                    };
+            files.add(Files.writeString(tempDir.resolve("file" + i + ".txt"), content));
+        }
+        Prompt prompt = Prompt.builder().text("test").contextFiles(files).build();
+        ContextBudget budget = ContextBudget.withLimit(6000);
+
+        for (SelectionStrategy selection : SelectionStrategy.values()) {
+            OptimizationResult exact = DefaultContextOptimizer.builder()
+                    .rankingStrategy(RankingStrategy.preserveOrder())
+                    .selection(selection)
+                    .build()
+                    .optimize(prompt, budget);
+            OptimizationResult estimated = DefaultContextOptimizer.builder()
+                    .tokenCounter(new TieredTokenCounter(new JTokkitTokenCounter()))
+                    .rankingStrategy(RankingStrategy.preserveOrder())
+                    .selection(selection)
+                    .build()
+                    .optimize(prompt, budget);
+
+            assertThat(estimated.includedFiles()).containsExactlyElementsOf(exact.includedFiles());
+            assertThat(estimated.excludedFiles()).containsExactlyElementsOf(exact.excludedFiles());
+            assertThat(estimated.totalTokensUsed()).isEqualTo(exact.totalTokensUsed());
+        }
+    }
+
+    @Test
+    void shouldEstimateTotalTokensInParallel() throws IOException {
+        Path file1 = tempDir.resolve("file1.txt");
+        Path file2 = tempDir.resolve("file2.txt");
+        Files.writeString(file1, "Short content");
+        Files.writeString(file2, "Another short file");
+        JTokkitTokenCounter counter = new JTokkitTokenCounter();
+
+        int total = optimizer.estimateTotalTokens(List.of(file1, file2, tempDir.resolve("missing.txt")));
+
+        assertThat(total).isEqualTo(counter.count(file1) + counter.count(file2));
+    }
+
     @Test
     void shouldHaveDefaultPriority() {
         assertThat(optimizer.priority()).isEqualTo(10);
     }
+
+    private Path write(String name, int length) throws IOException {
+        return Files.writeString(tempDir.resolve(name), "x".repeat(length));
+    }
+
+    private static DefaultContextOptimizer lengthOptimizer(TruncationStrategy truncation) {
+        return lengthOptimizer(truncation, SelectionStrategy.FIRST_FIT);
+    }
+
+    /** An optimizer counting one token per character, ranking in the given order. */
+    private static DefaultContextOptimizer lengthOptimizer(TruncationStrategy truncation, SelectionStrategy selection) {
+        TokenCounter length = new TokenCounter() {
+            @Override
+            public int count(String text) {
+                return text.length();
+            }
+
+            @Override
+            public int count(Path file) throws IOException {
+                return (int) Files.size(file);
+            }
+
+            @Override
+            public String getEncodingName() {
+                return "length";
+            }
+        };
+        return DefaultContextOptimizer.builder()
+                .tokenCounter(length)
+                .rankingStrategy(RankingStrategy.preserveOrder())
+                .truncation(truncation)
+                .selection(selection)
+                .build();
+    }
 }
@@ -0,0 +1,149 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.context.optimizer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ir.sudoit.claudecode4j.context.spi.TokenCounter;
+import ir.sudoit.claudecode4j.context.tokenizer.JTokkitTokenCounter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TokenTruncatorTest {
+
+    private static final String TEXT = """
+            The quick brown fox jumps over the lazy dog. 🦊 Pack my box with five dozen liquor jugs.
+            public static void main(String[] args) { System.out.println("hello, world"); }
+            """.repeat(50);
+
+    private final TokenCounter counter = new JTokkitTokenCounter();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldKeepTheLongestHeadThatFits() {
+        String head = TokenTruncator.truncate(counter, TEXT, 100, TruncationStrategy.HEAD);
+
+        assertThat(TEXT).startsWith(head);
+        assertThat(counter.count(head)).isLessThanOrEqualTo(100);
+        assertThat(counter.count(TEXT.substring(0, head.length() + 1))).isGreaterThan(100);
+    }
+
+    @Test
+    void shouldKeepTheLongestTailThatFits() {
+        String tail = TokenTruncator.truncate(counter, TEXT, 100, TruncationStrategy.TAIL);
+
+        assertThat(TEXT).endsWith(tail);
+        assertThat(counter.count(tail)).isLessThanOrEqualTo(100);
+        assertThat(counter.count(TEXT.substring(TEXT.length() - tail.length() - 1))).isGreaterThan(100);
+    }
+
+    @Test
+    void shouldKeepHeadAndTailAroundTheElision() {
+        String kept = TokenTruncator.truncate(counter, TEXT, 100, TruncationStrategy.HEAD_AND_TAIL);
+
+        assertThat(kept).contains(TruncationStrategy.ELISION);
+        String head = kept.substring(0, kept.indexOf(TruncationStrategy.ELISION));
+        String tail = kept.substring(kept.indexOf(TruncationStrategy.ELISION) + TruncationStrategy.ELISION.length());
+        assertThat(TEXT).startsWith(head).endsWith(tail);
+        assertThat(counter.count(kept)).isLessThanOrEqualTo(100).isGreaterThan(90);
+    }
+
+    @Test
+    void shouldKeepTextThatAlreadyFits() {
+        assertThat(TokenTruncator.truncate(counter, "short", 100, TruncationStrategy.HEAD_AND_TAIL))
+                .isEqualTo("short");
+    }
+
+    @Test
+    void shouldNotSplitSurrogatePairs() {
+        String emoji = "🦊".repeat(200);
+
+        for (int limit = 1; limit < 40; limit++) {
+            String head = TokenTruncator.truncate(counter, emoji, limit, TruncationStrategy.HEAD);
+            String tail = TokenTruncator.truncate(counter, emoji, limit, TruncationStrategy.TAIL);
+
+            assertThat(head.length() % 2).isZero();
+            assertThat(tail.length() % 2).isZero();
+        }
+    }
+
+    @Test
+    void shouldTruncateAFileLikeItsText() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("text.txt"), TEXT);
+
+        for (TruncationStrategy strategy : new TruncationStrategy[] {
+            TruncationStrategy.HEAD, TruncationStrategy.TAIL, TruncationStrategy.HEAD_AND_TAIL
+        }) {
+            assertThat(TokenTruncator.truncate(counter, file, 100, strategy, false))
+                    .as(strategy.name())
+                    .isEqualTo(TokenTruncator.truncate(counter, TEXT, 100, strategy));
+        }
+    }
+
+    @Test
+    void shouldReadOnlyTheEndsOfALargeFile() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("large.txt"), TEXT.repeat(20));
+        AtomicInteger longestCounted = new AtomicInteger();
+        TokenCounter recording = new TokenCounter() {
+            @Override
+            public int count(String text) {
+                longestCounted.accumulateAndGet(text.length(), Math::max);
+                return counter.count(text);
+            }
+
+            @Override
+            public int count(Path path) throws IOException {
+                return count(Files.readString(path));
+            }
+
+            @Override
+            public String getEncodingName() {
+                return counter.getEncodingName();
+            }
+        };
+
+        String kept = TokenTruncator.truncate(recording, file, 100, TruncationStrategy.HEAD_AND_TAIL, true);
+
+        assertThat(kept)
+                .isEqualTo(TokenTruncator.truncate(counter, TEXT.repeat(20), 100, TruncationStrategy.HEAD_AND_TAIL));
+        assertThat(longestCounted.get()).isLessThanOrEqualTo(100 * 4 * 2);
+    }
+
+    @Test
+    void shouldWidenTheWindowWhileTheKeptPartFillsIt() throws IOException {
+        String sparse = ("-".repeat(64) + "\n").repeat(500);
+        Path file = Files.writeString(tempDir.resolve("sparse.txt"), sparse);
+
+        String head = TokenTruncator.truncate(counter, file, 10, TruncationStrategy.HEAD, true);
+
+        assertThat(head).hasSizeGreaterThan(10 * 4 * 2);
+        assertThat(head).isEqualTo(TokenTruncator.truncate(counter, sparse, 10, TruncationStrategy.HEAD));
+    }
+}
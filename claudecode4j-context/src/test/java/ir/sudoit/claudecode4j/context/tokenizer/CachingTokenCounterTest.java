@@ -0,0 +1,154 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.context.tokenizer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ir.sudoit.claudecode4j.context.spi.TokenCounter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CachingTokenCounterTest {
+
+    private final AtomicInteger delegateCalls = new AtomicInteger();
+    private final TokenCounter delegate = new TokenCounter() {
+        @Override
+        public int count(String text) {
+            return text.length();
+        }
+
+        @Override
+        public int count(Path file) throws IOException {
+            delegateCalls.incrementAndGet();
+            return Files.readString(file).length();
+        }
+
+        @Override
+        public String getEncodingName() {
+            return "length";
+        }
+    };
+
+    @TempDir
+    Path tempDir;
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = tempDir.resolve("a.txt");
+        Files.writeString(file, "some content");
+    }
+
+    @Test
+    void shouldCountUnchangedFileOnce() throws IOException {
+        CachingTokenCounter counter = new CachingTokenCounter(delegate);
+
+        assertThat(counter.count(file)).isEqualTo(12);
+        assertThat(counter.count(file)).isEqualTo(12);
+        assertThat(delegateCalls).hasValue(1);
+    }
+
+    @Test
+    void shouldReuseCountForSameContentAtAnotherPathOrTime() throws IOException {
+        CachingTokenCounter counter = new CachingTokenCounter(delegate);
+        Path copy = Files.copy(file, tempDir.resolve("b.txt"));
+
+        counter.count(file);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(60)));
+
+        assertThat(counter.count(copy)).isEqualTo(12);
+        assertThat(counter.count(file)).isEqualTo(12);
+        assertThat(delegateCalls).hasValue(1);
+    }
+
+    @Test
+    void shouldRecountChangedContent() throws IOException {
+        CachingTokenCounter counter = new CachingTokenCounter(delegate);
+        counter.count(file);
+
+        Files.writeString(file, "other");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(60)));
+
+        assertThat(counter.count(file)).isEqualTo(5);
+        assertThat(delegateCalls).hasValue(2);
+    }
+
+    @Test
+    void shouldRecountChangedContentOfTheSameSize() throws IOException {
+        CachingTokenCounter counter = new CachingTokenCounter(delegate);
+        counter.count(file);
+
+        Files.writeString(file, "some_content");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(60)));
+        counter.count(file);
+
+        assertThat(delegateCalls).hasValue(2);
+        assertThat(counter.cacheSize()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedEntries() throws IOException {
+        CachingTokenCounter counter = new CachingTokenCounter(delegate, 2, null);
+        for (int i = 0; i < 5; i++) {
+            Path other = tempDir.resolve("file" + i + ".txt");
+            Files.writeString(other, "content " + i);
+            counter.count(other);
+        }
+
+        assertThat(counter.cacheSize()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldLoadPersistedCountsOnStartup() throws IOException {
+        Path cacheFile = tempDir.resolve("cache/tokens.bin");
+        try (CachingTokenCounter counter = new CachingTokenCounter(delegate, 100, cacheFile)) {
+            counter.count(file);
+        }
+
+        CachingTokenCounter restarted = new CachingTokenCounter(delegate, 100, cacheFile);
+
+        assertThat(restarted.cacheSize()).isEqualTo(1);
+        assertThat(restarted.count(file)).isEqualTo(12);
+        assertThat(delegateCalls).hasValue(1);
+    }
+
+    @Test
+    void shouldIgnoreUnreadableCacheFile() throws IOException {
+        Path cacheFile = tempDir.resolve("tokens.bin");
+        Files.writeString(cacheFile, "garbage");
+
+        CachingTokenCounter counter = new CachingTokenCounter(delegate, 100, cacheFile);
+
+        assertThat(counter.cacheSize()).isZero();
+        assertThat(counter.count(file)).isEqualTo(12);
+    }
+}
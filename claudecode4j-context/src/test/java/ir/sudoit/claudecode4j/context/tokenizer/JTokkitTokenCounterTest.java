@@ -94,6 +94,53 @@ class JTokkitTokenCounterTest {
         assertThat(count).isGreaterThan(1000);
     }
 
+    @Test
+    void shouldCountLargeFileExactlyAcrossChunks() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            sb.append("line ").append(i).append(": don't split\t  words, numbers 12345 or émojis 🎉\n");
+        }
+        Path file = tempDir.resolve("large.txt");
+        Files.writeString(file, sb);
+
+        assertThat(Files.size(file)).isGreaterThan(JTokkitTokenCounter.CHUNK_SIZE * 10L);
+        assertThat(tokenCounter.count(file)).isEqualTo(tokenCounter.count(sb.toString()));
+    }
+
+    @Test
+    void shouldCountSingleLineFilesExactlyAcrossChunks() throws IOException {
+        String spaced = "lorem ipsum dolor sit amet ".repeat(20000);
+        String unbroken = "0123456789abcdef;".repeat(20000);
+        Path spacedFile = tempDir.resolve("spaced.txt");
+        Path unbrokenFile = tempDir.resolve("unbroken.txt");
+        Files.writeString(spacedFile, spaced);
+        Files.writeString(unbrokenFile, unbroken);
+
+        assertThat(tokenCounter.count(spacedFile)).isEqualTo(tokenCounter.count(spaced));
+        assertThat(tokenCounter.count(unbrokenFile)).isEqualTo(tokenCounter.count(unbroken));
+    }
+
+    @Test
+    void shouldStopCountingOnceLimitIsExceeded() throws IOException {
+        String text = "This is sentence number one.\n".repeat(50000);
+        Path file = tempDir.resolve("large.txt");
+        Files.writeString(file, text);
+        int fullCount = tokenCounter.count(text);
+
+        int partialCount = tokenCounter.countUpTo(file, 100);
+
+        assertThat(partialCount).isGreaterThan(100).isLessThan(fullCount);
+        assertThat(tokenCounter.countUpTo(file, fullCount)).isEqualTo(fullCount);
+    }
+
+    @Test
+    void shouldReplaceMalformedInput() throws IOException {
+        Path file = tempDir.resolve("latin1.txt");
+        Files.write(file, new byte[] {'c', 'a', 'f', (byte) 0xE9, ' ', 'o', 'k'});
+
+        assertThat(tokenCounter.count(file)).isPositive();
+    }
+
     @Test
     void shouldHaveDefaultPriority() {
         assertThat(tokenCounter.priority()).isEqualTo(10);
@@ -0,0 +1,122 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.context.tokenizer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ir.sudoit.claudecode4j.context.model.TokenEstimate;
+import ir.sudoit.claudecode4j.context.spi.TokenCounter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TieredTokenCounterTest {
+
+    private final AtomicInteger delegateCalls = new AtomicInteger();
+    private final TokenCounter delegate = new TokenCounter() {
+        @Override
+        public int count(String text) {
+            return text.length() / 4;
+        }
+
+        @Override
+        public int count(Path file) throws IOException {
+            delegateCalls.incrementAndGet();
+            return (int) (Files.size(file) / 4);
+        }
+
+        @Override
+        public String getEncodingName() {
+            return "quarter";
+        }
+    };
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldBoundFilesFarBelowTheLimitWithoutCounting() throws IOException {
+        TieredTokenCounter counter = new TieredTokenCounter(delegate);
+
+        assertThat(counter.estimate(write("small.txt", 300), 1000)).isEqualTo(new TokenEstimate(3, 900));
+        assertThat(delegateCalls).hasValue(0);
+    }
+
+    @Test
+    void shouldBoundFilesFarAboveTheLimitWithoutCounting() throws IOException {
+        TieredTokenCounter counter = new TieredTokenCounter(delegate);
+
+        TokenEstimate estimate = counter.estimate(write("large.txt", 200_000), 1000);
+
+        assertThat(estimate).isEqualTo(new TokenEstimate(1563, 600_000));
+        assertThat(delegateCalls).hasValue(0);
+    }
+
+    @Test
+    void shouldCountExactlyWhenBoundsStraddleTheLimit() throws IOException {
+        TieredTokenCounter counter = new TieredTokenCounter(delegate);
+        Path file = write("near.txt", 4000);
+
+        assertThat(counter.estimate(file, 1000)).isEqualTo(TokenEstimate.exact(1000));
+        assertThat(counter.estimate(file, 990)).isEqualTo(TokenEstimate.above(990));
+        assertThat(delegateCalls).hasValue(2);
+    }
+
+    @Test
+    void shouldUseTheGivenLongestToken() throws IOException {
+        TieredTokenCounter counter = new TieredTokenCounter(delegate, 4);
+
+        assertThat(counter.estimate(write("large.txt", 8000), 1000)).isEqualTo(new TokenEstimate(2000, 24_000));
+        assertThat(delegateCalls).hasValue(0);
+    }
+
+    @Test
+    void shouldHoldItsBoundsForJTokkitCounts() throws IOException {
+        TieredTokenCounter counter = new TieredTokenCounter(new JTokkitTokenCounter());
+        Path malformed = Files.write(tempDir.resolve("malformed.bin"), new byte[] {(byte) 0xff, (byte) 0xfe, 'a'});
+        Path repeated = write("repeated.txt", 5000);
+        Path prose = Files.writeString(tempDir.resolve("prose.txt"), "The quick brown fox jumps. ".repeat(50));
+
+        for (Path file : new Path[] {malformed, repeated, prose}) {
+            int tokens = counter.count(file);
+            TokenEstimate estimate = counter.estimate(file, Integer.MAX_VALUE);
+            assertThat(tokens).isBetween(estimate.low(), estimate.high());
+        }
+    }
+
+    @Test
+    void shouldEstimateEmptyFilesExactly() throws IOException {
+        TieredTokenCounter counter = new TieredTokenCounter(delegate);
+
+        assertThat(counter.estimate(write("empty.txt", 0), 0)).isEqualTo(TokenEstimate.exact(0));
+        assertThat(delegateCalls).hasValue(0);
+    }
+
+    private Path write(String name, int bytes) throws IOException {
+        return Files.writeString(tempDir.resolve(name), "x".repeat(bytes));
+    }
+}
@@ -26,23 +26,32 @@ package ir.sudoit.claudecode4j.core.client;
 import ir.sudoit.claudecode4j.api.client.ClaudeClient;
 import ir.sudoit.claudecode4j.api.client.ClaudeSession;
 import ir.sudoit.claudecode4j.api.config.ClaudeConfig;
+import ir.sudoit.claudecode4j.api.config.HistoryRetention;
 import ir.sudoit.claudecode4j.api.exception.ClaudeExecutionException;
 import ir.sudoit.claudecode4j.api.exception.ClaudeTimeoutException;
 import ir.sudoit.claudecode4j.api.model.request.Prompt;
 import ir.sudoit.claudecode4j.api.model.request.PromptOptions;
 import ir.sudoit.claudecode4j.api.model.response.ClaudeResponse;
+import ir.sudoit.claudecode4j.api.model.response.ErrorResponse;
 import ir.sudoit.claudecode4j.api.model.response.StreamEvent;
+import ir.sudoit.claudecode4j.api.model.response.StreamResponse;
+import ir.sudoit.claudecode4j.api.model.response.TextResponse;
 import ir.sudoit.claudecode4j.api.spi.InputSanitizer;
 import ir.sudoit.claudecode4j.api.spi.OutputParser;
 import ir.sudoit.claudecode4j.api.spi.ProcessExecutor;
+import ir.sudoit.claudecode4j.core.metrics.ExecutionTrace;
+import ir.sudoit.claudecode4j.core.metrics.PhaseMetrics;
 import ir.sudoit.claudecode4j.core.process.ClaudeCommandBuilder;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Flow;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.SubmissionPublisher;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Default implementation of {@link ClaudeClient} that wraps the Claude CLI.
@@ -54,7 +63,11 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * clustered deployments with multiple JVM instances, external rate limiting solutions should be used (e.g., Redis-based
  * distributed rate limiting, API Gateway throttling, or database-backed semaphores).
  *
+ * <p>Every execution is timed phase by phase into {@link #phaseMetrics()}: admission wait, process spawn, first byte,
+ * first assistant token, parse time, total time and output tokens per second.
+ *
  * @see ClaudeConfig#concurrencyLimit()
+ * @see PhaseMetrics
  */
 public final class DefaultClaudeClient implements ClaudeClient {
 
@@ -64,6 +77,7 @@ public final class DefaultClaudeClient implements ClaudeClient {
     private final OutputParser parser;
     private final ProcessExecutor executor;
     private final Semaphore concurrencyLimiter;
+    private final PhaseMetrics phaseMetrics;
     private final AtomicBoolean closed = new AtomicBoolean(false);
 
     public DefaultClaudeClient(
@@ -72,14 +86,34 @@ public final class DefaultClaudeClient implements ClaudeClient {
             InputSanitizer sanitizer,
             OutputParser parser,
             ProcessExecutor executor) {
+        this(config, binaryPath, sanitizer, parser, executor, new PhaseMetrics());
+    }
+
+    public DefaultClaudeClient(
+            ClaudeConfig config,
+            Path binaryPath,
+            InputSanitizer sanitizer,
+            OutputParser parser,
+            ProcessExecutor executor,
+            PhaseMetrics phaseMetrics) {
         this.config = config;
         this.binaryPath = binaryPath;
         this.sanitizer = sanitizer;
         this.parser = parser;
         this.executor = executor;
+        this.phaseMetrics = phaseMetrics;
         this.concurrencyLimiter = new Semaphore(config.concurrencyLimit(), true);
     }
 
+    /**
+     * Returns the per-phase latency histograms of this client's executions.
+     *
+     * @return the phase metrics
+     */
+    public PhaseMetrics phaseMetrics() {
+        return phaseMetrics;
+    }
+
     @Override
     public ClaudeResponse execute(Prompt prompt) {
         return execute(prompt, PromptOptions.defaults());
@@ -95,24 +129,39 @@ public final class DefaultClaudeClient implements ClaudeClient {
                 .options(effectiveOptions)
                 .buildWithStdin();
 
+        var trace = phaseMetrics.startTrace();
         try {
             concurrencyLimiter.acquire();
+            trace.admitted();
             try {
                 var timeout = effectiveOptions.timeout() != null ? effectiveOptions.timeout() : config.defaultTimeout();
-                var result = executor.execute(
-                        commandWithStdin.command(), resolveWorkingDir(prompt), timeout, commandWithStdin.stdinInput());
+                var stdinSource = commandWithStdin.stdinSource();
+                var result = trace.call(() -> stdinSource != null
+                        ? executor.executeWithStdin(
+                                commandWithStdin.command(), resolveWorkingDir(prompt), timeout, stdinSource)
+                        : executor.execute(
+                                commandWithStdin.command(),
+                                resolveWorkingDir(prompt),
+                                timeout,
+                                commandWithStdin.stdinInput()));
 
                 if (result.exitCode() == -1 && result.stderr().contains("Timeout")) {
                     throw new ClaudeTimeoutException(timeout);
                 }
 
-                return parser.parse(result.stdout(), result.exitCode());
+                var parseStartedAt = System.nanoTime();
+                var response = withStderr(parser.parse(result.stdout(), result.exitCode()), result.stderr());
+                trace.parsed(parseStartedAt);
+                recordOutputTokens(trace, response);
+                return response;
             } finally {
                 concurrencyLimiter.release();
             }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new ClaudeExecutionException(-1, "Interrupted", e);
+        } finally {
+            trace.complete();
         }
     }
 
@@ -143,31 +192,51 @@ public final class DefaultClaudeClient implements ClaudeClient {
                 .buildWithStdin();
 
         var publisher = new SubmissionPublisher<StreamEvent>();
+        var trace = phaseMetrics.startTrace();
 
         Thread.ofVirtual().start(() -> {
             try {
                 concurrencyLimiter.acquire();
+                trace.admitted();
                 try {
                     var timeout =
                             effectiveOptions.timeout() != null ? effectiveOptions.timeout() : config.defaultTimeout();
 
-                    executor.executeStreaming(
-                                    commandWithStdin.command(),
-                                    resolveWorkingDir(prompt),
-                                    line -> parser.parseStream(java.util.stream.Stream.of(line))
-                                            .forEach(publisher::submit),
-                                    timeout,
-                                    commandWithStdin.stdinInput())
-                            .join();
+                    Consumer<String> onLine = line -> {
+                        var parseStartedAt = System.nanoTime();
+                        var events = parser.parseStream(Stream.of(line), trace::outputTokens).toList();
+                        trace.parsed(parseStartedAt);
+                        events.forEach(publisher::submit);
+                    };
+                    var stdinSource = commandWithStdin.stdinSource();
+                    trace.call(() -> (stdinSource != null
+                                    ? executor.executeStreamingWithStdin(
+                                            commandWithStdin.command(),
+                                            resolveWorkingDir(prompt),
+                                            onLine,
+                                            timeout,
+                                            stdinSource)
+                                    : executor.executeStreaming(
+                                            commandWithStdin.command(),
+                                            resolveWorkingDir(prompt),
+                                            onLine,
+                                            timeout,
+                                            commandWithStdin.stdinInput()))
+                            .join());
+                    publisher.close();
                 } finally {
                     concurrencyLimiter.release();
-                    publisher.close();
                 }
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 publisher.closeExceptionally(new ClaudeExecutionException(-1, "Interrupted", e));
+            } catch (CompletionException e) {
+                // e.g. a SecurityException from a prompt source rejected while it was streamed
+                publisher.closeExceptionally(e.getCause());
             } catch (Exception e) {
                 publisher.closeExceptionally(e);
+            } finally {
+                trace.complete();
             }
         });
 
@@ -176,8 +245,18 @@ public final class DefaultClaudeClient implements ClaudeClient {
 
     @Override
     public ClaudeSession createSession() {
+        return createSession(config.historyRetention());
+    }
+
+    /**
+     * Creates a session keeping history as {@code retention} specifies, rather than as configured.
+     *
+     * @param retention the session's history retention
+     * @return the session
+     */
+    public ClaudeSession createSession(HistoryRetention retention) {
         ensureOpen();
-        return new DefaultClaudeSession(this);
+        return new DefaultClaudeSession(this, retention);
     }
 
     @Override
@@ -217,6 +296,33 @@ public final class DefaultClaudeClient implements ClaudeClient {
         }
     }
 
+    /**
+     * Appends the CLI's stderr to the details of an error response. The parser only sees stdout, but the CLI reports
+     * some failures, such as a {@code --resume} of an unknown session, on stderr alone.
+     */
+    private static ClaudeResponse withStderr(ClaudeResponse response, String stderr) {
+        if (!(response instanceof ErrorResponse error) || stderr.isBlank()) {
+            return response;
+        }
+        var details = error.errorDetails() == null || error.errorDetails().isBlank()
+                ? stderr
+                : error.errorDetails() + System.lineSeparator() + stderr;
+        return new ErrorResponse(
+                error.content(), error.timestamp(), error.duration(), error.errorCode(), details, error.exitCode());
+    }
+
+    private static void recordOutputTokens(ExecutionTrace trace, ClaudeResponse response) {
+        var tokens =
+                switch (response) {
+                    case TextResponse text -> text.outputTokens();
+                    case StreamResponse stream -> stream.outputTokens();
+                    case ErrorResponse _ -> null;
+                };
+        if (tokens != null) {
+            trace.outputTokens(tokens);
+        }
+    }
+
     private Path resolveWorkingDir(Prompt prompt) {
         return prompt.workingDirectory() != null ? prompt.workingDirectory() : Path.of(System.getProperty("user.dir"));
     }
@@ -233,6 +339,7 @@ public final class DefaultClaudeClient implements ClaudeClient {
                     .maxTurns(options.maxTurns())
                     .allowedTools(options.allowedTools())
                     .disallowedTools(options.disallowedTools())
+                    .resumeSessionId(options.resumeSessionId())
                     .build();
         }
         return options;
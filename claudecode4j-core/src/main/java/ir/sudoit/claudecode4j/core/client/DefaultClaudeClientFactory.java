@@ -34,7 +34,7 @@ import ir.sudoit.claudecode4j.api.spi.ProcessExecutor;
 import ir.sudoit.claudecode4j.core.parser.JacksonStreamParser;
 import ir.sudoit.claudecode4j.core.process.VirtualThreadExecutor;
 import ir.sudoit.claudecode4j.core.resolver.CompositeBinaryResolver;
-import ir.sudoit.claudecode4j.core.security.DefaultInputSanitizer;
+import ir.sudoit.claudecode4j.core.security.ScanningInputSanitizer;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.ServiceLoader;
@@ -93,7 +93,7 @@ public final class DefaultClaudeClientFactory implements ClaudeClientFactory {
         return ServiceLoader.load(InputSanitizer.class).stream()
                 .map(ServiceLoader.Provider::get)
                 .max((a, b) -> Integer.compare(a.priority(), b.priority()))
-                .orElseGet(DefaultInputSanitizer::new);
+                .orElseGet(ScanningInputSanitizer::new);
     }
 
     private OutputParser loadParser() {
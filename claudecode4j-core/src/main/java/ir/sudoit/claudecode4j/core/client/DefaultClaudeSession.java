@@ -24,11 +24,18 @@
 package ir.sudoit.claudecode4j.core.client;
 
 import ir.sudoit.claudecode4j.api.client.ClaudeSession;
+import ir.sudoit.claudecode4j.api.config.HistoryRetention;
 import ir.sudoit.claudecode4j.api.model.request.Prompt;
 import ir.sudoit.claudecode4j.api.model.request.PromptOptions;
 import ir.sudoit.claudecode4j.api.model.response.ClaudeResponse;
+import ir.sudoit.claudecode4j.api.model.response.ErrorResponse;
+import ir.sudoit.claudecode4j.api.model.response.StreamResponse;
+import ir.sudoit.claudecode4j.api.model.response.TextResponse;
+import ir.sudoit.claudecode4j.api.session.SessionData;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
@@ -37,20 +44,55 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantLock;
 import org.jspecify.annotations.Nullable;
 
+/**
+ * Conversation with the Claude CLI.
+ *
+ * <p>The first turn starts a CLI session; its {@code session_id} is taken from the result and later turns pass it to
+ * {@code --resume}, so the CLI keeps the conversation context and each turn sends only the new message. If the CLI
+ * reports that it no longer has the resumed session, the turn is retried in a fresh session; any other error is
+ * returned as is, since the failed turn may already have had side effects. Turns are serialised so that each one
+ * continues the previous.
+ *
+ * <p>The history held in memory follows the session's {@link HistoryRetention}: a ring of the last turns, optionally
+ * summarised without raw stream events, with older turns optionally appended to a session store. Dropped turns are
+ * appended {@value #SPILL_BATCH} at a time on a virtual thread, off the send path, and the rest when the session is
+ * closed.
+ */
 public final class DefaultClaudeSession implements ClaudeSession {
 
+    private static final System.Logger log = System.getLogger(DefaultClaudeSession.class.getName());
+    // Printed by the CLI when --resume names a session it does not have
+    private static final String UNKNOWN_SESSION = "No conversation found";
+    // Each spill loads and rewrites the whole spilled history, so dropped turns are appended in batches
+    private static final int SPILL_BATCH = 16;
+
     private final DefaultClaudeClient client;
     private final String sessionId;
-    private final List<ClaudeResponse> conversationHistory;
+    private final HistoryRetention retention;
+    // Guarded by lock
+    private final ArrayDeque<Turn> conversationHistory = new ArrayDeque<>();
     private final Set<CompletableFuture<ClaudeResponse>> pendingOperations = ConcurrentHashMap.newKeySet();
     private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantLock turnLock = new ReentrantLock();
+    // Dropped turns not yet handed to a spill; guarded by lock
+    private final List<Turn> spillBuffer = new ArrayList<>();
+    // Completes when every batch handed off so far is spilled; batches are chained so they append in order
+    private CompletableFuture<Void> spilled = CompletableFuture.completedFuture(null);
     private @Nullable String systemPrompt;
+    private volatile @Nullable String cliSessionId;
     private volatile boolean closed = false;
 
+    /** A prompt and the response kept for it. */
+    private record Turn(String prompt, ClaudeResponse response) {}
+
     DefaultClaudeSession(DefaultClaudeClient client) {
+        this(client, HistoryRetention.unbounded());
+    }
+
+    DefaultClaudeSession(DefaultClaudeClient client, HistoryRetention retention) {
         this.client = client;
+        this.retention = retention;
         this.sessionId = UUID.randomUUID().toString();
-        this.conversationHistory = new ArrayList<>();
     }
 
     @Override
@@ -58,6 +100,11 @@ public final class DefaultClaudeSession implements ClaudeSession {
         return sessionId;
     }
 
+    /** Returns the CLI session the next turn resumes, or {@code null} before the first successful turn. */
+    public @Nullable String cliSessionId() {
+        return cliSessionId;
+    }
+
     @Override
     public ClaudeResponse send(String message) {
         return send(message, PromptOptions.defaults());
@@ -68,16 +115,14 @@ public final class DefaultClaudeSession implements ClaudeSession {
         ensureOpen();
         var prompt = Prompt.builder().text(message).systemPrompt(systemPrompt).build();
 
-        var response = client.execute(prompt, options);
-
-        lock.lock();
+        turnLock.lock();
         try {
-            conversationHistory.add(response);
+            var response = execute(prompt, options);
+            record(message, response);
+            return response;
         } finally {
-            lock.unlock();
+            turnLock.unlock();
         }
-
-        return response;
     }
 
     @Override
@@ -97,17 +142,23 @@ public final class DefaultClaudeSession implements ClaudeSession {
     public List<ClaudeResponse> history() {
         lock.lock();
         try {
-            return Collections.unmodifiableList(new ArrayList<>(conversationHistory));
+            var responses = new ArrayList<ClaudeResponse>(conversationHistory.size());
+            for (var turn : conversationHistory) {
+                responses.add(turn.response());
+            }
+            return List.copyOf(responses);
         } finally {
             lock.unlock();
         }
     }
 
+    /** Clears the history and starts a new CLI session on the next turn. */
     @Override
     public void clearHistory() {
         lock.lock();
         try {
             conversationHistory.clear();
+            cliSessionId = null;
         } finally {
             lock.unlock();
         }
@@ -134,6 +185,145 @@ public final class DefaultClaudeSession implements ClaudeSession {
         pendingOperations.clear();
 
         clearHistory();
+        lock.lock();
+        CompletableFuture<Void> pendingSpills;
+        try {
+            spillBuffered();
+            pendingSpills = spilled;
+        } finally {
+            lock.unlock();
+        }
+        // spill() logs its own failures
+        pendingSpills.join();
+    }
+
+    /** Adds a turn to the history and spills the turns it displaces; the caller holds {@link #turnLock}. */
+    private void record(String message, ClaudeResponse response) {
+        var kept = retention.summarize() ? summarize(response) : response;
+        lock.lock();
+        try {
+            conversationHistory.addLast(new Turn(message, kept));
+            while (conversationHistory.size() > retention.maxTurns()) {
+                var dropped = conversationHistory.removeFirst();
+                if (retention.spillStore() != null) {
+                    spillBuffer.add(dropped);
+                }
+            }
+            if (spillBuffer.size() >= SPILL_BATCH) {
+                spillBuffered();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Hands the buffered turns to a background spill after the ones already handed off; the caller holds lock. */
+    private void spillBuffered() {
+        if (spillBuffer.isEmpty()) {
+            return;
+        }
+        var batch = List.copyOf(spillBuffer);
+        spillBuffer.clear();
+        spilled = spilled.thenRunAsync(() -> spill(batch), runnable -> Thread.ofVirtual().start(runnable));
+    }
+
+    private void spill(List<Turn> turns) {
+        var store = retention.spillStore();
+        try {
+            var stored = store.load(sessionId).orElseGet(() -> SessionData.create(sessionId));
+            var history = new ArrayList<>(stored.history());
+            for (var turn : turns) {
+                var response = turn.response();
+                var usage =
+                        switch (response) {
+                            case TextResponse text -> text.tokensUsed();
+                            case StreamResponse stream -> stream.tokensUsed();
+                            case ErrorResponse _ -> null;
+                        };
+                var model =
+                        switch (response) {
+                            case TextResponse text -> text.model();
+                            case StreamResponse stream -> stream.model();
+                            case ErrorResponse _ -> null;
+                        };
+                history.add(new SessionData.ConversationEntry(
+                        turn.prompt(), response.content(), response.timestamp(), model, usage));
+            }
+            store.save(new SessionData(
+                    sessionId, systemPrompt, history, stored.metadata(), stored.createdAt(), Instant.now()));
+        } catch (IOException | RuntimeException e) {
+            log.log(
+                    System.Logger.Level.WARNING,
+                    "Dropped {0} turns of session {1} that could not be spilled: {2}",
+                    turns.size(),
+                    sessionId,
+                    e.getMessage());
+        }
+    }
+
+    private static ClaudeResponse summarize(ClaudeResponse response) {
+        if (response instanceof StreamResponse stream && !stream.events().isEmpty()) {
+            return new StreamResponse(
+                    stream.content(),
+                    stream.timestamp(),
+                    stream.duration(),
+                    List.of(),
+                    stream.model(),
+                    stream.tokensUsed(),
+                    stream.sessionId(),
+                    stream.outputTokens());
+        }
+        return response;
+    }
+
+    private ClaudeResponse execute(Prompt prompt, PromptOptions options) {
+        var resumeId = cliSessionId;
+        if (resumeId == null || options.resumeSessionId() != null) {
+            return remember(client.execute(prompt, options));
+        }
+        var response = client.execute(prompt, resuming(options, resumeId));
+        if (response instanceof ErrorResponse error && isUnknownSession(error)) {
+            log.log(
+                    System.Logger.Level.DEBUG,
+                    "CLI session {0} no longer exists, starting a new one: {1}",
+                    resumeId,
+                    error.content());
+            cliSessionId = null;
+            response = client.execute(prompt, options);
+        }
+        return remember(response);
+    }
+
+    private static boolean isUnknownSession(ErrorResponse error) {
+        return error.content().contains(UNKNOWN_SESSION)
+                || (error.errorDetails() != null && error.errorDetails().contains(UNKNOWN_SESSION));
+    }
+
+    private ClaudeResponse remember(ClaudeResponse response) {
+        var id =
+                switch (response) {
+                    case TextResponse text -> text.sessionId();
+                    case StreamResponse stream -> stream.sessionId();
+                    case ErrorResponse _ -> null;
+                };
+        if (id != null) {
+            cliSessionId = id;
+        }
+        return response;
+    }
+
+    private static PromptOptions resuming(PromptOptions options, String resumeId) {
+        return new PromptOptions(
+                options.timeout(),
+                options.outputFormat(),
+                options.model(),
+                options.dangerouslySkipPermissions(),
+                options.permissionMode(),
+                options.printMode(),
+                options.maxTurns(),
+                options.allowedTools(),
+                options.disallowedTools(),
+                resumeId);
     }
 
     private void ensureOpen() {
@@ -0,0 +1,51 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.core.metrics;
+
+/**
+ * Phases of a single Claude CLI execution recorded by {@link PhaseMetrics}.
+ *
+ * <p>Process-relative phases are measured from the moment the process was spawned, so {@link #FIRST_BYTE} isolates CLI
+ * and Node startup and the difference between {@link #FIRST_TOKEN} and {@link #FIRST_BYTE} is model latency.
+ */
+public enum ExecutionPhase {
+
+    /** From the call until a concurrency permit was acquired. */
+    ADMISSION_WAIT,
+
+    /** Time spent starting the CLI process. */
+    PROCESS_SPAWN,
+
+    /** From process spawn until the first line of output. */
+    FIRST_BYTE,
+
+    /** From process spawn until the first assistant output, either plain text or a stream-json assistant message. */
+    FIRST_TOKEN,
+
+    /** From the call until the response was parsed or the stream completed, whatever the outcome. */
+    TOTAL,
+
+    /** Time spent parsing CLI output; for streams, the sum over all lines. */
+    PARSE
+}
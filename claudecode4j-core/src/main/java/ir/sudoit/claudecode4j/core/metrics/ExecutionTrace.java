@@ -0,0 +1,175 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.core.metrics;
+
+import java.util.function.Supplier;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Timestamps of a single execution, reported to {@link PhaseMetrics} when the execution completes.
+ *
+ * <p>The client creates a trace per call and binds it with {@link #call(Supplier)} while the {@code ProcessExecutor}
+ * runs, so executors (and decorators around them) can mark process milestones through {@link #current()} without any
+ * change to the SPI. Executors that do not know about traces simply leave the process-relative phases unrecorded.
+ *
+ * <p>Milestones may be marked from the executor's reader threads; they are read by {@link #complete()} after the
+ * executor has returned.
+ */
+public final class ExecutionTrace {
+
+    private static final ScopedValue<ExecutionTrace> CURRENT = ScopedValue.newInstance();
+    private static final String ASSISTANT_MESSAGE = "\"type\":\"assistant\"";
+
+    private final PhaseMetrics metrics;
+    private final long startedAt;
+    private long admittedAt;
+    private volatile long spawnStartedAt;
+    private volatile long spawnedAt;
+    private volatile long firstByteAt;
+    private volatile long firstTokenAt;
+    private volatile long exitedAt;
+    private volatile long parseNanos = -1;
+    private volatile int outputTokens;
+    private boolean completed;
+
+    ExecutionTrace(PhaseMetrics metrics) {
+        this.metrics = metrics;
+        this.startedAt = System.nanoTime();
+    }
+
+    /**
+     * Returns the trace bound to the current execution.
+     *
+     * @return the current trace, or {@code null} when not called from within {@link #call(Supplier)}
+     */
+    public static @Nullable ExecutionTrace current() {
+        return CURRENT.isBound() ? CURRENT.get() : null;
+    }
+
+    /**
+     * Runs the action with this trace bound as {@link #current()}.
+     *
+     * @param action the action, typically a call into the process executor
+     * @param <T> the result type
+     * @return the action's result
+     */
+    public <T> T call(Supplier<T> action) {
+        return ScopedValue.where(CURRENT, this).call(action::get);
+    }
+
+    /** Marks that a concurrency permit was acquired. */
+    public void admitted() {
+        admittedAt = System.nanoTime();
+    }
+
+    /** Marks that the process is about to be started. */
+    public void spawning() {
+        spawnStartedAt = System.nanoTime();
+    }
+
+    /** Marks that the process has started. */
+    public void spawned() {
+        spawnedAt = System.nanoTime();
+    }
+
+    /**
+     * Observes a line of process output, marking the first byte and the first assistant output.
+     *
+     * @param line the output line
+     */
+    public void outputLine(String line) {
+        if (firstTokenAt != 0) {
+            return;
+        }
+        var now = System.nanoTime();
+        if (firstByteAt == 0) {
+            firstByteAt = now;
+        }
+        if (isAssistantOutput(line)) {
+            firstTokenAt = now;
+        }
+    }
+
+    /** Marks that the process has exited. */
+    public void exited() {
+        exitedAt = System.nanoTime();
+    }
+
+    /**
+     * Adds the time spent parsing since {@code parseStartedAt}.
+     *
+     * @param parseStartedAt the {@link System#nanoTime()} at which parsing started
+     */
+    public void parsed(long parseStartedAt) {
+        var elapsed = System.nanoTime() - parseStartedAt;
+        parseNanos = parseNanos < 0 ? elapsed : parseNanos + elapsed;
+    }
+
+    /**
+     * Sets the number of tokens the model generated, used to derive the output rate.
+     *
+     * @param outputTokens the output token count reported by the CLI
+     */
+    public void outputTokens(int outputTokens) {
+        this.outputTokens = outputTokens;
+    }
+
+    /** Records every phase that was marked. Subsequent calls have no effect. */
+    public void complete() {
+        if (completed) {
+            return;
+        }
+        completed = true;
+        var now = System.nanoTime();
+
+        if (admittedAt != 0) {
+            metrics.record(ExecutionPhase.ADMISSION_WAIT, admittedAt - startedAt);
+        }
+        if (spawnStartedAt != 0 && spawnedAt != 0) {
+            metrics.record(ExecutionPhase.PROCESS_SPAWN, spawnedAt - spawnStartedAt);
+        }
+        if (spawnedAt != 0 && firstByteAt != 0) {
+            metrics.record(ExecutionPhase.FIRST_BYTE, firstByteAt - spawnedAt);
+        }
+        if (spawnedAt != 0 && firstTokenAt != 0) {
+            metrics.record(ExecutionPhase.FIRST_TOKEN, firstTokenAt - spawnedAt);
+        }
+        if (parseNanos >= 0) {
+            metrics.record(ExecutionPhase.PARSE, parseNanos);
+        }
+        metrics.record(ExecutionPhase.TOTAL, now - startedAt);
+
+        var generationStartedAt = firstTokenAt != 0 ? firstTokenAt : spawnedAt;
+        if (outputTokens > 0 && generationStartedAt != 0 && exitedAt > generationStartedAt) {
+            metrics.recordOutputRate(outputTokens * 1_000_000_000.0 / (exitedAt - generationStartedAt));
+        }
+    }
+
+    private static boolean isAssistantOutput(String line) {
+        if (line.isBlank()) {
+            return false;
+        }
+        return !line.stripLeading().startsWith("{") || line.contains(ASSISTANT_MESSAGE);
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.core.metrics;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * High-resolution latency histograms for each {@link ExecutionPhase}, plus the model's output rate.
+ *
+ * <p>Recording is lock-free and allocation-free: values go into an HdrHistogram {@link Recorder} per phase, and
+ * {@link Listener}s are kept in an array that is only copied when listeners change. Durations are stored in
+ * microseconds with two significant digits (1% precision) up to one hour; longer values are clamped.
+ *
+ * <p>Without Spring, read the histograms with {@link #snapshot()}. The Spring Boot starter registers a listener that
+ * forwards every recording to Micrometer.
+ */
+public final class PhaseMetrics {
+
+    private static final System.Logger log = System.getLogger(PhaseMetrics.class.getName());
+
+    private static final long HIGHEST_MICROS = TimeUnit.HOURS.toMicros(1);
+    private static final long HIGHEST_TOKENS_PER_SECOND = 1_000_000;
+    private static final int SIGNIFICANT_DIGITS = 2;
+    private static final ExecutionPhase[] PHASES = ExecutionPhase.values();
+    private static final Listener[] NO_LISTENERS = new Listener[0];
+
+    private final Recorder[] phaseRecorders = new Recorder[PHASES.length];
+    private final Histogram[] phaseTotals = new Histogram[PHASES.length];
+    private final Recorder outputRateRecorder = new Recorder(1, HIGHEST_TOKENS_PER_SECOND, SIGNIFICANT_DIGITS);
+    private final Histogram outputRateTotal = new Histogram(1, HIGHEST_TOKENS_PER_SECOND, SIGNIFICANT_DIGITS);
+    private final Histogram interval = new Histogram(1, HIGHEST_MICROS, SIGNIFICANT_DIGITS);
+    private final Histogram rateInterval = new Histogram(1, HIGHEST_TOKENS_PER_SECOND, SIGNIFICANT_DIGITS);
+    private volatile Listener[] listeners = NO_LISTENERS;
+
+    public PhaseMetrics() {
+        for (var phase : PHASES) {
+            phaseRecorders[phase.ordinal()] = new Recorder(1, HIGHEST_MICROS, SIGNIFICANT_DIGITS);
+            phaseTotals[phase.ordinal()] = new Histogram(1, HIGHEST_MICROS, SIGNIFICANT_DIGITS);
+        }
+    }
+
+    /**
+     * Starts timing a new execution. The trace's clock starts now.
+     *
+     * @return a trace reporting to these metrics
+     */
+    public ExecutionTrace startTrace() {
+        return new ExecutionTrace(this);
+    }
+
+    /**
+     * Records the duration of a phase.
+     *
+     * @param phase the phase
+     * @param nanos the duration in nanoseconds; negative values are ignored
+     */
+    public void record(ExecutionPhase phase, long nanos) {
+        if (nanos < 0) {
+            return;
+        }
+        phaseRecorders[phase.ordinal()].recordValue(Math.min(nanos / 1_000, HIGHEST_MICROS));
+        for (var listener : listeners) {
+            try {
+                listener.onPhase(phase, nanos);
+            } catch (RuntimeException e) {
+                log.log(System.Logger.Level.WARNING, "Phase metrics listener failed", e);
+            }
+        }
+    }
+
+    /**
+     * Records the rate at which the model generated output.
+     *
+     * @param tokensPerSecond output tokens per second
+     */
+    public void recordOutputRate(double tokensPerSecond) {
+        if (!(tokensPerSecond > 0)) {
+            return;
+        }
+        outputRateRecorder.recordValue(Math.min(Math.round(tokensPerSecond), HIGHEST_TOKENS_PER_SECOND));
+        for (var listener : listeners) {
+            try {
+                listener.onOutputRate(tokensPerSecond);
+            } catch (RuntimeException e) {
+                log.log(System.Logger.Level.WARNING, "Phase metrics listener failed", e);
+            }
+        }
+    }
+
+    /**
+     * Registers a listener notified of every recording on the recording thread.
+     *
+     * @param listener the listener; must be fast and must not block
+     */
+    public synchronized void addListener(Listener listener) {
+        var updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[updated.length - 1] = listener;
+        listeners = updated;
+    }
+
+    /**
+     * Removes a previously registered listener.
+     *
+     * @param listener the listener
+     */
+    public synchronized void removeListener(Listener listener) {
+        listeners = Arrays.stream(listeners).filter(l -> l != listener).toArray(Listener[]::new);
+    }
+
+    /**
+     * Returns statistics accumulated since these metrics were created or last {@linkplain #reset() reset}.
+     *
+     * @return a snapshot of every phase and of the output rate
+     */
+    public synchronized Snapshot snapshot() {
+        var phases = new EnumMap<ExecutionPhase, Statistics>(ExecutionPhase.class);
+        for (var phase : PHASES) {
+            var total = phaseTotals[phase.ordinal()];
+            phaseRecorders[phase.ordinal()].getIntervalHistogramInto(interval);
+            total.add(interval);
+            phases.put(phase, Statistics.of(total));
+        }
+        outputRateRecorder.getIntervalHistogramInto(rateInterval);
+        outputRateTotal.add(rateInterval);
+        return new Snapshot(Collections.unmodifiableMap(phases), Statistics.of(outputRateTotal));
+    }
+
+    /** Discards everything recorded so far. */
+    public synchronized void reset() {
+        for (var phase : PHASES) {
+            phaseRecorders[phase.ordinal()].reset();
+            phaseTotals[phase.ordinal()].reset();
+        }
+        outputRateRecorder.reset();
+        outputRateTotal.reset();
+    }
+
+    /** Receives every recording, e.g. to forward it to a metrics registry. */
+    public interface Listener {
+
+        /**
+         * Called when a phase duration is recorded.
+         *
+         * @param phase the phase
+         * @param nanos the duration in nanoseconds
+         */
+        void onPhase(ExecutionPhase phase, long nanos);
+
+        /**
+         * Called when an output rate is recorded.
+         *
+         * @param tokensPerSecond output tokens per second
+         */
+        default void onOutputRate(double tokensPerSecond) {}
+    }
+
+    /**
+     * Accumulated statistics.
+     *
+     * @param phases statistics per phase, in microseconds
+     * @param outputTokensPerSecond statistics of the output rate, in tokens per second
+     */
+    public record Snapshot(Map<ExecutionPhase, Statistics> phases, Statistics outputTokensPerSecond) {
+
+        /**
+         * Returns the statistics of one phase.
+         *
+         * @param phase the phase
+         * @return its statistics, in microseconds
+         */
+        public Statistics phase(ExecutionPhase phase) {
+            return phases.get(phase);
+        }
+    }
+
+    /**
+     * Summary of one histogram.
+     *
+     * @param count number of recorded values
+     * @param min smallest value
+     * @param mean arithmetic mean
+     * @param p50 median
+     * @param p90 90th percentile
+     * @param p99 99th percentile
+     * @param p999 99.9th percentile
+     * @param max largest value
+     */
+    public record Statistics(long count, long min, double mean, long p50, long p90, long p99, long p999, long max) {
+
+        static Statistics of(Histogram histogram) {
+            if (histogram.getTotalCount() == 0) {
+                return new Statistics(0, 0, 0, 0, 0, 0, 0, 0);
+            }
+            return new Statistics(
+                    histogram.getTotalCount(),
+                    histogram.getMinValue(),
+                    histogram.getMean(),
+                    histogram.getValueAtPercentile(50),
+                    histogram.getValueAtPercentile(90),
+                    histogram.getValueAtPercentile(99),
+                    histogram.getValueAtPercentile(99.9),
+                    histogram.getMaxValue());
+        }
+    }
+}
@@ -0,0 +1,4 @@
+@NullMarked
+package ir.sudoit.claudecode4j.core.metrics;
+
+import org.jspecify.annotations.NullMarked;
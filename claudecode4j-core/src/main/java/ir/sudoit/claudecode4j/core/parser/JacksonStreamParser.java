@@ -33,8 +33,10 @@ import ir.sudoit.claudecode4j.api.spi.OutputParser;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
 import java.util.stream.Stream;
 import org.jspecify.annotations.Nullable;
 import tools.jackson.databind.JsonNode;
@@ -69,11 +71,12 @@ public final class JacksonStreamParser implements OutputParser {
         var start = Instant.now();
         var events = new ArrayList<StreamEvent>();
         var contentBuilder = new StringBuilder();
+        var info = new ResultInfo();
 
         for (var line : output.split("\n")) {
             if (line.isBlank()) continue;
 
-            var event = parseLine(line);
+            var event = parseLine(line, info);
             if (event != null) {
                 events.add(event);
                 if (event.type() == StreamEvent.EventType.ASSISTANT || event.type() == StreamEvent.EventType.RESULT) {
@@ -96,18 +99,44 @@ public final class JacksonStreamParser implements OutputParser {
         }
 
         if (events.isEmpty()) {
-            return new TextResponse(content.isEmpty() ? output.trim() : content, start, duration, null, null, null);
+            return new TextResponse(
+                    content.isEmpty() ? output.trim() : content,
+                    start,
+                    duration,
+                    null,
+                    info.totalTokens(),
+                    info.sessionId,
+                    info.outputTokens);
         }
 
-        return new StreamResponse(content, start, duration, events, null, null);
+        return new StreamResponse(
+                content, start, duration, events, null, info.totalTokens(), info.sessionId, info.outputTokens);
     }
 
     @Override
     public Stream<StreamEvent> parseStream(Stream<String> lines) {
-        return lines.filter(line -> !line.isBlank()).map(this::parseLine).filter(Objects::nonNull);
+        return lines.filter(line -> !line.isBlank())
+                .map(line -> parseLine(line, null))
+                .filter(Objects::nonNull);
     }
 
-    private @Nullable StreamEvent parseLine(String line) {
+    /** Reports the output tokens of each result line's {@code usage} object. */
+    @Override
+    public Stream<StreamEvent> parseStream(Stream<String> lines, IntConsumer outputTokens) {
+        var info = new ResultInfo();
+        return lines.filter(line -> !line.isBlank())
+                .map(line -> {
+                    var event = parseLine(line, info);
+                    if (info.outputTokens != null) {
+                        outputTokens.accept(info.outputTokens);
+                        info.outputTokens = null;
+                    }
+                    return event;
+                })
+                .filter(Objects::nonNull);
+    }
+
+    private @Nullable StreamEvent parseLine(String line, @Nullable ResultInfo info) {
         var trimmed = line.trim();
         if (!trimmed.startsWith("{")) {
             return StreamEvent.of(StreamEvent.EventType.ASSISTANT, trimmed, sequenceCounter.incrementAndGet());
@@ -115,6 +144,9 @@ public final class JacksonStreamParser implements OutputParser {
 
         try {
             JsonNode root = JSON_MAPPER.readTree(trimmed);
+            if (info != null) {
+                info.observe(root);
+            }
 
             var type = mapType(getTextOrNull(root, "type"));
             var content = getTextOrNull(root, "content");
@@ -147,6 +179,53 @@ public final class JacksonStreamParser implements OutputParser {
         return (child != null && child.isTextual()) ? child.asText() : null;
     }
 
+    /**
+     * Token counts reported by the CLI in the {@code usage} object of its result line, and the CLI session ID that
+     * {@code --resume} continues. Input tokens include those written to and read from the prompt cache.
+     */
+    private static final class ResultInfo {
+
+        private static final List<String> INPUT_FIELDS =
+                List.of("input_tokens", "cache_creation_input_tokens", "cache_read_input_tokens");
+
+        private @Nullable Integer inputTokens;
+        private @Nullable Integer outputTokens;
+        private @Nullable String sessionId;
+
+        void observe(JsonNode root) {
+            var session = root.get("session_id");
+            if (session != null && session.isTextual()) {
+                sessionId = session.asText();
+            }
+            var usage = root.get("usage");
+            if (usage == null) {
+                return;
+            }
+            var tokens = usage.get("output_tokens");
+            if (tokens != null && tokens.isIntegralNumber()) {
+                outputTokens = tokens.asInt();
+            }
+            Integer input = null;
+            for (var field : INPUT_FIELDS) {
+                var count = usage.get(field);
+                if (count != null && count.isIntegralNumber()) {
+                    input = (input != null ? input : 0) + count.asInt();
+                }
+            }
+            if (input != null) {
+                inputTokens = input;
+            }
+        }
+
+        /** Returns input plus output tokens, or whichever of them was reported. */
+        @Nullable Integer totalTokens() {
+            if (inputTokens == null) {
+                return outputTokens;
+            }
+            return outputTokens == null ? inputTokens : inputTokens + outputTokens;
+        }
+    }
+
     private StreamEvent.EventType mapType(@Nullable String type) {
         if (type == null) return StreamEvent.EventType.ASSISTANT;
         return switch (type.toLowerCase()) {
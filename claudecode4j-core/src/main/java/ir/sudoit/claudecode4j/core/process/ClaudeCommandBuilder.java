@@ -25,6 +25,7 @@ package ir.sudoit.claudecode4j.core.process;
 
 import ir.sudoit.claudecode4j.api.model.request.Prompt;
 import ir.sudoit.claudecode4j.api.model.request.PromptOptions;
+import ir.sudoit.claudecode4j.api.model.request.PromptSource;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
@@ -39,10 +40,18 @@ public final class ClaudeCommandBuilder {
      * potential escaping issues.
      *
      * @param command the CLI arguments
-     * @param stdinInput the prompt text to send via stdin, or null if using positional arg
+     * @param stdinInput the prompt text to send via stdin, or null if using positional arg or a streamed source
+     * @param stdinSource the source to stream to stdin for a {@linkplain Prompt#isStreamed() streamed} prompt
      */
     public record CommandWithStdin(
-            List<String> command, @Nullable String stdinInput) {}
+            List<String> command,
+            @Nullable String stdinInput,
+            @Nullable PromptSource stdinSource) {
+
+        public CommandWithStdin(List<String> command, @Nullable String stdinInput) {
+            this(command, stdinInput, null);
+        }
+    }
 
     private static final System.Logger log = System.getLogger(ClaudeCommandBuilder.class.getName());
 
@@ -107,6 +116,11 @@ public final class ClaudeCommandBuilder {
                 command.add(options.maxTurns().toString());
             }
 
+            if (options.resumeSessionId() != null) {
+                command.add("--resume");
+                command.add(options.resumeSessionId());
+            }
+
             // Tool filtering options
             for (var tool : options.allowedTools()) {
                 command.add("--allowedTools");
@@ -134,6 +148,10 @@ public final class ClaudeCommandBuilder {
                 command.add(contextFile.toString());
             }
 
+            if (prompt.isStreamed()) {
+                throw new IllegalStateException("Streamed prompts must be passed via stdin, use buildWithStdin()");
+            }
+
             // Prompt is positional argument (must be last)
             command.add(prompt.text());
         }
@@ -193,6 +211,11 @@ public final class ClaudeCommandBuilder {
                 command.add(options.maxTurns().toString());
             }
 
+            if (options.resumeSessionId() != null) {
+                command.add("--resume");
+                command.add(options.resumeSessionId());
+            }
+
             // Tool filtering options
             for (var tool : options.allowedTools()) {
                 command.add("--allowedTools");
@@ -205,6 +228,7 @@ public final class ClaudeCommandBuilder {
         }
 
         String stdinInput = null;
+        PromptSource stdinSource = null;
         if (prompt != null) {
             if (prompt.agentName() != null) {
                 command.add("--agent");
@@ -224,14 +248,18 @@ public final class ClaudeCommandBuilder {
             // Pass prompt via stdin using "-" to read from stdin
             command.add("-p");
             command.add("-");
-            stdinInput = prompt.text();
+            if (prompt.isStreamed()) {
+                stdinSource = prompt.source();
+            } else {
+                stdinInput = prompt.text();
+            }
         }
 
         log.log(
                 System.Logger.Level.DEBUG,
                 "Final command (stdin mode): {0}, stdinLength={1}",
                 String.join(" ", command),
-                stdinInput != null ? stdinInput.length() : 0);
-        return new CommandWithStdin(List.copyOf(command), stdinInput);
+                stdinInput != null ? stdinInput.length() : stdinSource != null ? stdinSource.length() : 0);
+        return new CommandWithStdin(List.copyOf(command), stdinInput, stdinSource);
     }
 }
@@ -23,15 +23,20 @@
  */
 package ir.sudoit.claudecode4j.core.process;
 
+import ir.sudoit.claudecode4j.api.model.request.PromptSource;
 import ir.sudoit.claudecode4j.api.spi.ProcessExecutor;
+import ir.sudoit.claudecode4j.core.metrics.ExecutionTrace;
 import java.io.BufferedReader;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.StructuredTaskScope;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import org.jspecify.annotations.Nullable;
 
@@ -39,24 +44,25 @@ public final class VirtualThreadExecutor implements ProcessExecutor {
 
     @Override
     public ExecutionResult execute(List<String> command, Path workingDirectory, Duration timeout) {
+        var trace = ExecutionTrace.current();
+        var deadline = System.nanoTime() + timeout.toNanos();
         Process process = null;
         try {
-            process = new ProcessBuilder(command)
-                    .directory(workingDirectory.toFile())
-                    .start();
+            process = start(new ProcessBuilder(command).directory(workingDirectory.toFile()), trace);
             try (var scope = StructuredTaskScope.open(
                     StructuredTaskScope.Joiner.<String>awaitAllSuccessfulOrThrow(),
                     config -> config.withTimeout(timeout))) {
                 Process finalProcess = process;
-                var stdoutTask = scope.fork(() -> readStream(finalProcess.inputReader()));
+                var stdoutTask = scope.fork(() -> readStream(finalProcess.inputReader(), trace));
                 Process finalProcess1 = process;
-                var stderrTask = scope.fork(() -> readStream(finalProcess1.errorReader()));
+                var stderrTask = scope.fork(() -> readStream(finalProcess1.errorReader(), null));
                 scope.join();
-                boolean completed = process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS);
+                boolean completed = process.waitFor(remaining(deadline).toNanos(), TimeUnit.NANOSECONDS);
                 if (!completed) {
                     ProcessTerminator.terminate(process);
                     return new ExecutionResult(-1, "", "Timeout: Process did not exit");
                 }
+                markExited(trace);
 
                 return new ExecutionResult(process.exitValue(), stdoutTask.get(), stderrTask.get());
             }
@@ -65,6 +71,10 @@ public final class VirtualThreadExecutor implements ProcessExecutor {
             return new ExecutionResult(-1, "", "Timeout");
         } catch (StructuredTaskScope.FailedException e) {
             ProcessTerminator.terminate(process);
+            if (e.getCause() instanceof SecurityException violation) {
+                // The source was rejected while streaming, like a text prompt rejected up front
+                throw violation;
+            }
             return new ExecutionResult(-1, "", "Error: " + e.getCause().getMessage());
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
@@ -87,30 +97,39 @@ public final class VirtualThreadExecutor implements ProcessExecutor {
     @Override
     public CompletableFuture<Integer> executeStreaming(
             List<String> command, Path workingDirectory, Consumer<String> lineConsumer, Duration timeout) {
+        var trace = ExecutionTrace.current();
         return CompletableFuture.supplyAsync(
                 () -> {
+                    var deadline = System.nanoTime() + timeout.toNanos();
                     try {
-                        var process = new ProcessBuilder(command)
-                                .directory(workingDirectory.toFile())
-                                .redirectErrorStream(true)
-                                .start();
+                        var process = start(
+                                new ProcessBuilder(command)
+                                        .directory(workingDirectory.toFile())
+                                        .redirectErrorStream(true),
+                                trace);
 
-                        Thread.ofVirtual().start(() -> {
+                        var outputReader = Thread.ofVirtual().start(() -> {
                             try (var reader = process.inputReader()) {
                                 String line;
                                 while ((line = reader.readLine()) != null) {
+                                    if (trace != null) {
+                                        trace.outputLine(line);
+                                    }
                                     lineConsumer.accept(line);
                                 }
                             } catch (IOException ignored) {
                             }
                         });
 
-                        boolean completed = process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS);
+                        boolean completed = process.waitFor(remaining(deadline).toNanos(), TimeUnit.NANOSECONDS);
                         if (!completed) {
                             ProcessTerminator.terminate(process);
                             return -1;
                         }
 
+                        markExited(trace);
+                        // Deliver the trailing lines before reporting completion
+                        outputReader.join(remaining(deadline));
                         return process.exitValue();
                     } catch (InterruptedException e) {
                         Thread.currentThread().interrupt();
@@ -128,35 +147,35 @@ public final class VirtualThreadExecutor implements ProcessExecutor {
         if (stdinInput == null) {
             return execute(command, workingDirectory, timeout);
         }
+        return executeWithStdin(command, workingDirectory, timeout, PromptSource.of(stdinInput));
+    }
 
+    @Override
+    public ExecutionResult executeWithStdin(
+            List<String> command, Path workingDirectory, Duration timeout, PromptSource stdin) {
+        var trace = ExecutionTrace.current();
+        var deadline = System.nanoTime() + timeout.toNanos();
         Process process = null;
         try {
-            process = new ProcessBuilder(command)
-                    .directory(workingDirectory.toFile())
-                    .start();
+            process = start(new ProcessBuilder(command).directory(workingDirectory.toFile()), trace);
 
-            // Write stdin input in a virtual thread
             Process finalProcess = process;
-            Thread.ofVirtual().start(() -> {
-                try (var writer = finalProcess.outputWriter()) {
-                    writer.write(stdinInput);
-                    writer.flush();
-                } catch (IOException ignored) {
-                    // Process may have terminated
-                }
-            });
-
             try (var scope = StructuredTaskScope.open(
                     StructuredTaskScope.Joiner.<String>awaitAllSuccessfulOrThrow(),
                     config -> config.withTimeout(timeout))) {
-                var stdoutTask = scope.fork(() -> readStream(finalProcess.inputReader()));
-                var stderrTask = scope.fork(() -> readStream(finalProcess.errorReader()));
+                scope.fork(() -> {
+                    writeStdin(finalProcess, stdin);
+                    return "";
+                });
+                var stdoutTask = scope.fork(() -> readStream(finalProcess.inputReader(), trace));
+                var stderrTask = scope.fork(() -> readStream(finalProcess.errorReader(), null));
                 scope.join();
-                boolean completed = process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS);
+                boolean completed = process.waitFor(remaining(deadline).toNanos(), TimeUnit.NANOSECONDS);
                 if (!completed) {
                     ProcessTerminator.terminate(process);
                     return new ExecutionResult(-1, "", "Timeout: Process did not exit");
                 }
+                markExited(trace);
 
                 return new ExecutionResult(process.exitValue(), stdoutTask.get(), stderrTask.get());
             }
@@ -165,6 +184,10 @@ public final class VirtualThreadExecutor implements ProcessExecutor {
             return new ExecutionResult(-1, "", "Timeout");
         } catch (StructuredTaskScope.FailedException e) {
             ProcessTerminator.terminate(process);
+            if (e.getCause() instanceof SecurityException violation) {
+                // The source was rejected while streaming, like a text prompt rejected up front
+                throw violation;
+            }
             return new ExecutionResult(-1, "", "Error: " + e.getCause().getMessage());
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
@@ -191,46 +214,71 @@ public final class VirtualThreadExecutor implements ProcessExecutor {
             Consumer<String> lineConsumer,
             Duration timeout,
             @Nullable String stdinInput) {
+        if (stdinInput == null) {
+            return executeStreaming(command, workingDirectory, lineConsumer, timeout);
+        }
+        return executeStreamingWithStdin(command, workingDirectory, lineConsumer, timeout, PromptSource.of(stdinInput));
+    }
+
+    @Override
+    public CompletableFuture<Integer> executeStreamingWithStdin(
+            List<String> command,
+            Path workingDirectory,
+            Consumer<String> lineConsumer,
+            Duration timeout,
+            PromptSource stdin) {
+        var trace = ExecutionTrace.current();
+        var violation = new AtomicReference<SecurityException>();
         return CompletableFuture.supplyAsync(
                 () -> {
+                    var deadline = System.nanoTime() + timeout.toNanos();
                     try {
-                        var process = new ProcessBuilder(command)
-                                .directory(workingDirectory.toFile())
-                                .redirectErrorStream(true)
-                                .start();
-
-                        // Write stdin input if provided
-                        if (stdinInput != null) {
-                            Thread.ofVirtual().start(() -> {
-                                try (var writer = process.outputWriter()) {
-                                    writer.write(stdinInput);
-                                    writer.flush();
-                                } catch (IOException ignored) {
-                                    // Process may have terminated
-                                }
-                            });
-                        }
+                        var process = start(
+                                new ProcessBuilder(command)
+                                        .directory(workingDirectory.toFile())
+                                        .redirectErrorStream(true),
+                                trace);
+
+                        var stdinWriter = Thread.ofVirtual().start(() -> {
+                            try {
+                                writeStdin(process, stdin);
+                            } catch (SecurityException e) {
+                                violation.set(e);
+                            }
+                        });
 
-                        Thread.ofVirtual().start(() -> {
+                        var outputReader = Thread.ofVirtual().start(() -> {
                             try (var reader = process.inputReader()) {
                                 String line;
                                 while ((line = reader.readLine()) != null) {
+                                    if (trace != null) {
+                                        trace.outputLine(line);
+                                    }
                                     lineConsumer.accept(line);
                                 }
                             } catch (IOException ignored) {
                             }
                         });
 
-                        boolean completed = process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS);
+                        boolean completed = process.waitFor(remaining(deadline).toNanos(), TimeUnit.NANOSECONDS);
                         if (!completed) {
                             ProcessTerminator.terminate(process);
                             return -1;
                         }
 
+                        markExited(trace);
+                        // Deliver the trailing lines before reporting completion
+                        outputReader.join(remaining(deadline));
+                        stdinWriter.join(remaining(deadline));
+                        if (violation.get() != null) {
+                            throw violation.get();
+                        }
                         return process.exitValue();
                     } catch (InterruptedException e) {
                         Thread.currentThread().interrupt();
                         return -1;
+                    } catch (SecurityException e) {
+                        throw e;
                     } catch (Exception e) {
                         return -1;
                     }
@@ -238,10 +286,102 @@ public final class VirtualThreadExecutor implements ProcessExecutor {
                 runnable -> Thread.ofVirtual().start(runnable));
     }
 
-    private String readStream(BufferedReader reader) throws IOException {
+    private static Process start(ProcessBuilder builder, @Nullable ExecutionTrace trace) throws IOException {
+        if (trace == null) {
+            return builder.start();
+        }
+        trace.spawning();
+        var process = builder.start();
+        trace.spawned();
+        return process;
+    }
+
+    /**
+     * Streams {@code stdin} to the process and closes its stdin. If the source fails part-way, for example because the
+     * sanitizer rejects it, the process is killed <em>before</em> stdin is closed: closing first would send EOF and let
+     * the CLI run the truncated prompt. A {@link SecurityException}, which includes the prompt size limit, is rethrown
+     * so a rejected source fails the execution just like a rejected text prompt; other source failures leave the killed
+     * process to report a failed exit code. If the process stops reading, its own exit code is the result.
+     */
+    private static void writeStdin(Process process, PromptSource stdin) {
+        var out = new ProcessInput(process.getOutputStream());
+        try {
+            stdin.transferTo(out);
+        } catch (IOException | RuntimeException e) {
+            if (out.closedByProcess) {
+                return;
+            }
+            process.destroyForcibly();
+            if (e instanceof SecurityException violation) {
+                throw violation;
+            }
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException ignored) {
+            // The process stopped reading after the last byte
+        }
+    }
+
+    /** Returns the time left until {@code deadline}, a {@link System#nanoTime()} value, or zero once it has passed. */
+    private static Duration remaining(long deadline) {
+        return Duration.ofNanos(Math.max(0, deadline - System.nanoTime()));
+    }
+
+    /** A process's stdin that tells write failures of the pipe apart from failures of the source feeding it. */
+    private static final class ProcessInput extends FilterOutputStream {
+
+        private boolean closedByProcess;
+
+        ProcessInput(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            try {
+                out.write(b);
+            } catch (IOException e) {
+                closedByProcess = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            try {
+                out.write(b, off, len);
+            } catch (IOException e) {
+                closedByProcess = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                closedByProcess = true;
+                throw e;
+            }
+        }
+    }
+
+    private static void markExited(@Nullable ExecutionTrace trace) {
+        if (trace != null) {
+            trace.exited();
+        }
+    }
+
+    private String readStream(BufferedReader reader, @Nullable ExecutionTrace trace) throws IOException {
         var sb = new StringBuilder();
         String line;
         while ((line = reader.readLine()) != null) {
+            if (trace != null) {
+                trace.outputLine(line);
+            }
             sb.append(line).append(System.lineSeparator());
         }
         return sb.toString();
@@ -44,7 +44,7 @@ public final class DefaultInputSanitizer implements InputSanitizer {
         if (prompt.agentName() != null) {
             validateArgument(prompt.agentName(), "agent name");
         }
-        return prompt;
+        return GuardedPromptSource.guard(prompt);
     }
 
     @Override
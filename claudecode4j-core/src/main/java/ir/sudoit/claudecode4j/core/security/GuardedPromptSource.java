@@ -0,0 +1,119 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.core.security;
+
+import ir.sudoit.claudecode4j.api.model.request.Prompt;
+import ir.sudoit.claudecode4j.api.model.request.PromptSource;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Applies the prompt-text checks to a {@link PromptSource} while it is written, so a streamed prompt is validated
+ * without being read into memory first. A violation surfaces as a {@link SecurityException} from
+ * {@link #transferTo(OutputStream)}, after some bytes may already have been written.
+ */
+final class GuardedPromptSource implements PromptSource {
+
+    static final long MAX_BYTES = 32L * 1024 * 1024;
+
+    private final PromptSource delegate;
+
+    private GuardedPromptSource(PromptSource delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Returns {@code prompt} with its source guarded, or {@code prompt} itself if it is not streamed.
+     *
+     * @throws SecurityException if the source's known length already exceeds the limit
+     */
+    static Prompt guard(Prompt prompt) {
+        var source = prompt.source();
+        if (source == null || source instanceof GuardedPromptSource) {
+            return prompt;
+        }
+        if (source.length() > MAX_BYTES) {
+            throw new SecurityException("prompt source exceeds maximum length of " + MAX_BYTES + " bytes");
+        }
+        return new Prompt(
+                prompt.text(),
+                prompt.systemPrompt(),
+                prompt.contextFiles(),
+                prompt.workingDirectory(),
+                prompt.agentName(),
+                new GuardedPromptSource(source));
+    }
+
+    @Override
+    public void transferTo(OutputStream out) throws IOException {
+        delegate.transferTo(new CheckingOutputStream(out));
+    }
+
+    @Override
+    public long length() {
+        return delegate.length();
+    }
+
+    private static final class CheckingOutputStream extends FilterOutputStream {
+
+        private long written;
+
+        CheckingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            check(1);
+            if ((b & 0xFF) == 0) {
+                throw nullCharacter();
+            }
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            check(len);
+            // In UTF-8 a zero byte only ever encodes U+0000
+            for (var i = off; i < off + len; i++) {
+                if (b[i] == 0) {
+                    throw nullCharacter();
+                }
+            }
+            out.write(b, off, len);
+        }
+
+        private void check(int len) {
+            written += len;
+            if (written > MAX_BYTES) {
+                throw new SecurityException("prompt source exceeds maximum length of " + MAX_BYTES + " bytes");
+            }
+        }
+
+        private static SecurityException nullCharacter() {
+            return new SecurityException("Null character detected in prompt source");
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.core.security;
+
+import ir.sudoit.claudecode4j.api.model.request.Prompt;
+import ir.sudoit.claudecode4j.api.spi.InputSanitizer;
+
+/**
+ * {@link InputSanitizer} enforcing the same rules as {@link DefaultInputSanitizer} without copying or regular
+ * expressions.
+ *
+ * <p>Every check is a {@code String.indexOf} scan over the string's own Latin-1 or UTF-16 bytes, which HotSpot
+ * intrinsifies on common platforms, and each scan stops at the first hit. A prompt just below the size limit is
+ * validated in microseconds and without allocating. Backtick pairs need no separate search: a single backtick is
+ * already rejected. A {@linkplain Prompt#isStreamed() streamed} prompt is checked for NUL bytes and length while it is
+ * written to stdin.
+ *
+ * <p>Registered with a higher {@link #priority()} than {@link DefaultInputSanitizer}, so it is the one the client
+ * factory picks up.
+ */
+public final class ScanningInputSanitizer implements InputSanitizer {
+
+    private static final int MAX_LENGTH = 256 * 1024;
+    private static final int MAX_ARGUMENT_LENGTH = 256;
+
+    @Override
+    public Prompt sanitize(Prompt prompt) throws SecurityException {
+        validate(prompt.text(), "prompt text");
+        if (prompt.systemPrompt() != null) {
+            validate(prompt.systemPrompt(), "system prompt");
+        }
+        if (prompt.agentName() != null) {
+            validateArgument(prompt.agentName(), "agent name");
+        }
+        return GuardedPromptSource.guard(prompt);
+    }
+
+    @Override
+    public boolean isValidArgument(String value) {
+        if (value == null || value.length() > MAX_LENGTH) {
+            return false;
+        }
+        return firstDangerousChar(value) < 0 && !containsCommandSubstitution(value);
+    }
+
+    @Override
+    public int priority() {
+        return 10;
+    }
+
+    private void validate(String text, String fieldName) {
+        if (text.length() > MAX_LENGTH) {
+            throw new SecurityException(fieldName + " exceeds maximum length of " + MAX_LENGTH);
+        }
+        if (text.indexOf('\0') >= 0) {
+            throw new SecurityException("Null character detected in " + fieldName);
+        }
+    }
+
+    private void validateArgument(String value, String fieldName) {
+        if (value.length() > MAX_ARGUMENT_LENGTH) {
+            throw new SecurityException(fieldName + " exceeds maximum length of " + MAX_ARGUMENT_LENGTH);
+        }
+        var dangerous = firstDangerousChar(value);
+        if (dangerous >= 0) {
+            throw new SecurityException(
+                    "Dangerous character '" + value.charAt(dangerous) + "' detected in " + fieldName);
+        }
+        if (containsCommandSubstitution(value)) {
+            throw new SecurityException("Command substitution pattern detected in " + fieldName);
+        }
+    }
+
+    /** Returns the index of the first backtick or NUL, or {@code -1}. The second scan stops where the first hit. */
+    private static int firstDangerousChar(String value) {
+        var nul = value.indexOf('\0');
+        var backtick = value.indexOf('`', 0, nul < 0 ? value.length() : nul);
+        return backtick >= 0 ? backtick : nul;
+    }
+
+    /** Equivalent to finding {@code \$\([^)]*\)}: an opening {@code $(} followed anywhere by {@code )}. */
+    private static boolean containsCommandSubstitution(String value) {
+        var open = value.indexOf("$(");
+        return open >= 0 && value.indexOf(')', open + 2) >= 0;
+    }
+}
@@ -0,0 +1,685 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.core.session;
+
+import ir.sudoit.claudecode4j.api.session.SessionData;
+import ir.sudoit.claudecode4j.api.session.SessionData.ConversationEntry;
+import ir.sudoit.claudecode4j.api.session.SessionPage;
+import ir.sudoit.claudecode4j.api.session.SessionQuery;
+import ir.sudoit.claudecode4j.api.session.SessionStore;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import javax.sql.DataSource;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Session store backed by a relational database over JDBC.
+ *
+ * <p>Sessions are kept in three normalised tables, so several JVMs pointing at the same database share them:
+ *
+ * <ul>
+ *   <li>{@code <prefix>sessions}: one row per session, indexed on {@code (last_active_at, session_id)}
+ *   <li>{@code <prefix>history}: one row per conversation entry, keyed by {@code (session_id, seq)}
+ *   <li>{@code <prefix>metadata}: one row per metadata entry, indexed on {@code (meta_key, meta_value)}
+ * </ul>
+ *
+ * <p>Child rows reference the session row with {@code ON DELETE CASCADE}, so {@link #delete} and
+ * {@link #deleteOlderThan} are a single index-backed statement. Timestamps are stored as nanoseconds since the epoch.
+ * The tables are created on construction when missing; the large-text column type follows the database product.
+ *
+ * <p>Session IDs, metadata and model names are keyed or indexed, so they are stored in bounded {@code VARCHAR}
+ * columns: IDs, metadata keys and model names hold up to {@value #MAX_KEY_LENGTH} characters and metadata values up
+ * to {@value #MAX_METADATA_VALUE_LENGTH}. {@link #save} rejects longer values with an
+ * {@link IllegalArgumentException} rather than letting the database truncate or refuse them. Prompts, responses and
+ * system prompts are unbounded.
+ *
+ * <p>The session row keeps a 64-bit hash of the stored history. A save whose first entries hash to it extends the
+ * stored history and only inserts the new entries, in JDBC batches; any other save, including one that edits an entry
+ * in the middle, rewrites the history. Checking costs one pass over the history in memory and reads no history rows.
+ *
+ * <p>Each pooled connection caches its prepared statements, and at most {@code maxConnections} are open at once.
+ */
+public final class JdbcSessionStore implements SessionStore, AutoCloseable {
+
+    private static final System.Logger log = System.getLogger(JdbcSessionStore.class.getName());
+
+    /** Table name prefix used when none is given. */
+    public static final String DEFAULT_TABLE_PREFIX = "cc4j_";
+
+    /** Longest session ID, metadata key or model name the store can hold, in characters. */
+    public static final int MAX_KEY_LENGTH = 255;
+
+    /** Longest metadata value the store can hold, in characters. */
+    public static final int MAX_METADATA_VALUE_LENGTH = 512;
+
+    private static final int DEFAULT_MAX_CONNECTIONS = 4;
+    private static final int BATCH_SIZE = 256;
+    private static final int STATEMENT_CACHE_SIZE = 32;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final DataSource dataSource;
+    private final String sessionsTable;
+    private final String historyTable;
+    private final String metadataTable;
+    private final Semaphore permits;
+    private final ConcurrentLinkedQueue<PooledConnection> idle = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed;
+
+    /** Creates a store with the default table prefix and at most four connections. */
+    public JdbcSessionStore(DataSource dataSource) throws IOException {
+        this(dataSource, DEFAULT_TABLE_PREFIX, DEFAULT_MAX_CONNECTIONS);
+    }
+
+    /**
+     * Creates a store, creating its tables if they do not exist.
+     *
+     * @param dataSource the database to store sessions in
+     * @param tablePrefix the prefix of the three table names
+     * @param maxConnections the maximum number of connections open at once
+     * @throws IOException if the tables cannot be created
+     */
+    public JdbcSessionStore(DataSource dataSource, String tablePrefix, int maxConnections) throws IOException {
+        if (!tablePrefix.matches("[A-Za-z0-9_]*")) {
+            throw new IllegalArgumentException("tablePrefix must contain only letters, digits and underscores");
+        }
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("maxConnections must be positive");
+        }
+        this.dataSource = Objects.requireNonNull(dataSource, "dataSource");
+        this.sessionsTable = tablePrefix + "sessions";
+        this.historyTable = tablePrefix + "history";
+        this.metadataTable = tablePrefix + "metadata";
+        this.permits = new Semaphore(maxConnections);
+        execute("create schema", this::createSchema);
+    }
+
+    /** @throws IllegalArgumentException if an ID, metadata entry or model name exceeds its column */
+    @Override
+    public void save(SessionData data) throws IOException {
+        checkLengths(data);
+        try {
+            execute("save session " + data.sessionId(), c -> save(c, data));
+        } catch (IOException e) {
+            // Another JVM inserted the same new session concurrently; the retry takes the update path
+            if (!(e.getCause() instanceof SQLException sql && isConstraintViolation(sql))) {
+                throw e;
+            }
+            execute("save session " + data.sessionId(), c -> save(c, data));
+        }
+    }
+
+    @Override
+    public Optional<SessionData> load(String sessionId) throws IOException {
+        return execute("load session " + sessionId, c -> load(c, sessionId));
+    }
+
+    @Override
+    public boolean delete(String sessionId) throws IOException {
+        return execute("delete session " + sessionId, c -> {
+            var statement = c.prepare("DELETE FROM " + sessionsTable + " WHERE session_id = ?");
+            statement.setString(1, sessionId);
+            return statement.executeUpdate() > 0;
+        });
+    }
+
+    @Override
+    public List<String> listIds() throws IOException {
+        return execute("list sessions", c -> {
+            var ids = new ArrayList<String>();
+            try (var rs = c.prepare("SELECT session_id FROM " + sessionsTable).executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getString(1));
+                }
+            }
+            return ids;
+        });
+    }
+
+    @Override
+    public boolean exists(String sessionId) throws IOException {
+        return execute("check session " + sessionId, c -> {
+            var statement = c.prepare("SELECT 1 FROM " + sessionsTable + " WHERE session_id = ?");
+            statement.setString(1, sessionId);
+            try (var rs = statement.executeQuery()) {
+                return rs.next();
+            }
+        });
+    }
+
+    @Override
+    public SessionPage query(SessionQuery query) throws IOException {
+        return execute("query sessions", c -> {
+            var sql = new StringBuilder("SELECT s.session_id FROM " + sessionsTable + " s WHERE 1 = 1");
+            var params = new ArrayList<Object>();
+            if (query.activeFrom() != null) {
+                sql.append(" AND s.last_active_at >= ?");
+                params.add(toNanos(query.activeFrom()));
+            }
+            if (query.activeUntil() != null) {
+                sql.append(" AND s.last_active_at < ?");
+                params.add(toNanos(query.activeUntil()));
+            }
+            var after = query.after();
+            var direction = query.newestFirst() ? "<" : ">";
+            if (after != null) {
+                sql.append(" AND (s.last_active_at ")
+                        .append(direction)
+                        .append(" ? OR (s.last_active_at = ? AND s.session_id ")
+                        .append(direction)
+                        .append(" ?))");
+                params.add(toNanos(after.lastActiveAt()));
+                params.add(toNanos(after.lastActiveAt()));
+                params.add(after.sessionId());
+            }
+            for (var entry : query.metadata().entrySet()) {
+                sql.append(" AND EXISTS (SELECT 1 FROM ")
+                        .append(metadataTable)
+                        .append(" m WHERE m.session_id = s.session_id AND m.meta_key = ? AND m.meta_value = ?)");
+                params.add(entry.getKey());
+                params.add(entry.getValue());
+            }
+            var order = query.newestFirst() ? " DESC" : " ASC";
+            sql.append(" ORDER BY s.last_active_at").append(order).append(", s.session_id").append(order);
+
+            var statement = c.prepare(sql.toString());
+            for (var i = 0; i < params.size(); i++) {
+                statement.setObject(i + 1, params.get(i));
+            }
+            // One extra row tells whether there is a next page
+            statement.setMaxRows(query.limit() + 1);
+            var ids = new ArrayList<String>();
+            try (var rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getString(1));
+                }
+            } finally {
+                statement.setMaxRows(0);
+            }
+
+            var matches = new ArrayList<SessionData>(ids.size());
+            for (var sessionId : ids) {
+                load(c, sessionId).ifPresent(matches::add);
+            }
+            return SessionPage.of(matches, query.limit());
+        });
+    }
+
+    @Override
+    public int deleteOlderThan(Duration maxAge) throws IOException {
+        var cutoff = toNanos(Instant.now().minus(maxAge));
+        return execute("delete expired sessions", c -> {
+            var statement = c.prepare("DELETE FROM " + sessionsTable + " WHERE last_active_at < ?");
+            statement.setLong(1, cutoff);
+            return statement.executeUpdate();
+        });
+    }
+
+    @Override
+    public void clear() throws IOException {
+        execute("clear sessions", c -> c.prepare("DELETE FROM " + sessionsTable).executeUpdate());
+    }
+
+    /** Closes the pooled connections; connections in use are closed when they are returned. */
+    @Override
+    public void close() {
+        closed = true;
+        PooledConnection connection;
+        while ((connection = idle.poll()) != null) {
+            connection.close();
+        }
+    }
+
+    @Override
+    public int priority() {
+        return 30;
+    }
+
+    private Void save(PooledConnection c, SessionData data) throws SQLException {
+        var sessionId = data.sessionId();
+        var history = data.history();
+
+        var select = c.prepare(
+                "SELECT history_size, history_hash FROM " + sessionsTable + " WHERE session_id = ? FOR UPDATE");
+        select.setString(1, sessionId);
+        var storedSize = -1;
+        var storedHash = 0L;
+        try (var rs = select.executeQuery()) {
+            if (rs.next()) {
+                storedSize = rs.getInt(1);
+                storedHash = rs.getLong(2);
+            }
+        }
+        var hashes = HistoryHashes.of(history, Math.max(storedSize, 0));
+
+        PreparedStatement upsert;
+        if (storedSize < 0) {
+            upsert = c.prepare("INSERT INTO " + sessionsTable
+                    + " (system_prompt, created_at, last_active_at, history_size, history_hash, session_id)"
+                    + " VALUES (?, ?, ?, ?, ?, ?)");
+        } else {
+            upsert = c.prepare("UPDATE " + sessionsTable
+                    + " SET system_prompt = ?, created_at = ?, last_active_at = ?, history_size = ?, history_hash = ?"
+                    + " WHERE session_id = ?");
+        }
+        setNullableString(upsert, 1, data.systemPrompt());
+        upsert.setLong(2, toNanos(data.createdAt()));
+        upsert.setLong(3, toNanos(data.lastActiveAt()));
+        upsert.setInt(4, history.size());
+        upsert.setLong(5, hashes.full());
+        upsert.setString(6, sessionId);
+        upsert.executeUpdate();
+
+        var appendFrom = 0;
+        if (storedSize > 0) {
+            if (history.size() >= storedSize && hashes.prefix() == storedHash) {
+                appendFrom = storedSize;
+            } else {
+                var clear = c.prepare("DELETE FROM " + historyTable + " WHERE session_id = ?");
+                clear.setString(1, sessionId);
+                clear.executeUpdate();
+            }
+        }
+        if (appendFrom < history.size()) {
+            var insert = c.prepare("INSERT INTO " + historyTable
+                    + " (session_id, seq, prompt, response, entry_time, model, tokens_used)"
+                    + " VALUES (?, ?, ?, ?, ?, ?, ?)");
+            var batched = 0;
+            for (var seq = appendFrom; seq < history.size(); seq++) {
+                var entry = history.get(seq);
+                insert.setString(1, sessionId);
+                insert.setInt(2, seq);
+                insert.setString(3, entry.prompt());
+                insert.setString(4, entry.response());
+                insert.setLong(5, toNanos(entry.timestamp()));
+                setNullableString(insert, 6, entry.model());
+                if (entry.tokensUsed() != null) {
+                    insert.setInt(7, entry.tokensUsed());
+                } else {
+                    insert.setNull(7, Types.INTEGER);
+                }
+                insert.addBatch();
+                if (++batched == BATCH_SIZE) {
+                    insert.executeBatch();
+                    batched = 0;
+                }
+            }
+            if (batched > 0) {
+                insert.executeBatch();
+            }
+        }
+
+        if (storedSize >= 0) {
+            var clear = c.prepare("DELETE FROM " + metadataTable + " WHERE session_id = ?");
+            clear.setString(1, sessionId);
+            clear.executeUpdate();
+        }
+        if (!data.metadata().isEmpty()) {
+            var insert = c.prepare(
+                    "INSERT INTO " + metadataTable + " (session_id, meta_key, meta_value) VALUES (?, ?, ?)");
+            for (var entry : data.metadata().entrySet()) {
+                insert.setString(1, sessionId);
+                insert.setString(2, entry.getKey());
+                insert.setString(3, entry.getValue());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        return null;
+    }
+
+    private Optional<SessionData> load(PooledConnection c, String sessionId) throws SQLException {
+        var select = c.prepare("SELECT system_prompt, created_at, last_active_at FROM " + sessionsTable
+                + " WHERE session_id = ?");
+        select.setString(1, sessionId);
+        String systemPrompt;
+        Instant createdAt;
+        Instant lastActiveAt;
+        try (var rs = select.executeQuery()) {
+            if (!rs.next()) {
+                return Optional.empty();
+            }
+            systemPrompt = rs.getString(1);
+            createdAt = toInstant(rs.getLong(2));
+            lastActiveAt = toInstant(rs.getLong(3));
+        }
+
+        var metadata = new LinkedHashMap<String, String>();
+        var selectMetadata =
+                c.prepare("SELECT meta_key, meta_value FROM " + metadataTable + " WHERE session_id = ?");
+        selectMetadata.setString(1, sessionId);
+        try (var rs = selectMetadata.executeQuery()) {
+            while (rs.next()) {
+                metadata.put(rs.getString(1), nonNull(rs.getString(2)));
+            }
+        }
+
+        var history = new ArrayList<ConversationEntry>();
+        var selectHistory = c.prepare("SELECT prompt, response, entry_time, model, tokens_used FROM " + historyTable
+                + " WHERE session_id = ? ORDER BY seq");
+        selectHistory.setString(1, sessionId);
+        try (var rs = selectHistory.executeQuery()) {
+            while (rs.next()) {
+                var tokensUsed = rs.getInt(5);
+                var hasTokensUsed = !rs.wasNull();
+                history.add(new ConversationEntry(
+                        nonNull(rs.getString(1)),
+                        nonNull(rs.getString(2)),
+                        toInstant(rs.getLong(3)),
+                        rs.getString(4),
+                        hasTokensUsed ? tokensUsed : null));
+            }
+        }
+        return Optional.of(new SessionData(sessionId, systemPrompt, history, metadata, createdAt, lastActiveAt));
+    }
+
+    private Void createSchema(PooledConnection c) throws SQLException {
+        var text = textType(c.connection.getMetaData().getDatabaseProductName());
+        var key = "VARCHAR(" + MAX_KEY_LENGTH + ")";
+        var value = "VARCHAR(" + MAX_METADATA_VALUE_LENGTH + ")";
+        createTable(c, sessionsTable, List.of(
+                "CREATE TABLE " + sessionsTable + " (session_id " + key + " NOT NULL PRIMARY KEY, system_prompt " + text
+                        + ", created_at BIGINT NOT NULL, last_active_at BIGINT NOT NULL,"
+                        + " history_size INT NOT NULL, history_hash BIGINT NOT NULL)",
+                "CREATE INDEX " + sessionsTable + "_active ON " + sessionsTable + " (last_active_at, session_id)"));
+        createTable(c, historyTable, List.of(
+                "CREATE TABLE " + historyTable + " (session_id " + key + " NOT NULL, seq INT NOT NULL, prompt " + text
+                        + ", response " + text + ", entry_time BIGINT NOT NULL, model " + key + ", tokens_used INT,"
+                        + " PRIMARY KEY (session_id, seq), FOREIGN KEY (session_id) REFERENCES " + sessionsTable
+                        + " (session_id) ON DELETE CASCADE)"));
+        createTable(c, metadataTable, List.of(
+                "CREATE TABLE " + metadataTable + " (session_id " + key + " NOT NULL, meta_key " + key + " NOT NULL,"
+                        + " meta_value " + value + " NOT NULL, PRIMARY KEY (session_id, meta_key),"
+                        + " FOREIGN KEY (session_id) REFERENCES " + sessionsTable
+                        + " (session_id) ON DELETE CASCADE)",
+                "CREATE INDEX " + metadataTable + "_value ON " + metadataTable + " (meta_key, meta_value)"));
+        return null;
+    }
+
+    private void createTable(PooledConnection c, String table, List<String> ddl) throws SQLException {
+        if (tableExists(c.connection, table)) {
+            return;
+        }
+        try (var statement = c.connection.createStatement()) {
+            for (var sql : ddl) {
+                statement.execute(sql);
+            }
+            c.connection.commit();
+        } catch (SQLException e) {
+            c.connection.rollback();
+            // Lost the race with another JVM creating the same table
+            if (!tableExists(c.connection, table)) {
+                throw e;
+            }
+        }
+    }
+
+    private static void checkLengths(SessionData data) {
+        checkLength("Session ID", data.sessionId(), MAX_KEY_LENGTH);
+        for (var entry : data.metadata().entrySet()) {
+            checkLength("Metadata key", entry.getKey(), MAX_KEY_LENGTH);
+            checkLength("Metadata value of " + entry.getKey(), entry.getValue(), MAX_METADATA_VALUE_LENGTH);
+        }
+        for (var entry : data.history()) {
+            checkLength("Model name", entry.model(), MAX_KEY_LENGTH);
+        }
+    }
+
+    private static void checkLength(String what, @Nullable String value, int max) {
+        if (value != null && value.length() > max) {
+            throw new IllegalArgumentException(what + " exceeds " + max + " characters");
+        }
+    }
+
+    /** Returns the column type for unbounded text on the given database product. */
+    private static String textType(String product) {
+        var name = product.toLowerCase(Locale.ROOT);
+        if (name.contains("postgres")) {
+            return "TEXT";
+        }
+        if (name.contains("mysql") || name.contains("mariadb")) {
+            return "LONGTEXT";
+        }
+        return "CLOB";
+    }
+
+    private static boolean tableExists(Connection connection, String table) throws SQLException {
+        var metaData = connection.getMetaData();
+        // Unquoted identifiers are folded to upper or lower case depending on the database
+        for (var name : List.of(table, table.toUpperCase(Locale.ROOT), table.toLowerCase(Locale.ROOT))) {
+            try (ResultSet rs = metaData.getTables(null, null, name, new String[] {"TABLE"})) {
+                if (rs.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @FunctionalInterface
+    private interface SqlWork<T> {
+        T run(PooledConnection connection) throws SQLException;
+    }
+
+    /** Runs {@code work} in one transaction on a pooled connection, translating failures to {@link IOException}. */
+    private <T> T execute(String action, SqlWork<T> work) throws IOException {
+        if (closed) {
+            throw new IOException("Session store is closed");
+        }
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a connection to " + action);
+        }
+        PooledConnection connection = null;
+        var healthy = false;
+        try {
+            connection = idle.poll();
+            if (connection == null) {
+                connection = new PooledConnection(dataSource.getConnection());
+            }
+            try {
+                var result = work.run(connection);
+                connection.connection.commit();
+                healthy = true;
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                try {
+                    connection.connection.rollback();
+                    healthy = true;
+                } catch (SQLException rollbackFailure) {
+                    e.addSuppressed(rollbackFailure);
+                }
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to " + action, e);
+        } finally {
+            if (connection != null) {
+                if (healthy && !closed) {
+                    idle.offer(connection);
+                } else {
+                    connection.close();
+                }
+            }
+            permits.release();
+        }
+    }
+
+    private static boolean isConstraintViolation(SQLException e) {
+        var state = e.getSQLState();
+        return state != null && state.startsWith("23");
+    }
+
+    private static void setNullableString(PreparedStatement statement, int index, @Nullable String value)
+            throws SQLException {
+        if (value != null) {
+            statement.setString(index, value);
+        } else {
+            statement.setNull(index, Types.VARCHAR);
+        }
+    }
+
+    /** Some databases store empty strings as {@code NULL}. */
+    private static String nonNull(@Nullable String value) {
+        return value != null ? value : "";
+    }
+
+    private static long toNanos(Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), NANOS_PER_SECOND), instant.getNano());
+    }
+
+    private static Instant toInstant(long nanos) {
+        return Instant.ofEpochSecond(Math.floorDiv(nanos, NANOS_PER_SECOND), Math.floorMod(nanos, NANOS_PER_SECOND));
+    }
+
+    /**
+     * Hashes of a history's first {@code prefixSize} entries and of the whole history: the first eight bytes of a
+     * SHA-256 over every field of every entry, each length-prefixed.
+     */
+    private record HistoryHashes(long prefix, long full) {
+
+        static HistoryHashes of(List<ConversationEntry> history, int prefixSize) {
+            var digest = sha256();
+            var prefix = prefixSize == 0 ? toLong(sha256().digest()) : 0L;
+            for (var i = 0; i < history.size(); i++) {
+                var entry = history.get(i);
+                update(digest, entry.prompt());
+                update(digest, entry.response());
+                update(digest, entry.model());
+                digest.update(ByteBuffer.allocate(Long.BYTES + Integer.BYTES + 1)
+                        .putLong(toNanos(entry.timestamp()))
+                        .putInt(entry.tokensUsed() != null ? entry.tokensUsed() : 0)
+                        .put((byte) (entry.tokensUsed() != null ? 1 : 0))
+                        .flip());
+                if (i + 1 == prefixSize) {
+                    prefix = toLong(clone(digest).digest());
+                }
+            }
+            return new HistoryHashes(prefix, toLong(digest.digest()));
+        }
+
+        private static void update(MessageDigest digest, @Nullable String value) {
+            if (value == null) {
+                digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(-1).flip());
+                return;
+            }
+            var bytes = value.getBytes(StandardCharsets.UTF_8);
+            digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).flip());
+            digest.update(bytes);
+        }
+
+        private static long toLong(byte[] hash) {
+            return ByteBuffer.wrap(hash).getLong();
+        }
+
+        private static MessageDigest sha256() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is required by the Java platform", e);
+            }
+        }
+
+        private static MessageDigest clone(MessageDigest digest) {
+            try {
+                return (MessageDigest) digest.clone();
+            } catch (CloneNotSupportedException e) {
+                throw new IllegalStateException("SHA-256 digest cannot be cloned", e);
+            }
+        }
+    }
+
+    /** A connection with its own least-recently-used cache of prepared statements. */
+    private static final class PooledConnection {
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= STATEMENT_CACHE_SIZE) {
+                    return false;
+                }
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+
+        PooledConnection(Connection connection) throws SQLException {
+            this.connection = connection;
+            try {
+                connection.setAutoCommit(false);
+            } catch (SQLException e) {
+                connection.close();
+                throw e;
+            }
+        }
+
+        PreparedStatement prepare(String sql) throws SQLException {
+            var statement = statements.get(sql);
+            if (statement == null) {
+                statement = connection.prepareStatement(sql);
+                statements.put(sql, statement);
+            }
+            return statement;
+        }
+
+        void close() {
+            statements.values().forEach(PooledConnection::closeQuietly);
+            statements.clear();
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.log(System.Logger.Level.DEBUG, "Failed to close session store connection", e);
+            }
+        }
+
+        private static void closeQuietly(PreparedStatement statement) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                log.log(System.Logger.Level.DEBUG, "Failed to close prepared statement", e);
+            }
+        }
+    }
+}
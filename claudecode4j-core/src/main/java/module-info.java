@@ -7,12 +7,16 @@ module ir.sudoit.claudecode4j.core {
     requires ir.sudoit.claudecode4j.api;
     requires static org.jspecify;
     requires tools.jackson.databind;
+    requires HdrHistogram;
+    requires java.sql;
 
     exports ir.sudoit.claudecode4j.core.client;
     exports ir.sudoit.claudecode4j.core.resolver;
     exports ir.sudoit.claudecode4j.core.process;
     exports ir.sudoit.claudecode4j.core.parser;
     exports ir.sudoit.claudecode4j.core.security;
+    exports ir.sudoit.claudecode4j.core.metrics;
+    exports ir.sudoit.claudecode4j.core.session;
 
     provides ir.sudoit.claudecode4j.api.client.ClaudeClientFactory with
             ir.sudoit.claudecode4j.core.client.DefaultClaudeClientFactory;
@@ -20,7 +24,8 @@ module ir.sudoit.claudecode4j.core {
             ir.sudoit.claudecode4j.core.resolver.NpmBinaryResolver,
             ir.sudoit.claudecode4j.core.resolver.PathBinaryResolver;
     provides ir.sudoit.claudecode4j.api.spi.InputSanitizer with
-            ir.sudoit.claudecode4j.core.security.DefaultInputSanitizer;
+            ir.sudoit.claudecode4j.core.security.DefaultInputSanitizer,
+            ir.sudoit.claudecode4j.core.security.ScanningInputSanitizer;
     provides ir.sudoit.claudecode4j.api.spi.ProcessExecutor with
             ir.sudoit.claudecode4j.core.process.VirtualThreadExecutor;
     provides ir.sudoit.claudecode4j.api.spi.OutputParser with
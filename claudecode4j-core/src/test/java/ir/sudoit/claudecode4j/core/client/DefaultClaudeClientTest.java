@@ -35,15 +35,26 @@ import ir.sudoit.claudecode4j.api.config.ClaudeConfig;
 import ir.sudoit.claudecode4j.api.exception.ClaudeTimeoutException;
 import ir.sudoit.claudecode4j.api.model.request.Prompt;
 import ir.sudoit.claudecode4j.api.model.request.PromptOptions;
+import ir.sudoit.claudecode4j.api.model.response.ErrorResponse;
+import ir.sudoit.claudecode4j.api.model.response.StreamEvent;
 import ir.sudoit.claudecode4j.api.model.response.TextResponse;
 import ir.sudoit.claudecode4j.api.spi.InputSanitizer;
 import ir.sudoit.claudecode4j.api.spi.OutputParser;
 import ir.sudoit.claudecode4j.api.spi.ProcessExecutor;
 import ir.sudoit.claudecode4j.api.spi.ProcessExecutor.ExecutionResult;
+import ir.sudoit.claudecode4j.core.metrics.ExecutionPhase;
+import ir.sudoit.claudecode4j.core.metrics.ExecutionTrace;
+import ir.sudoit.claudecode4j.core.parser.JacksonStreamParser;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -159,6 +170,99 @@ class DefaultClaudeClientTest {
                     .hasMessageContaining("Client is closed");
         }
 
+        @Test
+        @DisplayName("should record execution phases")
+        void shouldRecordExecutionPhases() {
+            var prompt = Prompt.of("Test");
+            var expectedResponse = new TextResponse("Response", Instant.now(), Duration.ofMillis(50), null, 20, null, 15);
+
+            when(sanitizer.sanitize(prompt)).thenReturn(prompt);
+            when(executor.execute(anyList(), any(Path.class), any(Duration.class), any()))
+                    .thenAnswer(invocation -> {
+                        var trace = ExecutionTrace.current();
+                        assertThat(trace).isNotNull();
+                        trace.spawning();
+                        trace.spawned();
+                        trace.outputLine("Response");
+                        Thread.sleep(5);
+                        trace.exited();
+                        return new ExecutionResult(0, "Response", "");
+                    });
+            when(parser.parse("Response", 0)).thenReturn(expectedResponse);
+
+            client.execute(prompt);
+
+            var snapshot = client.phaseMetrics().snapshot();
+            assertThat(snapshot.phases().values())
+                    .allSatisfy(statistics -> assertThat(statistics.count()).isEqualTo(1));
+            assertThat(snapshot.outputTokensPerSecond().count()).isEqualTo(1);
+            assertThat(ExecutionTrace.current()).isNull();
+        }
+
+        @Test
+        @DisplayName("should record total time of failed executions")
+        void shouldRecordTotalTimeOfFailedExecutions() {
+            var prompt = Prompt.of("Test");
+
+            when(sanitizer.sanitize(prompt)).thenReturn(prompt);
+            when(executor.execute(anyList(), any(Path.class), any(Duration.class), any()))
+                    .thenReturn(new ExecutionResult(-1, "", "Timeout"));
+
+            assertThatThrownBy(() -> client.execute(prompt)).isInstanceOf(ClaudeTimeoutException.class);
+
+            var snapshot = client.phaseMetrics().snapshot();
+            assertThat(snapshot.phase(ExecutionPhase.TOTAL).count()).isEqualTo(1);
+            assertThat(snapshot.phase(ExecutionPhase.PARSE).count()).isZero();
+        }
+
+        @Test
+        @DisplayName("should carry stderr into the details of an error response")
+        void shouldCarryStderrIntoErrorDetails() {
+            var prompt = Prompt.of("Test");
+            var parsingClient = new DefaultClaudeClient(
+                    ClaudeConfig.builder().binaryPath(BINARY_PATH).build(),
+                    BINARY_PATH,
+                    sanitizer,
+                    new JacksonStreamParser(),
+                    executor);
+
+            when(sanitizer.sanitize(prompt)).thenReturn(prompt);
+            when(executor.execute(anyList(), any(Path.class), any(Duration.class), any()))
+                    .thenReturn(new ExecutionResult(1, "", "No conversation found with session ID: cli-1"));
+
+            var response = parsingClient.execute(prompt);
+
+            assertThat(response).isInstanceOfSatisfying(ErrorResponse.class, error -> {
+                assertThat(error.exitCode()).isEqualTo(1);
+                assertThat(error.errorDetails()).contains("No conversation found with session ID: cli-1");
+            });
+        }
+
+        @Test
+        @DisplayName("should let a session start afresh when the CLI reports an unknown session on stderr")
+        void shouldLetSessionStartAfreshOnUnknownSessionInStderr() {
+            var parsingClient = new DefaultClaudeClient(
+                    ClaudeConfig.builder().binaryPath(BINARY_PATH).build(),
+                    BINARY_PATH,
+                    sanitizer,
+                    new JacksonStreamParser(),
+                    executor);
+            var result = "{\"type\": \"result\", \"result\": \"Hi\", \"session_id\": \"cli-%d\"}";
+
+            when(sanitizer.sanitize(any(Prompt.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            when(executor.execute(anyList(), any(Path.class), any(Duration.class), any()))
+                    .thenReturn(new ExecutionResult(0, result.formatted(1), ""))
+                    .thenReturn(new ExecutionResult(1, "", "No conversation found with session ID: cli-1"))
+                    .thenReturn(new ExecutionResult(0, result.formatted(2), ""));
+
+            var session = parsingClient.createSession();
+            session.send("First message");
+            var response = session.send("Second message");
+
+            assertThat(response.isSuccess()).isTrue();
+            assertThat(((DefaultClaudeSession) session).cliSessionId()).isEqualTo("cli-2");
+        }
+
         @Test
         @DisplayName("should use working directory from prompt")
         void shouldUseWorkingDirectoryFromPrompt() {
@@ -177,6 +281,108 @@ class DefaultClaudeClientTest {
         }
     }
 
+    @Nested
+    @DisplayName("stream")
+    class Streaming {
+
+        @Test
+        @DisplayName("should record the output rate from the streamed result usage")
+        void shouldRecordOutputRateOfStreamedExecutions() throws Exception {
+            var prompt = Prompt.of("Test");
+            var streamingClient = new DefaultClaudeClient(
+                    ClaudeConfig.builder().binaryPath(BINARY_PATH).build(),
+                    BINARY_PATH,
+                    sanitizer,
+                    new JacksonStreamParser(),
+                    executor);
+
+            when(sanitizer.sanitize(prompt)).thenReturn(prompt);
+            when(executor.executeStreaming(anyList(), any(Path.class), any(), any(Duration.class), any()))
+                    .thenAnswer(invocation -> {
+                        Consumer<String> onLine = invocation.getArgument(2);
+                        var trace = ExecutionTrace.current();
+                        trace.spawning();
+                        trace.spawned();
+                        for (var line : List.of(
+                                "Hello", "{\"type\": \"result\", \"usage\": {\"output_tokens\": 40}}")) {
+                            trace.outputLine(line);
+                            onLine.accept(line);
+                            Thread.sleep(5);
+                        }
+                        trace.exited();
+                        return CompletableFuture.completedFuture(0);
+                    });
+
+            var done = new CountDownLatch(1);
+            streamingClient.stream(prompt).subscribe(new Flow.Subscriber<>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscription.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(StreamEvent item) {}
+
+                @Override
+                public void onError(Throwable throwable) {
+                    done.countDown();
+                }
+
+                @Override
+                public void onComplete() {
+                    done.countDown();
+                }
+            });
+
+            assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+            var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (streamingClient.phaseMetrics().snapshot().outputTokensPerSecond().count() == 0
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(streamingClient.phaseMetrics().snapshot().outputTokensPerSecond().count())
+                    .isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should fail the stream with a security violation from the prompt source")
+        void shouldFailStreamWithSecurityViolation() throws Exception {
+            var prompt = Prompt.of(out -> {
+                throw new SecurityException("rejected");
+            });
+
+            when(sanitizer.sanitize(prompt)).thenReturn(prompt);
+            when(executor.executeStreamingWithStdin(anyList(), any(Path.class), any(), any(Duration.class), any()))
+                    .thenReturn(CompletableFuture.failedFuture(new SecurityException("rejected")));
+
+            var error = new AtomicReference<Throwable>();
+            var done = new CountDownLatch(1);
+            client.stream(prompt).subscribe(new Flow.Subscriber<>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscription.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(StreamEvent item) {}
+
+                @Override
+                public void onError(Throwable throwable) {
+                    error.set(throwable);
+                    done.countDown();
+                }
+
+                @Override
+                public void onComplete() {
+                    done.countDown();
+                }
+            });
+
+            assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(error.get()).isInstanceOf(SecurityException.class).hasMessage("rejected");
+        }
+    }
+
     @Nested
     @DisplayName("executeAsync")
     class ExecuteAsync {
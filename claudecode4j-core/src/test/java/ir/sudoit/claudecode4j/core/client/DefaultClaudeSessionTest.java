@@ -26,13 +26,25 @@ package ir.sudoit.claudecode4j.core.client;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import ir.sudoit.claudecode4j.api.config.HistoryRetention;
 import ir.sudoit.claudecode4j.api.model.request.Prompt;
 import ir.sudoit.claudecode4j.api.model.request.PromptOptions;
+import ir.sudoit.claudecode4j.api.model.response.ErrorResponse;
+import ir.sudoit.claudecode4j.api.model.response.StreamEvent;
+import ir.sudoit.claudecode4j.api.model.response.StreamResponse;
 import ir.sudoit.claudecode4j.api.model.response.TextResponse;
+import ir.sudoit.claudecode4j.api.session.InMemorySessionStore;
+import ir.sudoit.claudecode4j.api.session.SessionData;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -200,6 +212,170 @@ class DefaultClaudeSessionTest {
         }
     }
 
+    @Nested
+    @DisplayName("resume")
+    class Resume {
+
+        @Test
+        @DisplayName("should resume the CLI session reported by the previous turn")
+        void shouldResumeCliSessionOfPreviousTurn() {
+            var first = new TextResponse("First", Instant.now(), Duration.ofMillis(50), null, null, "cli-1");
+            var second = new TextResponse("Second", Instant.now(), Duration.ofMillis(50), null, null, "cli-1");
+            when(client.execute(any(Prompt.class), any(PromptOptions.class)))
+                    .thenReturn(first)
+                    .thenReturn(second);
+
+            session.send("First message");
+            session.send("Second message");
+
+            verify(client).execute(any(Prompt.class), argThat(options -> options.resumeSessionId() == null));
+            verify(client).execute(any(Prompt.class), argThat(options -> "cli-1".equals(options.resumeSessionId())));
+            assertThat(session.cliSessionId()).isEqualTo("cli-1");
+        }
+
+        @Test
+        @DisplayName("should fall back to a fresh CLI session when the resumed session is unknown")
+        void shouldFallBackToFreshSessionWhenResumedSessionIsUnknown() {
+            var first = new TextResponse("First", Instant.now(), Duration.ofMillis(50), null, null, "cli-1");
+            var failed = new ErrorResponse(
+                    "CLI failed",
+                    Instant.now(),
+                    Duration.ofMillis(10),
+                    "CLI_ERROR",
+                    "No conversation found with session ID: cli-1",
+                    1);
+            var fresh = new TextResponse("Fresh", Instant.now(), Duration.ofMillis(50), null, null, "cli-2");
+            when(client.execute(any(Prompt.class), any(PromptOptions.class)))
+                    .thenReturn(first)
+                    .thenReturn(failed)
+                    .thenReturn(fresh);
+
+            session.send("First message");
+            var response = session.send("Second message");
+
+            assertThat(response).isEqualTo(fresh);
+            assertThat(session.cliSessionId()).isEqualTo("cli-2");
+            verify(client, times(2))
+                    .execute(any(Prompt.class), argThat(options -> options.resumeSessionId() == null));
+        }
+
+        @Test
+        @DisplayName("should return other errors of a resumed turn without retrying it")
+        void shouldNotRetryOtherResumeErrors() {
+            var first = new TextResponse("First", Instant.now(), Duration.ofMillis(50), null, null, "cli-1");
+            var failed =
+                    new ErrorResponse("Tool failed", Instant.now(), Duration.ofMillis(10), "CLI_ERROR", "", 1);
+            when(client.execute(any(Prompt.class), any(PromptOptions.class)))
+                    .thenReturn(first)
+                    .thenReturn(failed);
+
+            session.send("First message");
+            var response = session.send("Second message");
+
+            assertThat(response).isEqualTo(failed);
+            assertThat(session.cliSessionId()).isEqualTo("cli-1");
+            verify(client, times(2)).execute(any(Prompt.class), any(PromptOptions.class));
+        }
+
+        @Test
+        @DisplayName("should start a new CLI session after clearing history")
+        void shouldStartNewCliSessionAfterClearingHistory() {
+            var response = new TextResponse("Response", Instant.now(), Duration.ofMillis(50), null, null, "cli-1");
+            when(client.execute(any(Prompt.class), any(PromptOptions.class))).thenReturn(response);
+
+            session.send("Message");
+            session.clearHistory();
+
+            assertThat(session.cliSessionId()).isNull();
+        }
+    }
+
+    @Nested
+    @DisplayName("history retention")
+    class Retention {
+
+        @Test
+        @DisplayName("should keep only the last turns")
+        void shouldKeepOnlyLastTurns() {
+            var bounded = new DefaultClaudeSession(client, new HistoryRetention(2, false, null));
+            var response1 = new TextResponse("First", Instant.now(), Duration.ofMillis(50), null, null, null);
+            var response2 = new TextResponse("Second", Instant.now(), Duration.ofMillis(50), null, null, null);
+            var response3 = new TextResponse("Third", Instant.now(), Duration.ofMillis(50), null, null, null);
+            when(client.execute(any(Prompt.class), any(PromptOptions.class)))
+                    .thenReturn(response1)
+                    .thenReturn(response2)
+                    .thenReturn(response3);
+
+            bounded.send("First message");
+            bounded.send("Second message");
+            bounded.send("Third message");
+
+            assertThat(bounded.history()).containsExactly(response2, response3);
+        }
+
+        @Test
+        @DisplayName("should drop raw stream events when summarising")
+        void shouldDropRawStreamEventsWhenSummarising() {
+            var summarized = new DefaultClaudeSession(client, HistoryRetention.lastTurns(10));
+            var event = StreamEvent.of(StreamEvent.EventType.ASSISTANT, "Hello", 1);
+            var response = new StreamResponse(
+                    "Hello", Instant.now(), Duration.ofMillis(50), List.of(event), "opus", 12, "cli-1");
+            when(client.execute(any(Prompt.class), any(PromptOptions.class))).thenReturn(response);
+
+            summarized.send("Hi");
+
+            var kept = (StreamResponse) summarized.history().getFirst();
+            assertThat(kept.events()).isEmpty();
+            assertThat(kept.content()).isEqualTo("Hello");
+            assertThat(kept.tokensUsed()).isEqualTo(12);
+        }
+
+        @Test
+        @DisplayName("should spill dropped turns to the session store")
+        void shouldSpillDroppedTurnsToSessionStore() throws Exception {
+            var store = new InMemorySessionStore();
+            var spilling = new DefaultClaudeSession(client, HistoryRetention.lastTurns(1).spillTo(store));
+            var response1 = new TextResponse("First", Instant.now(), Duration.ofMillis(50), "opus", 5, null);
+            var response2 = new TextResponse("Second", Instant.now(), Duration.ofMillis(50), null, null, null);
+            when(client.execute(any(Prompt.class), any(PromptOptions.class)))
+                    .thenReturn(response1)
+                    .thenReturn(response2);
+
+            spilling.send("First message");
+            spilling.send("Second message");
+            assertThat(spilling.history()).containsExactly(response2);
+            spilling.close();
+
+            var spilled = store.load(spilling.sessionId()).orElseThrow().history();
+            assertThat(spilled).hasSize(1);
+            assertThat(spilled.getFirst().prompt()).isEqualTo("First message");
+            assertThat(spilled.getFirst().response()).isEqualTo("First");
+            assertThat(spilled.getFirst().tokensUsed()).isEqualTo(5);
+        }
+
+        @Test
+        @DisplayName("should spill dropped turns in batches, in order, off the send path")
+        void shouldSpillInBatches() throws Exception {
+            var store = spy(new InMemorySessionStore());
+            var spilling = new DefaultClaudeSession(client, HistoryRetention.lastTurns(1).spillTo(store));
+            var response = new TextResponse("Response", Instant.now(), Duration.ofMillis(50), null, null, null);
+            when(client.execute(any(Prompt.class), any(PromptOptions.class))).thenReturn(response);
+
+            for (var i = 0; i < 40; i++) {
+                spilling.send("Message " + i);
+            }
+            verify(store, timeout(5000).times(2)).save(any(SessionData.class));
+            spilling.close();
+
+            verify(store, times(3)).save(any(SessionData.class));
+            var spilled = store.load(spilling.sessionId()).orElseThrow().history();
+            assertThat(spilled).hasSize(39);
+            for (var i = 0; i < 39; i++) {
+                assertThat(spilled.get(i).prompt()).isEqualTo("Message " + i);
+            }
+        }
+    }
+
     @Nested
     @DisplayName("clearHistory")
     class ClearHistory {
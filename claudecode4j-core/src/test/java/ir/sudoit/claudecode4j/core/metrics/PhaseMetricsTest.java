@@ -0,0 +1,246 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.core.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("PhaseMetrics")
+class PhaseMetricsTest {
+
+    private PhaseMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new PhaseMetrics();
+    }
+
+    @Nested
+    @DisplayName("record")
+    class Record {
+
+        @Test
+        @DisplayName("should accumulate durations in microseconds")
+        void shouldAccumulateDurationsInMicroseconds() {
+            metrics.record(ExecutionPhase.PROCESS_SPAWN, TimeUnit.MILLISECONDS.toNanos(10));
+            metrics.record(ExecutionPhase.PROCESS_SPAWN, TimeUnit.MILLISECONDS.toNanos(30));
+
+            var spawn = metrics.snapshot().phase(ExecutionPhase.PROCESS_SPAWN);
+
+            assertThat(spawn.count()).isEqualTo(2);
+            assertThat(spawn.min()).isBetween(9_900L, 10_100L);
+            assertThat(spawn.max()).isBetween(29_700L, 30_300L);
+        }
+
+        @Test
+        @DisplayName("should keep accumulating across snapshots until reset")
+        void shouldKeepAccumulatingAcrossSnapshotsUntilReset() {
+            metrics.record(ExecutionPhase.TOTAL, 1_000_000);
+            metrics.snapshot();
+            metrics.record(ExecutionPhase.TOTAL, 1_000_000);
+
+            assertThat(metrics.snapshot().phase(ExecutionPhase.TOTAL).count()).isEqualTo(2);
+
+            metrics.reset();
+
+            assertThat(metrics.snapshot().phase(ExecutionPhase.TOTAL).count()).isZero();
+        }
+
+        @Test
+        @DisplayName("should ignore negative durations")
+        void shouldIgnoreNegativeDurations() {
+            metrics.record(ExecutionPhase.PARSE, -1);
+
+            assertThat(metrics.snapshot().phase(ExecutionPhase.PARSE).count()).isZero();
+        }
+
+        @Test
+        @DisplayName("should notify listeners until removed")
+        void shouldNotifyListenersUntilRemoved() {
+            var phases = new ArrayList<ExecutionPhase>();
+            var rates = new ArrayList<Double>();
+            PhaseMetrics.Listener listener = new PhaseMetrics.Listener() {
+                @Override
+                public void onPhase(ExecutionPhase phase, long nanos) {
+                    phases.add(phase);
+                }
+
+                @Override
+                public void onOutputRate(double tokensPerSecond) {
+                    rates.add(tokensPerSecond);
+                }
+            };
+            metrics.addListener(listener);
+
+            metrics.record(ExecutionPhase.FIRST_BYTE, 1_000);
+            metrics.recordOutputRate(42.5);
+            metrics.removeListener(listener);
+            metrics.record(ExecutionPhase.FIRST_BYTE, 1_000);
+
+            assertThat(phases).containsExactly(ExecutionPhase.FIRST_BYTE);
+            assertThat(rates).containsExactly(42.5);
+        }
+
+        @Test
+        @DisplayName("should keep recording when a listener fails")
+        void shouldKeepRecordingWhenListenerFails() {
+            metrics.addListener((phase, nanos) -> {
+                throw new IllegalStateException("boom");
+            });
+
+            metrics.record(ExecutionPhase.TOTAL, 1_000);
+
+            assertThat(metrics.snapshot().phase(ExecutionPhase.TOTAL).count()).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("ExecutionTrace")
+    class Trace {
+
+        @Test
+        @DisplayName("should be bound only while calling")
+        void shouldBeBoundOnlyWhileCalling() {
+            var trace = metrics.startTrace();
+
+            var bound = trace.call(ExecutionTrace::current);
+
+            assertThat(bound).isSameAs(trace);
+            assertThat(ExecutionTrace.current()).isNull();
+        }
+
+        @Test
+        @DisplayName("should record only the phases that were marked")
+        void shouldRecordOnlyMarkedPhases() {
+            var trace = metrics.startTrace();
+            trace.admitted();
+
+            trace.complete();
+
+            var snapshot = metrics.snapshot();
+            assertThat(snapshot.phase(ExecutionPhase.ADMISSION_WAIT).count()).isEqualTo(1);
+            assertThat(snapshot.phase(ExecutionPhase.TOTAL).count()).isEqualTo(1);
+            assertThat(snapshot.phase(ExecutionPhase.PROCESS_SPAWN).count()).isZero();
+            assertThat(snapshot.phase(ExecutionPhase.FIRST_BYTE).count()).isZero();
+            assertThat(snapshot.phase(ExecutionPhase.PARSE).count()).isZero();
+            assertThat(snapshot.outputTokensPerSecond().count()).isZero();
+        }
+
+        @Test
+        @DisplayName("should mark the first token at the first assistant message")
+        void shouldMarkFirstTokenAtFirstAssistantMessage() throws InterruptedException {
+            var firstToken = new ArrayList<Long>();
+            var firstByte = new ArrayList<Long>();
+            metrics.addListener((phase, nanos) -> {
+                switch (phase) {
+                    case FIRST_TOKEN -> firstToken.add(nanos);
+                    case FIRST_BYTE -> firstByte.add(nanos);
+                    default -> {}
+                }
+            });
+            var trace = metrics.startTrace();
+            trace.spawning();
+            trace.spawned();
+
+            trace.outputLine("{\"type\":\"system\",\"subtype\":\"init\"}");
+            Thread.sleep(5);
+            trace.outputLine("{\"type\":\"assistant\",\"message\":{}}");
+            trace.complete();
+
+            assertThat(firstByte).hasSize(1);
+            assertThat(firstToken).hasSize(1);
+            assertThat(firstToken.getFirst() - firstByte.getFirst())
+                    .isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(5));
+        }
+
+        @Test
+        @DisplayName("should treat plain text output as the first token")
+        void shouldTreatPlainTextOutputAsFirstToken() {
+            var trace = metrics.startTrace();
+            trace.spawning();
+            trace.spawned();
+
+            trace.outputLine("Hello");
+            trace.complete();
+
+            assertThat(metrics.snapshot().phase(ExecutionPhase.FIRST_TOKEN).count())
+                    .isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should derive the output rate from the generation window")
+        void shouldDeriveOutputRateFromGenerationWindow() throws InterruptedException {
+            var rates = new ArrayList<Double>();
+            metrics.addListener(new PhaseMetrics.Listener() {
+                @Override
+                public void onPhase(ExecutionPhase phase, long nanos) {}
+
+                @Override
+                public void onOutputRate(double tokensPerSecond) {
+                    rates.add(tokensPerSecond);
+                }
+            });
+            var trace = metrics.startTrace();
+            trace.spawning();
+            trace.spawned();
+            trace.outputLine("Hello");
+            Thread.sleep(50);
+            trace.exited();
+            trace.outputTokens(10);
+
+            trace.complete();
+            trace.complete();
+
+            assertThat(rates).hasSize(1);
+            assertThat(rates.getFirst()).isBetween(1.0, 200.0);
+            assertThat(metrics.snapshot().phase(ExecutionPhase.TOTAL).count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should sum parse time over all lines")
+        void shouldSumParseTimeOverAllLines() {
+            List<Long> parse = new ArrayList<>();
+            metrics.addListener((phase, nanos) -> {
+                if (phase == ExecutionPhase.PARSE) {
+                    parse.add(nanos);
+                }
+            });
+            var trace = metrics.startTrace();
+
+            trace.parsed(System.nanoTime() - 1_000_000);
+            trace.parsed(System.nanoTime() - 2_000_000);
+            trace.complete();
+
+            assertThat(parse).hasSize(1);
+            assertThat(parse.getFirst()).isGreaterThanOrEqualTo(3_000_000);
+        }
+    }
+}
@@ -30,6 +30,7 @@ import ir.sudoit.claudecode4j.api.model.response.ErrorResponse;
 import ir.sudoit.claudecode4j.api.model.response.StreamEvent;
 import ir.sudoit.claudecode4j.api.model.response.StreamResponse;
 import ir.sudoit.claudecode4j.api.model.response.TextResponse;
+import java.util.ArrayList;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -105,6 +106,32 @@ class JacksonStreamParserTest {
             assertThat(streamResponse.isSuccess()).isTrue();
         }
 
+        @Test
+        @DisplayName("should report total and output tokens from the result usage")
+        void shouldReportTokensFromResultUsage() {
+            var output = """
+                    {"type": "assistant", "content": "Hello"}
+                    {"type": "result", "usage": {"input_tokens": 12, "cache_read_input_tokens": 100, "output_tokens": 34}}
+                    """;
+            var result = parser.parse(output, 0);
+
+            assertThat(result).isInstanceOf(StreamResponse.class);
+            assertThat(((StreamResponse) result).tokensUsed()).isEqualTo(146);
+            assertThat(((StreamResponse) result).outputTokens()).isEqualTo(34);
+        }
+
+        @Test
+        @DisplayName("should report the CLI session ID from the result")
+        void shouldReportCliSessionIdFromResult() {
+            var output = """
+                    {"type": "assistant", "content": "Hello"}
+                    {"type": "result", "session_id": "abc-123"}
+                    """;
+            var result = parser.parse(output, 0);
+
+            assertThat(((StreamResponse) result).sessionId()).isEqualTo("abc-123");
+        }
+
         @Test
         @DisplayName("should parse error output with non-zero exit code")
         void shouldParseErrorOutputWithNonZeroExitCode() {
@@ -274,6 +301,20 @@ class JacksonStreamParserTest {
             assertThat(events.get(1).content()).isEqualTo(" World");
         }
 
+        @Test
+        @DisplayName("should report output tokens from a streamed result line")
+        void shouldReportOutputTokensFromStreamedResult() {
+            var lines = Stream.of(
+                    "{\"type\": \"assistant\", \"content\": \"Hello\"}",
+                    "{\"type\": \"result\", \"usage\": {\"input_tokens\": 12, \"output_tokens\": 34}}");
+            var reported = new ArrayList<Integer>();
+
+            var events = parser.parseStream(lines, reported::add).toList();
+
+            assertThat(events).hasSize(2);
+            assertThat(reported).containsExactly(34);
+        }
+
         @Test
         @DisplayName("should filter blank lines in stream")
         void shouldFilterBlankLinesInStream() {
@@ -24,11 +24,13 @@
 package ir.sudoit.claudecode4j.core.process;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import ir.sudoit.claudecode4j.api.model.request.OutputFormat;
 import ir.sudoit.claudecode4j.api.model.request.PermissionMode;
 import ir.sudoit.claudecode4j.api.model.request.Prompt;
 import ir.sudoit.claudecode4j.api.model.request.PromptOptions;
+import ir.sudoit.claudecode4j.api.model.request.PromptSource;
 import java.nio.file.Path;
 import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
@@ -162,6 +164,15 @@ class ClaudeCommandBuilderTest {
             assertThat(command).containsSequence("--max-turns", "5");
         }
 
+        @Test
+        @DisplayName("should build command resuming a CLI session")
+        void shouldBuildCommandResumingCliSession() {
+            var options = PromptOptions.builder().resumeSessionId("abc-123").build();
+            var command = builder.options(options).build();
+
+            assertThat(command).containsSequence("--resume", "abc-123");
+        }
+
         @Test
         @DisplayName("should build command with allowed tools")
         void shouldBuildCommandWithAllowedTools() {
@@ -303,6 +314,14 @@ class ClaudeCommandBuilderTest {
 
             assertThat(command).isUnmodifiable();
         }
+
+        @Test
+        @DisplayName("should reject a streamed prompt as positional argument")
+        void shouldRejectStreamedPrompt() {
+            builder.prompt(Prompt.of(PromptSource.of("streamed")));
+
+            assertThatThrownBy(builder::build).isInstanceOf(IllegalStateException.class);
+        }
     }
 
     @Nested
@@ -357,6 +376,22 @@ class ClaudeCommandBuilderTest {
             assertThat(result.stdinInput()).isNull();
         }
 
+        @Test
+        @DisplayName("should hand the source of a streamed prompt to stdin")
+        void shouldHandSourceOfStreamedPromptToStdin() {
+            var source = PromptSource.of(Path.of("prompt.txt"));
+            var prompt =
+                    Prompt.builder().source(source).systemPrompt("Be brief").build();
+
+            var result = builder.prompt(prompt).buildWithStdin();
+
+            assertThat(result.command())
+                    .containsSequence("--system-prompt", "Be brief")
+                    .endsWith("-p", "-");
+            assertThat(result.stdinInput()).isNull();
+            assertThat(result.stdinSource()).isSameAs(source);
+        }
+
         @Test
         @DisplayName("should return immutable command list from stdin build")
         void shouldReturnImmutableCommandListFromStdinBuild() {
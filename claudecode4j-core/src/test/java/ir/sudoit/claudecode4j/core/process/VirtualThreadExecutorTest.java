@@ -24,12 +24,21 @@
 package ir.sudoit.claudecode4j.core.process;
 
 import static org.assertj.core.api.Assertions.assertThat;
-
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ir.sudoit.claudecode4j.api.model.request.PromptSource;
+import ir.sudoit.claudecode4j.api.template.CompiledTemplate;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -37,6 +46,7 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.DisabledOnOs;
 import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
 
 @DisplayName("VirtualThreadExecutor")
 class VirtualThreadExecutorTest {
@@ -143,6 +153,144 @@ class VirtualThreadExecutorTest {
         }
     }
 
+    @Nested
+    @DisplayName("executeWithStdin")
+    class ExecuteWithStdinSource {
+
+        @TempDir
+        Path tempDir;
+
+        @Test
+        @DisplayName("should stream a file to stdin")
+        @DisabledOnOs(OS.WINDOWS)
+        void shouldStreamFileToStdin() throws IOException {
+            var file = tempDir.resolve("prompt.txt");
+            var content = "line\n".repeat(100_000);
+            Files.writeString(file, content);
+
+            var result = executor.executeWithStdin(
+                    List.of("wc", "-c"), workingDirectory, Duration.ofSeconds(10), PromptSource.of(file));
+
+            assertThat(result.isSuccess()).isTrue();
+            assertThat(result.stdout().trim()).isEqualTo(String.valueOf(content.length()));
+        }
+
+        @Test
+        @DisplayName("should stream an input stream and a rendered template as UTF-8")
+        @DisabledOnOs(OS.WINDOWS)
+        void shouldStreamInputStreamAndTemplate() {
+            var stream = new ByteArrayInputStream("from stream".getBytes(StandardCharsets.UTF_8));
+            var template = CompiledTemplate.compile("Hello {{name}}!");
+
+            var fromStream = executor.executeWithStdin(
+                    List.of("cat"), workingDirectory, Duration.ofSeconds(10), PromptSource.of(stream));
+            var fromTemplate = executor.executeWithStdin(
+                    List.of("wc", "-c"),
+                    workingDirectory,
+                    Duration.ofSeconds(10),
+                    PromptSource.of(template, Map.of("name", "Ünïcode")));
+
+            assertThat(fromStream.stdout()).contains("from stream");
+            assertThat(fromTemplate.stdout().trim())
+                    .isEqualTo(String.valueOf("Hello Ünïcode!".getBytes(StandardCharsets.UTF_8).length));
+        }
+
+        @Test
+        @DisplayName("should kill the process without sending EOF when the source fails")
+        @DisabledOnOs(OS.WINDOWS)
+        void shouldKillProcessWhenSourceFails() {
+            PromptSource failing = out -> {
+                out.write("partial".getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                throw new SecurityException("rejected");
+            };
+
+            assertThatThrownBy(() -> executor.executeWithStdin(
+                            List.of("sh", "-c", "cat > /dev/null; echo ran > ran.txt"),
+                            tempDir,
+                            Duration.ofSeconds(10),
+                            failing))
+                    .isInstanceOf(SecurityException.class)
+                    .hasMessage("rejected");
+            assertThat(tempDir.resolve("ran.txt")).doesNotExist();
+        }
+
+        @Test
+        @DisplayName("should report a killed process, not an error, when the source fails to read")
+        @DisabledOnOs(OS.WINDOWS)
+        void shouldKillProcessWhenSourceFailsToRead() {
+            PromptSource failing = out -> {
+                out.write("partial".getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                throw new IOException("disk error");
+            };
+
+            var result = executor.executeWithStdin(
+                    List.of("sh", "-c", "cat > /dev/null; echo ran > ran.txt"),
+                    tempDir,
+                    Duration.ofSeconds(10),
+                    failing);
+
+            assertThat(result.exitCode()).isNotZero();
+            assertThat(result.stderr()).doesNotContain("disk error");
+            assertThat(tempDir.resolve("ran.txt")).doesNotExist();
+        }
+
+        @Test
+        @DisplayName("should keep the result of a process that exits without reading its input")
+        @DisabledOnOs(OS.WINDOWS)
+        void shouldIgnoreUnreadInput() {
+            var result = executor.executeWithStdin(
+                    List.of("sh", "-c", "echo done"),
+                    workingDirectory,
+                    Duration.ofSeconds(10),
+                    PromptSource.of("x".repeat(4 * 1024 * 1024)));
+
+            assertThat(result.exitCode()).isZero();
+            assertThat(result.stdout()).contains("done");
+        }
+
+        @Test
+        @DisplayName("should fail the streaming future with the source's security violation")
+        @DisabledOnOs(OS.WINDOWS)
+        void shouldFailStreamingWhenSourceIsRejected() {
+            PromptSource failing = out -> {
+                out.write("partial".getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                throw new SecurityException("rejected");
+            };
+
+            var future = executor.executeStreamingWithStdin(
+                    List.of("sh", "-c", "cat > /dev/null; echo ran"),
+                    workingDirectory,
+                    line -> {},
+                    Duration.ofSeconds(10),
+                    failing);
+
+            assertThatThrownBy(() -> future.get(10, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(SecurityException.class);
+        }
+
+        @Test
+        @DisplayName("should stream a source while streaming output")
+        @DisabledOnOs(OS.WINDOWS)
+        void shouldStreamSourceWhileStreamingOutput() throws Exception {
+            var lines = Collections.synchronizedList(new ArrayList<String>());
+
+            var exitCode = executor.executeStreamingWithStdin(
+                            List.of("cat"),
+                            workingDirectory,
+                            lines::add,
+                            Duration.ofSeconds(10),
+                            PromptSource.of("one\ntwo\n"))
+                    .get(10, TimeUnit.SECONDS);
+
+            assertThat(exitCode).isZero();
+            assertThat(lines).containsExactly("one", "two");
+        }
+    }
+
     @Nested
     @DisplayName("executeAsync")
     class ExecuteAsync {
@@ -193,6 +341,32 @@ class VirtualThreadExecutorTest {
             assertThat(lines).isNotEmpty();
         }
 
+        @Test
+        @DisplayName("should deliver every line written just before exit before completing")
+        @DisabledOnOs(OS.WINDOWS)
+        void shouldDeliverTrailingLinesBeforeCompleting() throws Exception {
+            // The process exits at once while a slow consumer is still working through the pipe
+            var command = List.of("sh", "-c", "seq 1 200");
+            var lines = Collections.synchronizedList(new ArrayList<String>());
+
+            var future = executor.executeStreaming(
+                    command,
+                    workingDirectory,
+                    line -> {
+                        try {
+                            Thread.sleep(1);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        lines.add(line);
+                    },
+                    Duration.ofSeconds(10));
+            var exitCode = future.get(15, TimeUnit.SECONDS);
+
+            assertThat(exitCode).isZero();
+            assertThat(lines).hasSize(200).endsWith("200");
+        }
+
         @Test
         @DisplayName("should return -1 on streaming timeout")
         @DisabledOnOs(OS.WINDOWS)
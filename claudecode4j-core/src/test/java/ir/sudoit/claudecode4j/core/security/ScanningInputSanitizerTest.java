@@ -0,0 +1,361 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.core.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ir.sudoit.claudecode4j.api.model.request.Prompt;
+import ir.sudoit.claudecode4j.api.model.request.PromptSource;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("ScanningInputSanitizer")
+class ScanningInputSanitizerTest {
+
+    private ScanningInputSanitizer sanitizer;
+
+    @BeforeEach
+    void setUp() {
+        sanitizer = new ScanningInputSanitizer();
+    }
+
+    @Nested
+    @DisplayName("sanitize")
+    class Sanitize {
+
+        @Test
+        @DisplayName("should accept valid prompt text")
+        void shouldAcceptValidPromptText() {
+            var prompt = Prompt.of("Hello, Claude!");
+            var result = sanitizer.sanitize(prompt);
+            assertThat(result).isEqualTo(prompt);
+        }
+
+        @Test
+        @DisplayName("should accept prompt with system prompt")
+        void shouldAcceptPromptWithSystemPrompt() {
+            var prompt = Prompt.builder()
+                    .text("What is the weather?")
+                    .systemPrompt("You are a helpful assistant.")
+                    .build();
+            var result = sanitizer.sanitize(prompt);
+            assertThat(result).isEqualTo(prompt);
+        }
+
+        @Test
+        @DisplayName("should accept prompt with agent name")
+        void shouldAcceptPromptWithAgentName() {
+            var prompt =
+                    Prompt.builder().text("Help me code").agentName("coder").build();
+            var result = sanitizer.sanitize(prompt);
+            assertThat(result).isEqualTo(prompt);
+        }
+
+        @Test
+        @DisplayName("should reject prompt text exceeding max length")
+        void shouldRejectPromptTextExceedingMaxLength() {
+            var longText = "x".repeat(256 * 1024 + 1);
+            var prompt = Prompt.of(longText);
+            assertThatThrownBy(() -> sanitizer.sanitize(prompt))
+                    .isInstanceOf(SecurityException.class)
+                    .hasMessageContaining("exceeds maximum length");
+        }
+
+        @Test
+        @DisplayName("should reject prompt text with null character")
+        void shouldRejectPromptTextWithNullCharacter() {
+            var prompt = Prompt.of("Hello\0World");
+            assertThatThrownBy(() -> sanitizer.sanitize(prompt))
+                    .isInstanceOf(SecurityException.class)
+                    .hasMessageContaining("Null character detected");
+        }
+
+        @Test
+        @DisplayName("should reject system prompt with null character")
+        void shouldRejectSystemPromptWithNullCharacter() {
+            var prompt = Prompt.builder()
+                    .text("Valid text")
+                    .systemPrompt("System\0Prompt")
+                    .build();
+            assertThatThrownBy(() -> sanitizer.sanitize(prompt))
+                    .isInstanceOf(SecurityException.class)
+                    .hasMessageContaining("Null character detected");
+        }
+
+        @Test
+        @DisplayName("should reject agent name with dangerous character")
+        void shouldRejectAgentNameWithDangerousCharacter() {
+            var prompt =
+                    Prompt.builder().text("Valid text").agentName("agent`name").build();
+            assertThatThrownBy(() -> sanitizer.sanitize(prompt))
+                    .isInstanceOf(SecurityException.class)
+                    .hasMessageContaining("Dangerous character");
+        }
+
+        @Test
+        @DisplayName("should reject agent name with command substitution")
+        void shouldRejectAgentNameWithCommandSubstitution() {
+            var prompt =
+                    Prompt.builder().text("Valid text").agentName("$(whoami)").build();
+            assertThatThrownBy(() -> sanitizer.sanitize(prompt))
+                    .isInstanceOf(SecurityException.class)
+                    .hasMessageContaining("Command substitution pattern detected");
+        }
+
+        @Test
+        @DisplayName("should reject agent name exceeding max length")
+        void shouldRejectAgentNameExceedingMaxLength() {
+            var prompt = Prompt.builder()
+                    .text("Valid text")
+                    .agentName("a".repeat(257))
+                    .build();
+            assertThatThrownBy(() -> sanitizer.sanitize(prompt))
+                    .isInstanceOf(SecurityException.class)
+                    .hasMessageContaining("exceeds maximum length of 256");
+        }
+
+        @Test
+        @DisplayName("should accept prompt text with Markdown code blocks")
+        void shouldAcceptPromptTextWithMarkdownCodeBlocks() {
+            var prompt = Prompt.of("Here is some code:\n```java\npublic class Test {}\n```");
+            var result = sanitizer.sanitize(prompt);
+            assertThat(result).isEqualTo(prompt);
+        }
+
+        @Test
+        @DisplayName("should accept prompt text with inline code")
+        void shouldAcceptPromptTextWithInlineCode() {
+            var prompt = Prompt.of("Use the `println()` method to print output");
+            var result = sanitizer.sanitize(prompt);
+            assertThat(result).isEqualTo(prompt);
+        }
+
+        @Test
+        @DisplayName("should accept prompt text with multiple backtick sequences")
+        void shouldAcceptPromptTextWithMultipleBacktickSequences() {
+            var prompt = Prompt.of("Compare `foo()` with `bar()` and ```\nmultiline\ncode\n```");
+            var result = sanitizer.sanitize(prompt);
+            assertThat(result).isEqualTo(prompt);
+        }
+
+        @Test
+        @DisplayName("should accept system prompt with Markdown code blocks")
+        void shouldAcceptSystemPromptWithMarkdownCodeBlocks() {
+            var prompt = Prompt.builder()
+                    .text("Help me with code")
+                    .systemPrompt("Format responses with ```code``` blocks when appropriate")
+                    .build();
+            var result = sanitizer.sanitize(prompt);
+            assertThat(result).isEqualTo(prompt);
+        }
+
+        @Test
+        @DisplayName("should reject agent name with backtick substitution pattern")
+        void shouldRejectAgentNameWithBacktickSubstitutionPattern() {
+            var prompt =
+                    Prompt.builder().text("Valid text").agentName("`rm -rf /`").build();
+            assertThatThrownBy(() -> sanitizer.sanitize(prompt))
+                    .isInstanceOf(SecurityException.class)
+                    .hasMessageContaining("Dangerous character");
+        }
+    }
+
+    @Nested
+    @DisplayName("isValidArgument")
+    class IsValidArgument {
+
+        @Test
+        @DisplayName("should return true for valid argument")
+        void shouldReturnTrueForValidArgument() {
+            assertThat(sanitizer.isValidArgument("valid-argument")).isTrue();
+        }
+
+        @Test
+        @DisplayName("should return false for null argument")
+        void shouldReturnFalseForNullArgument() {
+            assertThat(sanitizer.isValidArgument(null)).isFalse();
+        }
+
+        @Test
+        @DisplayName("should return false for argument exceeding max length")
+        void shouldReturnFalseForArgumentExceedingMaxLength() {
+            var longArg = "x".repeat(256 * 1024 + 1);
+            assertThat(sanitizer.isValidArgument(longArg)).isFalse();
+        }
+
+        @Test
+        @DisplayName("should return false for argument with backtick")
+        void shouldReturnFalseForArgumentWithBacktick() {
+            assertThat(sanitizer.isValidArgument("hello`world")).isFalse();
+        }
+
+        @Test
+        @DisplayName("should return false for argument with null character")
+        void shouldReturnFalseForArgumentWithNullCharacter() {
+            assertThat(sanitizer.isValidArgument("hello\0world")).isFalse();
+        }
+
+        @Test
+        @DisplayName("should return false for argument with command substitution")
+        void shouldReturnFalseForArgumentWithCommandSubstitution() {
+            assertThat(sanitizer.isValidArgument("$(rm -rf /)")).isFalse();
+        }
+
+        @Test
+        @DisplayName("should return false for argument with backtick substitution")
+        void shouldReturnFalseForArgumentWithBacktickSubstitution() {
+            assertThat(sanitizer.isValidArgument("`whoami`")).isFalse();
+        }
+
+        @Test
+        @DisplayName("should return true for safe special characters")
+        void shouldReturnTrueForSafeSpecialCharacters() {
+            assertThat(sanitizer.isValidArgument("hello-world_test.txt")).isTrue();
+            assertThat(sanitizer.isValidArgument("path/to/file")).isTrue();
+            assertThat(sanitizer.isValidArgument("email@example.com")).isTrue();
+        }
+    }
+
+    @Nested
+    @DisplayName("streamed prompts")
+    class Streamed {
+
+        @Test
+        @DisplayName("should pass a clean source through unchanged")
+        void shouldPassCleanSourceThrough() throws Exception {
+            var sanitized = sanitizer.sanitize(Prompt.of(PromptSource.of("Hello, Claude!")));
+            var out = new ByteArrayOutputStream();
+
+            sanitized.source().transferTo(out);
+
+            assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("Hello, Claude!");
+        }
+
+        @Test
+        @DisplayName("should reject a null character while streaming")
+        void shouldRejectNullCharacterWhileStreaming() {
+            var sanitized = sanitizer.sanitize(Prompt.of(PromptSource.of("before after")));
+
+            assertThatThrownBy(() -> sanitized.source().transferTo(new ByteArrayOutputStream()))
+                    .isInstanceOf(SecurityException.class)
+                    .hasMessageContaining("Null character");
+        }
+
+        @Test
+        @DisplayName("should reject a source whose known length exceeds the limit")
+        void shouldRejectOversizedSourceUpFront() {
+            var oversized = new PromptSource() {
+                @Override
+                public void transferTo(java.io.OutputStream out) {}
+
+                @Override
+                public long length() {
+                    return GuardedPromptSource.MAX_BYTES + 1;
+                }
+            };
+
+            assertThatThrownBy(() -> sanitizer.sanitize(Prompt.of(oversized)))
+                    .isInstanceOf(SecurityException.class)
+                    .hasMessageContaining("exceeds maximum length");
+        }
+
+        @Test
+        @DisplayName("should stop a source of unknown length at the limit")
+        void shouldStopUnknownLengthSourceAtLimit() {
+            var chunk = new byte[1024 * 1024];
+            PromptSource endless = out -> {
+                while (true) {
+                    out.write(chunk, 0, chunk.length);
+                }
+            };
+            java.util.Arrays.fill(chunk, (byte) 'a');
+            var sanitized = sanitizer.sanitize(Prompt.of(endless));
+
+            assertThatThrownBy(() -> sanitized.source().transferTo(java.io.OutputStream.nullOutputStream()))
+                    .isInstanceOf(SecurityException.class)
+                    .hasMessageContaining("exceeds maximum length");
+        }
+    }
+
+    @Nested
+    @DisplayName("equivalence with DefaultInputSanitizer")
+    class Equivalence {
+
+        private final DefaultInputSanitizer reference = new DefaultInputSanitizer();
+
+        @Test
+        @DisplayName("should accept and reject exactly what the regex-based sanitizer does")
+        void shouldMatchReferenceOnRandomInput() {
+            var random = new Random(7);
+            var alphabet = "ab $()`\0";
+            for (var i = 0; i < 20_000; i++) {
+                var value = randomText(random, alphabet, random.nextInt(12));
+                assertThat(sanitizer.isValidArgument(value))
+                        .as("isValidArgument(%s)", value)
+                        .isEqualTo(reference.isValidArgument(value));
+
+                var prompt = Prompt.builder()
+                        .text("x" + value)
+                        .agentName("x" + value)
+                        .build();
+                assertThat(outcome(() -> sanitizer.sanitize(prompt)))
+                        .as("sanitize(%s)", value)
+                        .isEqualTo(outcome(() -> reference.sanitize(prompt)));
+            }
+        }
+
+        @Test
+        @DisplayName("should report the first dangerous character")
+        void shouldReportFirstDangerousCharacter() {
+            var prompt = Prompt.builder().text("ok").agentName("a\0b`c").build();
+
+            assertThatThrownBy(() -> sanitizer.sanitize(prompt))
+                    .isInstanceOf(SecurityException.class)
+                    .hasMessage("Dangerous character '\0' detected in agent name");
+        }
+
+        private static String randomText(Random random, String alphabet, int length) {
+            var sb = new StringBuilder(length);
+            for (var i = 0; i < length; i++) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            return sb.toString();
+        }
+
+        private static String outcome(Runnable action) {
+            try {
+                action.run();
+                return "accepted";
+            } catch (SecurityException e) {
+                return e.getMessage();
+            }
+        }
+    }
+}
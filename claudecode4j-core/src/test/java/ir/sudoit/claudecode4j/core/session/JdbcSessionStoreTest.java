@@ -0,0 +1,336 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.core.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ir.sudoit.claudecode4j.api.session.SessionData;
+import ir.sudoit.claudecode4j.api.session.SessionData.ConversationEntry;
+import ir.sudoit.claudecode4j.api.session.SessionQuery;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("JdbcSessionStore")
+class JdbcSessionStoreTest {
+
+    private static final Instant BASE = Instant.parse("2026-01-01T00:00:00.123456789Z");
+
+    private JdbcDataSource dataSource;
+    private JdbcSessionStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        store = new JdbcSessionStore(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    private static SessionData session(String id, int turns, Instant lastActiveAt, Map<String, String> metadata) {
+        var history = new ArrayList<ConversationEntry>();
+        for (var i = 0; i < turns; i++) {
+            history.add(entry(i));
+        }
+        return new SessionData(id, "You are helpful", history, metadata, BASE, lastActiveAt);
+    }
+
+    private static ConversationEntry entry(int turn) {
+        return new ConversationEntry(
+                "prompt " + turn, "response " + turn, BASE.plusSeconds(turn), turn % 2 == 0 ? "sonnet" : null, turn);
+    }
+
+    private int historyRows(String sessionId) throws SQLException {
+        try (var connection = dataSource.getConnection();
+                var statement =
+                        connection.prepareStatement("SELECT COUNT(*) FROM cc4j_history WHERE session_id = ?")) {
+            statement.setString(1, sessionId);
+            try (var rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("save and load")
+    class SaveAndLoad {
+
+        @Test
+        @DisplayName("should round-trip every field")
+        void shouldRoundTripEveryField() throws IOException {
+            var data = session("s1", 3, BASE.plusSeconds(60), Map.of("tenant", "acme", "model", "opus"));
+
+            store.save(data);
+
+            assertThat(store.load("s1")).contains(data);
+            assertThat(store.exists("s1")).isTrue();
+            assertThat(store.listIds()).containsExactly("s1");
+        }
+
+        @Test
+        @DisplayName("should keep a null system prompt and an empty history")
+        void shouldKeepNullSystemPromptAndEmptyHistory() throws IOException {
+            var data = new SessionData("s1", null, List.of(), Map.of(), BASE, BASE);
+
+            store.save(data);
+
+            assertThat(store.load("s1")).contains(data);
+        }
+
+        @Test
+        @DisplayName("should return empty for an unknown session")
+        void shouldReturnEmptyForUnknownSession() throws IOException {
+            assertThat(store.load("missing")).isEmpty();
+            assertThat(store.exists("missing")).isFalse();
+        }
+
+        @Test
+        @DisplayName("should append new history entries to the stored ones")
+        void shouldAppendNewHistoryEntries() throws IOException, SQLException {
+            store.save(session("s1", 2, BASE, Map.of()));
+            var extended = session("s1", 5, BASE.plusSeconds(10), Map.of("tenant", "acme"));
+
+            store.save(extended);
+
+            assertThat(store.load("s1")).contains(extended);
+            assertThat(historyRows("s1")).isEqualTo(5);
+        }
+
+        @Test
+        @DisplayName("should insert only the new entries when the stored ones are unchanged")
+        void shouldNotRewriteUnchangedEntries() throws IOException, SQLException {
+            store.save(session("s1", 2, BASE, Map.of()));
+            // Marks a stored row; a rewrite would replace it
+            try (var connection = dataSource.getConnection();
+                    var statement = connection.prepareStatement(
+                            "UPDATE cc4j_history SET response = 'marked' WHERE session_id = 's1' AND seq = 0")) {
+                statement.executeUpdate();
+            }
+
+            store.save(session("s1", 4, BASE.plusSeconds(10), Map.of()));
+
+            var history = store.load("s1").orElseThrow().history();
+            assertThat(history).hasSize(4);
+            assertThat(history.getFirst().response()).isEqualTo("marked");
+            assertThat(history.getLast()).isEqualTo(entry(3));
+        }
+
+        @Test
+        @DisplayName("should rewrite the history when a middle entry was edited")
+        void shouldRewriteHistoryWhenMiddleEntryWasEdited() throws IOException {
+            store.save(session("s1", 5, BASE, Map.of()));
+            var history = new ArrayList<>(session("s1", 6, BASE, Map.of()).history());
+            history.set(2, new ConversationEntry("edited prompt", "response 2", BASE.plusSeconds(2), "sonnet", 2));
+            var edited = new SessionData("s1", null, history, Map.of(), BASE, BASE.plusSeconds(10));
+
+            store.save(edited);
+
+            assertThat(store.load("s1")).contains(edited);
+        }
+
+        @Test
+        @DisplayName("should rewrite the history when an existing response was edited")
+        void shouldRewriteHistoryWhenResponseWasEdited() throws IOException {
+            store.save(session("s1", 3, BASE, Map.of()));
+            var history = new ArrayList<>(session("s1", 4, BASE, Map.of()).history());
+            var last = history.get(2);
+            history.set(
+                    2,
+                    new ConversationEntry(
+                            last.prompt(), "regenerated", last.timestamp(), last.model(), last.tokensUsed()));
+            var edited = new SessionData("s1", null, history, Map.of(), BASE, BASE.plusSeconds(10));
+
+            store.save(edited);
+
+            assertThat(store.load("s1")).contains(edited);
+        }
+
+        @Test
+        @DisplayName("should rewrite the history when only token usage changed")
+        void shouldRewriteHistoryWhenTokenUsageChanged() throws IOException {
+            store.save(session("s1", 2, BASE, Map.of()));
+            var first = entry(0);
+            var history = List.of(
+                    new ConversationEntry(first.prompt(), first.response(), first.timestamp(), first.model(), null),
+                    entry(1),
+                    entry(2));
+            var edited = new SessionData("s1", null, history, Map.of(), BASE, BASE.plusSeconds(10));
+
+            store.save(edited);
+
+            assertThat(store.load("s1")).contains(edited);
+        }
+
+        @Test
+        @DisplayName("should rewrite the history when older entries were dropped")
+        void shouldRewriteHistoryWhenOlderEntriesWereDropped() throws IOException, SQLException {
+            store.save(session("s1", 3, BASE, Map.of()));
+            var window = new SessionData(
+                    "s1", null, List.of(entry(1), entry(2), entry(3)), Map.of(), BASE, BASE.plusSeconds(10));
+
+            store.save(window);
+
+            assertThat(store.load("s1")).contains(window);
+            assertThat(historyRows("s1")).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("should write histories larger than one batch")
+        void shouldWriteHistoriesLargerThanOneBatch() throws IOException {
+            var data = session("s1", 600, BASE, Map.of());
+
+            store.save(data);
+
+            assertThat(store.load("s1").orElseThrow().history()).isEqualTo(data.history());
+        }
+
+        @Test
+        @DisplayName("should share sessions between stores on the same database")
+        void shouldShareSessionsBetweenStores() throws IOException {
+            try (var other = new JdbcSessionStore(dataSource)) {
+                other.save(session("s1", 1, BASE, Map.of()));
+
+                assertThat(store.load("s1")).isPresent();
+            }
+        }
+
+        @Test
+        @DisplayName("should store values at the column limits and reject longer ones")
+        void shouldRejectValuesBeyondColumnLimits() throws IOException {
+            var id = "s".repeat(JdbcSessionStore.MAX_KEY_LENGTH);
+            var value = "v".repeat(JdbcSessionStore.MAX_METADATA_VALUE_LENGTH);
+            var data = session(id, 1, BASE, Map.of("k".repeat(JdbcSessionStore.MAX_KEY_LENGTH), value));
+
+            store.save(data);
+
+            assertThat(store.load(id)).contains(data);
+            assertThatThrownBy(() -> store.save(session(id + "s", 1, BASE, Map.of())))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("Session ID");
+            assertThatThrownBy(() -> store.save(session("s1", 1, BASE, Map.of("tenant", value + "v"))))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("tenant");
+            assertThat(store.exists("s1")).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("delete")
+    class Delete {
+
+        @Test
+        @DisplayName("should delete a session with its history and metadata")
+        void shouldDeleteSessionWithItsRows() throws IOException, SQLException {
+            store.save(session("s1", 3, BASE, Map.of("tenant", "acme")));
+
+            assertThat(store.delete("s1")).isTrue();
+            assertThat(store.delete("s1")).isFalse();
+            assertThat(store.load("s1")).isEmpty();
+            assertThat(historyRows("s1")).isZero();
+        }
+
+        @Test
+        @DisplayName("should delete only sessions inactive for longer than the maximum age")
+        void shouldDeleteOnlyExpiredSessions() throws IOException {
+            var now = Instant.now();
+            store.save(session("old", 1, now.minus(Duration.ofHours(2)), Map.of()));
+            store.save(session("fresh", 1, now, Map.of()));
+
+            assertThat(store.deleteOlderThan(Duration.ofHours(1))).isEqualTo(1);
+            assertThat(store.listIds()).containsExactly("fresh");
+        }
+
+        @Test
+        @DisplayName("should clear every session")
+        void shouldClearEverySession() throws IOException {
+            store.save(session("s1", 1, BASE, Map.of()));
+            store.save(session("s2", 1, BASE, Map.of()));
+
+            store.clear();
+
+            assertThat(store.listIds()).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("query")
+    class Query {
+
+        @BeforeEach
+        void saveSessions() throws IOException {
+            for (var i = 0; i < 30; i++) {
+                var tenant = i % 3 == 0 ? "acme" : "other";
+                store.save(session("s" + i, 1, BASE.plusSeconds(i), Map.of("tenant", tenant)));
+            }
+        }
+
+        @Test
+        @DisplayName("should page through matching sessions newest first")
+        void shouldPageThroughMatchingSessionsNewestFirst() throws IOException {
+            var ids = new ArrayList<String>();
+            String cursor = null;
+            do {
+                var page = store.query(SessionQuery.builder()
+                        .metadata("tenant", "acme")
+                        .newestFirst()
+                        .limit(4)
+                        .cursor(cursor)
+                        .build());
+                page.sessions().forEach(data -> ids.add(data.sessionId()));
+                cursor = page.nextCursor();
+            } while (cursor != null);
+
+            assertThat(ids).containsExactly("s27", "s24", "s21", "s18", "s15", "s12", "s9", "s6", "s3", "s0");
+        }
+
+        @Test
+        @DisplayName("should filter by activity range oldest first")
+        void shouldFilterByActivityRange() throws IOException {
+            var page = store.query(SessionQuery.builder()
+                    .activeFrom(BASE.plusSeconds(10))
+                    .activeUntil(BASE.plusSeconds(13))
+                    .build());
+
+            assertThat(page.sessions()).extracting(SessionData::sessionId).containsExactly("s10", "s11", "s12");
+            assertThat(page.hasNext()).isFalse();
+        }
+    }
+}
@@ -27,6 +27,7 @@ import ir.sudoit.claudecode4j.api.client.ClaudeClient;
 import ir.sudoit.claudecode4j.kafka.config.ClaudeKafkaProperties;
 import ir.sudoit.claudecode4j.kafka.listener.ClaudeKafkaListener;
 import ir.sudoit.claudecode4j.kafka.producer.ClaudeKafkaProducer;
+import ir.sudoit.claudecode4j.spring.autoconfigure.ClaudeCodeAutoConfiguration;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
@@ -47,7 +48,7 @@ import org.springframework.kafka.requestreply.ReplyingKafkaTemplate;
  * <p>Configures a request-reply messaging pattern using Spring Kafka's {@link ReplyingKafkaTemplate} for automatic
  * correlation handling.
  */
-@AutoConfiguration
+@AutoConfiguration(after = ClaudeCodeAutoConfiguration.class)
 @ConditionalOnClass(KafkaTemplate.class)
 @ConditionalOnBean(ClaudeClient.class)
 @ConditionalOnProperty(prefix = "claude.code.kafka", name = "enabled", havingValue = "true", matchIfMissing = false)
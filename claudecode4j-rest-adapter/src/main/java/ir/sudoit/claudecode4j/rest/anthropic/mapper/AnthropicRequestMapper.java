@@ -46,6 +46,10 @@ public final class AnthropicRequestMapper {
      *   <li>Extract tool_use blocks for context
      * </ul>
      *
+     * <p>The system prompt is passed through unchanged and messages are joined in request order, so a client that
+     * resends a conversation with new turns appended produces a prompt that starts with the previous one. That shared
+     * start is what upstream prompt caching reuses; the mapping must not add per-request content in front of it.
+     *
      * @param request the Anthropic request
      * @return the mapped Prompt
      */
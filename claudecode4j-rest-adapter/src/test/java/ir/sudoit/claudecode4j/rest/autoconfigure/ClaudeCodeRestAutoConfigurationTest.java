@@ -0,0 +1,47 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.rest.autoconfigure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ir.sudoit.claudecode4j.rest.controller.ClaudeController;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+
+class ClaudeCodeRestAutoConfigurationTest {
+
+    /** Referenced by name, as this module does not read the starter's. */
+    private static final String CLIENT_AUTO_CONFIGURATION =
+            "ir.sudoit.claudecode4j.spring.autoconfigure.ClaudeCodeAutoConfiguration";
+
+    @Test
+    void shouldConfigureControllersAfterTheClientWhateverTheListedOrder() throws ClassNotFoundException {
+        // Listed first, so only the declared ordering lets @ConditionalOnBean(ClaudeClient) match
+        new WebApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(
+                        ClaudeCodeRestAutoConfiguration.class, Class.forName(CLIENT_AUTO_CONFIGURATION)))
+                .run(context -> assertThat(context).hasSingleBean(ClaudeController.class));
+    }
+}
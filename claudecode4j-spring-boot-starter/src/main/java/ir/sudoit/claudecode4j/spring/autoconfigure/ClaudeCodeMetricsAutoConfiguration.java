@@ -25,6 +25,7 @@ package ir.sudoit.claudecode4j.spring.autoconfigure;
 
 import io.micrometer.core.instrument.MeterRegistry;
 import ir.sudoit.claudecode4j.api.client.ClaudeClient;
+import ir.sudoit.claudecode4j.core.client.DefaultClaudeClient;
 import ir.sudoit.claudecode4j.spring.metrics.ClaudeCodeMetrics;
 import ir.sudoit.claudecode4j.spring.properties.ClaudeCodeProperties;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
@@ -42,7 +43,12 @@ public class ClaudeCodeMetricsAutoConfiguration {
 
     @Bean
     @ConditionalOnMissingBean
-    public ClaudeCodeMetrics claudeCodeMetrics(MeterRegistry registry, ClaudeCodeProperties properties) {
-        return new ClaudeCodeMetrics(registry, properties.getMetricsPrefix());
+    public ClaudeCodeMetrics claudeCodeMetrics(
+            MeterRegistry registry, ClaudeCodeProperties properties, ClaudeClient claudeClient) {
+        var metrics = new ClaudeCodeMetrics(registry, properties.getMetricsPrefix());
+        if (claudeClient instanceof DefaultClaudeClient client) {
+            client.phaseMetrics().addListener(metrics);
+        }
+        return metrics;
     }
 }
@@ -24,13 +24,18 @@
 package ir.sudoit.claudecode4j.spring.metrics;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
+import ir.sudoit.claudecode4j.core.metrics.ExecutionPhase;
+import ir.sudoit.claudecode4j.core.metrics.PhaseMetrics;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
-public class ClaudeCodeMetrics {
+public class ClaudeCodeMetrics implements PhaseMetrics.Listener {
 
     private final AtomicInteger activeRequests = new AtomicInteger(0);
     private final AtomicInteger queuedRequests = new AtomicInteger(0);
@@ -39,6 +44,8 @@ public class ClaudeCodeMetrics {
     private final Counter successCounter;
     private final Counter failureCounter;
     private final Counter timeoutCounter;
+    private final Timer[] phaseTimers = new Timer[ExecutionPhase.values().length];
+    private final DistributionSummary outputRate;
 
     public ClaudeCodeMetrics(MeterRegistry registry, String prefix) {
         this.executionTimer = Timer.builder(prefix + ".execution.duration")
@@ -46,6 +53,20 @@ public class ClaudeCodeMetrics {
                 .publishPercentileHistogram()
                 .register(registry);
 
+        for (var phase : ExecutionPhase.values()) {
+            phaseTimers[phase.ordinal()] = Timer.builder(prefix + ".execution.phase")
+                    .description("Duration of each phase of Claude CLI executions")
+                    .tag("phase", phase.name().toLowerCase(Locale.ROOT))
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+
+        this.outputRate = DistributionSummary.builder(prefix + ".output.tokens.rate")
+                .description("Output tokens generated per second")
+                .baseUnit("tokens/s")
+                .publishPercentileHistogram()
+                .register(registry);
+
         this.successCounter = Counter.builder(prefix + ".executions.success")
                 .description("Number of successful executions")
                 .register(registry);
@@ -95,6 +116,19 @@ public class ClaudeCodeMetrics {
         timeoutCounter.increment();
     }
 
+    @Override
+    public void onPhase(ExecutionPhase phase, long nanos) {
+        phaseTimers[phase.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+        if (phase == ExecutionPhase.TOTAL) {
+            executionTimer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void onOutputRate(double tokensPerSecond) {
+        outputRate.record(tokensPerSecond);
+    }
+
     public <T> T recordExecution(Supplier<T> execution) {
         return executionTimer.record(execution);
     }
@@ -23,6 +23,7 @@
  */
 package ir.sudoit.claudecode4j.spring.resilience;
 
+import ir.sudoit.claudecode4j.api.model.request.PromptSource;
 import ir.sudoit.claudecode4j.api.spi.ProcessExecutor;
 import java.nio.file.Path;
 import java.time.Duration;
@@ -65,6 +66,13 @@ public final class ResilientProcessExecutor implements ProcessExecutor {
         return retryTemplate.execute(context -> delegate.execute(command, workingDirectory, timeout, stdinInput));
     }
 
+    /** Retries rewrite the source, so it must be repeatable; a source over an {@code InputStream} fails on retry. */
+    @Override
+    public ExecutionResult executeWithStdin(
+            List<String> command, Path workingDirectory, Duration timeout, PromptSource stdin) {
+        return retryTemplate.execute(context -> delegate.executeWithStdin(command, workingDirectory, timeout, stdin));
+    }
+
     @Override
     public CompletableFuture<ExecutionResult> executeAsync(
             List<String> command, Path workingDirectory, Duration timeout) {
@@ -99,6 +107,16 @@ public final class ResilientProcessExecutor implements ProcessExecutor {
         return delegate.executeStreaming(command, workingDirectory, lineConsumer, timeout, stdinInput);
     }
 
+    @Override
+    public CompletableFuture<Integer> executeStreamingWithStdin(
+            List<String> command,
+            Path workingDirectory,
+            Consumer<String> lineConsumer,
+            Duration timeout,
+            PromptSource stdin) {
+        return delegate.executeStreamingWithStdin(command, workingDirectory, lineConsumer, timeout, stdin);
+    }
+
     /**
      * Returns the underlying process executor.
      *
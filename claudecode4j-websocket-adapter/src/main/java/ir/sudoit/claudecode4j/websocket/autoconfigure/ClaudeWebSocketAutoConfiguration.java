@@ -24,6 +24,7 @@
 package ir.sudoit.claudecode4j.websocket.autoconfigure;
 
 import ir.sudoit.claudecode4j.api.client.ClaudeClient;
+import ir.sudoit.claudecode4j.spring.autoconfigure.ClaudeCodeAutoConfiguration;
 import ir.sudoit.claudecode4j.websocket.config.WebSocketConfig;
 import ir.sudoit.claudecode4j.websocket.handler.ClaudeWebSocketHandler;
 import ir.sudoit.claudecode4j.websocket.session.SessionRegistry;
@@ -40,7 +41,7 @@ import org.springframework.web.socket.WebSocketHandler;
 import tools.jackson.databind.ObjectMapper;
 
 /** Auto-configuration for WebSocket terminal. */
-@AutoConfiguration
+@AutoConfiguration(after = ClaudeCodeAutoConfiguration.class)
 @ConditionalOnClass(WebSocketHandler.class)
 @ConditionalOnWebApplication
 @ConditionalOnBean(ClaudeClient.class)
@@ -52,7 +53,7 @@ public class ClaudeWebSocketAutoConfiguration {
     @Bean
     @ConditionalOnMissingBean
     public SessionRegistry sessionRegistry(ClaudeWebSocketProperties properties) {
-        return new SessionRegistry(properties.maxSessions());
+        return new SessionRegistry(properties.maxSessions(), properties.sessionTimeout());
     }
 
     @Bean
@@ -87,6 +87,7 @@ public class ClaudeWebSocketHandler extends TextWebSocketHandler {
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
         String sessionId = session.getId();
         String payload = message.getPayload();
+        sessionRegistry.touch(sessionId);
 
         try {
             // Parse the incoming message to determine type
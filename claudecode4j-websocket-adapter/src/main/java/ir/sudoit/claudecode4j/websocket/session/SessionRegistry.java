@@ -23,19 +23,35 @@
  */
 package ir.sudoit.claudecode4j.websocket.session;
 
+import ir.sudoit.claudecode4j.api.session.TimingWheelExpiry;
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import org.jspecify.annotations.Nullable;
+import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.WebSocketSession;
 
-/** Registry for managing active WebSocket sessions. */
-public final class SessionRegistry {
+/**
+ * Registry for managing active WebSocket sessions.
+ *
+ * <p>Created with an idle timeout, the registry unregisters sessions idle for longer than it using a
+ * {@link TimingWheelExpiry}, without scanning the registry, and closes them with
+ * {@link CloseStatus#SESSION_NOT_RELIABLE}.
+ */
+public final class SessionRegistry implements AutoCloseable {
+
+    private static final Logger LOG = System.getLogger(SessionRegistry.class.getName());
 
     private final ConcurrentMap<String, SessionEntry> sessions = new ConcurrentHashMap<>();
     private final int maxSessions;
+    private final @Nullable Duration idleTimeout;
+    private final @Nullable TimingWheelExpiry<String> expiry;
 
     public SessionRegistry() {
         this(100);
@@ -43,6 +59,24 @@ public final class SessionRegistry {
 
     public SessionRegistry(int maxSessions) {
         this.maxSessions = maxSessions;
+        this.idleTimeout = null;
+        this.expiry = null;
+    }
+
+    /**
+     * Creates a registry that unregisters sessions idle for longer than {@code idleTimeout}.
+     *
+     * @param maxSessions the maximum number of concurrent sessions
+     * @param idleTimeout how long a session may go without activity
+     */
+    public SessionRegistry(int maxSessions, Duration idleTimeout) {
+        this(maxSessions, idleTimeout, Duration.ofSeconds(1));
+    }
+
+    SessionRegistry(int maxSessions, Duration idleTimeout, Duration tick) {
+        this.maxSessions = maxSessions;
+        this.idleTimeout = idleTimeout;
+        this.expiry = new TimingWheelExpiry<>(tick, this::expire);
     }
 
     /**
@@ -59,9 +93,23 @@ public final class SessionRegistry {
 
         String sessionId = session.getId();
         sessions.put(sessionId, new SessionEntry(session, Instant.now()));
+        scheduleExpiry(sessionId);
         return sessionId;
     }
 
+    /**
+     * Records activity on a session, postponing its idle expiry.
+     *
+     * @param sessionId the session ID
+     */
+    public void touch(String sessionId) {
+        SessionEntry entry = sessions.get(sessionId);
+        if (entry != null) {
+            entry.updateLastActivity();
+            scheduleExpiry(sessionId);
+        }
+    }
+
     /**
      * Unregisters a session by ID.
      *
@@ -69,6 +117,9 @@ public final class SessionRegistry {
      */
     public void unregister(String sessionId) {
         sessions.remove(sessionId);
+        if (expiry != null) {
+            expiry.cancel(sessionId);
+        }
     }
 
     /**
@@ -81,6 +132,7 @@ public final class SessionRegistry {
         SessionEntry entry = sessions.get(sessionId);
         if (entry != null) {
             entry.updateLastActivity();
+            scheduleExpiry(sessionId);
             return Optional.of(entry.session());
         }
         return Optional.empty();
@@ -128,6 +180,54 @@ public final class SessionRegistry {
                         Map.Entry::getKey, e -> e.getValue().session()));
     }
 
+    /**
+     * Returns the number of sessions unregistered and closed by the idle timeout.
+     *
+     * @return the expiry count, or {@code 0} without an idle timeout
+     */
+    public long expiredCount() {
+        return expiry == null ? 0 : expiry.expiredCount();
+    }
+
+    /** Stops the idle-expiry thread, if any. */
+    @Override
+    public void close() {
+        if (expiry != null) {
+            expiry.close();
+        }
+    }
+
+    private void scheduleExpiry(String sessionId) {
+        if (expiry != null) {
+            expiry.schedule(sessionId, idleTimeout);
+        }
+    }
+
+    private void expire(String sessionId) {
+        // Activity may have raced with the expiry
+        Instant cutoff = Instant.now().minus(idleTimeout);
+        var expired = new SessionEntry[1];
+        var kept = new SessionEntry[1];
+        sessions.computeIfPresent(sessionId, (id, entry) -> {
+            if (entry.lastActivity().isAfter(cutoff)) {
+                kept[0] = entry;
+                return entry;
+            }
+            expired[0] = entry;
+            return null;
+        });
+        if (kept[0] != null) {
+            expiry.schedule(sessionId, Duration.between(cutoff, kept[0].lastActivity()));
+        } else if (expired[0] != null) {
+            // An unregistered session no longer counts towards maxSessions, so it must not stay open
+            try {
+                expired[0].session().close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "Failed to close idle session {0}: {1}", sessionId, e.getMessage());
+            }
+        }
+    }
+
     private static final class SessionEntry {
         private final WebSocketSession session;
         private volatile Instant lastActivity;
@@ -0,0 +1,100 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Mahdi Amirabdollahi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package ir.sudoit.claudecode4j.websocket.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+class SessionRegistryTest {
+
+    private SessionRegistry registry;
+
+    @AfterEach
+    void tearDown() {
+        if (registry != null) {
+            registry.close();
+        }
+    }
+
+    @Test
+    void shouldCloseSessionsThatExpire() throws Exception {
+        registry = new SessionRegistry(1, Duration.ofMillis(50), Duration.ofMillis(5));
+        WebSocketSession idle = session("idle");
+
+        registry.register(idle);
+
+        verify(idle, timeout(5000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(registry.size()).isZero();
+        assertThat(registry.expiredCount()).isEqualTo(1);
+        registry.register(session("next"));
+        assertThat(registry.size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldKeepSessionsThatAreTouched() throws Exception {
+        registry = new SessionRegistry(2, Duration.ofMillis(200), Duration.ofMillis(5));
+        WebSocketSession active = session("active");
+        WebSocketSession idle = session("idle");
+        registry.register(active);
+        registry.register(idle);
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (registry.size() == 2 && System.nanoTime() < deadline) {
+            registry.touch("active");
+            Thread.sleep(5);
+        }
+
+        verify(idle, timeout(5000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+
+        assertThat(registry.get("active")).isPresent();
+        verify(active, never()).close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    @Test
+    void shouldRejectSessionsBeyondTheLimit() {
+        registry = new SessionRegistry(1);
+        registry.register(session("first"));
+
+        assertThatThrownBy(() -> registry.register(session("second")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Maximum session limit reached");
+    }
+
+    private static WebSocketSession session(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        return session;
+    }
+}